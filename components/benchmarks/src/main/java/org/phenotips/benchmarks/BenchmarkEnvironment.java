@@ -0,0 +1,200 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses/
+ */
+package org.phenotips.benchmarks;
+
+import org.phenotips.components.ComponentManagerRegistry;
+import org.phenotips.data.internal.controller.IdentifiersController;
+import org.phenotips.data.internal.controller.PatientNameController;
+import org.phenotips.data.internal.controller.SexController;
+import org.phenotips.data.internal.controller.TextNotesController;
+import org.phenotips.vocabulary.SolrCoreContainerHandler;
+import org.phenotips.vocabulary.Vocabulary;
+import org.phenotips.vocabulary.internal.DefaultVocabularyManager;
+import org.phenotips.vocabulary.internal.solr.DefaultSolrCoreRegistry;
+import org.phenotips.vocabulary.internal.solr.DefaultSolrVocabularyResourceManager;
+import org.phenotips.vocabulary.internal.solr.HumanPhenotypeOntology;
+
+import org.xwiki.bridge.DocumentAccessBridge;
+import org.xwiki.cache.CacheManager;
+import org.xwiki.component.annotation.ComponentAnnotationLoader;
+import org.xwiki.component.descriptor.ComponentDescriptor;
+import org.xwiki.component.descriptor.DefaultComponentDescriptor;
+import org.xwiki.component.embed.EmbeddableComponentManager;
+import org.xwiki.component.manager.ComponentLookupException;
+import org.xwiki.component.manager.ComponentManager;
+import org.xwiki.component.manager.ComponentRepositoryException;
+import org.xwiki.component.util.ReflectionUtils;
+import org.xwiki.configuration.ConfigurationSource;
+import org.xwiki.context.internal.DefaultExecution;
+
+import java.io.Closeable;
+import java.lang.reflect.Type;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import javax.inject.Provider;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.solr.core.CoreContainer;
+
+import com.xpn.xwiki.doc.XWikiDocument;
+import com.xpn.xwiki.web.Utils;
+
+/**
+ * Runs the PhenoTips components outside of a wiki: a component manager holding the real vocabulary and patient data
+ * components, backed by an embedded Solr server set up in a temporary directory from the shipped Solr configuration,
+ * in-memory caches, and in-memory patient documents. Everything is created locally, nothing is downloaded.
+ *
+ * @version $Id$
+ * @since 1.3M1
+ */
+public class BenchmarkEnvironment implements Closeable
+{
+    private static final String VOCABULARY = "hpo";
+
+    private final Path home;
+
+    private final EmbeddableComponentManager componentManager = new EmbeddableComponentManager();
+
+    private final MapCacheManager caches;
+
+    private final CoreContainer cores;
+
+    private final InMemoryDocumentAccessBridge documents = new InMemoryDocumentAccessBridge();
+
+    /**
+     * Sets up the components.
+     *
+     * @param caching whether the vocabulary caches are enabled
+     * @throws Exception if setting up the Solr server or the components fails
+     */
+    public BenchmarkEnvironment(boolean caching) throws Exception
+    {
+        this.home = Files.createTempDirectory("phenotips-benchmarks");
+        this.caches = new MapCacheManager(caching);
+
+        // Static access to components, used by the patient data and export code
+        ReflectionUtils.setFieldValue(new ComponentManagerRegistry(), "cmProvider", new Provider<ComponentManager>()
+        {
+            @Override
+            public ComponentManager get()
+            {
+                return BenchmarkEnvironment.this.componentManager;
+            }
+        });
+        Utils.setComponentManager(this.componentManager);
+
+        this.cores = new CoreContainer(SolrHome.create(this.home, VOCABULARY).toString());
+        this.cores.load();
+        registerInstance(SolrCoreContainerHandler.class, null, new SolrCoreContainerHandler()
+        {
+            @Override
+            public CoreContainer getContainer()
+            {
+                return BenchmarkEnvironment.this.cores;
+            }
+        });
+        registerInstance(CacheManager.class, null, this.caches);
+        registerInstance(ConfigurationSource.class, "xwikiproperties", new DefaultValuesConfigurationSource());
+        registerInstance(DocumentAccessBridge.class, null, this.documents.getBridge());
+
+        register(DefaultExecution.class, DefaultSolrCoreRegistry.class, DefaultSolrVocabularyResourceManager.class,
+            HumanPhenotypeOntology.class, DefaultVocabularyManager.class, IdentifiersController.class,
+            PatientNameController.class, SexController.class, TextNotesController.class);
+    }
+
+    /**
+     * Indexes an ontology in the HPO vocabulary.
+     *
+     * @param ontology the ontology to index
+     * @return the HPO vocabulary, ready to use
+     * @throws Exception if indexing fails
+     */
+    public HumanPhenotypeOntology indexOntology(SyntheticOntology ontology) throws Exception
+    {
+        Path source = this.home.resolve("hp.obo");
+        ontology.write(source.toFile());
+        HumanPhenotypeOntology result = (HumanPhenotypeOntology) getInstance(Vocabulary.class, VOCABULARY);
+        int status = result.reindex(source.toUri().toURL().toString());
+        if (status != 0) {
+            throw new IllegalStateException("Failed to index the benchmark ontology: " + status);
+        }
+        return result;
+    }
+
+    /**
+     * Makes a document available through the {@link DocumentAccessBridge}.
+     *
+     * @param document the document to add
+     */
+    public void addDocument(XWikiDocument document)
+    {
+        this.documents.addDocument(document);
+    }
+
+    /**
+     * Looks up a component.
+     *
+     * @param role the role of the component
+     * @param hint the hint of the component
+     * @param <T> the type of the component
+     * @return the component
+     * @throws ComponentLookupException if the component isn't available
+     */
+    public <T> T getInstance(Type role, String hint) throws ComponentLookupException
+    {
+        return this.componentManager.getInstance(role, hint);
+    }
+
+    /** Empties all the caches, so that the next requests reach the code behind them. */
+    public void clearCaches()
+    {
+        this.caches.clearAll();
+    }
+
+    @Override
+    public void close()
+    {
+        this.componentManager.dispose();
+        this.cores.shutdown();
+        FileUtils.deleteQuietly(this.home.toFile());
+    }
+
+    private <T> void registerInstance(Class<T> role, String hint, T instance) throws ComponentRepositoryException
+    {
+        DefaultComponentDescriptor<T> descriptor = new DefaultComponentDescriptor<>();
+        descriptor.setRoleType(role);
+        if (hint != null) {
+            descriptor.setRoleHint(hint);
+        }
+        @SuppressWarnings("unchecked")
+        Class<? extends T> implementation = (Class<? extends T>) instance.getClass();
+        descriptor.setImplementation(implementation);
+        this.componentManager.registerComponent(descriptor, instance);
+    }
+
+    private void register(Class<?>... implementations) throws ComponentRepositoryException
+    {
+        ComponentAnnotationLoader loader = new ComponentAnnotationLoader();
+        for (Class<?> implementation : implementations) {
+            for (ComponentDescriptor<?> descriptor : loader.getComponentsDescriptors(implementation)) {
+                this.componentManager.registerComponent(descriptor);
+            }
+        }
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses/
+ */
+package org.phenotips.benchmarks;
+
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Walks through the benchmark inputs, so that each invocation works on a different item instead of hitting the same
+ * one over and over.
+ *
+ * @version $Id$
+ * @since 1.3M1
+ */
+@State(Scope.Thread)
+public class Cursor
+{
+    private int position;
+
+    /**
+     * Moves to the next item.
+     *
+     * @param items the inputs, must not be empty
+     * @param <T> the type of the inputs
+     * @return the next item, starting over after the last one
+     */
+    public <T> T next(List<T> items)
+    {
+        if (++this.position >= items.size()) {
+            this.position = 0;
+        }
+        return items.get(this.position);
+    }
+}
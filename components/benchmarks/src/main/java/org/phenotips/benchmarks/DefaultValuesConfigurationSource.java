@@ -0,0 +1,68 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses/
+ */
+package org.phenotips.benchmarks;
+
+import org.xwiki.configuration.ConfigurationSource;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Empty configuration, so that the benchmarked components run with their default settings.
+ *
+ * @version $Id$
+ * @since 1.3M1
+ */
+public class DefaultValuesConfigurationSource implements ConfigurationSource
+{
+    @Override
+    public <T> T getProperty(String key, T defaultValue)
+    {
+        return defaultValue;
+    }
+
+    @Override
+    public <T> T getProperty(String key, Class<T> valueClass)
+    {
+        return null;
+    }
+
+    @Override
+    public <T> T getProperty(String key)
+    {
+        return null;
+    }
+
+    @Override
+    public List<String> getKeys()
+    {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public boolean containsKey(String key)
+    {
+        return false;
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        return true;
+    }
+}
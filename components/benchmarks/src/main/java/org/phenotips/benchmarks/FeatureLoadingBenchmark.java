@@ -0,0 +1,142 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses/
+ */
+package org.phenotips.benchmarks;
+
+import org.phenotips.Constants;
+import org.phenotips.data.Feature;
+import org.phenotips.data.FeatureMetadatum;
+import org.phenotips.data.Patient;
+import org.phenotips.data.internal.PhenoTipsPatient;
+
+import org.xwiki.model.EntityType;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.EntityReference;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.xpn.xwiki.doc.XWikiDocument;
+import com.xpn.xwiki.objects.BaseObject;
+import com.xpn.xwiki.objects.DBStringListProperty;
+
+/**
+ * Loading the features of a single large patient record, where every phenotype has qualifiers and comments, and half of
+ * them have custom categories. Doesn't need any running components, since loading features only reads the document.
+ *
+ * @version $Id$
+ * @since 1.3M1
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FeatureLoadingBenchmark
+{
+    private static final EntityReference CATEGORY_CLASS_REFERENCE =
+        new EntityReference("PhenotypeCategoryClass", EntityType.DOCUMENT, Constants.CODE_SPACE_REFERENCE);
+
+    private static final String PHENOTYPE = "phenotype";
+
+    private static final String TARGET_NAME = "target_property_name";
+
+    private static final String TARGET_VALUE = "target_property_value";
+
+    /** The number of phenotypes in the record, all of them observed. */
+    @Param({ "50", "500" })
+    public int featureCount;
+
+    private XWikiDocument document;
+
+    /** Generates the patient record. */
+    @Setup(Level.Trial)
+    public void setUp()
+    {
+        List<String> ids = new ArrayList<>(this.featureCount);
+        List<BaseObject> metadata = new ArrayList<>(this.featureCount);
+        List<BaseObject> categories = new ArrayList<>(this.featureCount / 2 + 1);
+        for (int i = 0; i < this.featureCount; ++i) {
+            String id = String.format("HP:%07d", 1000 + i);
+            ids.add(id);
+
+            BaseObject meta = newTargetingObject(id);
+            meta.setStringValue(FeatureMetadatum.Type.AGE_OF_ONSET.toString(), "HP:0003577");
+            meta.setStringValue(FeatureMetadatum.Type.SEVERITY.toString(), "HP:0012828");
+            meta.setLargeStringValue("comments", "Observed since birth, " + id);
+            metadata.add(meta);
+
+            if (i % 2 == 0) {
+                BaseObject category = newTargetingObject(id);
+                DBStringListProperty values = new DBStringListProperty();
+                values.setList(Collections.singletonList("HP:0000478"));
+                category.safeput("target_property_category", values);
+                categories.add(category);
+            }
+        }
+        BaseObject data = new BaseObject();
+        DBStringListProperty phenotypes = new DBStringListProperty();
+        phenotypes.setList(ids);
+        data.safeput(PHENOTYPE, phenotypes);
+
+        InMemoryDocument patient = new InMemoryDocument(new DocumentReference("xwiki", "data", "P0000001"));
+        patient.addObject(Patient.CLASS_REFERENCE, data);
+        for (BaseObject meta : metadata) {
+            patient.addObject(FeatureMetadatum.CLASS_REFERENCE, meta);
+        }
+        for (BaseObject category : categories) {
+            patient.addObject(CATEGORY_CLASS_REFERENCE, category);
+        }
+        this.document = patient;
+    }
+
+    /**
+     * Loads the features of the patient, along with their metadata and categories.
+     *
+     * @return the loaded features
+     */
+    @Benchmark
+    public Set<? extends Feature> loadFeatures()
+    {
+        return new PhenoTipsPatient(this.document).getFeatures();
+    }
+
+    private static BaseObject newTargetingObject(String id)
+    {
+        BaseObject result = new BaseObject();
+        result.setStringValue(TARGET_NAME, PHENOTYPE);
+        result.setStringValue(TARGET_VALUE, id);
+        return result;
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses/
+ */
+package org.phenotips.benchmarks;
+
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.EntityReference;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.xpn.xwiki.doc.XWikiDocument;
+import com.xpn.xwiki.objects.BaseObject;
+
+/**
+ * A document which only lives in memory, holding its XObjects by the class reference they were added with. Looking up
+ * objects in a real document resolves the class reference against the current wiki, which requires a running wiki.
+ *
+ * @version $Id$
+ * @since 1.3M1
+ */
+public class InMemoryDocument extends XWikiDocument
+{
+    private final Map<EntityReference, List<BaseObject>> objects = new HashMap<>();
+
+    private DocumentReference creator;
+
+    private DocumentReference author;
+
+    private Date creationDate;
+
+    private Date date;
+
+    /**
+     * Creates an empty document.
+     *
+     * @param reference the reference of the document
+     */
+    public InMemoryDocument(DocumentReference reference)
+    {
+        super(reference);
+    }
+
+    /**
+     * Adds an object to the document.
+     *
+     * @param classReference the reference of the object's class, as it will be looked up
+     * @param object the object to add
+     */
+    public void addObject(EntityReference classReference, BaseObject object)
+    {
+        List<BaseObject> existing = this.objects.get(classReference);
+        if (existing == null) {
+            existing = new ArrayList<>();
+            this.objects.put(classReference, existing);
+        }
+        existing.add(object);
+    }
+
+    @Override
+    public BaseObject getXObject(EntityReference classReference)
+    {
+        List<BaseObject> existing = this.objects.get(classReference);
+        return existing == null ? null : existing.get(0);
+    }
+
+    @Override
+    public List<BaseObject> getXObjects(EntityReference classReference)
+    {
+        List<BaseObject> existing = this.objects.get(classReference);
+        return existing == null ? Collections.<BaseObject>emptyList() : existing;
+    }
+
+    @Override
+    public DocumentReference getCreatorReference()
+    {
+        return this.creator;
+    }
+
+    @Override
+    public void setCreatorReference(DocumentReference creatorReference)
+    {
+        this.creator = creatorReference;
+    }
+
+    @Override
+    public DocumentReference getAuthorReference()
+    {
+        return this.author;
+    }
+
+    @Override
+    public void setAuthorReference(DocumentReference authorReference)
+    {
+        this.author = authorReference;
+    }
+
+    @Override
+    public Date getCreationDate()
+    {
+        return this.creationDate;
+    }
+
+    @Override
+    public void setCreationDate(Date creationDate)
+    {
+        this.creationDate = creationDate;
+    }
+
+    @Override
+    public Date getDate()
+    {
+        return this.date;
+    }
+
+    @Override
+    public void setDate(Date date)
+    {
+        this.date = date;
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses/
+ */
+package org.phenotips.benchmarks;
+
+import org.xwiki.bridge.DocumentAccessBridge;
+import org.xwiki.model.reference.DocumentReference;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.xpn.xwiki.doc.XWikiDocument;
+
+/**
+ * Serves documents from memory through the {@link DocumentAccessBridge}, since the wiki storage can't run outside a
+ * servlet container. Only {@link DocumentAccessBridge#getDocument(DocumentReference)} is supported, everything else
+ * behaves as if nothing was stored.
+ *
+ * @version $Id$
+ * @since 1.3M1
+ */
+public class InMemoryDocumentAccessBridge implements InvocationHandler
+{
+    private final Map<DocumentReference, XWikiDocument> documents = new ConcurrentHashMap<>();
+
+    private final DocumentAccessBridge bridge = (DocumentAccessBridge) Proxy.newProxyInstance(
+        getClass().getClassLoader(), new Class<?>[] { DocumentAccessBridge.class }, this);
+
+    /**
+     * Makes a document available.
+     *
+     * @param document the document to add
+     */
+    public void addDocument(XWikiDocument document)
+    {
+        this.documents.put(document.getDocumentReference(), document);
+    }
+
+    /**
+     * The bridge serving the documents added so far.
+     *
+     * @return a bridge instance
+     */
+    public DocumentAccessBridge getBridge()
+    {
+        return this.bridge;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] arguments)
+    {
+        if ("getDocument".equals(method.getName()) && arguments.length == 1
+            && arguments[0] instanceof DocumentReference) {
+            return this.documents.get(arguments[0]);
+        }
+        // The primitive results can't be null
+        if (method.getReturnType() == boolean.class) {
+            return Boolean.FALSE;
+        } else if (method.getReturnType() == int.class) {
+            return -1;
+        }
+        return null;
+    }
+}
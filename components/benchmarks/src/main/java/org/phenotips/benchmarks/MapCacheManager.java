@@ -0,0 +1,149 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses/
+ */
+package org.phenotips.benchmarks;
+
+import org.xwiki.cache.Cache;
+import org.xwiki.cache.CacheManager;
+import org.xwiki.cache.config.CacheConfiguration;
+import org.xwiki.cache.event.CacheEntryListener;
+import org.xwiki.cache.eviction.EntryEvictionConfiguration;
+import org.xwiki.cache.eviction.LRUEvictionConfiguration;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Creates plain in-memory LRU caches, standing in for the Infinispan caches used in a running instance. Caching can be
+ * disabled, and all the caches can be emptied at once, to measure the code paths behind the caches.
+ *
+ * @version $Id$
+ * @since 1.3M1
+ */
+public class MapCacheManager implements CacheManager
+{
+    private final boolean enabled;
+
+    private final List<MapCache<?>> caches = new CopyOnWriteArrayList<>();
+
+    /**
+     * Simple constructor.
+     *
+     * @param enabled if {@code false}, the created caches don't store anything
+     */
+    public MapCacheManager(boolean enabled)
+    {
+        this.enabled = enabled;
+    }
+
+    @Override
+    public <T> Cache<T> createNewCache(CacheConfiguration configuration)
+    {
+        return createNewLocalCache(configuration);
+    }
+
+    @Override
+    public <T> Cache<T> createNewLocalCache(CacheConfiguration configuration)
+    {
+        int capacity = Integer.MAX_VALUE;
+        Object eviction = configuration.get(EntryEvictionConfiguration.CONFIGURATIONID);
+        if (eviction instanceof LRUEvictionConfiguration) {
+            capacity = ((LRUEvictionConfiguration) eviction).getMaxEntries();
+        }
+        MapCache<T> cache = new MapCache<>(this.enabled ? capacity : 0);
+        this.caches.add(cache);
+        return cache;
+    }
+
+    /** Empties all the caches created so far. */
+    public void clearAll()
+    {
+        for (MapCache<?> cache : this.caches) {
+            cache.removeAll();
+        }
+    }
+
+    private static final class MapCache<T> implements Cache<T>
+    {
+        private final int capacity;
+
+        private final Map<String, T> entries;
+
+        MapCache(final int capacity)
+        {
+            this.capacity = capacity;
+            this.entries = new LinkedHashMap<String, T>(16, 0.75f, true)
+            {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, T> eldest)
+                {
+                    return size() > capacity;
+                }
+            };
+        }
+
+        @Override
+        public synchronized void set(String key, T value)
+        {
+            if (this.capacity > 0) {
+                this.entries.put(key, value);
+            }
+        }
+
+        @Override
+        public synchronized T get(String key)
+        {
+            return this.entries.get(key);
+        }
+
+        @Override
+        public synchronized void remove(String key)
+        {
+            this.entries.remove(key);
+        }
+
+        @Override
+        public synchronized void removeAll()
+        {
+            if (!this.entries.isEmpty()) {
+                this.entries.clear();
+            }
+        }
+
+        @Override
+        public void addCacheEntryListener(CacheEntryListener<T> listener)
+        {
+            // Events aren't needed by the benchmarked code
+        }
+
+        @Override
+        public void removeCacheEntryListener(CacheEntryListener<T> listener)
+        {
+            // Events aren't needed by the benchmarked code
+        }
+
+        @Override
+        public void dispose()
+        {
+            removeAll();
+        }
+    }
+}
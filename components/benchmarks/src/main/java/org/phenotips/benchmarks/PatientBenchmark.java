@@ -0,0 +1,73 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses/
+ */
+package org.phenotips.benchmarks;
+
+import org.phenotips.data.Patient;
+import org.phenotips.data.internal.PhenoTipsPatient;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.sf.json.JSONObject;
+
+/**
+ * Loading patients from their documents, and serializing them as JSON.
+ *
+ * @version $Id$
+ * @since 1.3M1
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PatientBenchmark
+{
+    /**
+     * Loads a patient.
+     *
+     * @param state the shared data
+     * @param cursor the position in the inputs
+     * @return the patient
+     */
+    @Benchmark
+    public Patient load(PhenoTipsState state, Cursor cursor)
+    {
+        return new PhenoTipsPatient(cursor.next(state.documents));
+    }
+
+    /**
+     * Serializes a loaded patient.
+     *
+     * @param state the shared data
+     * @param cursor the position in the inputs
+     * @return the serialized patient
+     */
+    @Benchmark
+    public JSONObject toJSON(PhenoTipsState state, Cursor cursor)
+    {
+        return cursor.next(state.patients).toJSON();
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses/
+ */
+package org.phenotips.benchmarks;
+
+import org.phenotips.data.Patient;
+import org.phenotips.data.internal.PhenoTipsPatient;
+import org.phenotips.vocabulary.VocabularyTerm;
+import org.phenotips.vocabulary.internal.solr.HumanPhenotypeOntology;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.xpn.xwiki.doc.XWikiDocument;
+
+/**
+ * The data shared by all the benchmarks in a fork: an indexed HPO-sized ontology, and a cohort of patients annotated
+ * with its terms.
+ *
+ * @version $Id$
+ * @since 1.3M1
+ */
+@State(Scope.Benchmark)
+public class PhenoTipsState
+{
+    private static final long SEED = 20151101L;
+
+    private static final int BATCH_SIZE = 50;
+
+    /** The number of generated phenotypic abnormalities, about the size of the real HPO. */
+    @Param("15000")
+    public int ontologySize;
+
+    /** The number of generated patients. */
+    @Param("1000")
+    public int cohortSize;
+
+    /** The running components. */
+    public BenchmarkEnvironment environment;
+
+    /** The indexed vocabulary. */
+    public HumanPhenotypeOntology hpo;
+
+    /** The identifiers of the phenotypic abnormalities, shuffled. */
+    public List<String> termIds;
+
+    /** Disjoint batches of {@link #termIds}. */
+    public List<List<String>> termIdBatches;
+
+    /** Some terms, already fetched. */
+    public List<VocabularyTerm> terms;
+
+    /** Partial queries, the start of one or two words from the names of the terms. */
+    public List<String> queries;
+
+    /** The generated patient documents. */
+    public List<XWikiDocument> documents;
+
+    /** The generated patients, already loaded. */
+    public List<Patient> patients;
+
+    /**
+     * Generates and indexes the data.
+     *
+     * @throws Exception if setting up the environment fails
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws Exception
+    {
+        this.environment = new BenchmarkEnvironment(true);
+        SyntheticOntology ontology = new SyntheticOntology(this.ontologySize, SEED);
+        this.hpo = this.environment.indexOntology(ontology);
+        Random random = new Random(SEED);
+
+        List<String> ids = new ArrayList<>(ontology.getIds());
+        Collections.shuffle(ids, random);
+        this.termIds = Collections.unmodifiableList(ids);
+        this.termIdBatches = new ArrayList<>();
+        for (int i = 0; i + BATCH_SIZE <= ids.size(); i += BATCH_SIZE) {
+            this.termIdBatches.add(ids.subList(i, i + BATCH_SIZE));
+        }
+        this.terms = new ArrayList<>(this.hpo.getTerms(ids.subList(0, Math.min(1000, ids.size()))));
+
+        this.queries = new ArrayList<>();
+        for (int i = 0; i < 1000; ++i) {
+            String[] words = ontology.getNames().get(random.nextInt(ontology.getNames().size())).split(" ");
+            String query = prefix(words[0], random);
+            if (words.length > 1 && random.nextBoolean()) {
+                query += " " + prefix(words[1], random);
+            }
+            this.queries.add(query);
+        }
+
+        this.documents = new SyntheticCohort(this.cohortSize, ontology, SEED).getDocuments();
+        this.patients = new ArrayList<>(this.documents.size());
+        for (XWikiDocument document : this.documents) {
+            this.environment.addDocument(document);
+        }
+        for (XWikiDocument document : this.documents) {
+            this.patients.add(new PhenoTipsPatient(document));
+        }
+    }
+
+    /** Stops the components and deletes the generated data. */
+    @TearDown(Level.Trial)
+    public void tearDown()
+    {
+        this.environment.close();
+    }
+
+    private static String prefix(String word, Random random)
+    {
+        return word.substring(0, Math.min(word.length(), 3 + random.nextInt(4))).toLowerCase();
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses/
+ */
+package org.phenotips.benchmarks;
+
+import org.phenotips.obo2solr.maps.CounterMap;
+import org.phenotips.obo2solr.maps.ObjectDoubleMap;
+import org.phenotips.obo2solr.maps.ObjectIntMap;
+import org.phenotips.obo2solr.maps.SumMap;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Counting and accumulating scores per term, as done when processing vocabularies, with the boxed {@link CounterMap}
+ * and {@link SumMap} versus the primitive {@link ObjectIntMap} and {@link ObjectDoubleMap}. The accesses are skewed
+ * towards a few keys, as most of the updates hit the upper levels of the hierarchy. Run with {@code -prof gc} to also
+ * compare the allocation rates.
+ *
+ * @version $Id$
+ * @since 1.3M1
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PrimitiveMapsBenchmark
+{
+    private static final int KEYS = 15000;
+
+    private static final int OPERATIONS = 100000;
+
+    private String[] keys;
+
+    private int[] accesses;
+
+    /** Generates the keys and the sequence of accessed keys, the same ones for every run. */
+    @Setup(Level.Trial)
+    public void generate()
+    {
+        this.keys = new String[KEYS];
+        for (int i = 0; i < KEYS; ++i) {
+            this.keys[i] = String.format("HP:%07d", i);
+        }
+        Random random = new Random(42);
+        this.accesses = new int[OPERATIONS];
+        for (int i = 0; i < OPERATIONS; ++i) {
+            this.accesses[i] = (int) (KEYS * Math.pow(random.nextDouble(), 3));
+        }
+    }
+
+    /**
+     * Counts the accesses with a boxed map.
+     *
+     * @return the filled map
+     */
+    @Benchmark
+    public CounterMap<String> boxedCounter()
+    {
+        CounterMap<String> map = new CounterMap<>();
+        for (int access : this.accesses) {
+            map.addTo(this.keys[access]);
+        }
+        return map;
+    }
+
+    /**
+     * Counts the accesses with a primitive map.
+     *
+     * @return the filled map
+     */
+    @Benchmark
+    public ObjectIntMap<String> primitiveCounter()
+    {
+        ObjectIntMap<String> map = new ObjectIntMap<>();
+        for (int access : this.accesses) {
+            map.increment(this.keys[access]);
+        }
+        return map;
+    }
+
+    /**
+     * Accumulates scores with a boxed map.
+     *
+     * @return the filled map
+     */
+    @Benchmark
+    public SumMap<String> boxedSum()
+    {
+        SumMap<String> map = new SumMap<>();
+        for (int access : this.accesses) {
+            String key = this.keys[access];
+            map.put(key, map.safeGet(key) + 0.5);
+        }
+        return map;
+    }
+
+    /**
+     * Accumulates scores with a primitive map.
+     *
+     * @return the filled map
+     */
+    @Benchmark
+    public ObjectDoubleMap<String> primitiveSum()
+    {
+        ObjectDoubleMap<String> map = new ObjectDoubleMap<>();
+        for (int access : this.accesses) {
+            map.addTo(this.keys[access], 0.5);
+        }
+        return map;
+    }
+}
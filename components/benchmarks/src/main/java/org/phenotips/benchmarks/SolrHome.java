@@ -0,0 +1,96 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses/
+ */
+package org.phenotips.benchmarks;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+
+/**
+ * Creates Solr homes holding a single core, with the configuration used in production, taken from the
+ * {@code solr-configuration} resources on the classpath.
+ *
+ * @version $Id$
+ * @since 1.3M1
+ */
+public final class SolrHome
+{
+    private static final String SOLR_CONFIGURATION = "solr.xml";
+
+    private static final String ROOT = "/";
+
+    private SolrHome()
+    {
+        // Only static methods
+    }
+
+    /**
+     * Creates a new Solr home.
+     *
+     * @param parent the directory where the Solr home is created
+     * @param core the name of the only core to set up
+     * @return the path to the new Solr home
+     * @throws IOException if copying the configuration fails
+     * @throws URISyntaxException if the configuration can't be located
+     */
+    public static Path create(Path parent, String core) throws IOException, URISyntaxException
+    {
+        Path solrHome = Files.createDirectories(parent.resolve("solr"));
+        URI configuration = SolrHome.class.getResource(ROOT + SOLR_CONFIGURATION).toURI();
+        if ("jar".equals(configuration.getScheme())) {
+            try (FileSystem jar = FileSystems.newFileSystem(configuration, Collections.<String, Object>emptyMap())) {
+                copy(jar.getPath(ROOT), solrHome, core);
+            }
+        } else {
+            copy(Paths.get(configuration).getParent(), solrHome, core);
+        }
+        return solrHome;
+    }
+
+    private static void copy(Path source, Path solrHome, String core) throws IOException
+    {
+        Files.copy(source.resolve(SOLR_CONFIGURATION), solrHome.resolve(SOLR_CONFIGURATION));
+        final Path coreSource = source.resolve(core);
+        final Path target = solrHome.resolve(core);
+        Files.walkFileTree(coreSource, new SimpleFileVisitor<Path>()
+        {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException
+            {
+                Files.createDirectories(target.resolve(coreSource.relativize(dir).toString()));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException
+            {
+                Files.copy(file, target.resolve(coreSource.relativize(file).toString()));
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+}
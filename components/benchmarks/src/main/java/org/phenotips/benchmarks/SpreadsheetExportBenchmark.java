@@ -0,0 +1,91 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses/
+ */
+package org.phenotips.benchmarks;
+
+import org.phenotips.data.Patient;
+import org.phenotips.export.internal.SpreadsheetExporter;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Exporting cohorts of different sizes as spreadsheets.
+ *
+ * @version $Id$
+ * @since 1.3M1
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SpreadsheetExportBenchmark
+{
+    /**
+     * The exported fields. Categories and user names are left out, since they depend on the phenotype mapping and the
+     * user profiles, which aren't available outside a running wiki.
+     */
+    private static final String[] FIELDS = { "doc.name", "external_id", "first_name", "last_name", "gender",
+        "creationDate", "date", "phenotype", "phenotype_code", "negative_phenotype", "omim_id" };
+
+    /** The number of exported patients, at most {@link PhenoTipsState#cohortSize}. */
+    @Param({ "10", "100", "1000" })
+    public int exportSize;
+
+    private List<Patient> patients;
+
+    /**
+     * Selects the exported patients.
+     *
+     * @param state the shared data
+     */
+    @Setup(Level.Trial)
+    public void setUp(PhenoTipsState state)
+    {
+        this.patients = state.patients.subList(0, Math.min(this.exportSize, state.patients.size()));
+    }
+
+    /**
+     * Exports the patients.
+     *
+     * @return the size of the generated spreadsheet
+     * @throws Exception if the export fails
+     */
+    @Benchmark
+    public int export() throws Exception
+    {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new SpreadsheetExporter().export(FIELDS, this.patients, output);
+        return output.size();
+    }
+}
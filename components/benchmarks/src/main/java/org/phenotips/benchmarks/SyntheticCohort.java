@@ -0,0 +1,126 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses/
+ */
+package org.phenotips.benchmarks;
+
+import org.phenotips.data.Patient;
+
+import org.xwiki.model.reference.DocumentReference;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import com.xpn.xwiki.doc.XWikiDocument;
+import com.xpn.xwiki.objects.BaseObject;
+import com.xpn.xwiki.objects.DBStringListProperty;
+
+/**
+ * Generates patient records with random identifiers, names, sex, observed and excluded phenotypes from an ontology,
+ * and OMIM disorders. The patient data is held in real XObjects, inside {@link InMemoryDocument in-memory documents}.
+ * The same size and seed always produce the same cohort.
+ *
+ * @version $Id$
+ * @since 1.3M1
+ */
+public class SyntheticCohort
+{
+    private static final String WIKI = "xwiki";
+
+    private static final String SPACE = "data";
+
+    private static final String[] SEXES = { "F", "M", "O", "" };
+
+    private static final int MAX_POSITIVE_PHENOTYPES = 25;
+
+    private static final int MAX_NEGATIVE_PHENOTYPES = 8;
+
+    private static final int MAX_DISORDERS = 3;
+
+    private final List<XWikiDocument> documents;
+
+    /**
+     * Generates a cohort.
+     *
+     * @param size the number of patients to generate
+     * @param ontology the source of the phenotypes
+     * @param seed the seed for the random choices
+     */
+    public SyntheticCohort(int size, SyntheticOntology ontology, long seed)
+    {
+        Random random = new Random(seed);
+        DocumentReference reporter = new DocumentReference(WIKI, "XWiki", "Admin");
+        List<XWikiDocument> result = new ArrayList<>(size);
+        for (int i = 0; i < size; ++i) {
+            BaseObject data = new BaseObject();
+            data.setStringValue("external_id", "EXT-" + (i + 1));
+            data.setStringValue("first_name", "First" + random.nextInt(size));
+            data.setStringValue("last_name", "Last" + random.nextInt(size));
+            data.setStringValue("gender", SEXES[random.nextInt(SEXES.length)]);
+            data.setLargeStringValue("indication_for_referral", "Referred for " + ontology.getNames().get(i
+                % ontology.getNames().size()));
+            addList(data, "phenotype", pick(ontology.getIds(), 1 + random.nextInt(MAX_POSITIVE_PHENOTYPES), random));
+            addList(data, "negative_phenotype", pick(ontology.getIds(), random.nextInt(MAX_NEGATIVE_PHENOTYPES),
+                random));
+            List<String> disorders = new ArrayList<>();
+            for (int j = random.nextInt(MAX_DISORDERS); j > 0; --j) {
+                disorders.add(String.valueOf(100000 + random.nextInt(500000)));
+            }
+            addList(data, "omim_id", disorders);
+
+            InMemoryDocument document =
+                new InMemoryDocument(new DocumentReference(WIKI, SPACE, String.format("P%07d", i + 1)));
+            document.setCreatorReference(reporter);
+            document.setAuthorReference(reporter);
+            document.setCreationDate(new Date(1400000000000L + i * 60000L));
+            document.setDate(new Date(1450000000000L + i * 60000L));
+            document.addObject(Patient.CLASS_REFERENCE, data);
+            result.add(document);
+        }
+        this.documents = Collections.unmodifiableList(result);
+    }
+
+    /**
+     * The generated patient documents.
+     *
+     * @return an unmodifiable list of documents
+     */
+    public List<XWikiDocument> getDocuments()
+    {
+        return this.documents;
+    }
+
+    private static void addList(BaseObject data, String name, List<String> values)
+    {
+        DBStringListProperty property = new DBStringListProperty();
+        property.setList(values);
+        data.safeput(name, property);
+    }
+
+    private static List<String> pick(List<String> values, int count, Random random)
+    {
+        Set<String> result = new LinkedHashSet<>();
+        while (result.size() < count && result.size() < values.size()) {
+            result.add(values.get(random.nextInt(values.size())));
+        }
+        return new ArrayList<>(result);
+    }
+}
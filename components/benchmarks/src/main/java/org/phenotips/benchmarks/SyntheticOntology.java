@@ -0,0 +1,192 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses/
+ */
+package org.phenotips.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Generates an HPO-like ontology in the OBO format: a random hierarchy of phenotypic abnormalities under
+ * {@code HP:0000118}, where some terms have several parents, with names, synonyms and definitions made of generated
+ * words. The same size and seed always produce the same ontology.
+ *
+ * @version $Id$
+ * @since 1.3M1
+ */
+public class SyntheticOntology
+{
+    /** The root of the phenotypic abnormalities. */
+    public static final String PHENOTYPE_ROOT = "HP:0000118";
+
+    private static final String ROOT = "HP:0000001";
+
+    private static final String ID_PREFIX = "HP:";
+
+    /** Generated identifiers start after the ones of the roots. */
+    private static final int FIRST_ID = 1000;
+
+    private static final String[] SYLLABLES = { "ab", "bra", "car", "di", "dys", "en", "gen", "hy", "id", "ka", "lo",
+        "mi", "neu", "ost", "pa", "ph", "re", "ro", "sa", "ske", "te", "tro", "ul", "ven", "xi", "zo" };
+
+    private static final int WORD_COUNT = 4000;
+
+    private static final int TOP_LEVEL_TERMS = 25;
+
+    private final Random random;
+
+    private final List<String> words = new ArrayList<>(WORD_COUNT);
+
+    private final List<String> ids = new ArrayList<>();
+
+    private final List<String> names = new ArrayList<>();
+
+    private final List<List<String>> parents = new ArrayList<>();
+
+    private final List<List<String>> synonyms = new ArrayList<>();
+
+    /**
+     * Generates an ontology.
+     *
+     * @param size the number of phenotypic abnormalities to generate
+     * @param seed the seed for the random choices
+     */
+    public SyntheticOntology(int size, long seed)
+    {
+        this.random = new Random(seed);
+        Set<String> distinctWords = new LinkedHashSet<>();
+        while (distinctWords.size() < WORD_COUNT) {
+            StringBuilder word = new StringBuilder();
+            for (int i = 2 + this.random.nextInt(3); i > 0; --i) {
+                word.append(SYLLABLES[this.random.nextInt(SYLLABLES.length)]);
+            }
+            distinctWords.add(word.toString());
+        }
+        this.words.addAll(distinctWords);
+
+        for (int i = 0; i < size; ++i) {
+            this.ids.add(String.format(ID_PREFIX + "%07d", FIRST_ID + i));
+            this.names.add(phrase(2 + this.random.nextInt(3)));
+            List<String> termParents = new ArrayList<>(2);
+            if (i < TOP_LEVEL_TERMS) {
+                termParents.add(PHENOTYPE_ROOT);
+            } else {
+                termParents.add(this.ids.get(this.random.nextInt(i)));
+                if (this.random.nextInt(5) == 0) {
+                    String other = this.ids.get(this.random.nextInt(i));
+                    if (!termParents.contains(other)) {
+                        termParents.add(other);
+                    }
+                }
+            }
+            this.parents.add(termParents);
+            List<String> termSynonyms = new ArrayList<>();
+            for (int j = this.random.nextInt(4); j > 0; --j) {
+                termSynonyms.add(phrase(1 + this.random.nextInt(3)));
+            }
+            this.synonyms.add(termSynonyms);
+        }
+    }
+
+    /**
+     * The identifiers of the generated phenotypic abnormalities, in the order they were generated, which means that
+     * parents come before their children.
+     *
+     * @return an unmodifiable list of identifiers, without the roots
+     */
+    public List<String> getIds()
+    {
+        return Collections.unmodifiableList(this.ids);
+    }
+
+    /**
+     * The names of the generated phenotypic abnormalities.
+     *
+     * @return an unmodifiable list of names, in the same order as {@link #getIds()}
+     */
+    public List<String> getNames()
+    {
+        return Collections.unmodifiableList(this.names);
+    }
+
+    /**
+     * Writes the ontology to a file.
+     *
+     * @param target the file to write
+     * @throws IOException if writing fails
+     */
+    public void write(File target) throws IOException
+    {
+        try (PrintWriter out = new PrintWriter(target, StandardCharsets.UTF_8.name())) {
+            out.println("format-version: 1.2");
+            out.println("data-version: benchmark");
+            writeTerm(out, ROOT, getName(ROOT), Collections.<String>emptyList(), Collections.<String>emptyList());
+            writeTerm(out, PHENOTYPE_ROOT, getName(PHENOTYPE_ROOT), Collections.singletonList(ROOT),
+                Collections.singletonList("Organ abnormality"));
+            for (int i = 0; i < this.ids.size(); ++i) {
+                writeTerm(out, this.ids.get(i), this.names.get(i), this.parents.get(i), this.synonyms.get(i));
+            }
+        }
+    }
+
+    private void writeTerm(PrintWriter out, String id, String name, List<String> termParents,
+        List<String> termSynonyms)
+    {
+        out.println();
+        out.println("[Term]");
+        out.println("id: " + id);
+        out.println("name: " + name);
+        out.println("def: \"" + phrase(12) + ".\" [HPO:benchmark]");
+        for (String synonym : termSynonyms) {
+            out.println("synonym: \"" + synonym + "\" EXACT []");
+        }
+        for (String parent : termParents) {
+            out.println("is_a: " + parent + " ! " + getName(parent));
+        }
+    }
+
+    private String getName(String id)
+    {
+        if (ROOT.equals(id)) {
+            return "All";
+        } else if (PHENOTYPE_ROOT.equals(id)) {
+            return "Phenotypic abnormality";
+        }
+        return this.names.get(Integer.parseInt(id.substring(ID_PREFIX.length())) - FIRST_ID);
+    }
+
+    private String phrase(int wordCount)
+    {
+        StringBuilder result = new StringBuilder();
+        for (int i = 0; i < wordCount; ++i) {
+            if (i > 0) {
+                result.append(' ');
+            }
+            result.append(this.words.get(this.random.nextInt(this.words.size())));
+        }
+        result.setCharAt(0, Character.toUpperCase(result.charAt(0)));
+        return result.toString();
+    }
+}
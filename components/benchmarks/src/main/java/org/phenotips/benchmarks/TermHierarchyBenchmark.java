@@ -0,0 +1,138 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses/
+ */
+package org.phenotips.benchmarks;
+
+import org.phenotips.obo2solr.TermData;
+import org.phenotips.obo2solr.TermHierarchy;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Expanding the term categories of a whole vocabulary while indexing it, walking the hierarchy separately for each
+ * term versus computing the closure once with a {@link TermHierarchy}. The hierarchy is generated with the size and
+ * shape of the HPO: around 15 levels deep, with a quarter of the terms having a second parent.
+ *
+ * @version $Id$
+ * @since 1.3M1
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TermHierarchyBenchmark
+{
+    private static final int SIZE = 15000;
+
+    /** Parents are picked among the recent terms, which gives a hierarchy around 15 levels deep. */
+    private static final int PARENT_WINDOW = 1000;
+
+    private final Map<String, Collection<String>> hierarchy = new LinkedHashMap<>();
+
+    private Map<String, TermData> terms;
+
+    /** Generates the hierarchy, the same one for every run. */
+    @Setup(Level.Trial)
+    public void generate()
+    {
+        Random random = new Random(42);
+        for (int i = 0; i < SIZE; ++i) {
+            Collection<String> parents = new LinkedHashSet<>();
+            if (i > 0) {
+                parents.add(id(Math.max(0, i - 1 - random.nextInt(Math.min(i, PARENT_WINDOW)))));
+                if (random.nextInt(4) == 0) {
+                    parents.add(id(random.nextInt(i)));
+                }
+            }
+            this.hierarchy.put(id(i), parents);
+        }
+    }
+
+    /** Expansion adds the ancestors to the terms, so each invocation must start from unexpanded terms. */
+    @Setup(Level.Invocation)
+    public void copyTerms()
+    {
+        this.terms = new LinkedHashMap<>();
+        for (Map.Entry<String, Collection<String>> entry : this.hierarchy.entrySet()) {
+            TermData term = new TermData();
+            term.addTo(TermData.ID_FIELD_NAME, entry.getKey());
+            term.addTo(TermData.TERM_CATEGORY_FIELD_NAME, entry.getValue());
+            this.terms.put(entry.getKey(), term);
+        }
+    }
+
+    /**
+     * Expands the categories of each term independently.
+     *
+     * @return the expanded terms
+     */
+    @Benchmark
+    public Map<String, TermData> expandTermCategories()
+    {
+        for (TermData term : this.terms.values()) {
+            term.expandTermCategories(this.terms);
+        }
+        return this.terms;
+    }
+
+    /**
+     * Expands the categories of all the terms at once.
+     *
+     * @return the expanded terms
+     */
+    @Benchmark
+    public Map<String, TermData> expandAllTermCategories()
+    {
+        TermData.expandAllTermCategories(this.terms);
+        return this.terms;
+    }
+
+    /**
+     * Only computes the closure of the hierarchy, as done when loading the in-memory ontology graph.
+     *
+     * @return the computed closure
+     */
+    @Benchmark
+    public TermHierarchy buildTermHierarchy()
+    {
+        return new TermHierarchy(this.hierarchy);
+    }
+
+    private static String id(int i)
+    {
+        return String.format("HP:%07d", i);
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses/
+ */
+package org.phenotips.benchmarks;
+
+import org.phenotips.vocabulary.VocabularyTerm;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Term lookups and searches in a Solr vocabulary, with and without the term cache.
+ *
+ * @version $Id$
+ * @since 1.3M1
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VocabularyBenchmark
+{
+    /**
+     * Fetches one term, usually from the cache once warmed up.
+     *
+     * @param state the shared data
+     * @param cursor the position in the inputs
+     * @return the term
+     */
+    @Benchmark
+    public VocabularyTerm getTerm(PhenoTipsState state, Cursor cursor)
+    {
+        return state.hpo.getTerm(cursor.next(state.termIds));
+    }
+
+    /**
+     * Fetches one term from Solr.
+     *
+     * @param state the shared data
+     * @param cursor the position in the inputs
+     * @return the term
+     */
+    @Benchmark
+    public VocabularyTerm getTermUncached(PhenoTipsState state, Cursor cursor)
+    {
+        state.environment.clearCaches();
+        return state.hpo.getTerm(cursor.next(state.termIds));
+    }
+
+    /**
+     * Fetches a batch of terms, usually from the cache once warmed up.
+     *
+     * @param state the shared data
+     * @param cursor the position in the inputs
+     * @return the terms
+     */
+    @Benchmark
+    public Set<VocabularyTerm> getTerms(PhenoTipsState state, Cursor cursor)
+    {
+        return state.hpo.getTerms(cursor.next(state.termIdBatches));
+    }
+
+    /**
+     * Fetches a batch of terms from Solr.
+     *
+     * @param state the shared data
+     * @param cursor the position in the inputs
+     * @return the terms
+     */
+    @Benchmark
+    public Set<VocabularyTerm> getTermsUncached(PhenoTipsState state, Cursor cursor)
+    {
+        state.environment.clearCaches();
+        return state.hpo.getTerms(cursor.next(state.termIdBatches));
+    }
+
+    /**
+     * Searches for a partially typed query, the way the phenotype autocomplete does.
+     *
+     * @param state the shared data
+     * @param cursor the position in the inputs
+     * @return the matching terms
+     */
+    @Benchmark
+    public List<VocabularyTerm> search(PhenoTipsState state, Cursor cursor)
+    {
+        return state.hpo.search(cursor.next(state.queries), 20, null, null);
+    }
+
+    /**
+     * Searches for a partially typed query, with empty caches.
+     *
+     * @param state the shared data
+     * @param cursor the position in the inputs
+     * @return the matching terms
+     */
+    @Benchmark
+    public List<VocabularyTerm> searchUncached(PhenoTipsState state, Cursor cursor)
+    {
+        state.environment.clearCaches();
+        return state.hpo.search(cursor.next(state.queries), 20, null, null);
+    }
+
+    /**
+     * Suggests terms for a partially typed query using the in-memory suggester.
+     *
+     * @param state the shared data
+     * @param cursor the position in the inputs
+     * @return the matching terms
+     */
+    @Benchmark
+    public List<VocabularyTerm> suggest(PhenoTipsState state, Cursor cursor)
+    {
+        return state.hpo.suggest(cursor.next(state.queries), 20);
+    }
+}
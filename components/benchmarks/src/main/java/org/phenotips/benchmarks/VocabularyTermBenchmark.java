@@ -0,0 +1,104 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses/
+ */
+package org.phenotips.benchmarks;
+
+import org.phenotips.vocabulary.VocabularyTerm;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Navigating the hierarchy of already fetched vocabulary terms.
+ *
+ * @version $Id$
+ * @since 1.3M1
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VocabularyTermBenchmark
+{
+    /**
+     * Lists the parents of a term.
+     *
+     * @param state the shared data
+     * @param cursor the position in the inputs
+     * @param blackhole consumes the results
+     */
+    @Benchmark
+    public void getParents(PhenoTipsState state, Cursor cursor, Blackhole blackhole)
+    {
+        for (VocabularyTerm parent : cursor.next(state.terms).getParents()) {
+            blackhole.consume(parent);
+        }
+    }
+
+    /**
+     * Lists the ancestors of a term.
+     *
+     * @param state the shared data
+     * @param cursor the position in the inputs
+     * @param blackhole consumes the results
+     */
+    @Benchmark
+    public void getAncestors(PhenoTipsState state, Cursor cursor, Blackhole blackhole)
+    {
+        for (VocabularyTerm ancestor : cursor.next(state.terms).getAncestors()) {
+            blackhole.consume(ancestor);
+        }
+    }
+
+    /**
+     * Lists a term and its ancestors.
+     *
+     * @param state the shared data
+     * @param cursor the position in the inputs
+     * @param blackhole consumes the results
+     */
+    @Benchmark
+    public void getAncestorsAndSelf(PhenoTipsState state, Cursor cursor, Blackhole blackhole)
+    {
+        for (VocabularyTerm ancestor : cursor.next(state.terms).getAncestorsAndSelf()) {
+            blackhole.consume(ancestor);
+        }
+    }
+
+    /**
+     * Computes the distance between two terms.
+     *
+     * @param state the shared data
+     * @param cursor the position in the inputs
+     * @return the distance
+     */
+    @Benchmark
+    public long getDistanceTo(PhenoTipsState state, Cursor cursor)
+    {
+        VocabularyTerm first = cursor.next(state.terms);
+        return first.getDistanceTo(cursor.next(state.terms));
+    }
+}
@@ -20,9 +20,7 @@
 import org.phenotips.components.ComponentManagerRegistry;
 import org.phenotips.data.Feature;
 import org.phenotips.tools.PhenotypeMappingService;
-import org.phenotips.tools.PropertyDisplayer;
 import org.phenotips.vocabulary.Vocabulary;
-import org.phenotips.vocabulary.VocabularyTerm;
 
 import org.xwiki.component.manager.ComponentManager;
 import org.xwiki.script.service.ScriptService;
@@ -183,6 +181,7 @@ private List<Feature> sortFeaturesBySection(List<Feature> features)
     {
         List<Feature> sortedFeatures = new LinkedList<Feature>();
 
+        Map<String, Set<String>> featureCategories = getCategoriesFromOntology(features);
         Map<String, List<String>> mapping = this.getCategoryMapping();
         for (String section : mapping.keySet()) {
             if (features.isEmpty()) {
@@ -193,7 +192,8 @@ private List<Feature> sortFeaturesBySection(List<Feature> features)
             for (String category : mapping.get(section)) {
                 Set<Feature> toRemove = new HashSet<Feature>();
                 for (Feature feature : features) {
-                    if (getCategoriesFromOntology(feature.getId()).contains(category)
+                    Set<String> categories = featureCategories.get(feature.getId());
+                    if ((categories != null && categories.contains(category))
                         || StringUtils.equals(feature.getId(), category))
                     {
                         this.sectionFeatureTree.put(feature.getId(), section);
@@ -232,25 +232,26 @@ public Set<Feature> filterFeaturesByPrenatal(Set<? extends Feature> features, Bo
     }
 
     /**
-     * Given an HPO id, finds categories to which the id belongs to.
+     * Given a list of features, finds the categories to which each of their HPO ids belongs to. All the categories are
+     * looked up at once, and only the identifiers of the categories are retrieved, not the actual terms.
      *
-     * @param value must start with "HP:"
-     * @return a list of categories as HPO ids, excluding the passed in id, or an empty list if the categories could not
-     * be determined
+     * @param features the features to look up; only the features with an id starting with "HP:" are considered
+     * @return a map from feature ids to their categories as HPO ids, excluding the feature id itself; features whose
+     *         categories could not be determined are missing from the map
      */
-    @SuppressWarnings("unchecked")
-    private List<String> getCategoriesFromOntology(String value)
+    private Map<String, Set<String>> getCategoriesFromOntology(List<Feature> features)
     {
-        if (!value.startsWith("HP:")) {
-            return Collections.emptyList();
+        Set<String> ids = new HashSet<String>();
+        for (Feature feature : features) {
+            if (StringUtils.startsWith(feature.getId(), "HP:")) {
+                ids.add(feature.getId());
+            }
         }
-        VocabularyTerm termObj = this.ontologyService.getTerm(value);
-        if (termObj != null && termObj.get(PropertyDisplayer.INDEXED_CATEGORY_KEY) != null
-            && List.class.isAssignableFrom(termObj.get(PropertyDisplayer.INDEXED_CATEGORY_KEY).getClass()))
-        {
-            return (List<String>) termObj.get(PropertyDisplayer.INDEXED_CATEGORY_KEY);
+        if (ids.isEmpty()) {
+            return Collections.emptyMap();
         }
-        return new LinkedList<String>();
+        Map<String, Set<String>> result = this.ontologyService.getAncestorIds(ids);
+        return result != null ? result : Collections.<String, Set<String>>emptyMap();
     }
 
     /**
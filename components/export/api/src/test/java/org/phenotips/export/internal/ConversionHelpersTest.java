@@ -25,6 +25,9 @@
 import org.xwiki.component.manager.ComponentManager;
 import org.xwiki.script.service.ScriptService;
 
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
@@ -35,11 +38,13 @@
 import org.junit.Assert;
 import org.junit.Test;
 
+import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.atMost;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
 
@@ -209,6 +214,56 @@ public void sortFeaturesWithSections() throws Exception
         Assert.assertTrue(helpersSpy.getSectionFeatureTree().containsKey("id4"));
     }
 
+    @Test
+    public void sortFeaturesWithSectionsLooksUpAllCategoriesAtOnce() throws Exception
+    {
+        ConversionHelpers helpers = new ConversionHelpers();
+        ConversionHelpers helpersSpy = spy(helpers);
+        Feature featureOne = mock(Feature.class);
+        Feature featureTwo = mock(Feature.class);
+        Feature featureThree = mock(Feature.class);
+        Set<Feature> features = new HashSet<>();
+        features.add(featureOne);
+        features.add(featureTwo);
+        features.add(featureThree);
+        Map<String, List<String>> mapping = new HashMap<>();
+        mapping.put("sectionOne", Collections.singletonList("HP:0000707"));
+        mapping.put("sectionTwo", Collections.singletonList("HP:0000478"));
+        Map<String, Set<String>> ancestors = new HashMap<>();
+        ancestors.put("HP:0001250", new HashSet<>(Arrays.asList("HP:0000707", "HP:0000118")));
+        ancestors.put("HP:0000505", new HashSet<>(Arrays.asList("HP:0000478", "HP:0000118")));
+
+        ComponentManager componentManager = mock(ComponentManager.class);
+        Vocabulary ontologyService = mock(Vocabulary.class);
+        PhenotypeMappingService phenotypeMappingService = mock(PhenotypeMappingService.class);
+
+        doReturn(componentManager).when(helpersSpy).getComponentManager();
+        doReturn(ontologyService).when(componentManager).getInstance(eq(Vocabulary.class), eq("hpo"));
+        doReturn(phenotypeMappingService).when(componentManager)
+            .getInstance(eq(ScriptService.class), eq("phenotypeMapping"));
+        doReturn(new LinkedList<Map<String, List<String>>>()).when(phenotypeMappingService).get(anyString());
+        doReturn(mapping).when(helpersSpy).getCategoryMapping();
+        doReturn(ancestors).when(ontologyService).getAncestorIds(any(Collection.class));
+
+        doReturn(true).when(featureOne).isPresent();
+        doReturn(true).when(featureTwo).isPresent();
+        doReturn(true).when(featureThree).isPresent();
+        doReturn("HP:0001250").when(featureOne).getId();
+        doReturn("HP:0000505").when(featureTwo).getId();
+        doReturn("custom").when(featureThree).getId();
+
+        helpersSpy.newPatient();
+        helpersSpy.featureSetUp(true, true, true);
+        List<Feature> sorted = helpersSpy.sortFeaturesWithSections(features);
+
+        Assert.assertEquals(3, sorted.size());
+        Assert.assertEquals("sectionOne", helpersSpy.getSectionFeatureTree().get("HP:0001250"));
+        Assert.assertEquals("sectionTwo", helpersSpy.getSectionFeatureTree().get("HP:0000505"));
+        Assert.assertEquals("No category", helpersSpy.getSectionFeatureTree().get("custom"));
+        verify(ontologyService).getAncestorIds(any(Collection.class));
+        verify(ontologyService, never()).getTerm(anyString());
+    }
+
     @Test(expected = NullPointerException.class)
     public void sortFeaturesWithSectionsNewPatientNotCalled() throws Exception
     {
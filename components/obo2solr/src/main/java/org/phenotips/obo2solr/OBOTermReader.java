@@ -0,0 +1,316 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses/
+ */
+package org.phenotips.obo2solr;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Streaming reader for OBO files, returning one term at a time, so that the whole vocabulary never has to be kept in
+ * memory. The source is read twice: a first pass only collects the hierarchy skeleton (the identifier and the parents
+ * of each term), needed for computing the {@link TermData#TERM_CATEGORY_FIELD_NAME term categories}, and the second
+ * pass, driven by {@link #next()}, parses the full terms.
+ *
+ * @version $Id$
+ * @since 1.3M1
+ */
+public class OBOTermReader implements Closeable
+{
+    private static final String TERM_MARKER = "[Term]";
+
+    private static final String VERSION_FIELD_NAME = "data-version";
+
+    private static final String HEADER_ID = "HEADER_INFO";
+
+    private final File source;
+
+    private final boolean deleteOnClose;
+
+    private final Map<String, Double> fieldSelection;
+
+    /** Term identifier -&gt; direct parents, as stored in the {@link TermData#TERM_CATEGORY_FIELD_NAME} field. */
+    private final Map<String, List<String>> hierarchy = new LinkedHashMap<String, List<String>>();
+
+    /** The ancestors of all the terms, computed once after reading the hierarchy. */
+    private TermHierarchy ancestors;
+
+    private BufferedReader in;
+
+    /** The first line of the next stanza, already read while looking for the end of the previous one. */
+    private String pendingLine;
+
+    /** Whether the lines currently being read belong to an entity other than a term, and must be ignored. */
+    private boolean skip;
+
+    /** Whether {@link #close()} was already called. */
+    private boolean closed;
+
+    private Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    /**
+     * Creates a reader for a local OBO file and collects the hierarchy of the vocabulary.
+     *
+     * @param source the OBO file to read
+     * @param fieldSelection the fields to keep for each term, with their boost, or an empty map to keep all fields
+     * @throws IOException if reading the file fails
+     */
+    public OBOTermReader(File source, Map<String, Double> fieldSelection) throws IOException
+    {
+        this(source, fieldSelection, false);
+    }
+
+    OBOTermReader(File source, Map<String, Double> fieldSelection, boolean deleteOnClose) throws IOException
+    {
+        this.source = source;
+        this.fieldSelection = fieldSelection;
+        this.deleteOnClose = deleteOnClose;
+        readHierarchy();
+        if (isFieldSelected(TermData.TERM_CATEGORY_FIELD_NAME)) {
+            this.ancestors = new TermHierarchy(this.hierarchy);
+        }
+        this.in = open();
+    }
+
+    /**
+     * Reads the next term from the source.
+     *
+     * @return the next term, with its categories expanded to all its ancestors if the
+     *         {@link TermData#TERM_CATEGORY_FIELD_NAME term category} field is selected, or {@code null} if there are
+     *         no more terms
+     * @throws IOException if reading the file fails
+     */
+    public TermData next() throws IOException
+    {
+        TermData term = readTerm(this.in, false);
+        if (term != null && this.ancestors != null) {
+            term.addTo(TermData.TERM_CATEGORY_FIELD_NAME, this.ancestors.getAncestorsAndSelf(term.getId()));
+        }
+        return term;
+    }
+
+    /**
+     * The hierarchy skeleton of the vocabulary, with all the terms found in the source.
+     *
+     * @return an unmodifiable map with the term identifiers as keys, in the order they appear in the source, and their
+     *         direct parents as values
+     */
+    public Map<String, List<String>> getHierarchy()
+    {
+        return Collections.unmodifiableMap(this.hierarchy);
+    }
+
+    /**
+     * The number of terms found in the source.
+     *
+     * @return the number of terms
+     */
+    public int size()
+    {
+        return this.hierarchy.size();
+    }
+
+    @Override
+    public void close()
+    {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+        try {
+            if (this.in != null) {
+                this.in.close();
+            }
+        } catch (IOException ex) {
+            // Closing a stream shouldn't fail
+        }
+        this.in = null;
+        if (this.deleteOnClose && !this.source.delete()) {
+            this.logger.warn("Failed to delete temporary file [{}]", this.source.getAbsolutePath());
+        }
+    }
+
+    private BufferedReader open() throws IOException
+    {
+        this.pendingLine = null;
+        this.skip = false;
+        return new BufferedReader(new InputStreamReader(new FileInputStream(this.source), StandardCharsets.UTF_8));
+    }
+
+    private void readHierarchy() throws IOException
+    {
+        try (BufferedReader reader = open()) {
+            TermData term;
+            while ((term = readTerm(reader, true)) != null) {
+                Collection<String> parents = term.get(TermData.TERM_CATEGORY_FIELD_NAME);
+                this.hierarchy.put(term.getId(),
+                    parents == null ? Collections.<String>emptyList() : new ArrayList<String>(parents));
+            }
+        }
+    }
+
+    /**
+     * Reads the next term, or the header information, skipping over other entities.
+     *
+     * @param reader the source to read from
+     * @param skeletonOnly if {@code true}, only the identifier and the parents are kept
+     * @return the parsed term, or {@code null} if the end of the source was reached
+     * @throws IOException if reading fails
+     */
+    private TermData readTerm(BufferedReader reader, boolean skeletonOnly) throws IOException
+    {
+        TermData term = new TermData();
+        String line = this.pendingLine;
+        this.pendingLine = null;
+        if (line == null) {
+            line = reader.readLine();
+        }
+        while (line != null) {
+            String trimmed = line.trim();
+            if (isStanzaHeader(trimmed)) {
+                if (term.getId() != null) {
+                    this.pendingLine = line;
+                    return term;
+                }
+                term.clear();
+                this.skip = !TERM_MARKER.equalsIgnoreCase(trimmed);
+            } else if (!this.skip) {
+                loadLine(term, line, skeletonOnly);
+            }
+            line = reader.readLine();
+        }
+        return term.getId() != null ? term : null;
+    }
+
+    private void loadLine(TermData term, String line, boolean skeletonOnly)
+    {
+        int separator = findSeparator(line);
+        if (separator < 0) {
+            return;
+        }
+        String name = line.substring(0, separator).trim();
+        int valueStart = separator + 1;
+        while (valueStart < line.length() && Character.isWhitespace(line.charAt(valueStart))) {
+            ++valueStart;
+        }
+        String value = line.substring(valueStart);
+        if (VERSION_FIELD_NAME.equals(name)) {
+            term.addTo("version", value);
+            term.addTo(TermData.ID_FIELD_NAME, HEADER_ID);
+        }
+        if (skeletonOnly) {
+            if (TermData.ID_FIELD_NAME.equals(name) || TermData.PARENT_FIELD_NAME.equals(name)) {
+                term.addTo(name, cleanValue(value));
+            }
+        } else if (isFieldSelected(name)) {
+            term.addTo(name, cleanValue(value));
+        }
+    }
+
+    private boolean isFieldSelected(String name)
+    {
+        return this.fieldSelection.isEmpty() || this.fieldSelection.containsKey(name);
+    }
+
+    /**
+     * Checks if a line starts a new entity, like {@code [Term]} or {@code [Typedef]}.
+     *
+     * @param line the trimmed line to check
+     * @return {@code true} if the line is an entity header
+     */
+    static boolean isStanzaHeader(String line)
+    {
+        int length = line.length();
+        if (length < 3 || line.charAt(0) != '[' || line.charAt(length - 1) != ']') {
+            return false;
+        }
+        for (int i = 1; i < length - 1; ++i) {
+            char c = line.charAt(i);
+            if (!(c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds the colon separating the name from the value of a field, which is the first colon followed by whitespace.
+     *
+     * @param line the line to parse
+     * @return the position of the separator, or {@code -1} if this isn't a field line
+     */
+    static int findSeparator(String line)
+    {
+        int position = line.indexOf(':');
+        while (position >= 0 && position < line.length() - 1) {
+            if (Character.isWhitespace(line.charAt(position + 1))) {
+                return position;
+            }
+            position = line.indexOf(':', position + 1);
+        }
+        return -1;
+    }
+
+    /**
+     * Extracts the actual text from a quoted value followed by modifiers, for example
+     * {@code "Abnormal gait" EXACT [HPO:probinson]} becomes {@code Abnormal gait}, and unescapes quotes.
+     *
+     * @param value the raw value
+     * @return the cleaned up value
+     */
+    static String cleanValue(String value)
+    {
+        String result = value;
+        if (value.length() > 2 && value.charAt(0) == '"') {
+            // The last quote that is followed by a modifier or a list of references ends the quoted text
+            for (int end = value.lastIndexOf('"'); end > 1; end = value.lastIndexOf('"', end - 1)) {
+                if (isFollowedByModifier(value, end + 1)) {
+                    result = value.substring(1, end);
+                    break;
+                }
+            }
+        }
+        return result.indexOf('\\') >= 0 ? result.replace("\\\"", "\"") : result;
+    }
+
+    private static boolean isFollowedByModifier(String value, int start)
+    {
+        int position = start;
+        while (position < value.length() && Character.isWhitespace(value.charAt(position))) {
+            ++position;
+        }
+        if (position >= value.length()) {
+            return false;
+        }
+        char c = value.charAt(position);
+        return c >= 'A' && c <= 'Z' || c == '[';
+    }
+}
@@ -17,15 +17,16 @@
  */
 package org.phenotips.obo2solr;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
-import java.io.FileReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.InputStream;
 import java.net.MalformedURLException;
+import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
@@ -39,11 +40,6 @@
 
 public class SolrUpdateGenerator
 {
-    private static final String TERM_MARKER = "[Term]";
-
-    /** Not all entities are terms prompted by the presence of a {@link #TERM_MARKER} */
-    private static final String ENTITY_SEPARATION_REGEX = "^\\[[a-zA-Z]+\\]$";
-
     private static final String ROOT_ELEMENT_NAME = "add";
 
     private static final String TERM_ELEMENT_NAME = "doc";
@@ -54,18 +50,12 @@
 
     private static final String FIELD_ATTRIBUTE_BOOST = "boost";
 
-    private static final String FIELD_NAME_VALUE_SEPARATOR = "\\s*:\\s+";
+    private static final String READ_FAILED_MESSAGE = "Failed to read [{}]: {}";
 
     private AttributesImpl atts;
 
     private ContentHandler hd;
 
-    private int counter;
-
-    private TermData crtTerm = new TermData();
-
-    private Map<String, TermData> data = new LinkedHashMap<String, TermData>();
-
     private Map<String, Double> fieldSelection;
 
     private Logger logger = LoggerFactory.getLogger(this.getClass());
@@ -77,76 +67,18 @@ public void transform(File input, File output, Map<String, Double> fieldSelectio
             return;
         }
         this.fieldSelection = fieldSelection;
-        BufferedReader in = null;
-        try {
-            in = new BufferedReader(new FileReader(input));
-            FileOutputStream fos = new FileOutputStream(output);
-            OutputFormat of = new OutputFormat("XML", "UTF-8", true);
-            of.setIndent(2);
-            of.setIndenting(true);
-            XMLSerializer serializer = new XMLSerializer(fos, of);
-            this.hd = serializer.asContentHandler();
-            this.hd.startDocument();
-            this.atts = new AttributesImpl();
-            startElement(ROOT_ELEMENT_NAME);
-
-            String line;
-            this.counter = 0;
-            /* When encountering a separator that is not a term separator,
-            all data should be skipped until a term separator is encountered again */
-            boolean skip = false;
-            while ((line = in.readLine()) != null) {
-                if (line.trim().matches(ENTITY_SEPARATION_REGEX)) {
-                    if (this.counter > 0) {
-                        storeCrtTerm();
-                    }
-                    // Overridden below
-                    skip = true;
-                }
-                if (line.trim().equalsIgnoreCase(TERM_MARKER)) {
-                    ++this.counter;
-                    skip = false;
-                    continue;
-                }
-                if (!skip) {
-                    String[] pieces = line.split(FIELD_NAME_VALUE_SEPARATOR, 2);
-                    if (pieces.length != 2) {
-                        continue;
-                    }
-                    loadField(pieces[0], pieces[1]);
-                }
+        try (OBOTermReader reader = stream(input.toURI().toURL(), fieldSelection)) {
+            if (reader != null) {
+                write(reader, output);
             }
-            if (this.counter > 0) {
-                storeCrtTerm();
-            }
-            if (isFieldSelected(TermData.TERM_CATEGORY_FIELD_NAME)) {
-                propagateAncestors();
-                for (String id : this.data.keySet()) {
-                    writeTerm(id);
-                }
-            }
-
-            endElement(ROOT_ELEMENT_NAME);
-            this.hd.endDocument();
-            fos.flush();
-            fos.close();
-        } catch (NullPointerException ex) {
-            this.logger.error("An unexpected null: {}", ex.getMessage(), ex);
         } catch (FileNotFoundException ex) {
-            this.logger.error("Could not locate source file [{}]: {}", input.getAbsolutePath(), ex.getMessage());
+            this.logger.error("Could not create output file [{}]: {}", output.getAbsolutePath(), ex.getMessage());
         } catch (IOException ex) {
             this.logger.error("Failed to read/write files: {}", ex.getMessage());
         } catch (SAXException ex) {
             this.logger.error("Unexpected XML error: {}", ex.getMessage());
         } finally {
             this.fieldSelection = null;
-            if (in != null) {
-                try {
-                    in.close();
-                } catch (IOException ex) {
-                    // Closing a stream shouldn't fail
-                }
-            }
         }
     }
 
@@ -163,69 +95,115 @@ public Map<String, TermData> transform(String ontologyUrl, Map<String, Double> f
 
     public Map<String, TermData> transform(URL input, Map<String, Double> fieldSelection)
     {
-        this.fieldSelection = fieldSelection;
+        Map<String, TermData> result = new LinkedHashMap<String, TermData>();
+        try (OBOTermReader reader = stream(input, fieldSelection)) {
+            if (reader == null) {
+                return result;
+            }
+            TermData term;
+            while ((term = reader.next()) != null) {
+                result.put(term.getId(), term);
+            }
+        } catch (IOException ex) {
+            this.logger.error("IOException: {}", ex.getMessage());
+        }
+        return result;
+    }
+
+    /**
+     * Opens a streaming reader over an OBO source, which returns the terms one by one instead of keeping the whole
+     * vocabulary in memory. Remote sources are first downloaded into a temporary file, deleted when the reader is
+     * closed. The returned reader must be closed once no longer needed.
+     *
+     * @param ontologyUrl the URL of the OBO source
+     * @param fieldSelection the fields to keep for each term, with their boost, or an empty map to keep all fields
+     * @return a reader over the terms, or {@code null} if the URL is invalid or the source cannot be read
+     * @since 1.3M1
+     */
+    public OBOTermReader stream(String ontologyUrl, Map<String, Double> fieldSelection)
+    {
         try {
-            BufferedReader in = new BufferedReader(new InputStreamReader(input.openConnection().getInputStream()));
-            this.atts = new AttributesImpl();
-            String line;
-            this.counter = 0;
+            return stream(new URL(ontologyUrl), fieldSelection);
+        } catch (MalformedURLException ex) {
+            return null;
+        }
+    }
 
-            /* When encountering a separator that is not a term separator,
-            all data should be skipped until a term separator is encountered again */
-            boolean skip = false;
-            while ((line = in.readLine()) != null) {
-                if (line.trim().matches(ENTITY_SEPARATION_REGEX)) {
-                    if (this.counter > 0) {
-                        storeCrtTerm();
-                    }
-                    // Overridden below
-                    skip = true;
-                }
-                if (line.trim().equalsIgnoreCase(TERM_MARKER)) {
-                    ++this.counter;
-                    skip = false;
-                    continue;
-                }
-                if (!skip) {
-                    String[] pieces = line.split(FIELD_NAME_VALUE_SEPARATOR, 2);
-                    if (pieces.length != 2) {
-                        continue;
-                    }
-                    if (pieces[0].trim().equals("data-version")) {
-                        this.crtTerm.addTo("version", pieces[1]);
-                        this.crtTerm.addTo(TermData.ID_FIELD_NAME, "HEADER_INFO");
-                        this.counter++;
-                    }
-                    loadField(pieces[0], pieces[1]);
-                }
-            }
-            if (this.counter > 0) {
-                storeCrtTerm();
+    /**
+     * Opens a streaming reader over an OBO source.
+     *
+     * @param input the URL of the OBO source
+     * @param fieldSelection the fields to keep for each term, with their boost, or an empty map to keep all fields
+     * @return a reader over the terms, or {@code null} if the source cannot be read
+     * @see #stream(String, Map)
+     * @since 1.3M1
+     */
+    public OBOTermReader stream(URL input, Map<String, Double> fieldSelection)
+    {
+        File local = toLocalFile(input);
+        if (local != null) {
+            try {
+                return new OBOTermReader(local, fieldSelection);
+            } catch (IOException ex) {
+                this.logger.error(READ_FAILED_MESSAGE, input, ex.getMessage());
+                return null;
             }
-            if (isFieldSelected(TermData.TERM_CATEGORY_FIELD_NAME)) {
-                propagateAncestors();
+        }
+        File temporary = null;
+        try {
+            temporary = File.createTempFile("obo2solr", ".obo");
+            try (InputStream in = input.openConnection().getInputStream()) {
+                Files.copy(in, temporary.toPath(), StandardCopyOption.REPLACE_EXISTING);
             }
-        } catch (NullPointerException ex) {
-            this.logger.error("NullPointer: {}", ex.getMessage());
+            return new OBOTermReader(temporary, fieldSelection, true);
         } catch (IOException ex) {
-            this.logger.error("IOException: {}", ex.getMessage());
-        } finally {
-            this.fieldSelection = null;
+            this.logger.error(READ_FAILED_MESSAGE, input, ex.getMessage());
+            if (temporary != null && !temporary.delete()) {
+                temporary.deleteOnExit();
+            }
         }
-        return this.data;
+        return null;
     }
 
-    private void storeCrtTerm()
+    private File toLocalFile(URL input)
     {
-        if (this.crtTerm.getId() != null) {
-            this.data.put(this.crtTerm.getId(), this.crtTerm);
+        if (!"file".equals(input.getProtocol())) {
+            return null;
+        }
+        try {
+            return new File(input.toURI());
+        } catch (URISyntaxException | IllegalArgumentException ex) {
+            return null;
         }
-        this.crtTerm = new TermData();
     }
 
-    private void writeTerm(String id) throws SAXException
+    /**
+     * Writes all the terms read from an OBO source as a Solr update document.
+     *
+     * @param reader the source of the terms
+     * @param output the file where the Solr update document is written
+     * @throws IOException if reading the terms or writing the output fails
+     * @throws SAXException if serializing the XML fails
+     */
+    private void write(OBOTermReader reader, File output) throws IOException, SAXException
     {
-        writeTerm(this.data.get(id));
+        try (FileOutputStream fos = new FileOutputStream(output)) {
+            OutputFormat of = new OutputFormat("XML", "UTF-8", true);
+            of.setIndent(2);
+            of.setIndenting(true);
+            XMLSerializer serializer = new XMLSerializer(fos, of);
+            this.hd = serializer.asContentHandler();
+            this.hd.startDocument();
+            this.atts = new AttributesImpl();
+            startElement(ROOT_ELEMENT_NAME);
+            TermData term;
+            while ((term = reader.next()) != null) {
+                writeTerm(term);
+            }
+            endElement(ROOT_ELEMENT_NAME);
+            this.hd.endDocument();
+            fos.flush();
+        }
     }
 
     private void writeTerm(TermData term) throws SAXException
@@ -249,27 +227,6 @@ private void writeField(String name, String value) throws SAXException
         endElement(FIELD_ELEMENT_NAME);
     }
 
-    private boolean isFieldSelected(String name)
-    {
-        return this.fieldSelection.isEmpty() || this.fieldSelection.containsKey(name);
-    }
-
-    private void loadField(String name, String value)
-    {
-        if (!(isFieldSelected(name))) {
-            return;
-        }
-        this.crtTerm.addTo(name, value.replaceFirst("^\"(.+)\"\\s*?(?:[A-Z]+|\\[).*", "$1").replace("\\\"", "\""));
-    }
-
-    private void propagateAncestors()
-    {
-        for (String id : this.data.keySet()) {
-            TermData term = this.data.get(id);
-            term.expandTermCategories(this.data);
-        }
-    }
-
     private void startElement(String qName) throws SAXException
     {
         this.hd.startElement("", "", qName, this.atts);
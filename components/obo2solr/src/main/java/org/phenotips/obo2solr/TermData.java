@@ -21,8 +21,10 @@
 
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.regex.Pattern;
 
 public class TermData extends SetMap<String, String>
 {
@@ -36,6 +38,8 @@ public class TermData extends SetMap<String, String>
 
     public static final String PARENT_ID_REGEX = "^(HP\\:[0-9]{7})\\s*!\\s*.*";
 
+    private static final Pattern PARENT_ID_PATTERN = Pattern.compile(PARENT_ID_REGEX);
+
     private String id;
 
     @Override
@@ -56,7 +60,7 @@ public boolean addTo(String key, String value)
         if (ID_FIELD_NAME.equals(key)) {
             this.id = value;
         } else if (PARENT_FIELD_NAME.equals(key)) {
-            this.addTo(TERM_CATEGORY_FIELD_NAME, value.replaceAll(PARENT_ID_REGEX, "$1"));
+            this.addTo(TERM_CATEGORY_FIELD_NAME, PARENT_ID_PATTERN.matcher(value).replaceAll("$1"));
         }
         return super.addTo(key, value);
     }
@@ -71,6 +75,12 @@ public boolean addTo(String key, Collection<String> values)
         return result;
     }
 
+    /**
+     * Adds all the ancestors of this term to its categories. This walks the hierarchy independently for each term, use
+     * {@link #expandAllTermCategories(Map)} when expanding a whole vocabulary.
+     *
+     * @param data all the terms of the vocabulary
+     */
     public void expandTermCategories(Map<String, TermData> data)
     {
         Set<String> result = new HashSet<String>();
@@ -101,4 +111,23 @@ public void expandTermCategories(Map<String, TermData> data)
         result.add(this.id);
         this.addTo(TERM_CATEGORY_FIELD_NAME, result);
     }
+
+    /**
+     * Adds all their ancestors to the categories of all the terms of a vocabulary. The ancestors are computed only once
+     * for each term, in topological order, and reused for all its descendants.
+     *
+     * @param data all the terms of the vocabulary
+     * @since 1.3M1
+     */
+    public static void expandAllTermCategories(Map<String, TermData> data)
+    {
+        Map<String, Collection<String>> hierarchy = new LinkedHashMap<String, Collection<String>>();
+        for (Map.Entry<String, TermData> term : data.entrySet()) {
+            hierarchy.put(term.getKey(), term.getValue().safeGet(TERM_CATEGORY_FIELD_NAME));
+        }
+        TermHierarchy ancestors = new TermHierarchy(hierarchy);
+        for (Map.Entry<String, TermData> term : data.entrySet()) {
+            term.getValue().addTo(TERM_CATEGORY_FIELD_NAME, ancestors.getAncestorsAndSelf(term.getKey()));
+        }
+    }
 }
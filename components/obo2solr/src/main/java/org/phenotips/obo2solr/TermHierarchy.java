@@ -0,0 +1,372 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses/
+ */
+package org.phenotips.obo2solr;
+
+import org.phenotips.obo2solr.maps.ObjectIntMap;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The transitive closure of a term hierarchy, computed once for all the terms. Terms are processed in topological
+ * order, parents before children, so that the ancestors of each term are obtained by merging the already computed
+ * ancestors of its parents, and the work done for the upper levels of the hierarchy is shared by all their
+ * descendants. Along with the ancestors, the length of the shortest upward path to each of them and the depth of each
+ * term are also computed. Ancestors are stored as sorted arrays of term indexes, which keeps the memory footprint low
+ * for large vocabularies.
+ *
+ * @version $Id$
+ * @since 1.3M1
+ */
+public class TermHierarchy
+{
+    private static final int[] NONE = new int[0];
+
+    /** Term index -&gt; term identifier. */
+    private final List<String> ids = new ArrayList<String>();
+
+    /** Term identifier -&gt; term index. */
+    private final ObjectIntMap<String> index = new ObjectIntMap<String>();
+
+    /** Term index -&gt; sorted indexes of the direct parents. */
+    private int[][] parents;
+
+    /** Term index -&gt; sorted indexes of all the ancestors, excluding the term itself. */
+    private int[][] ancestors;
+
+    /** Term index -&gt; length of the shortest upward path to each ancestor, in the same order as the ancestors. */
+    private int[][] distances;
+
+    /** Term index -&gt; length of the shortest upward path to a root term. */
+    private int[] depths;
+
+    /**
+     * Computes the ancestors of all the terms in a hierarchy.
+     *
+     * @param hierarchy term identifier -&gt; identifiers of the direct parents; parents missing from the keys are
+     *            treated as root terms
+     */
+    public TermHierarchy(Map<String, ? extends Collection<String>> hierarchy)
+    {
+        for (String id : hierarchy.keySet()) {
+            add(id);
+        }
+        List<int[]> parentList = new ArrayList<int[]>(hierarchy.size());
+        for (Map.Entry<String, ? extends Collection<String>> term : hierarchy.entrySet()) {
+            Collection<String> termParents = term.getValue();
+            int[] result = termParents == null ? NONE : new int[termParents.size()];
+            int i = 0;
+            if (termParents != null) {
+                for (String parent : termParents) {
+                    result[i++] = add(parent);
+                }
+            }
+            parentList.add(sortedUnique(result));
+        }
+        // Unknown parents were added at the end, without parents of their own
+        this.parents = new int[this.ids.size()][];
+        for (int i = 0; i < this.parents.length; ++i) {
+            this.parents[i] = i < parentList.size() ? parentList.get(i) : NONE;
+        }
+        computeAncestors();
+    }
+
+    /**
+     * The number of terms in the hierarchy, including the unknown parents.
+     *
+     * @return the number of terms, {@code 0} if the hierarchy is empty
+     */
+    public int size()
+    {
+        return this.ids.size();
+    }
+
+    /**
+     * Checks if a term is part of the hierarchy.
+     *
+     * @param id the identifier of the term
+     * @return {@code true} if the term is known
+     */
+    public boolean contains(String id)
+    {
+        return this.index.containsKey(id);
+    }
+
+    /**
+     * Returns the index of a term, which is the position of the term in the keys of the hierarchy, followed by the
+     * unknown parents in the order they were encountered.
+     *
+     * @param id the identifier of the term
+     * @return the index of the term, or {@code -1} if the term isn't part of the hierarchy
+     */
+    public int getIndex(String id)
+    {
+        return this.index.get(id, -1);
+    }
+
+    /**
+     * Returns the identifier of a term.
+     *
+     * @param termIndex the index of the term, as returned by {@link #getIndex(String)}
+     * @return the identifier of the term
+     */
+    public String getId(int termIndex)
+    {
+        return this.ids.get(termIndex);
+    }
+
+    /**
+     * Returns the direct parents of a term. The returned array is shared and must not be modified.
+     *
+     * @param termIndex the index of the term, as returned by {@link #getIndex(String)}
+     * @return the sorted indexes of the parents, empty for root terms
+     */
+    public int[] getParents(int termIndex)
+    {
+        return this.parents[termIndex];
+    }
+
+    /**
+     * Returns all the ancestors of a term, excluding the term itself. The returned array is shared and must not be
+     * modified.
+     *
+     * @param termIndex the index of the term, as returned by {@link #getIndex(String)}
+     * @return the sorted indexes of the ancestors, empty for root terms
+     */
+    public int[] getAncestors(int termIndex)
+    {
+        return this.ancestors[termIndex];
+    }
+
+    /**
+     * Returns the length of the shortest upward path from a term to each of its ancestors. The returned array is shared
+     * and must not be modified.
+     *
+     * @param termIndex the index of the term, as returned by {@link #getIndex(String)}
+     * @return the distances, in the same order as the ancestors returned by {@link #getAncestors(int)}
+     */
+    public int[] getAncestorDistances(int termIndex)
+    {
+        return this.distances[termIndex];
+    }
+
+    /**
+     * Returns the depth of a term, i.e. the length of the shortest upward path from the term to a root term.
+     *
+     * @param termIndex the index of the term, as returned by {@link #getIndex(String)}
+     * @return the depth of the term, {@code 0} for root terms and for terms which only have cyclic ancestors
+     */
+    public int getDepth(int termIndex)
+    {
+        return this.depths[termIndex];
+    }
+
+    /**
+     * Returns all the ancestors of a term, including the term itself.
+     *
+     * @param id the identifier of the term
+     * @return an unmodifiable list with the term followed by its ancestors, or only the term itself if it isn't part of
+     *         the hierarchy
+     */
+    public List<String> getAncestorsAndSelf(final String id)
+    {
+        int termIndex = getIndex(id);
+        if (termIndex < 0) {
+            return Collections.singletonList(id);
+        }
+        final int[] termAncestors = this.ancestors[termIndex];
+        return new AbstractList<String>()
+        {
+            @Override
+            public String get(int i)
+            {
+                return i == 0 ? id : TermHierarchy.this.ids.get(termAncestors[i - 1]);
+            }
+
+            @Override
+            public int size()
+            {
+                return termAncestors.length + 1;
+            }
+        };
+    }
+
+    private int add(String id)
+    {
+        int result = this.index.get(id, -1);
+        if (result < 0) {
+            result = this.ids.size();
+            this.ids.add(id);
+            this.index.put(id, result);
+        }
+        return result;
+    }
+
+    /**
+     * Computes the ancestors of all the terms, in topological order. Terms that are part of a cycle never become
+     * ready, and are processed with a plain traversal at the end.
+     */
+    private void computeAncestors()
+    {
+        int size = this.parents.length;
+        this.ancestors = new int[size][];
+        this.distances = new int[size][];
+        this.depths = new int[size];
+        // Number of parents not yet processed, and the reverse edges, needed for the topological sort
+        int[] pending = new int[size];
+        int[][] children = invert(pending);
+        // Each term becomes ready exactly once, so a plain array is enough for the queue
+        int[] ready = new int[size];
+        int head = 0;
+        int tail = 0;
+        for (int i = 0; i < size; ++i) {
+            if (pending[i] == 0) {
+                ready[tail++] = i;
+            }
+        }
+        // Reusable buffers, so that no set is allocated for each term
+        int[] stamp = new int[size];
+        int[] buffer = new int[size];
+        int[] distance = new int[size];
+        int round = 0;
+        while (head < tail) {
+            int term = ready[head++];
+            mergeParents(term, stamp, buffer, distance, ++round);
+            for (int child : children[term]) {
+                if (--pending[child] == 0) {
+                    ready[tail++] = child;
+                }
+            }
+        }
+        for (int i = 0; i < size; ++i) {
+            if (this.ancestors[i] == null) {
+                traverse(i, stamp, buffer, distance, ++round);
+            }
+        }
+    }
+
+    private int[][] invert(int[] pending)
+    {
+        int size = this.parents.length;
+        int[] childCount = new int[size];
+        for (int i = 0; i < size; ++i) {
+            pending[i] = this.parents[i].length;
+            for (int parent : this.parents[i]) {
+                ++childCount[parent];
+            }
+        }
+        int[][] children = new int[size][];
+        for (int i = 0; i < size; ++i) {
+            children[i] = new int[childCount[i]];
+            childCount[i] = 0;
+        }
+        for (int i = 0; i < size; ++i) {
+            for (int parent : this.parents[i]) {
+                children[parent][childCount[parent]++] = i;
+            }
+        }
+        return children;
+    }
+
+    /** The ancestors of a term whose parents all have their ancestors computed already. */
+    private void mergeParents(int term, int[] stamp, int[] buffer, int[] distance, int round)
+    {
+        int count = 0;
+        int depth = Integer.MAX_VALUE;
+        stamp[term] = round;
+        for (int parent : this.parents[term]) {
+            count = addAncestor(parent, 1, round, count, stamp, buffer, distance);
+            int[] parentAncestors = this.ancestors[parent];
+            int[] parentDistances = this.distances[parent];
+            for (int i = 0; i < parentAncestors.length; ++i) {
+                count = addAncestor(parentAncestors[i], parentDistances[i] + 1, round, count, stamp, buffer, distance);
+            }
+            depth = Math.min(depth, this.depths[parent] + 1);
+        }
+        this.depths[term] = depth == Integer.MAX_VALUE ? 0 : depth;
+        store(term, buffer, distance, count);
+    }
+
+    /**
+     * The ancestors of a term which is part of a cycle, found by walking up the hierarchy breadth first, so that each
+     * ancestor is reached through the shortest path.
+     */
+    private void traverse(int term, int[] stamp, int[] buffer, int[] distance, int round)
+    {
+        int count = 0;
+        int depth = -1;
+        stamp[term] = round;
+        // The buffer doubles as the queue of the traversal, the term itself being at position -1
+        for (int next = -1; next < count; ++next) {
+            int current = next < 0 ? term : buffer[next];
+            int currentDistance = next < 0 ? 0 : distance[current];
+            if (depth < 0 && this.parents[current].length == 0) {
+                depth = currentDistance;
+            }
+            for (int parent : this.parents[current]) {
+                count = addAncestor(parent, currentDistance + 1, round, count, stamp, buffer, distance);
+            }
+        }
+        this.depths[term] = Math.max(depth, 0);
+        store(term, buffer, distance, count);
+    }
+
+    private static int addAncestor(int ancestor, int ancestorDistance, int round, int count, int[] stamp,
+        int[] buffer, int[] distance)
+    {
+        if (stamp[ancestor] != round) {
+            stamp[ancestor] = round;
+            buffer[count] = ancestor;
+            distance[ancestor] = ancestorDistance;
+            return count + 1;
+        }
+        distance[ancestor] = Math.min(distance[ancestor], ancestorDistance);
+        return count;
+    }
+
+    private void store(int term, int[] buffer, int[] distance, int count)
+    {
+        int[] result = sortedUnique(Arrays.copyOf(buffer, count));
+        int[] resultDistances = result.length == 0 ? NONE : new int[result.length];
+        for (int i = 0; i < result.length; ++i) {
+            resultDistances[i] = distance[result[i]];
+        }
+        this.ancestors[term] = result;
+        this.distances[term] = resultDistances;
+    }
+
+    private static int[] sortedUnique(int[] values)
+    {
+        if (values.length == 0) {
+            return NONE;
+        }
+        Arrays.sort(values);
+        int unique = 1;
+        for (int i = 1; i < values.length; ++i) {
+            if (values[i] != values[unique - 1]) {
+                values[unique++] = values[i];
+            }
+        }
+        return unique == values.length ? values : Arrays.copyOf(values, unique);
+    }
+}
@@ -0,0 +1,412 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses/
+ */
+package org.phenotips.obo2solr.maps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Base class for maps from object keys to primitive values, which store their values in primitive arrays instead of
+ * boxing them. Keys are kept in an array in insertion order, which is also the iteration order, and an open addressing
+ * hash table with linear probing maps each key to its position in that array, so adding an entry doesn't allocate
+ * anything besides the occasional resize. Subclasses store the values in a parallel array, at the same positions.
+ *
+ * @param <K> the type of keys; {@code null} keys are not supported
+ * @version $Id$
+ * @since 1.3M1
+ */
+public abstract class AbstractPrimitiveValueMap<K>
+{
+    /** Returned by {@link #positionOf(Object)} for missing keys. */
+    protected static final int MISSING = -1;
+
+    /** Marks a free hash table slot. */
+    private static final int FREE = -1;
+
+    /** Marks a hash table slot whose entry was removed, which must not stop the probing. */
+    private static final int REMOVED = -2;
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /** The keys, in insertion order; removed entries are set to {@code null}. */
+    private K[] keys;
+
+    /** The hash table, holding positions in {@link #keys}, {@link #FREE}, or {@link #REMOVED}. */
+    private int[] table;
+
+    /** The number of positions used in {@link #keys}, including removed entries. */
+    private int used;
+
+    /** The number of hash table slots that aren't {@link #FREE}. */
+    private int occupied;
+
+    /** The number of entries in the map. */
+    private int size;
+
+    /** Creates an empty map with the default capacity. */
+    protected AbstractPrimitiveValueMap()
+    {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates an empty map able to hold the specified number of entries without resizing.
+     *
+     * @param initialCapacity the expected number of entries
+     */
+    @SuppressWarnings("unchecked")
+    protected AbstractPrimitiveValueMap(int initialCapacity)
+    {
+        int capacity = Math.max(initialCapacity, 1);
+        this.keys = (K[]) new Object[capacity];
+        this.table = newTable(capacity);
+    }
+
+    /**
+     * The number of entries in the map.
+     *
+     * @return a positive number, {@code 0} if the map is empty
+     */
+    public int size()
+    {
+        return this.size;
+    }
+
+    /**
+     * Checks if the map has no entries.
+     *
+     * @return {@code true} if the map is empty
+     */
+    public boolean isEmpty()
+    {
+        return this.size == 0;
+    }
+
+    /**
+     * Checks if the map has an entry for a key.
+     *
+     * @param key the key to look for
+     * @return {@code true} if the key is present
+     */
+    public boolean containsKey(Object key)
+    {
+        return positionOf(key) != MISSING;
+    }
+
+    /**
+     * Removes the entry for a key.
+     *
+     * @param key the key to remove
+     * @return {@code true} if the key was present
+     */
+    public boolean remove(Object key)
+    {
+        int slot = slotOf(key);
+        if (slot == MISSING) {
+            return false;
+        }
+        int position = this.table[slot];
+        this.keys[position] = null;
+        clearValue(position);
+        this.table[slot] = REMOVED;
+        --this.size;
+        return true;
+    }
+
+    /** Removes all the entries. */
+    public void clear()
+    {
+        Arrays.fill(this.keys, 0, this.used, null);
+        Arrays.fill(this.table, FREE);
+        this.used = 0;
+        this.occupied = 0;
+        this.size = 0;
+    }
+
+    /**
+     * The keys of the map.
+     *
+     * @return a new list with the keys, in insertion order
+     */
+    public List<K> keys()
+    {
+        List<K> result = new ArrayList<K>(this.size);
+        for (int i = 0; i < this.used; ++i) {
+            if (this.keys[i] != null) {
+                result.add(this.keys[i]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Sorts the keys by their value, in ascending order. Keys with the same value keep their insertion order.
+     *
+     * @return a new list with the sorted keys
+     */
+    public List<K> sort()
+    {
+        return sort(false);
+    }
+
+    /**
+     * Sorts the keys by their value. Keys with the same value keep their insertion order.
+     *
+     * @param descending whether to sort in descending or ascending order
+     * @return a new list with the sorted keys
+     */
+    public List<K> sort(final boolean descending)
+    {
+        Integer[] positions = new Integer[this.size];
+        int count = 0;
+        for (int i = 0; i < this.used; ++i) {
+            if (this.keys[i] != null) {
+                positions[count++] = i;
+            }
+        }
+        Arrays.sort(positions, new Comparator<Integer>()
+        {
+            @Override
+            public int compare(Integer a, Integer b)
+            {
+                int result = compareValues(a, b);
+                return descending ? -result : result;
+            }
+        });
+        List<K> result = new ArrayList<K>(this.size);
+        for (Integer position : positions) {
+            result.add(this.keys[position]);
+        }
+        return result;
+    }
+
+    /**
+     * Finds the key with the largest value, the first inserted one if several keys have the same value.
+     *
+     * @return the key with the largest value, or {@code null} if the map is empty
+     */
+    public K getMax()
+    {
+        int best = MISSING;
+        for (int i = 0; i < this.used; ++i) {
+            if (this.keys[i] != null && (best == MISSING || compareValues(i, best) > 0)) {
+                best = i;
+            }
+        }
+        return best == MISSING ? null : this.keys[best];
+    }
+
+    /**
+     * Finds the key with the smallest value, the first inserted one if several keys have the same value.
+     *
+     * @return the key with the smallest value, or {@code null} if the map is empty
+     */
+    public K getMin()
+    {
+        int best = MISSING;
+        for (int i = 0; i < this.used; ++i) {
+            if (this.keys[i] != null && (best == MISSING || compareValues(i, best) < 0)) {
+                best = i;
+            }
+        }
+        return best == MISSING ? null : this.keys[best];
+    }
+
+    /**
+     * Finds the position of a key.
+     *
+     * @param key the key to look for
+     * @return the position of the key in the values array, or {@link #MISSING} if the key isn't present
+     */
+    protected int positionOf(Object key)
+    {
+        int slot = slotOf(key);
+        return slot == MISSING ? MISSING : this.table[slot];
+    }
+
+    /**
+     * Finds the position of a key, adding it if it isn't present yet. The value at a new position is always the
+     * default value of the primitive type.
+     *
+     * @param key the key to look for
+     * @return the position of the key in the values array
+     */
+    protected int insert(K key)
+    {
+        int position = positionOf(key);
+        if (position != MISSING) {
+            return position;
+        }
+        if (this.used == this.keys.length) {
+            makeRoom();
+        }
+        if ((this.occupied + 1) * 2 > this.table.length) {
+            rebuildTable(this.keys.length);
+        }
+        position = this.used++;
+        this.keys[position] = key;
+        int mask = this.table.length - 1;
+        int slot = hash(key) & mask;
+        while (this.table[slot] >= 0) {
+            slot = (slot + 1) & mask;
+        }
+        if (this.table[slot] == FREE) {
+            ++this.occupied;
+        }
+        this.table[slot] = position;
+        ++this.size;
+        return position;
+    }
+
+    /**
+     * The length that the values array must have initially.
+     *
+     * @return the initial capacity of the map
+     */
+    protected int capacity()
+    {
+        return this.keys.length;
+    }
+
+    /**
+     * The number of positions used in the values array, including the positions of removed entries.
+     *
+     * @return the upper bound of the used positions
+     */
+    protected int usedPositions()
+    {
+        return this.used;
+    }
+
+    /**
+     * The key stored at a position.
+     *
+     * @param position a position lower than {@link #usedPositions()}
+     * @return the key, or {@code null} if the entry at that position was removed
+     */
+    protected K keyAt(int position)
+    {
+        return this.keys[position];
+    }
+
+    /**
+     * Resizes the values array.
+     *
+     * @param capacity the new length of the array
+     */
+    protected abstract void resizeValues(int capacity);
+
+    /**
+     * Resets the value at a position to the default value of the primitive type, when its entry is removed.
+     *
+     * @param position the position of the removed entry
+     */
+    protected abstract void clearValue(int position);
+
+    /**
+     * Moves a value to a lower position, when reclaiming the space of removed entries.
+     *
+     * @param from the current position of the value, which must be reset to the default value
+     * @param to the new position of the value
+     */
+    protected abstract void moveValue(int from, int to);
+
+    /**
+     * Compares the values at two positions.
+     *
+     * @param a the first position
+     * @param b the second position
+     * @return a negative number, zero, or a positive number if the first value is smaller, equal, or larger
+     */
+    protected abstract int compareValues(int a, int b);
+
+    private int slotOf(Object key)
+    {
+        if (key == null) {
+            return MISSING;
+        }
+        int mask = this.table.length - 1;
+        int slot = hash(key) & mask;
+        int position;
+        while ((position = this.table[slot]) != FREE) {
+            if (position >= 0 && key.equals(this.keys[position])) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return MISSING;
+    }
+
+    /** Makes room for a new entry, by reclaiming removed entries if there are many of them, or by growing. */
+    private void makeRoom()
+    {
+        if (this.size <= this.used / 2) {
+            int count = 0;
+            for (int i = 0; i < this.used; ++i) {
+                if (this.keys[i] != null) {
+                    if (i != count) {
+                        this.keys[count] = this.keys[i];
+                        moveValue(i, count);
+                    }
+                    ++count;
+                }
+            }
+            Arrays.fill(this.keys, count, this.used, null);
+            this.used = count;
+        } else {
+            int capacity = this.keys.length * 2;
+            this.keys = Arrays.copyOf(this.keys, capacity);
+            resizeValues(capacity);
+        }
+        rebuildTable(this.keys.length);
+    }
+
+    private void rebuildTable(int capacity)
+    {
+        this.table = newTable(capacity);
+        this.occupied = 0;
+        int mask = this.table.length - 1;
+        for (int i = 0; i < this.used; ++i) {
+            if (this.keys[i] != null) {
+                int slot = hash(this.keys[i]) & mask;
+                while (this.table[slot] != FREE) {
+                    slot = (slot + 1) & mask;
+                }
+                this.table[slot] = i;
+                ++this.occupied;
+            }
+        }
+    }
+
+    /** A free hash table with a power of two length, large enough to stay at most half full with this many keys. */
+    private static int[] newTable(int capacity)
+    {
+        int length = Integer.highestOneBit(Math.max(capacity, 2) * 2 - 1) * 2;
+        int[] result = new int[length];
+        Arrays.fill(result, FREE);
+        return result;
+    }
+
+    private static int hash(Object key)
+    {
+        int h = key.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
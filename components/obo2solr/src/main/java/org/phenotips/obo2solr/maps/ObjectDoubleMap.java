@@ -0,0 +1,181 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses/
+ */
+package org.phenotips.obo2solr.maps;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+
+/**
+ * A map from object keys to primitive {@code double} values, a replacement for {@link DoubleMap} and its subclasses
+ * which doesn't box the values. Missing keys have the value {@code 0.0}.
+ *
+ * @param <K> the type of keys; {@code null} keys are not supported
+ * @version $Id$
+ * @since 1.3M1
+ */
+public class ObjectDoubleMap<K> extends AbstractPrimitiveValueMap<K>
+{
+    private double[] values;
+
+    /** Creates an empty map with the default capacity. */
+    public ObjectDoubleMap()
+    {
+        super();
+        this.values = new double[capacity()];
+    }
+
+    /**
+     * Creates an empty map able to hold the specified number of entries without resizing.
+     *
+     * @param initialCapacity the expected number of entries
+     */
+    public ObjectDoubleMap(int initialCapacity)
+    {
+        super(initialCapacity);
+        this.values = new double[capacity()];
+    }
+
+    /**
+     * Gets the value of a key.
+     *
+     * @param key the key to look for
+     * @return the value of the key, or {@code 0.0} if the key isn't present
+     */
+    public double get(Object key)
+    {
+        return get(key, 0.0);
+    }
+
+    /**
+     * Gets the value of a key.
+     *
+     * @param key the key to look for
+     * @param defaultValue the value to return if the key isn't present
+     * @return the value of the key, or the default value if the key isn't present
+     */
+    public double get(Object key, double defaultValue)
+    {
+        int position = positionOf(key);
+        return position == MISSING ? defaultValue : this.values[position];
+    }
+
+    /**
+     * Sets the value of a key.
+     *
+     * @param key the key to set
+     * @param value the new value
+     * @return the previous value, or {@code 0.0} if the key wasn't present
+     */
+    public double put(K key, double value)
+    {
+        int position = insert(key);
+        double previous = this.values[position];
+        this.values[position] = value;
+        return previous;
+    }
+
+    /**
+     * Adds to the value of a key, a missing key being considered to have the value {@code 0.0}.
+     *
+     * @param key the key to update
+     * @param value the value to add
+     * @return the new value of the key
+     */
+    public double addTo(K key, double value)
+    {
+        int position = insert(key);
+        this.values[position] += value;
+        return this.values[position];
+    }
+
+    /**
+     * Sets the value of a key to {@code 0.0}, adding the key if it isn't present.
+     *
+     * @param key the key to reset
+     */
+    public void reset(K key)
+    {
+        this.values[insert(key)] = 0.0;
+    }
+
+    /**
+     * The value of the key returned by {@link #getMax()}.
+     *
+     * @return the largest value, or {@code 0.0} if the map is empty
+     */
+    public double getMaxValue()
+    {
+        return get(getMax());
+    }
+
+    /**
+     * The value of the key returned by {@link #getMin()}.
+     *
+     * @return the smallest value, or {@code 0.0} if the map is empty
+     */
+    public double getMinValue()
+    {
+        return get(getMin());
+    }
+
+    @Override
+    public void clear()
+    {
+        Arrays.fill(this.values, 0, usedPositions(), 0.0);
+        super.clear();
+    }
+
+    /**
+     * Prints the entries of the map, one per line.
+     *
+     * @param out where to print
+     */
+    public void writeTo(PrintStream out)
+    {
+        for (int i = 0; i < usedPositions(); ++i) {
+            if (keyAt(i) != null) {
+                out.println(keyAt(i) + " : " + this.values[i]);
+            }
+        }
+    }
+
+    @Override
+    protected void clearValue(int position)
+    {
+        this.values[position] = 0.0;
+    }
+
+    @Override
+    protected void resizeValues(int capacity)
+    {
+        this.values = Arrays.copyOf(this.values, capacity);
+    }
+
+    @Override
+    protected void moveValue(int from, int to)
+    {
+        this.values[to] = this.values[from];
+        this.values[from] = 0.0;
+    }
+
+    @Override
+    protected int compareValues(int a, int b)
+    {
+        return Double.compare(this.values[a], this.values[b]);
+    }
+}
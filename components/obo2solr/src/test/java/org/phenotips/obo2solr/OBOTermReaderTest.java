@@ -0,0 +1,194 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses/
+ */
+package org.phenotips.obo2solr;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for the {@link OBOTermReader} streaming OBO parser.
+ *
+ * @version $Id$
+ */
+public class OBOTermReaderTest
+{
+    private static final String ROOT = "HP:0000001";
+
+    private static final String ABNORMALITY = "HP:0000118";
+
+    private static final String NERVOUS_SYSTEM = "HP:0000707";
+
+    private static final String[] SOURCE = {
+        "format-version: 1.2",
+        "data-version: releases/2016-01-13",
+        "",
+        "[Term]",
+        "id: " + ROOT,
+        "name: All",
+        "",
+        "[Term]",
+        "id: " + ABNORMALITY,
+        "name: Phenotypic abnormality",
+        "is_a: " + ROOT + " ! All",
+        "",
+        "[Typedef]",
+        "id: part_of",
+        "name: part of",
+        "is_a: " + ROOT + " ! All",
+        "",
+        "  [Term]  ",
+        "id: " + NERVOUS_SYSTEM,
+        "name: Abnormality of the nervous system",
+        "alt_id: HP:0001333",
+        "alt_id: HP:0001334",
+        "def: \"An abnormality of the nervous system.\" [HPO:probinson]",
+        "synonym: \"Neurological abnormality\" EXACT []",
+        "synonym: \"Nervous system \\\"issue\\\"\" RELATED [HPO:probinson]",
+        "xref: UMLS:C0497552",
+        "is_a: " + ABNORMALITY + " ! Phenotypic abnormality",
+        "is_a: " + ROOT
+    };
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private File source;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        this.source = this.folder.newFile("test.obo");
+        Files.write(this.source.toPath(), Arrays.asList(SOURCE), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void termsAreReturnedOneStanzaAtATime() throws IOException
+    {
+        try (OBOTermReader reader = new OBOTermReader(this.source, Collections.<String, Double>emptyMap())) {
+            TermData header = reader.next();
+            Assert.assertEquals("HEADER_INFO", header.getId());
+            Assert.assertEquals(Collections.singleton("releases/2016-01-13"), header.get("version"));
+
+            TermData root = reader.next();
+            Assert.assertEquals(ROOT, root.getId());
+            Assert.assertEquals(Collections.singleton("All"), root.get("name"));
+            Assert.assertNull(root.get(TermData.PARENT_FIELD_NAME));
+
+            Assert.assertEquals(ABNORMALITY, reader.next().getId());
+            // The typedef is skipped, and the indented header still starts a new term
+            TermData term = reader.next();
+            Assert.assertEquals(NERVOUS_SYSTEM, term.getId());
+            Assert.assertEquals(Collections.singleton("Abnormality of the nervous system"), term.get("name"));
+            Assert.assertNull(reader.next());
+            Assert.assertNull(reader.next());
+        }
+    }
+
+    @Test
+    public void multiValuedFieldsKeepAllTheirValues() throws IOException
+    {
+        TermData term = readTerm(NERVOUS_SYSTEM, Collections.<String, Double>emptyMap());
+        Assert.assertEquals(new HashSet<>(Arrays.asList("HP:0001333", "HP:0001334")), term.get("alt_id"));
+        Assert.assertEquals(new HashSet<>(Arrays.asList("Neurological abnormality", "Nervous system \"issue\"")),
+            term.get("synonym"));
+        Assert.assertEquals(Collections.singleton("An abnormality of the nervous system."), term.get("def"));
+        Assert.assertEquals(Collections.singleton("UMLS:C0497552"), term.get("xref"));
+    }
+
+    @Test
+    public void parentsAreExpandedToAllAncestors() throws IOException
+    {
+        TermData term = readTerm(NERVOUS_SYSTEM, Collections.<String, Double>emptyMap());
+        Assert.assertEquals(
+            new HashSet<>(Arrays.asList(ABNORMALITY + " ! Phenotypic abnormality", ROOT)),
+            term.get(TermData.PARENT_FIELD_NAME));
+        Assert.assertEquals(new HashSet<>(Arrays.asList(NERVOUS_SYSTEM, ABNORMALITY, ROOT)),
+            term.get(TermData.TERM_CATEGORY_FIELD_NAME));
+    }
+
+    @Test
+    public void onlySelectedFieldsAreKept() throws IOException
+    {
+        Map<String, Double> selection = new HashMap<>();
+        selection.put(TermData.ID_FIELD_NAME, 1.0);
+        selection.put("alt_id", 1.0);
+        TermData term = readTerm(NERVOUS_SYSTEM, selection);
+        Assert.assertEquals(new HashSet<>(Arrays.asList(TermData.ID_FIELD_NAME, "alt_id")), term.keySet());
+    }
+
+    @Test
+    public void hierarchyContainsAllTermsButNotTypedefs() throws IOException
+    {
+        try (OBOTermReader reader = new OBOTermReader(this.source, Collections.<String, Double>emptyMap())) {
+            Map<String, ?> hierarchy = reader.getHierarchy();
+            Assert.assertEquals(Arrays.asList(ROOT, ABNORMALITY, NERVOUS_SYSTEM),
+                Arrays.asList(hierarchy.keySet().toArray()).subList(1, 4));
+            Assert.assertFalse(hierarchy.containsKey("part_of"));
+            Assert.assertEquals(Arrays.asList(ABNORMALITY, ROOT), reader.getHierarchy().get(NERVOUS_SYSTEM));
+            Assert.assertTrue(reader.getHierarchy().get(ROOT).isEmpty());
+            Assert.assertEquals(hierarchy.size(), reader.size());
+        }
+    }
+
+    @Test
+    public void closeReleasesAPartiallyReadSource() throws IOException
+    {
+        OBOTermReader reader = new OBOTermReader(this.source, Collections.<String, Double>emptyMap(), true);
+        reader.next();
+        reader.next();
+        reader.close();
+        Assert.assertFalse(this.source.exists());
+        // Closing again is harmless
+        reader.close();
+    }
+
+    @Test
+    public void closeKeepsSourcesNotOwnedByTheReader() throws IOException
+    {
+        OBOTermReader reader = new OBOTermReader(this.source, Collections.<String, Double>emptyMap());
+        reader.next();
+        reader.close();
+        Assert.assertTrue(this.source.exists());
+    }
+
+    private TermData readTerm(String id, Map<String, Double> fieldSelection) throws IOException
+    {
+        try (OBOTermReader reader = new OBOTermReader(this.source, fieldSelection)) {
+            TermData term;
+            while ((term = reader.next()) != null) {
+                if (id.equals(term.getId())) {
+                    return term;
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses/
+ */
+package org.phenotips.obo2solr;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+/**
+ * Tests for the {@link SolrUpdateGenerator} conversion of OBO files into Solr update documents.
+ *
+ * @version $Id$
+ */
+public class SolrUpdateGeneratorTest
+{
+    private static final String[] SOURCE = {
+        "format-version: 1.2",
+        "",
+        "[Term]",
+        "id: HP:0000001",
+        "name: All",
+        "",
+        "[Typedef]",
+        "id: part_of",
+        "name: part of",
+        "",
+        "[Term]",
+        "id: HP:0000118",
+        "name: \"Phenotypic abnormality\" EXACT []",
+        "def: Not selected",
+        "is_a: HP:0000001 ! All"
+    };
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void transformWritesTheSelectedFieldsOfAllTerms() throws Exception
+    {
+        File source = this.folder.newFile("test.obo");
+        Files.write(source.toPath(), Arrays.asList(SOURCE), StandardCharsets.UTF_8);
+        File output = new File(this.folder.getRoot(), "out.xml");
+        Map<String, Double> fieldSelection = new LinkedHashMap<>();
+        fieldSelection.put("id", 1.0);
+        fieldSelection.put("name", 2.0);
+        fieldSelection.put(TermData.TERM_CATEGORY_FIELD_NAME, 1.0);
+
+        new SolrUpdateGenerator().transform(source, output, fieldSelection);
+
+        NodeList docs = parse(output).getDocumentElement().getElementsByTagName("doc");
+        Assert.assertEquals(2, docs.getLength());
+        Assert.assertEquals(new HashSet<>(Arrays.asList("id:HP:0000001", "name:All",
+            "term_category:HP:0000001")), getFields((Element) docs.item(0)));
+        Assert.assertEquals(new HashSet<>(Arrays.asList("id:HP:0000118", "name:Phenotypic abnormality",
+            "term_category:HP:0000001", "term_category:HP:0000118")), getFields((Element) docs.item(1)));
+        Element name = (Element) ((Element) docs.item(1)).getElementsByTagName("field").item(1);
+        Assert.assertEquals("name", name.getAttribute("name"));
+        Assert.assertEquals("2.0", name.getAttribute("boost"));
+    }
+
+    @Test
+    public void transformWithMissingInputDoesNotWriteAnything() throws IOException
+    {
+        File output = new File(this.folder.getRoot(), "out.xml");
+
+        new SolrUpdateGenerator().transform(new File(this.folder.getRoot(), "missing.obo"), output,
+            new LinkedHashMap<String, Double>());
+
+        Assert.assertFalse(output.exists());
+    }
+
+    private Document parse(File file) throws Exception
+    {
+        return DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(file);
+    }
+
+    private Set<String> getFields(Element doc)
+    {
+        Set<String> result = new HashSet<>();
+        NodeList fields = doc.getElementsByTagName("field");
+        for (int i = 0; i < fields.getLength(); ++i) {
+            Element field = (Element) fields.item(i);
+            result.add(field.getAttribute("name") + ':' + field.getTextContent());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses/
+ */
+package org.phenotips.obo2solr;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for the {@link TermHierarchy} closure.
+ *
+ * @version $Id$
+ */
+public class TermHierarchyTest
+{
+    private TermHierarchy hierarchy;
+
+    /**
+     * <pre>
+     *       A
+     *     /   \
+     *    B     C
+     *     \   / \
+     *       D    E   (E also has the unknown parent X)
+     *       |
+     *       F
+     * </pre>
+     */
+    @Before
+    public void setUp()
+    {
+        Map<String, Collection<String>> parents = new LinkedHashMap<>();
+        parents.put("F", Arrays.asList("D"));
+        parents.put("D", Arrays.asList("B", "C", "B"));
+        parents.put("A", Collections.<String>emptySet());
+        parents.put("B", Arrays.asList("A"));
+        parents.put("C", Arrays.asList("A"));
+        parents.put("E", Arrays.asList("C", "X"));
+        this.hierarchy = new TermHierarchy(parents);
+    }
+
+    @Test
+    public void unknownParentsAreAddedAsRoots()
+    {
+        Assert.assertEquals(7, this.hierarchy.size());
+        Assert.assertTrue(this.hierarchy.contains("X"));
+        Assert.assertFalse(this.hierarchy.contains("Y"));
+        Assert.assertEquals(6, this.hierarchy.getIndex("X"));
+        Assert.assertEquals(-1, this.hierarchy.getIndex("Y"));
+        Assert.assertEquals(0, this.hierarchy.getAncestors(this.hierarchy.getIndex("X")).length);
+        Assert.assertEquals(0, this.hierarchy.getDepth(this.hierarchy.getIndex("X")));
+    }
+
+    @Test
+    public void indexesFollowTheOrderOfTheTerms()
+    {
+        Assert.assertEquals(0, this.hierarchy.getIndex("F"));
+        Assert.assertEquals("F", this.hierarchy.getId(0));
+        Assert.assertEquals(2, this.hierarchy.getIndex("A"));
+        Assert.assertEquals("A", this.hierarchy.getId(2));
+    }
+
+    @Test
+    public void parentsAreSortedAndUnique()
+    {
+        Assert.assertEquals(Arrays.asList("B", "C"), ids(this.hierarchy.getParents(this.hierarchy.getIndex("D"))));
+    }
+
+    @Test
+    public void getAncestorsAndSelf()
+    {
+        Assert.assertEquals("F", this.hierarchy.getAncestorsAndSelf("F").get(0));
+        Assert.assertEquals(set("F", "D", "B", "C", "A"), new HashSet<>(this.hierarchy.getAncestorsAndSelf("F")));
+        Assert.assertEquals(5, this.hierarchy.getAncestorsAndSelf("F").size());
+        Assert.assertEquals(set("E", "C", "A", "X"), new HashSet<>(this.hierarchy.getAncestorsAndSelf("E")));
+        Assert.assertEquals(Collections.singletonList("A"), this.hierarchy.getAncestorsAndSelf("A"));
+        Assert.assertEquals(Collections.singletonList("Y"), this.hierarchy.getAncestorsAndSelf("Y"));
+    }
+
+    @Test
+    public void ancestorsAreSortedWithTheirShortestDistance()
+    {
+        int f = this.hierarchy.getIndex("F");
+        int[] ancestors = this.hierarchy.getAncestors(f);
+        Assert.assertEquals(Arrays.asList("D", "A", "B", "C"), ids(ancestors));
+        int[] distances = this.hierarchy.getAncestorDistances(f);
+        Assert.assertArrayEquals(new int[] { 1, 3, 2, 2 }, distances);
+    }
+
+    @Test
+    public void getDepth()
+    {
+        Assert.assertEquals(0, this.hierarchy.getDepth(this.hierarchy.getIndex("A")));
+        Assert.assertEquals(1, this.hierarchy.getDepth(this.hierarchy.getIndex("B")));
+        Assert.assertEquals(2, this.hierarchy.getDepth(this.hierarchy.getIndex("D")));
+        Assert.assertEquals(3, this.hierarchy.getDepth(this.hierarchy.getIndex("F")));
+        // The unknown parent is a closer root than A
+        Assert.assertEquals(1, this.hierarchy.getDepth(this.hierarchy.getIndex("E")));
+    }
+
+    @Test
+    public void cyclesAreTolerated()
+    {
+        Map<String, Collection<String>> parents = new LinkedHashMap<>();
+        parents.put("A", Arrays.asList("B"));
+        parents.put("B", Arrays.asList("A"));
+        parents.put("C", Arrays.asList("C", "A"));
+        parents.put("D", Arrays.asList("C", "R"));
+        parents.put("R", Collections.<String>emptySet());
+        TermHierarchy cyclic = new TermHierarchy(parents);
+        Assert.assertEquals(set("A", "B"), new HashSet<>(cyclic.getAncestorsAndSelf("A")));
+        Assert.assertEquals(set("C", "A", "B"), new HashSet<>(cyclic.getAncestorsAndSelf("C")));
+        Assert.assertEquals(set("D", "C", "A", "B", "R"), new HashSet<>(cyclic.getAncestorsAndSelf("D")));
+
+        int d = cyclic.getIndex("D");
+        Assert.assertEquals(Arrays.asList("A", "B", "C", "R"), ids(cyclic, cyclic.getAncestors(d)));
+        Assert.assertArrayEquals(new int[] { 2, 3, 1, 1 }, cyclic.getAncestorDistances(d));
+        Assert.assertEquals(1, cyclic.getDepth(d));
+        Assert.assertEquals(0, cyclic.getDepth(cyclic.getIndex("A")));
+    }
+
+    @Test
+    public void agreesWithThePerTermExpansion()
+    {
+        Random random = new Random(42);
+        Map<String, TermData> terms = new LinkedHashMap<>();
+        Map<String, Collection<String>> parents = new LinkedHashMap<>();
+        for (int i = 0; i < 500; ++i) {
+            TermData term = new TermData();
+            term.addTo(TermData.ID_FIELD_NAME, "T" + i);
+            if (i > 0) {
+                term.addTo(TermData.TERM_CATEGORY_FIELD_NAME, "T" + random.nextInt(i));
+                if (random.nextInt(3) == 0) {
+                    term.addTo(TermData.TERM_CATEGORY_FIELD_NAME, "T" + random.nextInt(i));
+                }
+            }
+            terms.put(term.getId(), term);
+            parents.put(term.getId(), new HashSet<>(term.safeGet(TermData.TERM_CATEGORY_FIELD_NAME)));
+        }
+        TermHierarchy closure = new TermHierarchy(parents);
+        for (TermData term : terms.values()) {
+            term.expandTermCategories(terms);
+            Assert.assertEquals(new HashSet<>(term.get(TermData.TERM_CATEGORY_FIELD_NAME)),
+                new HashSet<>(closure.getAncestorsAndSelf(term.getId())));
+        }
+    }
+
+    private Set<String> set(String... ids)
+    {
+        return new HashSet<>(Arrays.asList(ids));
+    }
+
+    private List<String> ids(int[] indexes)
+    {
+        return ids(this.hierarchy, indexes);
+    }
+
+    private static List<String> ids(TermHierarchy source, int[] indexes)
+    {
+        String[] result = new String[indexes.length];
+        for (int i = 0; i < indexes.length; ++i) {
+            result[i] = source.getId(indexes[i]);
+        }
+        return Arrays.asList(result);
+    }
+}
@@ -0,0 +1,243 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses/
+ */
+package org.phenotips.obo2solr.maps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for the hash table and the entry storage of {@link AbstractPrimitiveValueMap}, through {@link ObjectIntMap}.
+ *
+ * @version $Id$
+ */
+public class AbstractPrimitiveValueMapTest
+{
+    @Test
+    public void putGetAndRemove()
+    {
+        ObjectIntMap<String> map = new ObjectIntMap<>();
+        Assert.assertTrue(map.isEmpty());
+        map.put("A", 1);
+        map.put("B", 2);
+
+        Assert.assertEquals(2, map.size());
+        Assert.assertFalse(map.isEmpty());
+        Assert.assertTrue(map.containsKey("A"));
+        Assert.assertFalse(map.containsKey("C"));
+        Assert.assertEquals(2, map.get("B"));
+
+        Assert.assertTrue(map.remove("A"));
+        Assert.assertFalse(map.remove("A"));
+        Assert.assertFalse(map.containsKey("A"));
+        Assert.assertEquals(0, map.get("A"));
+        Assert.assertEquals(1, map.size());
+        Assert.assertEquals(Collections.singletonList("B"), map.keys());
+    }
+
+    @Test
+    public void nullKeysAreNeverPresent()
+    {
+        ObjectIntMap<String> map = new ObjectIntMap<>();
+        map.put("A", 1);
+
+        Assert.assertFalse(map.containsKey(null));
+        Assert.assertEquals(0, map.get(null));
+        Assert.assertEquals(-1, map.get(null, -1));
+        Assert.assertFalse(map.remove(null));
+    }
+
+    @Test
+    public void collidingKeysAreKeptApart()
+    {
+        ObjectIntMap<CollidingKey> map = new ObjectIntMap<>(4);
+        List<CollidingKey> keys = new ArrayList<>();
+        for (int i = 0; i < 50; ++i) {
+            keys.add(new CollidingKey(i));
+            map.put(keys.get(i), i);
+        }
+        for (int i = 0; i < 50; ++i) {
+            Assert.assertEquals(i, map.get(new CollidingKey(i)));
+        }
+
+        // Removed entries must not interrupt the probing for the keys placed after them
+        for (int i = 0; i < 50; i += 2) {
+            Assert.assertTrue(map.remove(new CollidingKey(i)));
+        }
+        Assert.assertEquals(25, map.size());
+        for (int i = 0; i < 50; ++i) {
+            Assert.assertEquals(i % 2 == 1, map.containsKey(keys.get(i)));
+            Assert.assertEquals(i % 2 == 1 ? i : 0, map.get(keys.get(i)));
+        }
+
+        // Added again, the keys go to the end
+        map.put(keys.get(0), 100);
+        Assert.assertEquals(100, map.get(keys.get(0)));
+        Assert.assertEquals(keys.get(0), map.keys().get(25));
+        Assert.assertEquals(26, map.size());
+    }
+
+    @Test
+    public void growsBeyondTheInitialCapacity()
+    {
+        ObjectIntMap<String> map = new ObjectIntMap<>(2);
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < 1000; ++i) {
+            keys.add("HP:" + i);
+            map.put("HP:" + i, i);
+        }
+
+        Assert.assertEquals(1000, map.size());
+        Assert.assertTrue(map.capacity() >= 1000);
+        Assert.assertEquals(keys, map.keys());
+        for (int i = 0; i < 1000; ++i) {
+            Assert.assertEquals(i, map.get("HP:" + i));
+        }
+    }
+
+    @Test
+    public void removedEntriesAreReclaimedInsteadOfGrowing()
+    {
+        ObjectIntMap<String> map = new ObjectIntMap<>(8);
+        for (int i = 0; i < 8; ++i) {
+            map.put("K" + i, i);
+        }
+        for (int i = 0; i < 8; ++i) {
+            if (i != 2 && i != 5) {
+                map.remove("K" + i);
+            }
+        }
+        Assert.assertEquals(8, map.usedPositions());
+
+        map.put("N1", 11);
+        map.put("N2", 12);
+
+        // The two remaining entries were moved to the start, and the new entries follow them
+        Assert.assertEquals(8, map.capacity());
+        Assert.assertEquals(4, map.usedPositions());
+        Assert.assertEquals(Arrays.asList("K2", "K5", "N1", "N2"), map.keys());
+        Assert.assertEquals(2, map.get("K2"));
+        Assert.assertEquals(5, map.get("K5"));
+        Assert.assertEquals(11, map.get("N1"));
+        Assert.assertEquals(12, map.get("N2"));
+        Assert.assertEquals("K2", map.keyAt(0));
+        Assert.assertNull(map.keyAt(4));
+
+        // The positions freed by the move don't keep the old values
+        map.put("N3", 0);
+        Assert.assertEquals(0, map.get("N3"));
+        map.increment("N4");
+        Assert.assertEquals(1, map.get("N4"));
+    }
+
+    @Test
+    public void repeatedAddAndRemoveDoesNotGrow()
+    {
+        ObjectIntMap<String> map = new ObjectIntMap<>(4);
+        for (int i = 0; i < 10000; ++i) {
+            map.put("K" + i, i);
+            if (i > 0) {
+                map.remove("K" + (i - 1));
+            }
+        }
+
+        Assert.assertEquals(1, map.size());
+        Assert.assertEquals(4, map.capacity());
+        Assert.assertEquals(9999, map.get("K9999"));
+    }
+
+    @Test
+    public void clearRemovesAllEntries()
+    {
+        ObjectIntMap<String> map = new ObjectIntMap<>();
+        map.put("A", 1);
+        map.put("B", 2);
+        map.clear();
+
+        Assert.assertTrue(map.isEmpty());
+        Assert.assertFalse(map.containsKey("A"));
+        Assert.assertTrue(map.keys().isEmpty());
+        Assert.assertNull(map.getMax());
+
+        map.increment("B");
+        Assert.assertEquals(1, map.get("B"));
+        Assert.assertEquals(Collections.singletonList("B"), map.keys());
+    }
+
+    @Test
+    public void orderIsTheSameAsForNumericValueMaps()
+    {
+        ObjectIntMap<String> map = new ObjectIntMap<>(4);
+        CounterMap<String> reference = new CounterMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 5000; ++i) {
+            String key = "HP:" + random.nextInt(200);
+            if (random.nextInt(5) == 0) {
+                Assert.assertEquals(reference.remove(key) != null, map.remove(key));
+            } else {
+                map.increment(key);
+                reference.addTo(key);
+            }
+            if (i % 500 == 0) {
+                assertSameOrder(reference, map);
+            }
+        }
+        assertSameOrder(reference, map);
+    }
+
+    private void assertSameOrder(CounterMap<String> reference, ObjectIntMap<String> map)
+    {
+        Assert.assertEquals(reference.size(), map.size());
+        Assert.assertEquals(new ArrayList<>(reference.keySet()), map.keys());
+        Assert.assertEquals(reference.sort(), map.sort());
+        Assert.assertEquals(reference.sort(true), map.sort(true));
+        Assert.assertEquals(reference.getMax(), map.getMax());
+        Assert.assertEquals(reference.getMin(), map.getMin());
+        for (String key : reference.keySet()) {
+            Assert.assertEquals(reference.get(key).intValue(), map.get(key));
+        }
+    }
+
+    /** A key whose hash code is always the same, so that all the keys land in the same hash table slot. */
+    private static final class CollidingKey
+    {
+        private final int value;
+
+        CollidingKey(int value)
+        {
+            this.value = value;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return 7;
+        }
+
+        @Override
+        public boolean equals(Object other)
+        {
+            return other instanceof CollidingKey && ((CollidingKey) other).value == this.value;
+        }
+    }
+}
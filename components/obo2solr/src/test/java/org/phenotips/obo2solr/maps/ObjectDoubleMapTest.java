@@ -0,0 +1,154 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses/
+ */
+package org.phenotips.obo2solr.maps;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for the {@link ObjectDoubleMap} value operations.
+ *
+ * @version $Id$
+ */
+public class ObjectDoubleMapTest
+{
+    private static final double DELTA = 1e-9;
+
+    @Test
+    public void putReturnsThePreviousValue()
+    {
+        ObjectDoubleMap<String> map = new ObjectDoubleMap<>();
+        Assert.assertEquals(0.0, map.put("A", 1.5), DELTA);
+        Assert.assertEquals(1.5, map.put("A", 2.5), DELTA);
+        Assert.assertEquals(2.5, map.get("A"), DELTA);
+        Assert.assertEquals(1, map.size());
+    }
+
+    @Test
+    public void missingKeysHaveTheDefaultValue()
+    {
+        ObjectDoubleMap<String> map = new ObjectDoubleMap<>();
+        map.put("A", 0.0);
+
+        Assert.assertEquals(0.0, map.get("B"), DELTA);
+        Assert.assertEquals(-1.0, map.get("B", -1.0), DELTA);
+        Assert.assertEquals(0.0, map.get("A", -1.0), DELTA);
+    }
+
+    @Test
+    public void addToAccumulates()
+    {
+        ObjectDoubleMap<String> map = new ObjectDoubleMap<>();
+        Assert.assertEquals(0.5, map.addTo("A", 0.5), DELTA);
+        Assert.assertEquals(0.75, map.addTo("A", 0.25), DELTA);
+        Assert.assertEquals(-1.0, map.addTo("B", -1.0), DELTA);
+        Assert.assertEquals(0.75, map.get("A"), DELTA);
+    }
+
+    @Test
+    public void resetAddsMissingKeys()
+    {
+        ObjectDoubleMap<String> map = new ObjectDoubleMap<>();
+        map.put("A", 4.0);
+        map.reset("A");
+        map.reset("B");
+
+        Assert.assertEquals(0.0, map.get("A", -1.0), DELTA);
+        Assert.assertEquals(0.0, map.get("B", -1.0), DELTA);
+        Assert.assertEquals(Arrays.asList("A", "B"), map.keys());
+    }
+
+    @Test
+    public void sortAndExtremesKeepTheInsertionOrderOfTies()
+    {
+        ObjectDoubleMap<String> map = new ObjectDoubleMap<>();
+        map.put("A", 0.5);
+        map.put("B", -0.5);
+        map.put("C", 0.5);
+        map.put("D", 0.25);
+
+        Assert.assertEquals(Arrays.asList("B", "D", "A", "C"), map.sort());
+        Assert.assertEquals(Arrays.asList("A", "C", "D", "B"), map.sort(true));
+        Assert.assertEquals("A", map.getMax());
+        Assert.assertEquals("B", map.getMin());
+        Assert.assertEquals(0.5, map.getMaxValue(), DELTA);
+        Assert.assertEquals(-0.5, map.getMinValue(), DELTA);
+    }
+
+    @Test
+    public void valuesSurviveGrowingAndReclaiming()
+    {
+        ObjectDoubleMap<String> map = new ObjectDoubleMap<>(2);
+        for (int i = 0; i < 100; ++i) {
+            map.put("K" + i, i / 2.0);
+        }
+        for (int i = 0; i < 100; i += 3) {
+            map.remove("K" + i);
+        }
+        for (int i = 100; i < 200; ++i) {
+            map.put("K" + i, i / 2.0);
+        }
+
+        for (int i = 0; i < 200; ++i) {
+            Assert.assertEquals(i < 100 && i % 3 == 0 ? 0.0 : i / 2.0, map.get("K" + i), DELTA);
+        }
+    }
+
+    @Test
+    public void orderIsTheSameAsForNumericValueMaps()
+    {
+        ObjectDoubleMap<String> map = new ObjectDoubleMap<>(4);
+        SumMap<String> reference = new SumMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 5000; ++i) {
+            String key = "HP:" + random.nextInt(200);
+            if (random.nextInt(5) == 0) {
+                Assert.assertEquals(reference.remove(key) != null, map.remove(key));
+            } else {
+                // Quarters add up exactly, so that equal sums are compared as equal by both maps
+                double value = random.nextInt(8) / 4.0;
+                map.addTo(key, value);
+                reference.put(key, reference.safeGet(key) + value);
+            }
+        }
+
+        Assert.assertEquals(new ArrayList<>(reference.keySet()), map.keys());
+        Assert.assertEquals(reference.sort(), map.sort());
+        Assert.assertEquals(reference.sort(true), map.sort(true));
+        Assert.assertEquals(reference.getMax(), map.getMax());
+        Assert.assertEquals(reference.getMin(), map.getMin());
+    }
+
+    @Test
+    public void writeToPrintsTheEntriesInOrder()
+    {
+        ObjectDoubleMap<String> map = new ObjectDoubleMap<>();
+        map.put("A", 1.5);
+        map.put("B", 2.0);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        map.writeTo(new PrintStream(out, true));
+        Assert.assertEquals(String.format("A : 1.5%nB : 2.0%n"), out.toString());
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses/
+ */
+package org.phenotips.obo2solr.maps;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for the {@link ObjectIntMap} value operations.
+ *
+ * @version $Id$
+ */
+public class ObjectIntMapTest
+{
+    @Test
+    public void putReturnsThePreviousValue()
+    {
+        ObjectIntMap<String> map = new ObjectIntMap<>();
+        Assert.assertEquals(0, map.put("A", 3));
+        Assert.assertEquals(3, map.put("A", 5));
+        Assert.assertEquals(5, map.get("A"));
+        Assert.assertEquals(1, map.size());
+    }
+
+    @Test
+    public void missingKeysHaveTheDefaultValue()
+    {
+        ObjectIntMap<String> map = new ObjectIntMap<>();
+        map.put("A", 0);
+
+        Assert.assertEquals(0, map.get("B"));
+        Assert.assertEquals(-1, map.get("B", -1));
+        Assert.assertEquals(0, map.get("A", -1));
+    }
+
+    @Test
+    public void addToAccumulates()
+    {
+        ObjectIntMap<String> map = new ObjectIntMap<>();
+        Assert.assertEquals(2, map.addTo("A", 2));
+        Assert.assertEquals(5, map.addTo("A", 3));
+        Assert.assertEquals(6, map.increment("A"));
+        Assert.assertEquals(1, map.increment("B"));
+        Assert.assertEquals(6, map.get("A"));
+    }
+
+    @Test
+    public void resetAddsMissingKeys()
+    {
+        ObjectIntMap<String> map = new ObjectIntMap<>();
+        map.put("A", 4);
+        map.reset("A");
+        map.reset("B");
+
+        Assert.assertEquals(0, map.get("A", -1));
+        Assert.assertEquals(0, map.get("B", -1));
+        Assert.assertEquals(Arrays.asList("A", "B"), map.keys());
+    }
+
+    @Test
+    public void sortAndExtremesKeepTheInsertionOrderOfTies()
+    {
+        ObjectIntMap<String> map = new ObjectIntMap<>();
+        map.put("A", 2);
+        map.put("B", 1);
+        map.put("C", 2);
+        map.put("D", 1);
+
+        Assert.assertEquals(Arrays.asList("B", "D", "A", "C"), map.sort());
+        Assert.assertEquals(Arrays.asList("A", "C", "B", "D"), map.sort(true));
+        Assert.assertEquals("A", map.getMax());
+        Assert.assertEquals("B", map.getMin());
+        Assert.assertEquals(2, map.getMaxValue());
+        Assert.assertEquals(1, map.getMinValue());
+    }
+
+    @Test
+    public void emptyMapHasNoExtremes()
+    {
+        ObjectIntMap<String> map = new ObjectIntMap<>();
+        Assert.assertNull(map.getMax());
+        Assert.assertNull(map.getMin());
+        Assert.assertEquals(0, map.getMaxValue());
+        Assert.assertEquals(0, map.getMinValue());
+        Assert.assertTrue(map.sort().isEmpty());
+    }
+
+    @Test
+    public void writeToPrintsTheEntriesInOrder()
+    {
+        ObjectIntMap<String> map = new ObjectIntMap<>();
+        map.put("A", 1);
+        map.put("B", 2);
+        map.put("C", 3);
+        map.remove("B");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        map.writeTo(new PrintStream(out, true));
+        Assert.assertEquals(String.format("A : 1%nC : 3%n"), out.toString());
+    }
+}
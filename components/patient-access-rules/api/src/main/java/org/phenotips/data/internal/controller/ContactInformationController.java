@@ -27,6 +27,7 @@
 import org.phenotips.groups.GroupManager;
 
 import org.xwiki.bridge.DocumentAccessBridge;
+import org.xwiki.bridge.DocumentModelBridge;
 import org.xwiki.component.annotation.Component;
 import org.xwiki.model.reference.DocumentReference;
 import org.xwiki.users.User;
@@ -109,6 +110,12 @@ public void save(Patient patient)
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    public boolean save(Patient patient, DocumentModelBridge doc)
+    {
+        throw new UnsupportedOperationException();
+    }
+
     @Override
     public void writeJSON(Patient patient, JSONObject json)
     {
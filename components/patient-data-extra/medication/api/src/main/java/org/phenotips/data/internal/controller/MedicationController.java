@@ -24,6 +24,7 @@
 import org.phenotips.data.PatientDataController;
 
 import org.xwiki.bridge.DocumentAccessBridge;
+import org.xwiki.bridge.DocumentModelBridge;
 import org.xwiki.component.annotation.Component;
 
 import java.util.Collection;
@@ -40,6 +41,7 @@
 import org.slf4j.Logger;
 
 import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.XWikiException;
 import com.xpn.xwiki.doc.XWikiDocument;
 import com.xpn.xwiki.objects.BaseObject;
 
@@ -119,13 +121,28 @@ public void save(Patient patient)
     {
         try {
             XWikiDocument doc = (XWikiDocument) this.documentAccessBridge.getDocument(patient.getDocument());
-
-            PatientData<Medication> data = patient.getData(DATA_NAME);
-            if (data == null || !data.isIndexed()) {
+            if (!save(patient, doc)) {
                 return;
             }
-            doc.removeXObjects(Medication.CLASS_REFERENCE);
+
             XWikiContext context = this.xcontext.get();
+            context.getWiki().saveDocument(doc, "Updated medication data from JSON", true, context);
+        } catch (Exception ex) {
+            this.logger.error("Failed to save medication data: [{}]", ex.getMessage());
+        }
+    }
+
+    @Override
+    public boolean save(Patient patient, DocumentModelBridge document)
+    {
+        PatientData<Medication> data = patient.getData(DATA_NAME);
+        if (data == null || !data.isIndexed()) {
+            return false;
+        }
+        XWikiDocument doc = (XWikiDocument) document;
+        doc.removeXObjects(Medication.CLASS_REFERENCE);
+        XWikiContext context = this.xcontext.get();
+        try {
             for (Medication m : data) {
                 if (m == null) {
                     continue;
@@ -144,11 +161,10 @@ public void save(Patient patient)
                 }
                 o.setLargeStringValue(Medication.NOTES, m.getNotes());
             }
-
-            context.getWiki().saveDocument(doc, "Updated medication data from JSON", true, context);
-        } catch (Exception ex) {
-            this.logger.error("Failed to save medication data: [{}]", ex.getMessage());
+        } catch (XWikiException ex) {
+            throw new IllegalStateException(ex.getMessage(), ex);
         }
+        return true;
     }
 
     @Override
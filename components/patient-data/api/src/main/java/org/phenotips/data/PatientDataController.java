@@ -17,6 +17,7 @@
  */
 package org.phenotips.data;
 
+import org.xwiki.bridge.DocumentModelBridge;
 import org.xwiki.component.annotation.Role;
 import org.xwiki.stability.Unstable;
 
@@ -34,7 +35,8 @@
  * The {@link #load(Patient)} method is responsible for populating a {@link Patient} object with actual data from the
  * patient record. Data read from the record can be accessed using the {@link Patient}'s {@link Patient#getData(String)
  * custom data access method}. The {@link #save(Patient)} method is responsible for storing back into the database the
- * custom data.
+ * custom data. When several controllers update the same patient record, {@link #save(Patient, DocumentModelBridge)}
+ * only writes the data into a shared document, which is then saved once by the caller.
  * </p>
  * <p>
  * The {@link #writeJSON(Patient, JSONObject)} method serializes custom data into the JSON being generated for a
@@ -74,6 +76,20 @@
      */
     void save(Patient patient);
 
+    /**
+     * Writes the data that this controller manages for a patient into the given document, without saving it. This
+     * allows all the controllers to update a patient record in memory, with the document being saved only once, and not
+     * at all if one of the controllers fails.
+     *
+     * @param patient the patient being saved
+     * @param doc the document storing the patient record, where the data will be written
+     * @return {@code true} if the document was modified, {@code false} if this controller had no data to write
+     * @throws UnsupportedOperationException if this controller doesn't support saving data
+     * @throws IllegalArgumentException if the document isn't a valid patient record
+     * @since 1.3M1
+     */
+    boolean save(Patient patient, DocumentModelBridge doc);
+
     /**
      * Exports the data being managed by this data controller into the patient JSON export.
      *
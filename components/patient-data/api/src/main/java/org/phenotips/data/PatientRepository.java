@@ -22,6 +22,8 @@
 import org.xwiki.model.reference.DocumentReference;
 import org.xwiki.stability.Unstable;
 
+import java.util.Collection;
+
 /**
  * API that provides access to patient data. No access rights are checked here.
  *
@@ -40,6 +42,19 @@
      */
     Patient getPatientById(String id);
 
+    /**
+     * Retrieve a {@link Patient patient} by it's PhenoTips identifier, for using only some of its fields, for example
+     * when exporting a few columns. The patient document is fetched once, and only the data needed for the selected
+     * fields is loaded when {@link Patient#toJSON() exporting} the patient; other data is loaded only if requested.
+     *
+     * @param id the patient identifier, i.e. the serialized document reference
+     * @param fieldNames the names of the fields that will be used, may be {@code null}, in which case all the fields
+     *            are used, just like {@link #getPatientById(String)}
+     * @return the patient data, or {@code null} if the requested patient does not exist or is not a valid patient
+     * @since 1.3M1
+     */
+    Patient getPatientById(String id, Collection<String> fieldNames);
+
     /**
      * Retrieve a {@link Patient patient} by it's clinical identifier. Only works if external identifiers are enabled
      * and used.
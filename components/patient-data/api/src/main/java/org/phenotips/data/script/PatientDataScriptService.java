@@ -30,6 +30,8 @@
 import org.xwiki.security.authorization.Right;
 import org.xwiki.stability.Unstable;
 
+import java.util.Collection;
+
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
@@ -80,6 +82,27 @@ public Patient getPatientById(String id)
         return null;
     }
 
+    /**
+     * Retrieve a {@link Patient patient} by it's PhenoTips identifier, for using only some of its fields, for example
+     * when exporting a few columns.
+     *
+     * @param id the patient identifier, i.e. the serialized document reference
+     * @param fieldNames the names of the fields that will be used, may be {@code null}, in which case all the fields
+     *            are used
+     * @return the patient data, or {@code null} if the requested patient does not exist, is not a valid patient, or is
+     *         not accessible by the current user
+     * @since 1.3M1
+     */
+    public Patient getPatientById(String id, Collection<String> fieldNames)
+    {
+        Patient patient = this.internalService.getPatientById(id, fieldNames);
+        if (patient != null
+            && this.access.hasAccess(Right.VIEW, this.bridge.getCurrentUserReference(), patient.getDocument())) {
+            return patient;
+        }
+        return null;
+    }
+
     /**
      * Retrieve a {@link Patient patient} by it's clinical identifier. Only works if external identifiers are enabled
      * and used.
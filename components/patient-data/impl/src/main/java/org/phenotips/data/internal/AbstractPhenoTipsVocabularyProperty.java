@@ -23,10 +23,17 @@
 import org.phenotips.vocabulary.VocabularyTerm;
 
 import org.xwiki.component.manager.ComponentLookupException;
+import org.xwiki.component.manager.ComponentManager;
 
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
 import java.util.regex.Pattern;
 
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.apache.commons.lang3.tuple.Pair;
 
 import net.sf.json.JSONObject;
 
@@ -47,6 +54,9 @@ public abstract class AbstractPhenoTipsVocabularyProperty implements VocabularyP
     /** Pattern used for identifying vocabulary terms from free text terms. */
     private static final Pattern VOCABULARY_TERM_PATTERN = Pattern.compile("\\w++:\\w++");
 
+    /** The vocabulary manager, along with the component manager it was looked up from. */
+    private static volatile Pair<ComponentManager, VocabularyManager> vocabularyManager;
+
     /** @see #getId() */
     protected final String id;
 
@@ -96,18 +106,85 @@ public String getName()
         if (this.name != null) {
             return this.name;
         }
-        try {
-            VocabularyManager vm =
-                ComponentManagerRegistry.getContextComponentManager().getInstance(VocabularyManager.class);
-            VocabularyTerm term = vm.resolveTerm(this.id);
-            if (term != null && StringUtils.isNotEmpty(term.getName())) {
-                this.name = term.getName();
-                return this.name;
+        VocabularyManager vm = getVocabularyManager();
+        if (vm == null) {
+            return this.id;
+        }
+        // Terms that cannot be found use their identifier as the name, so that they aren't looked up again
+        this.name = getNameOrId(vm.resolveTerm(this.id), this.id);
+        return this.name;
+    }
+
+    /**
+     * Resolves the names of several properties at once, with one query for each vocabulary, instead of one query for
+     * each property the first time its name is needed, for example while sorting. Properties whose term cannot be
+     * found use their identifier as the name, as {@link #getName()} would.
+     *
+     * @param properties the properties to resolve; properties that already have a name are left unchanged
+     * @since 1.3M1
+     */
+    static <T extends AbstractPhenoTipsVocabularyProperty> void resolveNames(Collection<T> properties)
+    {
+        Set<String> ids = new HashSet<>();
+        for (T property : properties) {
+            if (property.name == null && StringUtils.isNotEmpty(property.id)) {
+                ids.add(property.id);
+            }
+        }
+        Map<String, VocabularyTerm> terms = ids.isEmpty() ? null : resolveTerms(ids);
+        if (terms == null) {
+            return;
+        }
+        for (T property : properties) {
+            if (property.name == null && ids.contains(property.id)) {
+                property.name = getNameOrId(terms.get(property.id), property.id);
             }
-        } catch (ComponentLookupException ex) {
-            // Shouldn't happen
         }
-        return this.id;
+    }
+
+    /**
+     * Looks up several terms at once.
+     *
+     * @param ids the identifiers of the terms
+     * @return the found terms, keyed by the requested identifier, or {@code null} if the vocabularies aren't available
+     */
+    private static Map<String, VocabularyTerm> resolveTerms(Set<String> ids)
+    {
+        VocabularyManager vm = getVocabularyManager();
+        return vm == null ? null : vm.resolveTerms(ids);
+    }
+
+    /**
+     * The vocabulary manager, looked up only once for each component manager, instead of each time a name is needed.
+     *
+     * @return the vocabulary manager, or {@code null} if it isn't available
+     */
+    private static VocabularyManager getVocabularyManager()
+    {
+        ComponentManager cm = ComponentManagerRegistry.getContextComponentManager();
+        Pair<ComponentManager, VocabularyManager> current = vocabularyManager;
+        if (current == null || current.getLeft() != cm) {
+            try {
+                current = ImmutablePair.of(cm, cm.<VocabularyManager>getInstance(VocabularyManager.class));
+                vocabularyManager = current;
+            } catch (ComponentLookupException ex) {
+                // Shouldn't happen
+                return null;
+            }
+        }
+        return current.getRight();
+    }
+
+    /**
+     * The name of a resolved term, or the identifier if the term cannot be found or has no name.
+     *
+     * @param term the resolved term, may be {@code null}
+     * @param id the identifier of the term
+     * @return the name to use for the property
+     */
+    private static String getNameOrId(VocabularyTerm term, String id)
+    {
+        return term != null && StringUtils.isNotEmpty(term.getName()) ? term.getName() : id;
     }
 
     @Override
@@ -0,0 +1,139 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses/
+ */
+package org.phenotips.data.internal;
+
+import org.phenotips.Constants;
+import org.phenotips.data.FeatureMetadatum;
+
+import org.xwiki.model.EntityType;
+import org.xwiki.model.reference.EntityReference;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.xpn.xwiki.XWikiException;
+import com.xpn.xwiki.doc.XWikiDocument;
+import com.xpn.xwiki.objects.BaseObject;
+import com.xpn.xwiki.objects.StringProperty;
+
+/**
+ * The phenotype metadata and phenotype category objects of a patient record, indexed by the feature they describe,
+ * i.e. by the name of the property holding the feature and its value. The objects are read only once per document,
+ * instead of once per feature.
+ *
+ * @version $Id$
+ * @since 1.3M1
+ */
+class FeatureMetadataIndex
+{
+    /** The XClass holding the categories of non-standard phenotypes. */
+    private static final EntityReference CATEGORY_CLASS_REFERENCE =
+        new EntityReference("PhenotypeCategoryClass", EntityType.DOCUMENT, Constants.CODE_SPACE_REFERENCE);
+
+    private static final String META_PROPERTY_NAME = "target_property_name";
+
+    private static final String META_PROPERTY_VALUE = "target_property_value";
+
+    /** Logging helper object. */
+    private static final Logger LOGGER = LoggerFactory.getLogger(FeatureMetadataIndex.class);
+
+    /** The metadata objects, keyed by the target property name, then by the target value. */
+    private final Map<String, Map<String, BaseObject>> metadata;
+
+    /** The category objects, keyed by the target property name, then by the target value. */
+    private final Map<String, Map<String, BaseObject>> categories;
+
+    /**
+     * Indexes the objects found in a patient document.
+     *
+     * @param doc the XDocument representing the described patient in XWiki
+     */
+    FeatureMetadataIndex(XWikiDocument doc)
+    {
+        this.metadata = index(doc.getXObjects(FeatureMetadatum.CLASS_REFERENCE));
+        this.categories = index(doc.getXObjects(CATEGORY_CLASS_REFERENCE));
+    }
+
+    /**
+     * Finds the metadata object of a feature.
+     *
+     * @param propertyName the name of the property holding the feature
+     * @param value the feature value, as stored in the property
+     * @return the first metadata object targeting this feature, or {@code null} if there isn't any
+     */
+    BaseObject getMetadataObject(String propertyName, String value)
+    {
+        return find(this.metadata, propertyName, value);
+    }
+
+    /**
+     * Finds the category object of a feature.
+     *
+     * @param propertyName the name of the property holding the feature
+     * @param value the feature value, as stored in the property
+     * @return the first category object targeting this feature, or {@code null} if there isn't any
+     */
+    BaseObject getCategoriesObject(String propertyName, String value)
+    {
+        return find(this.categories, propertyName, value);
+    }
+
+    private static BaseObject find(Map<String, Map<String, BaseObject>> index, String propertyName, String value)
+    {
+        Map<String, BaseObject> objects = index.get(propertyName);
+        return objects == null ? null : objects.get(value);
+    }
+
+    private static Map<String, Map<String, BaseObject>> index(List<BaseObject> objects)
+    {
+        if (objects == null || objects.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, Map<String, BaseObject>> result = new HashMap<>();
+        for (BaseObject o : objects) {
+            if (o == null) {
+                continue;
+            }
+            try {
+                StringProperty nameProperty = (StringProperty) o.get(META_PROPERTY_NAME);
+                StringProperty valueProperty = (StringProperty) o.get(META_PROPERTY_VALUE);
+                if (nameProperty == null || valueProperty == null) {
+                    continue;
+                }
+                Map<String, BaseObject> byValue = result.get(nameProperty.getValue());
+                if (byValue == null) {
+                    byValue = new HashMap<>();
+                    result.put(nameProperty.getValue(), byValue);
+                }
+                // Only the first object targeting a feature is used
+                if (!byValue.containsKey(valueProperty.getValue())) {
+                    byValue.put(valueProperty.getValue(), o);
+                }
+            } catch (XWikiException ex) {
+                // Cannot access this object, simply ignore it
+                LOGGER.info("Failed to read phenotype metadata: {}", ex.getMessage());
+            }
+        }
+        return result;
+    }
+}
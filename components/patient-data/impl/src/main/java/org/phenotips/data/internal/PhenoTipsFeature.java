@@ -17,7 +17,6 @@
  */
 package org.phenotips.data.internal;
 
-import org.phenotips.Constants;
 import org.phenotips.components.ComponentManagerRegistry;
 import org.phenotips.data.Feature;
 import org.phenotips.data.FeatureMetadatum;
@@ -25,10 +24,10 @@
 import org.phenotips.vocabulary.VocabularyTerm;
 
 import org.xwiki.component.manager.ComponentLookupException;
-import org.xwiki.model.EntityType;
 import org.xwiki.model.reference.EntityReference;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -43,6 +42,7 @@
 import com.xpn.xwiki.XWikiException;
 import com.xpn.xwiki.doc.XWikiDocument;
 import com.xpn.xwiki.objects.BaseObject;
+import com.xpn.xwiki.objects.BaseProperty;
 import com.xpn.xwiki.objects.ListProperty;
 import com.xpn.xwiki.objects.StringProperty;
 
@@ -65,10 +65,6 @@ public class PhenoTipsFeature extends AbstractPhenoTipsVocabularyProperty implem
      */
     private static final Pattern NEGATIVE_PREFIX = Pattern.compile("^negative_");
 
-    private static final String META_PROPERTY_NAME = "target_property_name";
-
-    private static final String META_PROPERTY_VALUE = "target_property_value";
-
     private static final String META_PROPERTY_CATEGORIES = "target_property_category";
 
     /** Used for reading and writing Features to JSON. */
@@ -114,6 +110,20 @@ public class PhenoTipsFeature extends AbstractPhenoTipsVocabularyProperty implem
      * @param value the specific value from the property represented by this object
      */
     PhenoTipsFeature(XWikiDocument doc, ListProperty property, String value)
+    {
+        this(new FeatureMetadataIndex(doc), property, value);
+    }
+
+    /**
+     * Constructor that copies the data from an XProperty value, using the already indexed metadata of the patient
+     * record. Meant for loading all the features of a patient, which share the same index.
+     *
+     * @param index the indexed metadata and category objects of the XDocument representing the patient
+     * @param property the feature category XProperty
+     * @param value the specific value from the property represented by this object
+     * @since 1.3M1
+     */
+    PhenoTipsFeature(FeatureMetadataIndex index, ListProperty property, String value)
     {
         super(value);
         this.propertyName = property.getName();
@@ -124,7 +134,7 @@ public class PhenoTipsFeature extends AbstractPhenoTipsVocabularyProperty implem
         this.metadata = new TreeMap<String, FeatureMetadatum>();
         String metadataNotes = "";
         try {
-            BaseObject metadataObject = findMetadataObject(doc);
+            BaseObject metadataObject = index.getMetadataObject(this.propertyName, getValue());
             if (metadataObject != null) {
                 for (FeatureMetadatum.Type metadataType : FeatureMetadatum.Type.values()) {
                     StringProperty metadataProp = (StringProperty) metadataObject.get(metadataType.toString());
@@ -143,16 +153,11 @@ public class PhenoTipsFeature extends AbstractPhenoTipsVocabularyProperty implem
         this.metadata = Collections.unmodifiableMap(this.metadata);
 
         List<String> categoriesList = Collections.emptyList();
-        try {
-            BaseObject categoriesObject = findCategoriesObject(doc);
-            if (categoriesObject != null && categoriesObject.getListValue(META_PROPERTY_CATEGORIES) != null) {
-                @SuppressWarnings("unchecked")
-                List<String> originalCategories = categoriesObject.getListValue(META_PROPERTY_CATEGORIES);
-                categoriesList = Collections.unmodifiableList(originalCategories);
-            }
-        } catch (XWikiException ex) {
-            // Cannot access metadata, simply ignore
-            this.logger.info("Failed to retrieve phenotype categories: {}", ex.getMessage());
+        BaseObject categoriesObject = index.getCategoriesObject(this.propertyName, getValue());
+        if (categoriesObject != null && categoriesObject.getListValue(META_PROPERTY_CATEGORIES) != null) {
+            @SuppressWarnings("unchecked")
+            List<String> originalCategories = categoriesObject.getListValue(META_PROPERTY_CATEGORIES);
+            categoriesList = Collections.unmodifiableList(originalCategories);
         }
         this.categories = categoriesList;
     }
@@ -181,6 +186,37 @@ public class PhenoTipsFeature extends AbstractPhenoTipsVocabularyProperty implem
         }
     }
 
+    /**
+     * Reads all the features stored in the properties of a patient object. The metadata of the patient record is read
+     * from the document only once, and shared by all the features.
+     *
+     * @param doc the XDocument representing the patient in XWiki
+     * @param data the patient object holding the feature properties
+     * @param target where to add the features
+     * @since 1.3M1
+     */
+    static void loadAll(XWikiDocument doc, BaseObject data, List<PhenoTipsFeature> target)
+    {
+        @SuppressWarnings("unchecked")
+        Collection<BaseProperty<EntityReference>> fields = data.getFieldList();
+        FeatureMetadataIndex index = null;
+        for (BaseProperty<EntityReference> field : fields) {
+            if (field == null || !field.getName().matches("(?!extended_)(.*_)?phenotype")
+                || !ListProperty.class.isInstance(field)) {
+                continue;
+            }
+            ListProperty values = (ListProperty) field;
+            for (String value : values.getList()) {
+                if (StringUtils.isNotBlank(value)) {
+                    if (index == null) {
+                        index = new FeatureMetadataIndex(doc);
+                    }
+                    target.add(new PhenoTipsFeature(index, values, value));
+                }
+            }
+        }
+    }
+
     @Override
     public String getType()
     {
@@ -251,58 +287,4 @@ public JSONObject toJSON()
         }
         return result;
     }
-
-    /**
-     * Find the XObject that contains metadata for this feature, if any.
-     *
-     * @param doc the patient's XDocument, where metadata objects are stored
-     * @return the found object, or {@code null} if one wasn't found
-     * @throws XWikiException if accessing the data fails
-     */
-    private BaseObject findMetadataObject(XWikiDocument doc) throws XWikiException
-    {
-        List<BaseObject> objects = doc.getXObjects(FeatureMetadatum.CLASS_REFERENCE);
-        if (objects != null && !objects.isEmpty()) {
-            for (BaseObject o : objects) {
-                if (o == null) {
-                    continue;
-                }
-                StringProperty nameProperty = (StringProperty) o.get(META_PROPERTY_NAME);
-                StringProperty valueProperty = (StringProperty) o.get(META_PROPERTY_VALUE);
-                if (nameProperty != null && StringUtils.equals(nameProperty.getValue(), this.propertyName)
-                    && valueProperty != null && StringUtils.equals(valueProperty.getValue(), this.getValue())) {
-                    return o;
-                }
-            }
-        }
-        return null;
-    }
-
-    /**
-     * Find the XObject that contains the custom categories for this non-standard feature, if any.
-     *
-     * @param doc the patient's XDocument, where objects are stored
-     * @return the found object, or {@code null} if one wasn't found
-     * @throws XWikiException if accessing the data fails
-     */
-    private BaseObject findCategoriesObject(XWikiDocument doc) throws XWikiException
-    {
-        List<BaseObject> objects =
-            doc.getXObjects(new EntityReference("PhenotypeCategoryClass", EntityType.DOCUMENT,
-                Constants.CODE_SPACE_REFERENCE));
-        if (objects != null && !objects.isEmpty()) {
-            for (BaseObject o : objects) {
-                if (o == null) {
-                    continue;
-                }
-                StringProperty nameProperty = (StringProperty) o.get(META_PROPERTY_NAME);
-                StringProperty valueProperty = (StringProperty) o.get(META_PROPERTY_VALUE);
-                if (nameProperty != null && StringUtils.equals(nameProperty.getValue(), this.propertyName)
-                    && valueProperty != null && StringUtils.equals(valueProperty.getValue(), this.getValue())) {
-                    return o;
-                }
-            }
-        }
-        return null;
-    }
 }
@@ -32,9 +32,11 @@
 import org.xwiki.model.reference.DocumentReference;
 import org.xwiki.model.reference.EntityReference;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -49,7 +51,6 @@
 import com.xpn.xwiki.XWikiException;
 import com.xpn.xwiki.doc.XWikiDocument;
 import com.xpn.xwiki.objects.BaseObject;
-import com.xpn.xwiki.objects.BaseProperty;
 import com.xpn.xwiki.objects.ListProperty;
 
 import net.sf.json.JSONArray;
@@ -101,19 +102,34 @@ public class PhenoTipsPatient implements Patient
     private DocumentReference reporter;
 
     /** @see #getFeatures() */
-    private Set<Feature> features = new TreeSet<Feature>();
+    private Set<Feature> features;
+
+    /** The features read from the document, until their names are resolved and they are sorted into the features. */
+    private List<PhenoTipsFeature> unsortedFeatures = new ArrayList<PhenoTipsFeature>();
 
     /** @see #getDisorders() */
-    private Set<Disorder> disorders = new TreeSet<Disorder>();
+    private Set<Disorder> disorders;
+
+    /** The disorders read from the document, until their names are resolved and they are sorted into the disorders. */
+    private List<PhenoTipsDisorder> unsortedDisorders = new ArrayList<PhenoTipsDisorder>();
 
-    /** The list of all the initialized data holders (PatientDataSerializer). */
+    /** The list of all the available data holders (PatientDataSerializer). {@code null} until first needed. */
     private List<PatientDataController<?>> serializers;
 
-    /** Extra data that can be plugged into the patient record. */
+    /** The names of the data holders which already {@link PatientDataController#load(Patient) loaded} their data. */
+    private Set<String> loadedSerializers = new HashSet<String>();
+
+    /** Extra data that can be plugged into the patient record, loaded by each data holder when first needed. */
     private Map<String, PatientData<?>> extraData = new HashMap<String, PatientData<?>>();
 
+    /** The fields this patient was loaded for, exported by default by {@link #toJSON()}; {@code null} for all. */
+    private Collection<String> selectedFieldNames;
+
     /**
-     * Constructor that copies the data from an XDocument.
+     * Constructor that copies the data from an XDocument. Only the feature and disorder values are read from the
+     * document right away, so that the document itself isn't kept in memory; the names of the terms are only looked
+     * up, and the data managed by each {@link PatientDataController} is only loaded, the first time they are
+     * requested.
      *
      * @param doc the XDocument representing this patient in XWiki
      */
@@ -121,80 +137,123 @@ public PhenoTipsPatient(XWikiDocument doc)
     {
         this.document = doc.getDocumentReference();
         this.reporter = doc.getCreatorReference();
-
         BaseObject data = doc.getXObject(CLASS_REFERENCE);
-        if (data == null) {
-            return;
+        if (data != null) {
+            PhenoTipsFeature.loadAll(doc, data, this.unsortedFeatures);
+            try {
+                loadDisorders(data, this.unsortedDisorders);
+            } catch (XWikiException ex) {
+                this.logger.warn("Failed to access patient data for [{}]: {}", this.document, ex.getMessage());
+            }
         }
+    }
 
-        try {
-            loadFeatures(doc, data);
-            loadDisorders(doc, data);
-        } catch (XWikiException ex) {
-            this.logger.warn("Failed to access patient data for [{}]: {}", doc.getDocumentReference(), ex.getMessage());
+    /**
+     * Constructor that copies the data from an XDocument, for using only some of the patient fields. Only the data
+     * needed for the selected fields is loaded when {@link #toJSON() exporting} the patient, and only by the
+     * controllers responsible for those fields. The rest of the data is still available, loaded on demand.
+     *
+     * @param doc the XDocument representing this patient in XWiki
+     * @param selectedFieldNames the names of the fields that will be used, may be {@code null}, in which case all the
+     *            fields are used
+     * @since 1.3M1
+     */
+    public PhenoTipsPatient(XWikiDocument doc, Collection<String> selectedFieldNames)
+    {
+        this(doc);
+        if (selectedFieldNames != null) {
+            this.selectedFieldNames = Collections.unmodifiableSet(new HashSet<String>(selectedFieldNames));
         }
+    }
 
+    private synchronized void loadFeatures()
+    {
+        if (this.features != null) {
+            return;
+        }
+        // Sorting uses the names of the terms, which are all resolved at once beforehand
+        AbstractPhenoTipsVocabularyProperty.resolveNames(this.unsortedFeatures);
         // Read-only from now on
-        this.features = Collections.unmodifiableSet(this.features);
-        this.disorders = Collections.unmodifiableSet(this.disorders);
-
-        loadSerializers();
-        readPatientData();
+        this.features = Collections.<Feature>unmodifiableSet(new TreeSet<Feature>(this.unsortedFeatures));
+        this.unsortedFeatures = null;
     }
 
-    private void loadFeatures(XWikiDocument doc, BaseObject data)
+    private synchronized void loadDisorders()
     {
-        @SuppressWarnings("unchecked")
-        Collection<BaseProperty<EntityReference>> fields = data.getFieldList();
-        for (BaseProperty<EntityReference> field : fields) {
-            if (field == null || !field.getName().matches("(?!extended_)(.*_)?phenotype")
-                || !ListProperty.class.isInstance(field)) {
-                continue;
-            }
-            ListProperty values = (ListProperty) field;
-            for (String value : values.getList()) {
-                if (StringUtils.isNotBlank(value)) {
-                    this.features.add(new PhenoTipsFeature(doc, values, value));
-                }
-            }
+        if (this.disorders != null) {
+            return;
         }
+        AbstractPhenoTipsVocabularyProperty.resolveNames(this.unsortedDisorders);
+        // Read-only from now on
+        this.disorders = Collections.<Disorder>unmodifiableSet(new TreeSet<Disorder>(this.unsortedDisorders));
+        this.unsortedDisorders = null;
     }
 
-    private void loadDisorders(XWikiDocument doc, BaseObject data) throws XWikiException
+    private void loadDisorders(BaseObject data, List<PhenoTipsDisorder> target) throws XWikiException
     {
         for (String property : DISORDER_PROPERTIES) {
             ListProperty values = (ListProperty) data.get(property);
             if (values != null) {
                 for (String value : values.getList()) {
                     if (StringUtils.isNotBlank(value)) {
-                        this.disorders.add(new PhenoTipsDisorder(values, value));
+                        target.add(new PhenoTipsDisorder(values, value));
                     }
                 }
             }
         }
     }
 
-    private void loadSerializers()
+    private synchronized List<PatientDataController<?>> getSerializers()
     {
-        try {
-            this.serializers =
-                ComponentManagerRegistry.getContextComponentManager().getInstanceList(PatientDataController.class);
-        } catch (ComponentLookupException e) {
-            this.logger.error("Failed to find component", e);
+        if (this.serializers == null) {
+            try {
+                this.serializers =
+                    ComponentManagerRegistry.getContextComponentManager().getInstanceList(PatientDataController.class);
+            } catch (ComponentLookupException e) {
+                this.logger.error("Failed to find component", e);
+                this.serializers = Collections.emptyList();
+            }
         }
+        return this.serializers;
     }
 
     /**
-     * Loops through all the available serializers and passes each a document reference.
+     * Makes sure that the named data is loaded. Data holders name their data after themselves, so only the matching
+     * serializer is asked to load its data; if there's no such serializer, all the serializers which didn't load their
+     * data yet are asked to do so.
+     *
+     * @param name the name of the requested data
      */
-    private void readPatientData()
+    private synchronized void readPatientData(String name)
     {
-        for (PatientDataController<?> serializer : this.serializers) {
-            PatientData<?> data = serializer.load(this);
-            if (data != null) {
-                this.extraData.put(data.getName(), data);
+        if (this.extraData.containsKey(name)) {
+            return;
+        }
+        for (PatientDataController<?> serializer : getSerializers()) {
+            if (StringUtils.equals(name, serializer.getName())) {
+                readPatientData(serializer);
+                return;
             }
         }
+        for (PatientDataController<?> serializer : getSerializers()) {
+            readPatientData(serializer);
+        }
+    }
+
+    /**
+     * Passes this patient to a serializer to load its data, unless it already did so.
+     *
+     * @param serializer the serializer to load data from
+     */
+    private void readPatientData(PatientDataController<?> serializer)
+    {
+        if (!this.loadedSerializers.add(serializer.getName())) {
+            return;
+        }
+        PatientData<?> data = serializer.load(this);
+        if (data != null) {
+            this.extraData.put(data.getName(), data);
+        }
     }
 
     private boolean isFieldIncluded(Collection<String> includedFieldNames, String fieldName)
@@ -246,33 +305,36 @@ public DocumentReference getReporter()
     @Override
     public Set<Feature> getFeatures()
     {
+        loadFeatures();
         return this.features;
     }
 
     @Override
     public Set<Disorder> getDisorders()
     {
+        loadDisorders();
         return this.disorders;
     }
 
     @SuppressWarnings("unchecked")
     @Override
-    public <T> PatientData<T> getData(String name)
+    public synchronized <T> PatientData<T> getData(String name)
     {
+        readPatientData(name);
         return (PatientData<T>) this.extraData.get(name);
     }
 
     @Override
     public JSONObject toJSON()
     {
-        return toJSON(null);
+        return toJSON(this.selectedFieldNames);
     }
 
     /** creates & returns a new JSON array of all patient features (as JSON objects). */
     private JSONArray featuresToJSON()
     {
         JSONArray featuresJSON = new JSONArray();
-        for (Feature phenotype : this.features) {
+        for (Feature phenotype : getFeatures()) {
             if (StringUtils.isBlank(phenotype.getId())) {
                 continue;
             }
@@ -284,7 +346,7 @@ private JSONArray featuresToJSON()
     private JSONArray nonStandardFeaturesToJSON()
     {
         JSONArray featuresJSON = new JSONArray();
-        for (Feature phenotype : this.features) {
+        for (Feature phenotype : getFeatures()) {
             if (StringUtils.isNotBlank(phenotype.getId())) {
                 continue;
             }
@@ -297,7 +359,7 @@ private JSONArray nonStandardFeaturesToJSON()
     private JSONArray diseasesToJSON()
     {
         JSONArray diseasesJSON = new JSONArray();
-        for (Disorder disease : this.disorders) {
+        for (Disorder disease : getDisorders()) {
             diseasesJSON.add(disease.toJSON());
         }
         return diseasesJSON;
@@ -316,139 +378,169 @@ public JSONObject toJSON(Collection<String> onlyFieldNames)
             result.element(JSON_KEY_REPORTER, getReporter().getName());
         }
 
-        if (!this.features.isEmpty() && isFieldIncluded(onlyFieldNames, PHENOTYPE_PROPERTIES)) {
+        if (isFieldIncluded(onlyFieldNames, PHENOTYPE_PROPERTIES) && !getFeatures().isEmpty()) {
             result.element(JSON_KEY_FEATURES, featuresToJSON());
             result.element(JSON_KEY_NON_STANDARD_FEATURES, nonStandardFeaturesToJSON());
         }
 
-        if (!this.disorders.isEmpty() && isFieldIncluded(onlyFieldNames, DISORDER_PROPERTIES)) {
+        if (isFieldIncluded(onlyFieldNames, DISORDER_PROPERTIES) && !getDisorders().isEmpty()) {
             result.element(JSON_KEY_DISORDERS, diseasesToJSON());
         }
 
-        for (PatientDataController<?> serializer : this.serializers) {
+        for (PatientDataController<?> serializer : getSerializers()) {
             serializer.writeJSON(this, result, onlyFieldNames);
         }
 
         return result;
     }
 
-    private void updateFeaturesFromJSON(XWikiDocument doc, BaseObject data, XWikiContext context, JSONObject json)
+    private boolean updateFeaturesFromJSON(BaseObject data, XWikiContext context, JSONObject json)
     {
-        try {
-            JSONArray inputFeatures = json.optJSONArray(JSON_KEY_FEATURES);
-            if (inputFeatures != null) {
-                // keep this instance of PhenotipsPatient in sync with the document: reset features
-                this.features = new TreeSet<Feature>();
-
-                // new feature lists (for setting values in the Wiki document)
-                List<String> positiveValues = new LinkedList<String>();
-                List<String> negativeValues = new LinkedList<String>();
-
-                for (int i = 0; i < inputFeatures.size(); i++) {
-                    JSONObject featureInJSON = inputFeatures.optJSONObject(i);
-                    if (featureInJSON == null) {
-                        continue;
-                    }
+        JSONArray inputFeatures = json.optJSONArray(JSON_KEY_FEATURES);
+        if (inputFeatures == null) {
+            return false;
+        }
+        // keep this instance of PhenotipsPatient in sync with the document: reset features
+        List<PhenoTipsFeature> newFeatures = new ArrayList<PhenoTipsFeature>();
 
-                    Feature phenotipsFeature = new PhenoTipsFeature(featureInJSON);
-                    this.features.add(phenotipsFeature);
+        // new feature lists (for setting values in the Wiki document)
+        List<String> positiveValues = new LinkedList<String>();
+        List<String> negativeValues = new LinkedList<String>();
 
-                    if (phenotipsFeature.isPresent()) {
-                        positiveValues.add(phenotipsFeature.getValue());
-                    } else {
-                        negativeValues.add(phenotipsFeature.getValue());
-                    }
-                }
+        for (int i = 0; i < inputFeatures.size(); i++) {
+            JSONObject featureInJSON = inputFeatures.optJSONObject(i);
+            if (featureInJSON == null) {
+                continue;
+            }
 
-                // as in constructor: make unmodifiable
-                this.features = Collections.unmodifiableSet(this.features);
+            PhenoTipsFeature phenotipsFeature = new PhenoTipsFeature(featureInJSON);
+            newFeatures.add(phenotipsFeature);
 
-                // update the values in the document (overwriting the old list, if any)
-                data.set(PHENOTYPE_POSITIVE_PROPERTY, positiveValues, context);
-                data.set(PHENOTYPE_NEGATIVE_PROPERTY, negativeValues, context);
-                context.getWiki().saveDocument(doc, "Updated features from JSON", true, context);
+            if (phenotipsFeature.isPresent()) {
+                positiveValues.add(phenotipsFeature.getValue());
+            } else {
+                negativeValues.add(phenotipsFeature.getValue());
             }
-        } catch (Exception ex) {
-            this.logger.warn("Failed to update patient features from JSON [{}]: {}", ex.getMessage(), ex);
         }
+
+        // as when loading from the document: resolve all the names at once before sorting, and make unmodifiable
+        AbstractPhenoTipsVocabularyProperty.resolveNames(newFeatures);
+        this.features = Collections.<Feature>unmodifiableSet(new TreeSet<Feature>(newFeatures));
+
+        // update the values in the document (overwriting the old list, if any)
+        data.set(PHENOTYPE_POSITIVE_PROPERTY, positiveValues, context);
+        data.set(PHENOTYPE_NEGATIVE_PROPERTY, negativeValues, context);
+        return true;
     }
 
-    private void updateDisordersFromJSON(XWikiDocument doc, BaseObject data, XWikiContext context, JSONObject json)
+    private boolean updateDisordersFromJSON(BaseObject data, XWikiContext context, JSONObject json)
     {
-        try {
-            JSONArray inputDisorders = json.optJSONArray(JSON_KEY_DISORDERS);
-            if (inputDisorders != null) {
-                // keep this instance of PhenotipsPatient in sync with the document: reset disorders
-                this.disorders = new TreeSet<Disorder>();
-
-                // new disorders list (for setting values in the Wiki document)
-                List<String> disorderValues = new LinkedList<String>();
-
-                for (int i = 0; i < inputDisorders.size(); i++) {
-                    JSONObject disorderJSON = inputDisorders.optJSONObject(i);
-                    if (disorderJSON == null) {
-                        continue;
-                    }
+        JSONArray inputDisorders = json.optJSONArray(JSON_KEY_DISORDERS);
+        if (inputDisorders == null) {
+            return false;
+        }
+        // keep this instance of PhenotipsPatient in sync with the document: reset disorders
+        List<PhenoTipsDisorder> newDisorders = new ArrayList<PhenoTipsDisorder>();
 
-                    Disorder phenotipsDisorder = new PhenoTipsDisorder(disorderJSON);
-                    this.disorders.add(phenotipsDisorder);
+        // new disorders list (for setting values in the Wiki document)
+        List<String> disorderValues = new LinkedList<String>();
 
-                    disorderValues.add(phenotipsDisorder.getValue());
-                }
+        for (int i = 0; i < inputDisorders.size(); i++) {
+            JSONObject disorderJSON = inputDisorders.optJSONObject(i);
+            if (disorderJSON == null) {
+                continue;
+            }
+
+            PhenoTipsDisorder phenotipsDisorder = new PhenoTipsDisorder(disorderJSON);
+            newDisorders.add(phenotipsDisorder);
 
-                // as in constructor: make unmofidiable
-                this.disorders = Collections.unmodifiableSet(this.disorders);
+            disorderValues.add(phenotipsDisorder.getValue());
+        }
+
+        // as when loading from the document: resolve all the names at once before sorting, and make unmodifiable
+        AbstractPhenoTipsVocabularyProperty.resolveNames(newDisorders);
+        this.disorders = Collections.<Disorder>unmodifiableSet(new TreeSet<Disorder>(newDisorders));
 
-                // update the values in the document (overwriting the old list, if any)
-                data.set(DISORDER_PROPERTIES_OMIMID, disorderValues, context);
-                context.getWiki().saveDocument(doc, "Updated disorders from JSON", true, context);
+        // update the values in the document (overwriting the old list, if any)
+        data.set(DISORDER_PROPERTIES_OMIMID, disorderValues, context);
+        return true;
+    }
+
+    /**
+     * Reads the custom data from the JSON using each controller, and lets the controllers write the data into the
+     * document, without saving it.
+     *
+     * @param doc the document being updated
+     * @param json the JSON to read from
+     * @return {@code true} if any of the controllers modified the document
+     */
+    private boolean updateDataFromJSON(XWikiDocument doc, JSONObject json)
+    {
+        boolean modified = false;
+        for (PatientDataController<?> serializer : getSerializers()) {
+            PatientData<?> patientData = serializer.readJSON(json);
+            if (patientData == null) {
+                continue;
+            }
+            this.loadedSerializers.add(serializer.getName());
+            this.extraData.put(patientData.getName(), patientData);
+            try {
+                if (serializer.save(this, doc)) {
+                    modified = true;
+                    this.logger.debug("Updated patient [{}] from JSON using serializer [{}]", this.document,
+                        serializer.getName());
+                }
+            } catch (UnsupportedOperationException ex) {
+                this.logger.info("Unable to update patient from JSON using serializer [{}]: not supported",
+                    serializer.getName());
             }
-        } catch (Exception ex) {
-            this.logger.warn("Failed to update patient disorders from JSON [{}]: {}", ex.getMessage(), ex);
         }
+        return modified;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * All the changes are written into a copy of the patient document, which is then saved only once. If reading or
+     * writing any of the data fails, nothing is saved, and this object is reverted to its previous state.
+     * </p>
+     */
     @Override
-    public void updateFromJSON(JSONObject json)
+    public synchronized void updateFromJSON(JSONObject json)
     {
+        Set<Feature> previousFeatures = this.features;
+        Set<Disorder> previousDisorders = this.disorders;
+        Set<String> previousLoadedSerializers = new HashSet<String>(this.loadedSerializers);
+        Map<String, PatientData<?>> previousData = new HashMap<String, PatientData<?>>(this.extraData);
         try {
             // TODO: Check versions and throw if versions mismatch if necessary
-            // TODO: Separate updateFromJSON and saveToDB? Move to PatientRepository?
+            // TODO: Move saving to PatientRepository?
 
             Execution execution = ComponentManagerRegistry.getContextComponentManager().getInstance(Execution.class);
             XWikiContext context = (XWikiContext) execution.getContext().getProperty("xwikicontext");
 
             DocumentAccessBridge documentAccessBridge =
                 ComponentManagerRegistry.getContextComponentManager().getInstance(DocumentAccessBridge.class);
-            XWikiDocument doc = (XWikiDocument) documentAccessBridge.getDocument(getDocument());
+            // Work on a copy, so that the cached document isn't left half updated if something fails
+            XWikiDocument doc = ((XWikiDocument) documentAccessBridge.getDocument(getDocument())).clone();
 
             BaseObject data = doc.getXObject(CLASS_REFERENCE);
             if (data == null) {
                 return;
             }
 
-            updateFeaturesFromJSON(doc, data, context, json);
+            boolean modified = updateFeaturesFromJSON(data, context, json);
+            modified |= updateDisordersFromJSON(data, context, json);
+            modified |= updateDataFromJSON(doc, json);
 
-            updateDisordersFromJSON(doc, data, context, json);
-
-            for (PatientDataController<?> serializer : this.serializers) {
-                try {
-                    PatientData<?> patientData = serializer.readJSON(json);
-                    if (patientData != null) {
-                        this.extraData.put(patientData.getName(), patientData);
-                        serializer.save(this);
-                        this.logger.info("Successfully updated patient form JSON using serializer [{}]",
-                            serializer.getName());
-                    }
-                } catch (UnsupportedOperationException ex) {
-                    this.logger.info("Unable to update patient from JSON using serializer [{}]: not supported",
-                        serializer.getName());
-                } catch (Exception ex) {
-                    this.logger.warn("Failed to update patient data from JSON using serializer [{}]: {}",
-                        serializer.getName(), ex.getMessage(), ex);
-                }
+            if (modified) {
+                context.getWiki().saveDocument(doc, "Updated from JSON", true, context);
             }
         } catch (Exception ex) {
+            this.features = previousFeatures;
+            this.disorders = previousDisorders;
+            this.loadedSerializers = previousLoadedSerializers;
+            this.extraData = previousData;
             this.logger.warn("Failed to update patient data from JSON [{}]: {}", ex.getMessage(), ex);
         }
     }
@@ -35,6 +35,7 @@
 import org.xwiki.query.QueryException;
 import org.xwiki.query.QueryManager;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 
@@ -86,12 +87,18 @@ public class PhenoTipsPatientRepository implements PatientRepository
 
     @Override
     public Patient getPatientById(String id)
+    {
+        return getPatientById(id, null);
+    }
+
+    @Override
+    public Patient getPatientById(String id, Collection<String> fieldNames)
     {
         DocumentReference reference = this.stringResolver.resolve(id, Patient.DEFAULT_DATA_SPACE);
         try {
             XWikiDocument doc = (XWikiDocument) this.bridge.getDocument(reference);
             if (doc != null && doc.getXObject(Patient.CLASS_REFERENCE) != null) {
-                return new PhenoTipsPatient(doc);
+                return new PhenoTipsPatient(doc, fieldNames);
             }
         } catch (Exception ex) {
             this.logger.warn("Failed to access patient with id [{}]: {}", id, ex.getMessage(), ex);
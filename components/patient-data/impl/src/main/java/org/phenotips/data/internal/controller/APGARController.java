@@ -23,6 +23,7 @@
 import org.phenotips.data.PatientDataController;
 
 import org.xwiki.bridge.DocumentAccessBridge;
+import org.xwiki.bridge.DocumentModelBridge;
 import org.xwiki.component.annotation.Component;
 
 import java.util.Collection;
@@ -37,7 +38,6 @@
 import javax.inject.Named;
 import javax.inject.Singleton;
 
-import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.math.NumberUtils;
 import org.slf4j.Logger;
 
@@ -98,6 +98,12 @@ public void save(Patient patient)
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    public boolean save(Patient patient, DocumentModelBridge doc)
+    {
+        throw new UnsupportedOperationException();
+    }
+
     @Override
     public void writeJSON(Patient patient, JSONObject json)
     {
@@ -107,7 +113,7 @@ public void writeJSON(Patient patient, JSONObject json)
     @Override
     public void writeJSON(Patient patient, JSONObject json, Collection<String> selectedFieldNames)
     {
-        if (selectedFieldNames != null && !hasAnySelected(selectedFieldNames)) {
+        if (!ControllerUtils.hasAnySelectedWithPrefix(selectedFieldNames, getName())) {
             return;
         }
         PatientData<Integer> data = patient.getData(getName());
@@ -131,23 +137,6 @@ public void writeJSON(Patient patient, JSONObject json, Collection<String> selec
         }
     }
 
-    /**
-     * Checks if any relevant field names were selected.
-     *
-     * @return true if relevant fields were selected, false otherwise
-     */
-    private boolean hasAnySelected(Collection<String> selectedFieldNames)
-    {
-        boolean hasAny = false;
-        for (String selectedFieldName : selectedFieldNames) {
-            if (StringUtils.startsWithIgnoreCase(selectedFieldName, this.getName())) {
-                hasAny = true;
-                break;
-            }
-        }
-        return hasAny;
-    }
-
     @Override
     public PatientData<Integer> readJSON(JSONObject json)
     {
@@ -25,6 +25,7 @@
 import org.phenotips.data.internal.AbstractPhenoTipsVocabularyProperty;
 
 import org.xwiki.bridge.DocumentAccessBridge;
+import org.xwiki.bridge.DocumentModelBridge;
 import org.xwiki.model.reference.EntityReference;
 import org.xwiki.model.reference.ObjectPropertyReference;
 
@@ -105,6 +106,9 @@ public PatientData<T> load(Patient patient)
     @Override
     public void writeJSON(Patient patient, JSONObject json, Collection<String> selectedFieldNames)
     {
+        if (!ControllerUtils.hasAnySelected(selectedFieldNames, getProperties())) {
+            return;
+        }
         PatientData<T> data = patient.getData(getName());
         if (data == null) {
             return;
@@ -209,6 +213,12 @@ public void save(Patient patient)
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    public boolean save(Patient patient, DocumentModelBridge doc)
+    {
+        throw new UnsupportedOperationException();
+    }
+
     @Override
     public PatientData<T> readJSON(JSONObject json)
     {
@@ -23,6 +23,7 @@
 import org.phenotips.data.PatientDataController;
 
 import org.xwiki.bridge.DocumentAccessBridge;
+import org.xwiki.bridge.DocumentModelBridge;
 
 import java.util.Collection;
 import java.util.Iterator;
@@ -92,18 +93,9 @@ public void save(Patient patient)
     {
         try {
             XWikiDocument doc = (XWikiDocument) this.documentAccessBridge.getDocument(patient.getDocument());
-            BaseObject xwikiDataObject = doc.getXObject(Patient.CLASS_REFERENCE);
-            if (xwikiDataObject == null) {
-                throw new IllegalArgumentException(ERROR_MESSAGE_NO_PATIENT_CLASS);
-            }
-
-            PatientData<String> data = patient.<String>getData(this.getName());
-            if (!data.isNamed()) {
+            if (!save(patient, doc)) {
                 return;
             }
-            for (String property : this.getProperties()) {
-                xwikiDataObject.setStringValue(property, data.get(property));
-            }
 
             XWikiContext context = this.contextProvider.get();
             String comment = String.format("Updated %s from JSON", this.getName());
@@ -113,6 +105,24 @@ public void save(Patient patient)
         }
     }
 
+    @Override
+    public boolean save(Patient patient, DocumentModelBridge doc)
+    {
+        BaseObject xwikiDataObject = ((XWikiDocument) doc).getXObject(Patient.CLASS_REFERENCE);
+        if (xwikiDataObject == null) {
+            throw new IllegalArgumentException(ERROR_MESSAGE_NO_PATIENT_CLASS);
+        }
+
+        PatientData<String> data = patient.<String>getData(this.getName());
+        if (!data.isNamed()) {
+            return false;
+        }
+        for (String property : this.getProperties()) {
+            xwikiDataObject.setStringValue(property, data.get(property));
+        }
+        return true;
+    }
+
     @Override
     public void writeJSON(Patient patient, JSONObject json)
     {
@@ -122,6 +132,9 @@ public void writeJSON(Patient patient, JSONObject json)
     @Override
     public void writeJSON(Patient patient, JSONObject json, Collection<String> selectedFieldNames)
     {
+        if (!ControllerUtils.hasAnySelected(selectedFieldNames, getProperties())) {
+            return;
+        }
         PatientData<String> data = patient.getData(getName());
         if (data == null || !data.isNamed()) {
             return;
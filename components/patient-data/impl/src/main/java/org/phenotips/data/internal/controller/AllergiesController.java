@@ -24,6 +24,7 @@
 import org.phenotips.data.PatientDataController;
 
 import org.xwiki.bridge.DocumentAccessBridge;
+import org.xwiki.bridge.DocumentModelBridge;
 import org.xwiki.component.annotation.Component;
 import org.xwiki.model.EntityType;
 import org.xwiki.model.reference.EntityReference;
@@ -117,26 +118,11 @@ public PatientData<String> load(Patient patient)
     public void save(Patient patient)
     {
         try {
-            PatientData<String> data = patient.getData(DATA_NAME);
-            if (data == null || !data.isIndexed()) {
+            XWikiDocument doc = (XWikiDocument) this.documentAccessBridge.getDocument(patient.getDocument());
+            if (!save(patient, doc)) {
                 return;
             }
 
-            boolean nkda = false;
-            List<String> allergies = new ArrayList<>(data.size());
-            for (String allergy : data) {
-                if (NKDA.equals(allergy)) {
-                    nkda = true;
-                } else {
-                    allergies.add(allergy);
-                }
-            }
-
-            XWikiDocument doc = (XWikiDocument) this.documentAccessBridge.getDocument(patient.getDocument());
-            BaseObject xobject = doc.getXObject(CLASS_REFERENCE, true, this.xcontext.get());
-            xobject.setIntValue(NKDA, nkda ? 1 : 0);
-            xobject.setDBStringListValue(DATA_NAME, allergies);
-
             this.xcontext.get().getWiki().saveDocument(doc, "Updated allergies from JSON", true, this.xcontext.get());
         } catch (Exception ex) {
             this.logger.error("Could not access requested document or some unforeseen error has occurred during save.",
@@ -144,6 +130,30 @@ public void save(Patient patient)
         }
     }
 
+    @Override
+    public boolean save(Patient patient, DocumentModelBridge doc)
+    {
+        PatientData<String> data = patient.getData(DATA_NAME);
+        if (data == null || !data.isIndexed()) {
+            return false;
+        }
+
+        boolean nkda = false;
+        List<String> allergies = new ArrayList<>(data.size());
+        for (String allergy : data) {
+            if (NKDA.equals(allergy)) {
+                nkda = true;
+            } else {
+                allergies.add(allergy);
+            }
+        }
+
+        BaseObject xobject = ((XWikiDocument) doc).getXObject(CLASS_REFERENCE, true, this.xcontext.get());
+        xobject.setIntValue(NKDA, nkda ? 1 : 0);
+        xobject.setDBStringListValue(DATA_NAME, allergies);
+        return true;
+    }
+
     @Override
     public void writeJSON(Patient patient, JSONObject json)
     {
@@ -23,6 +23,7 @@
 import org.phenotips.data.SimpleValuePatientData;
 
 import org.xwiki.bridge.DocumentAccessBridge;
+import org.xwiki.bridge.DocumentModelBridge;
 import org.xwiki.component.annotation.Component;
 
 import java.util.Collection;
@@ -116,6 +117,12 @@ public void save(Patient patient)
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    public boolean save(Patient patient, DocumentModelBridge doc)
+    {
+        throw new UnsupportedOperationException();
+    }
+
     @Override
     public PatientData<String> readJSON(JSONObject json)
     {
@@ -0,0 +1,78 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses/
+ */
+package org.phenotips.data.internal.controller;
+
+import java.util.Collection;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Helpers shared by the {@link org.phenotips.data.PatientDataController patient data controllers} for exporting only
+ * the selected fields of a patient record.
+ *
+ * @version $Id$
+ * @since 1.3M1
+ */
+final class ControllerUtils
+{
+    /** Avoid instantiation. */
+    private ControllerUtils()
+    {
+    }
+
+    /**
+     * Checks if any of the properties handled by a controller are selected. If none are, the data of the patient
+     * doesn't need to be loaded at all.
+     *
+     * @param selectedFieldNames the selected fields, may be {@code null}, in which case all fields are selected
+     * @param properties the properties handled by the controller
+     * @return {@code true} if at least one of the properties is selected
+     */
+    static boolean hasAnySelected(Collection<String> selectedFieldNames, Collection<String> properties)
+    {
+        if (selectedFieldNames == null) {
+            return true;
+        }
+        for (String property : properties) {
+            if (selectedFieldNames.contains(property)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if any of the selected fields belong to a controller whose fields are all named with a common prefix.
+     *
+     * @param selectedFieldNames the selected fields, may be {@code null}, in which case all fields are selected
+     * @param prefix the prefix of the names of the fields handled by the controller, compared ignoring case
+     * @return {@code true} if at least one of the selected fields starts with the prefix
+     */
+    static boolean hasAnySelectedWithPrefix(Collection<String> selectedFieldNames, String prefix)
+    {
+        if (selectedFieldNames == null) {
+            return true;
+        }
+        for (String selectedFieldName : selectedFieldNames) {
+            if (StringUtils.startsWithIgnoreCase(selectedFieldName, prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -24,6 +24,7 @@
 import org.phenotips.data.PatientDataController;
 
 import org.xwiki.bridge.DocumentAccessBridge;
+import org.xwiki.bridge.DocumentModelBridge;
 import org.xwiki.component.annotation.Component;
 import org.xwiki.context.Execution;
 
@@ -112,21 +113,9 @@ public void save(Patient patient)
     {
         try {
             XWikiDocument doc = (XWikiDocument) this.documentAccessBridge.getDocument(patient.getDocument());
-            BaseObject data = doc.getXObject(Patient.CLASS_REFERENCE);
-            if (data == null) {
-                throw new NullPointerException(ERROR_MESSAGE_NO_PATIENT_CLASS);
-            }
-
-            PatientData<Date> dates = patient.getData(DATA_NAME);
-            if (!dates.isNamed()) {
+            if (!save(patient, doc)) {
                 return;
             }
-            for (String property : this.getProperties()) {
-                Date propertyValue = dates.get(property);
-                if (propertyValue != null) {
-                    data.setDateValue(property, dates.get(property));
-                }
-            }
 
             XWikiContext context = (XWikiContext) this.execution.getContext().getProperty("xwikicontext");
             context.getWiki().saveDocument(doc, "Updated dates from JSON", true, context);
@@ -135,6 +124,27 @@ public void save(Patient patient)
         }
     }
 
+    @Override
+    public boolean save(Patient patient, DocumentModelBridge doc)
+    {
+        BaseObject data = ((XWikiDocument) doc).getXObject(Patient.CLASS_REFERENCE);
+        if (data == null) {
+            throw new NullPointerException(ERROR_MESSAGE_NO_PATIENT_CLASS);
+        }
+
+        PatientData<Date> dates = patient.getData(DATA_NAME);
+        if (!dates.isNamed()) {
+            return false;
+        }
+        for (String property : this.getProperties()) {
+            Date propertyValue = dates.get(property);
+            if (propertyValue != null) {
+                data.setDateValue(property, dates.get(property));
+            }
+        }
+        return true;
+    }
+
     @Override
     public void writeJSON(Patient patient, JSONObject json)
     {
@@ -144,6 +154,9 @@ public void writeJSON(Patient patient, JSONObject json)
     @Override
     public void writeJSON(Patient patient, JSONObject json, Collection<String> selectedFieldNames)
     {
+        if (!ControllerUtils.hasAnySelected(selectedFieldNames, getProperties())) {
+            return;
+        }
         DateFormat dateFormat =
             new SimpleDateFormat(this.configurationManager.getActiveConfiguration().getISODateFormat());
 
@@ -25,6 +25,7 @@
 import org.phenotips.vocabulary.VocabularyTerm;
 
 import org.xwiki.bridge.DocumentAccessBridge;
+import org.xwiki.bridge.DocumentModelBridge;
 import org.xwiki.component.annotation.Component;
 
 import java.util.Arrays;
@@ -113,6 +114,12 @@ public void save(Patient patient)
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    public boolean save(Patient patient, DocumentModelBridge doc)
+    {
+        throw new UnsupportedOperationException();
+    }
+
     @Override
     public void writeJSON(Patient patient, JSONObject json)
     {
@@ -122,6 +129,9 @@ public void writeJSON(Patient patient, JSONObject json)
     @Override
     public void writeJSON(Patient patient, JSONObject json, Collection<String> selectedFieldNames)
     {
+        if (!ControllerUtils.hasAnySelected(selectedFieldNames, getProperties())) {
+            return;
+        }
         Iterator<Entry<String, List<VocabularyTerm>>> data =
             patient.<List<VocabularyTerm>>getData(DATA_NAME).dictionaryIterator();
         while (data.hasNext()) {
@@ -23,6 +23,7 @@
 import org.phenotips.data.PatientDataController;
 
 import org.xwiki.bridge.DocumentAccessBridge;
+import org.xwiki.bridge.DocumentModelBridge;
 import org.xwiki.component.annotation.Component;
 import org.xwiki.context.Execution;
 
@@ -96,17 +97,9 @@ public void save(Patient patient)
     {
         try {
             XWikiDocument doc = (XWikiDocument) this.documentAccessBridge.getDocument(patient.getDocument());
-            BaseObject data = doc.getXObject(Patient.CLASS_REFERENCE);
-            if (data == null) {
-                throw new NullPointerException(ERROR_MESSAGE_NO_PATIENT_CLASS);
-            }
-
-            PatientData<String> identifiers = patient.<String>getData(DATA_NAME);
-            if (!identifiers.isNamed()) {
+            if (!save(patient, doc)) {
                 return;
             }
-            String externalId = identifiers.get(EXTERNAL_IDENTIFIER_PROPERTY_NAME);
-            data.setStringValue(EXTERNAL_IDENTIFIER_PROPERTY_NAME, externalId);
 
             XWikiContext context = (XWikiContext) this.execution.getContext().getProperty("xwikicontext");
             context.getWiki().saveDocument(doc, "Updated identifiers from JSON", true, context);
@@ -115,6 +108,23 @@ public void save(Patient patient)
         }
     }
 
+    @Override
+    public boolean save(Patient patient, DocumentModelBridge doc)
+    {
+        BaseObject data = ((XWikiDocument) doc).getXObject(Patient.CLASS_REFERENCE);
+        if (data == null) {
+            throw new NullPointerException(ERROR_MESSAGE_NO_PATIENT_CLASS);
+        }
+
+        PatientData<String> identifiers = patient.<String>getData(DATA_NAME);
+        if (!identifiers.isNamed()) {
+            return false;
+        }
+        String externalId = identifiers.get(EXTERNAL_IDENTIFIER_PROPERTY_NAME);
+        data.setStringValue(EXTERNAL_IDENTIFIER_PROPERTY_NAME, externalId);
+        return true;
+    }
+
     @Override
     public void writeJSON(Patient patient, JSONObject json)
     {
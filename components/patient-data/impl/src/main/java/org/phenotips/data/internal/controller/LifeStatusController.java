@@ -23,6 +23,7 @@
 import org.phenotips.data.SimpleValuePatientData;
 
 import org.xwiki.bridge.DocumentAccessBridge;
+import org.xwiki.bridge.DocumentModelBridge;
 import org.xwiki.component.annotation.Component;
 
 import java.util.Arrays;
@@ -117,24 +118,7 @@ public void save(Patient patient)
     {
         try {
             XWikiDocument doc = (XWikiDocument) this.documentAccessBridge.getDocument(patient.getDocument());
-            BaseObject data = doc.getXObject(Patient.CLASS_REFERENCE);
-            if (data == null) {
-                throw new NullPointerException(ERROR_MESSAGE_NO_PATIENT_CLASS);
-            }
-
-            PatientData<String> lifeStatus = patient.getData(DATA_NAME);
-            PatientData<Date> dates = patient.getData("dates");
-
-            Integer deathDateUnknown = 0;
-            if (lifeStatus != null && DECEASED.equals(lifeStatus.getValue())) {
-                deathDateUnknown = 1;
-            }
-            // check if date_of_death is set - if it is unknown_death_date should be unset
-            if (dates != null && dates.isNamed() && dates.get(PATIENT_DATEOFDEATH_FIELDNAME) != null) {
-                deathDateUnknown = 0;
-            }
-
-            data.setIntValue(PATIENT_UNKNOWN_DATEOFDEATH_FIELDNAME, deathDateUnknown);
+            save(patient, doc);
 
             this.xcontext.get().getWiki().saveDocument(doc, "Updated life status from JSON", true, this.xcontext.get());
         } catch (Exception e) {
@@ -142,6 +126,30 @@ public void save(Patient patient)
         }
     }
 
+    @Override
+    public boolean save(Patient patient, DocumentModelBridge doc)
+    {
+        BaseObject data = ((XWikiDocument) doc).getXObject(Patient.CLASS_REFERENCE);
+        if (data == null) {
+            throw new NullPointerException(ERROR_MESSAGE_NO_PATIENT_CLASS);
+        }
+
+        PatientData<String> lifeStatus = patient.getData(DATA_NAME);
+        PatientData<Date> dates = patient.getData("dates");
+
+        Integer deathDateUnknown = 0;
+        if (lifeStatus != null && DECEASED.equals(lifeStatus.getValue())) {
+            deathDateUnknown = 1;
+        }
+        // check if date_of_death is set - if it is unknown_death_date should be unset
+        if (dates != null && dates.isNamed() && dates.get(PATIENT_DATEOFDEATH_FIELDNAME) != null) {
+            deathDateUnknown = 0;
+        }
+
+        data.setIntValue(PATIENT_UNKNOWN_DATEOFDEATH_FIELDNAME, deathDateUnknown);
+        return true;
+    }
+
     @Override
     public void writeJSON(Patient patient, JSONObject json)
     {
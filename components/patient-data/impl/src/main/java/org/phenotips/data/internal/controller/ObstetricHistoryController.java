@@ -24,6 +24,7 @@
 import org.phenotips.data.PatientDataController;
 
 import org.xwiki.bridge.DocumentAccessBridge;
+import org.xwiki.bridge.DocumentModelBridge;
 import org.xwiki.component.annotation.Component;
 import org.xwiki.model.EntityType;
 import org.xwiki.model.reference.EntityReference;
@@ -130,23 +131,32 @@ public void save(Patient patient)
     {
         try {
             XWikiDocument doc = (XWikiDocument) this.documentAccessBridge.getDocument(patient.getDocument());
-
-            PatientData<Integer> data = patient.getData(getName());
-            if (data == null || !data.isNamed()) {
+            if (!save(patient, doc)) {
                 return;
             }
-            XWikiContext context = this.xcontext.get();
-            BaseObject o = doc.getXObject(getXClassReference(), true, context);
-            for (String property : getProperties()) {
-                o.set(PREFIX + property, data.get(property), context);
-            }
 
+            XWikiContext context = this.xcontext.get();
             context.getWiki().saveDocument(doc, "Updated obstetric history from JSON", true, context);
         } catch (Exception ex) {
             this.logger.error("Failed to save obstetric history: [{}]", ex.getMessage());
         }
     }
 
+    @Override
+    public boolean save(Patient patient, DocumentModelBridge doc)
+    {
+        PatientData<Integer> data = patient.getData(getName());
+        if (data == null || !data.isNamed()) {
+            return false;
+        }
+        XWikiContext context = this.xcontext.get();
+        BaseObject o = ((XWikiDocument) doc).getXObject(getXClassReference(), true, context);
+        for (String property : getProperties()) {
+            o.set(PREFIX + property, data.get(property), context);
+        }
+        return true;
+    }
+
     @Override
     public void writeJSON(Patient patient, JSONObject json)
     {
@@ -23,6 +23,7 @@
 import org.phenotips.data.SimpleValuePatientData;
 
 import org.xwiki.bridge.DocumentAccessBridge;
+import org.xwiki.bridge.DocumentModelBridge;
 import org.xwiki.component.annotation.Component;
 import org.xwiki.context.Execution;
 
@@ -105,14 +106,7 @@ public void save(Patient patient)
     {
         try {
             XWikiDocument doc = (XWikiDocument) this.documentAccessBridge.getDocument(patient.getDocument());
-            BaseObject data = doc.getXObject(Patient.CLASS_REFERENCE);
-            if (data == null) {
-                throw new NullPointerException(ERROR_MESSAGE_NO_PATIENT_CLASS);
-            }
-
-            String gender = patient.<String>getData(DATA_NAME).getValue();
-
-            data.setStringValue(INTERNAL_PROPERTY_NAME, gender);
+            save(patient, doc);
 
             XWikiContext context = (XWikiContext) this.execution.getContext().getProperty("xwikicontext");
             context.getWiki().saveDocument(doc, "Updated gender from JSON", true, context);
@@ -121,6 +115,20 @@ public void save(Patient patient)
         }
     }
 
+    @Override
+    public boolean save(Patient patient, DocumentModelBridge doc)
+    {
+        BaseObject data = ((XWikiDocument) doc).getXObject(Patient.CLASS_REFERENCE);
+        if (data == null) {
+            throw new NullPointerException(ERROR_MESSAGE_NO_PATIENT_CLASS);
+        }
+
+        String gender = patient.<String>getData(DATA_NAME).getValue();
+
+        data.setStringValue(INTERNAL_PROPERTY_NAME, gender);
+        return true;
+    }
+
     @Override
     public void writeJSON(Patient patient, JSONObject json)
     {
@@ -42,6 +42,8 @@
 import net.sf.json.JSONObject;
 
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class PhenoTipsDisorderTest
@@ -111,6 +113,22 @@ public void customTermsOnlyUseTheLabel() throws XWikiException
         Assert.assertEquals("Sickness", json.getString("label"));
     }
 
+    @Test
+    public void unknownTermsAreLookedUpOnlyOnce() throws ComponentLookupException
+    {
+        ListProperty prop = mock(ListProperty.class);
+        when(prop.getName()).thenReturn("omim_id");
+
+        Disorder d = new PhenoTipsDisorder(prop, "999999");
+        Disorder other = new PhenoTipsDisorder(prop, "200100");
+
+        Assert.assertEquals("MIM:999999", d.getName());
+        Assert.assertEquals("MIM:999999", d.getName());
+        Assert.assertEquals("#200100 ABETALIPOPROTEINEMIA", other.getName());
+        verify(this.vm, times(1)).resolveTerm("MIM:999999");
+        verify(this.cm, times(1)).getInstance(VocabularyManager.class);
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void nullValueThrowsError()
     {
@@ -55,6 +55,8 @@
 import net.sf.json.JSONObject;
 
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class PhenoTipsFeatureTest
@@ -627,4 +629,42 @@ public void noCategoriesWithNullObjectList() throws XWikiException
 
         Assert.assertFalse(new PhenoTipsFeature(doc, prop, "HP:0000100").toJSON().has("categories"));
     }
+
+    @Test
+    public void featuresSharingAnIndexFindTheirOwnMetadata() throws XWikiException
+    {
+        XWikiDocument doc = mock(XWikiDocument.class);
+        ListProperty prop = mock(ListProperty.class);
+        when(prop.getName()).thenReturn("phenotype");
+        ListProperty negativeProp = mock(ListProperty.class);
+        when(negativeProp.getName()).thenReturn("negative_phenotype");
+        List<BaseObject> metas = new ArrayList<BaseObject>();
+        metas.add(mockTargetingObject("phenotype", "HP:0000100", "Notes 100"));
+        metas.add(mockTargetingObject("phenotype", "HP:0000200", "Notes 200"));
+        metas.add(mockTargetingObject("negative_phenotype", "HP:0000100", "Negative notes 100"));
+        metas.add(mockTargetingObject("phenotype", "HP:0000100", "Duplicate notes 100"));
+        when(doc.getXObjects(FeatureMetadatum.CLASS_REFERENCE)).thenReturn(metas);
+
+        FeatureMetadataIndex index = new FeatureMetadataIndex(doc);
+
+        Assert.assertEquals("Notes 100", new PhenoTipsFeature(index, prop, "HP:0000100").getNotes());
+        Assert.assertEquals("Notes 200", new PhenoTipsFeature(index, prop, "HP:0000200").getNotes());
+        Assert.assertEquals("Negative notes 100", new PhenoTipsFeature(index, negativeProp, "HP:0000100").getNotes());
+        Assert.assertEquals("", new PhenoTipsFeature(index, prop, "HP:0000300").getNotes());
+        verify(doc, times(1)).getXObjects(FeatureMetadatum.CLASS_REFERENCE);
+        verify(metas.get(0), times(1)).get("target_property_name");
+    }
+
+    private BaseObject mockTargetingObject(String propertyName, String value, String comments) throws XWikiException
+    {
+        BaseObject result = mock(BaseObject.class);
+        StringProperty temp = new StringProperty();
+        temp.setValue(propertyName);
+        when(result.get("target_property_name")).thenReturn(temp);
+        temp = new StringProperty();
+        temp.setValue(value);
+        when(result.get("target_property_value")).thenReturn(temp);
+        when(result.getLargeStringValue("comments")).thenReturn(comments);
+        return result;
+    }
 }
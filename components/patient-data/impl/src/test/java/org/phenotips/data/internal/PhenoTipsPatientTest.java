@@ -0,0 +1,367 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses/
+ */
+package org.phenotips.data.internal;
+
+import org.phenotips.components.ComponentManagerRegistry;
+import org.phenotips.data.Feature;
+import org.phenotips.data.Patient;
+import org.phenotips.data.PatientData;
+import org.phenotips.data.PatientDataController;
+import org.phenotips.data.SimpleValuePatientData;
+import org.phenotips.vocabulary.VocabularyManager;
+import org.phenotips.vocabulary.VocabularyTerm;
+
+import org.xwiki.bridge.DocumentAccessBridge;
+import org.xwiki.component.manager.ComponentLookupException;
+import org.xwiki.component.manager.ComponentManager;
+import org.xwiki.component.util.ReflectionUtils;
+import org.xwiki.context.Execution;
+import org.xwiki.context.ExecutionContext;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.EntityReference;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import javax.inject.Provider;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+
+import com.xpn.xwiki.XWiki;
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.doc.XWikiDocument;
+import com.xpn.xwiki.objects.BaseObject;
+import com.xpn.xwiki.objects.ListProperty;
+
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class PhenoTipsPatientTest
+{
+    @Mock
+    private ComponentManager cm;
+
+    @Mock
+    private Provider<ComponentManager> mockProvider;
+
+    @Mock
+    private XWikiDocument doc;
+
+    @Mock
+    private PatientDataController<String> sexController;
+
+    @Mock
+    private PatientDataController<String> lifeStatusController;
+
+    @Mock
+    private PatientDataController<String> specificityController;
+
+    @Mock
+    private XWikiContext xcontext;
+
+    @Before
+    public void setup() throws ComponentLookupException
+    {
+        MockitoAnnotations.initMocks(this);
+        ReflectionUtils.setFieldValue(new ComponentManagerRegistry(), "cmProvider", this.mockProvider);
+        when(this.mockProvider.get()).thenReturn(this.cm);
+        List<PatientDataController<String>> controllers =
+            Arrays.asList(this.sexController, this.lifeStatusController, this.specificityController);
+        doReturn(controllers).when(this.cm).getInstanceList(PatientDataController.class);
+
+        when(this.doc.getDocumentReference()).thenReturn(new DocumentReference("xwiki", "data", "P0000001"));
+        when(this.sexController.getName()).thenReturn("sex");
+        when(this.sexController.load(any(Patient.class)))
+            .thenReturn(new SimpleValuePatientData<String>("sex", "F"));
+        when(this.lifeStatusController.getName()).thenReturn("life_status");
+        when(this.specificityController.getName()).thenReturn("specificity");
+    }
+
+    @Test
+    public void constructorDoesNotLoadAnything() throws ComponentLookupException
+    {
+        Patient patient = new PhenoTipsPatient(this.doc);
+
+        Assert.assertEquals("P0000001", patient.getId());
+        verify(this.cm, never()).getInstance(VocabularyManager.class);
+        verify(this.cm, never()).getInstanceList(PatientDataController.class);
+    }
+
+    @Test
+    public void featuresAreReadWhenConstructedSoThatTheDocumentIsNotKept() throws ComponentLookupException
+    {
+        BaseObject data = mock(BaseObject.class);
+        ListProperty phenotypes = mock(ListProperty.class);
+        when(phenotypes.getName()).thenReturn("phenotype");
+        when(phenotypes.getList()).thenReturn(Arrays.asList("Custom"));
+        when(data.getFieldList()).thenReturn(Arrays.asList(phenotypes));
+        when(this.doc.getXObject(Patient.CLASS_REFERENCE)).thenReturn(data);
+
+        Patient patient = new PhenoTipsPatient(this.doc);
+        verify(this.doc, times(1)).getXObject(any(EntityReference.class));
+        Mockito.reset(this.doc);
+
+        Assert.assertEquals("Custom", patient.getFeatures().iterator().next().getName());
+        Assert.assertTrue(patient.getDisorders().isEmpty());
+        Mockito.verifyZeroInteractions(this.doc);
+    }
+
+    @Test
+    public void getDataOnlyLoadsTheMatchingController()
+    {
+        Patient patient = new PhenoTipsPatient(this.doc);
+
+        PatientData<String> sex = patient.getData("sex");
+
+        Assert.assertEquals("F", sex.getValue());
+        verify(this.sexController).load(patient);
+        verify(this.lifeStatusController, never()).load(any(Patient.class));
+        verify(this.specificityController, never()).load(any(Patient.class));
+    }
+
+    @Test
+    public void getDataLoadsEachControllerOnce()
+    {
+        Patient patient = new PhenoTipsPatient(this.doc);
+
+        Assert.assertNotNull(patient.getData("sex"));
+        Assert.assertNotNull(patient.getData("sex"));
+        Assert.assertNull(patient.getData("life_status"));
+        Assert.assertNull(patient.getData("life_status"));
+
+        verify(this.sexController, times(1)).load(patient);
+        verify(this.lifeStatusController, times(1)).load(patient);
+        verify(this.specificityController, never()).load(any(Patient.class));
+    }
+
+    @Test
+    public void getDataWithUnknownNameFallsBackToAllControllers()
+    {
+        Patient patient = new PhenoTipsPatient(this.doc);
+
+        Assert.assertNull(patient.getData("unknown"));
+        Assert.assertNotNull(patient.getData("sex"));
+
+        verify(this.sexController, times(1)).load(patient);
+        verify(this.lifeStatusController, times(1)).load(patient);
+        verify(this.specificityController, times(1)).load(patient);
+    }
+
+    @Test
+    public void getFeaturesAndDisordersWithoutPatientObjectAreEmpty()
+    {
+        Patient patient = new PhenoTipsPatient(this.doc);
+
+        Assert.assertTrue(patient.getFeatures().isEmpty());
+        Assert.assertTrue(patient.getDisorders().isEmpty());
+        verify(this.sexController, never()).load(any(Patient.class));
+    }
+
+    @Test
+    public void updateFromJSONSavesTheDocumentOnce() throws Exception
+    {
+        XWikiDocument copy = mockDocumentUpdate();
+        XWiki xwiki = this.xcontext.getWiki();
+        JSONObject json = new JSONObject();
+        Patient patient = new PhenoTipsPatient(this.doc);
+        doReturn(new SimpleValuePatientData<String>("sex", "M")).when(this.sexController).readJSON(json);
+        doReturn(new SimpleValuePatientData<String>("life_status", "alive")).when(this.lifeStatusController)
+            .readJSON(json);
+        when(this.sexController.save(patient, copy)).thenReturn(true);
+        when(this.lifeStatusController.save(patient, copy)).thenReturn(true);
+
+        patient.updateFromJSON(json);
+
+        verify(this.sexController).save(patient, copy);
+        verify(this.lifeStatusController).save(patient, copy);
+        verify(this.sexController, never()).save(patient);
+        verify(this.lifeStatusController, never()).save(patient);
+        verify(this.specificityController, never()).save(any(Patient.class), any(XWikiDocument.class));
+        verify(xwiki, times(1)).saveDocument(copy, "Updated from JSON", true, this.xcontext);
+        Assert.assertEquals("M", patient.<String>getData("sex").getValue());
+    }
+
+    @Test
+    public void updateFromJSONDoesNotSaveAnythingWhenAControllerFails() throws Exception
+    {
+        XWikiDocument copy = mockDocumentUpdate();
+        XWiki xwiki = this.xcontext.getWiki();
+        JSONObject json = new JSONObject();
+        Patient patient = new PhenoTipsPatient(this.doc);
+        doReturn(new SimpleValuePatientData<String>("sex", "M")).when(this.sexController).readJSON(json);
+        doReturn(new SimpleValuePatientData<String>("life_status", "alive")).when(this.lifeStatusController)
+            .readJSON(json);
+        when(this.sexController.save(patient, copy)).thenReturn(true);
+        doThrow(new IllegalArgumentException()).when(this.lifeStatusController).save(patient, copy);
+
+        patient.updateFromJSON(json);
+
+        verify(xwiki, never()).saveDocument(any(XWikiDocument.class), anyString(), anyBoolean(),
+            any(XWikiContext.class));
+        // The in-memory data is reverted, and read again from the document
+        Assert.assertEquals("F", patient.<String>getData("sex").getValue());
+        verify(this.sexController).load(patient);
+    }
+
+    @Test
+    public void updateFromJSONWithoutChangesDoesNotSave() throws Exception
+    {
+        mockDocumentUpdate();
+        XWiki xwiki = this.xcontext.getWiki();
+        Patient patient = new PhenoTipsPatient(this.doc);
+
+        patient.updateFromJSON(new JSONObject());
+
+        verify(xwiki, never()).saveDocument(any(XWikiDocument.class), anyString(), anyBoolean(),
+            any(XWikiContext.class));
+    }
+
+    @Test
+    public void getFeaturesResolvesAllNamesAtOnce() throws ComponentLookupException
+    {
+        BaseObject data = mock(BaseObject.class);
+        ListProperty phenotypes = mock(ListProperty.class);
+        when(phenotypes.getName()).thenReturn("phenotype");
+        when(phenotypes.getList()).thenReturn(Arrays.asList("HP:0000001", "HP:0000002", "HP:0000003", "Custom"));
+        when(data.getFieldList()).thenReturn(Arrays.asList(phenotypes));
+        when(this.doc.getXObject(Patient.CLASS_REFERENCE)).thenReturn(data);
+
+        VocabularyManager vm = mock(VocabularyManager.class);
+        doReturn(vm).when(this.cm).getInstance(VocabularyManager.class);
+        Map<String, VocabularyTerm> terms = new HashMap<>();
+        terms.put("HP:0000001", mockTerm("HP:0000001", "Zygodactyly"));
+        terms.put("HP:0000002", mockTerm("HP:0000002", "Arachnodactyly"));
+        when(vm.resolveTerms(anyCollectionOf(String.class))).thenReturn(terms);
+
+        Iterator<? extends Feature> features = new PhenoTipsPatient(this.doc).getFeatures().iterator();
+
+        Assert.assertEquals("Arachnodactyly", features.next().getName());
+        Assert.assertEquals("Custom", features.next().getName());
+        // Unknown terms are sorted by their identifier
+        Assert.assertEquals("HP:0000003", features.next().getName());
+        Assert.assertEquals("Zygodactyly", features.next().getName());
+        Assert.assertFalse(features.hasNext());
+        verify(vm, times(1)).resolveTerms(new HashSet<>(Arrays.asList("HP:0000001", "HP:0000002", "HP:0000003")));
+        verify(vm, never()).resolveTerm(anyString());
+        verify(this.cm, times(1)).getInstance(VocabularyManager.class);
+    }
+
+    @Test
+    public void getFeaturesResolvesNamesOfAlternativeIds() throws ComponentLookupException
+    {
+        BaseObject data = mock(BaseObject.class);
+        ListProperty phenotypes = mock(ListProperty.class);
+        when(phenotypes.getName()).thenReturn("phenotype");
+        // HP:0001434 is an alternative identifier of HP:0001510, Growth delay
+        when(phenotypes.getList()).thenReturn(Arrays.asList("HP:0001434"));
+        when(data.getFieldList()).thenReturn(Arrays.asList(phenotypes));
+        when(this.doc.getXObject(Patient.CLASS_REFERENCE)).thenReturn(data);
+
+        VocabularyManager vm = mock(VocabularyManager.class);
+        doReturn(vm).when(this.cm).getInstance(VocabularyManager.class);
+        // The terms are returned under the requested identifiers
+        Map<String, VocabularyTerm> terms = new HashMap<>();
+        terms.put("HP:0001434", mockTerm("HP:0001510", "Growth delay"));
+        when(vm.resolveTerms(anyCollectionOf(String.class))).thenReturn(terms);
+
+        Feature feature = new PhenoTipsPatient(this.doc).getFeatures().iterator().next();
+
+        Assert.assertEquals("HP:0001434", feature.getId());
+        Assert.assertEquals("Growth delay", feature.getName());
+        verify(vm, never()).resolveTerm(anyString());
+    }
+
+    @Test
+    public void updateFromJSONResolvesAllNamesAtOnce() throws Exception
+    {
+        mockDocumentUpdate();
+        VocabularyManager vm = mock(VocabularyManager.class);
+        doReturn(vm).when(this.cm).getInstance(VocabularyManager.class);
+        Map<String, VocabularyTerm> terms = new HashMap<>();
+        terms.put("HP:0000001", mockTerm("HP:0000001", "Zygodactyly"));
+        terms.put("HP:0000002", mockTerm("HP:0000002", "Arachnodactyly"));
+        when(vm.resolveTerms(anyCollectionOf(String.class))).thenReturn(terms);
+        JSONArray features = new JSONArray();
+        for (String id : Arrays.asList("HP:0000001", "HP:0000002")) {
+            JSONObject feature = new JSONObject();
+            feature.put("id", id);
+            feature.put("type", "phenotype");
+            feature.put("observed", "yes");
+            features.add(feature);
+        }
+        JSONObject json = new JSONObject();
+        json.put("features", features);
+        Patient patient = new PhenoTipsPatient(this.doc);
+
+        patient.updateFromJSON(json);
+
+        Iterator<? extends Feature> sorted = patient.getFeatures().iterator();
+        Assert.assertEquals("Arachnodactyly", sorted.next().getName());
+        Assert.assertEquals("Zygodactyly", sorted.next().getName());
+        Assert.assertFalse(sorted.hasNext());
+        verify(vm, times(1)).resolveTerms(new HashSet<>(Arrays.asList("HP:0000001", "HP:0000002")));
+        verify(vm, never()).resolveTerm(anyString());
+    }
+
+    private XWikiDocument mockDocumentUpdate() throws Exception
+    {
+        Execution execution = mock(Execution.class);
+        ExecutionContext executionContext = mock(ExecutionContext.class);
+        doReturn(execution).when(this.cm).getInstance(Execution.class);
+        when(execution.getContext()).thenReturn(executionContext);
+        when(executionContext.getProperty("xwikicontext")).thenReturn(this.xcontext);
+        when(this.xcontext.getWiki()).thenReturn(mock(XWiki.class));
+
+        DocumentAccessBridge bridge = mock(DocumentAccessBridge.class);
+        doReturn(bridge).when(this.cm).getInstance(DocumentAccessBridge.class);
+        when(bridge.getDocument(this.doc.getDocumentReference())).thenReturn(this.doc);
+        XWikiDocument copy = mock(XWikiDocument.class);
+        when(this.doc.clone()).thenReturn(copy);
+        when(copy.getXObject(Patient.CLASS_REFERENCE)).thenReturn(mock(BaseObject.class));
+        return copy;
+    }
+
+    private VocabularyTerm mockTerm(String id, String name)
+    {
+        VocabularyTerm term = mock(VocabularyTerm.class);
+        when(term.getId()).thenReturn(id);
+        when(term.getName()).thenReturn(name);
+        return term;
+    }
+}
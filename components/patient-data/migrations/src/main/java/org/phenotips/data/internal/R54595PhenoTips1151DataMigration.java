@@ -197,9 +197,9 @@ private boolean fixList(DBStringListProperty property, DBStringListProperty exte
                         extendedValues.remove(translation.getKey());
                         VocabularyTerm newTerm =
                             R54595PhenoTips1151DataMigration.this.vocabularies.resolveTerm(translation.getValue());
-                        for (VocabularyTerm ancestor : newTerm.getAncestorsAndSelf()) {
-                            if (!extendedValues.contains(ancestor.getId())) {
-                                extendedValues.add(ancestor.getId());
+                        for (String ancestorId : newTerm.getAncestorAndSelfIds()) {
+                            if (!extendedValues.contains(ancestorId)) {
+                                extendedValues.add(ancestorId);
                             }
                         }
                     }
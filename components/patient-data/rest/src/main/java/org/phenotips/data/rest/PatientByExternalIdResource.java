@@ -39,7 +39,9 @@
      * Retrieve a patient record, identified by its given "external" identifier, in its JSON representation. If the
      * indicated patient record doesn't exist, or if the user sending the request doesn't have the right to view the
      * target patient record, an error is returned. If multiple records exist with the same given identifier, a list of
-     * links to each such record is returned.
+     * links to each such record is returned. The optional {@code fields} query parameter restricts the output to the
+     * listed fields, for example {@code ?fields=sex,phenotype}, in which case only the data needed for those fields is
+     * loaded.
      *
      * @param eid the patient's given "external" identifier, see {@link org.phenotips.data.Patient#getExternalId()}
      * @return the JSON representation of the requested patient, or a status message in case of error
@@ -38,7 +38,9 @@
     /**
      * Retrieve a patient record, identified by its internal PhenoTips identifier, in its JSON representation. If the
      * indicated patient record doesn't exist, or if the user sending the request doesn't have the right to view the
-     * target patient record, an error is returned.
+     * target patient record, an error is returned. The optional {@code fields} query parameter restricts the output to
+     * the listed fields, for example {@code ?fields=sex,phenotype}, in which case only the data needed for those fields
+     * is loaded.
      *
      * @param id the patient's internal identifier, see {@link org.phenotips.data.Patient#getId()}
      * @return the JSON representation of the requested patient, or a status message in case of error
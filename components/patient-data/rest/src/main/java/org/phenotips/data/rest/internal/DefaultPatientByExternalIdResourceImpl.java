@@ -37,6 +37,7 @@
 import org.xwiki.users.User;
 import org.xwiki.users.UserManager;
 
+import java.util.Collection;
 import java.util.List;
 
 import javax.inject.Inject;
@@ -105,7 +106,8 @@ public Response getPatient(String eid)
             return Response.status(Status.FORBIDDEN).build();
         }
 
-        JSONObject json = patient.toJSON();
+        Collection<String> fields = RequestedFields.get(this.uriInfo);
+        JSONObject json = fields == null ? patient.toJSON() : patient.toJSON(fields);
         JSONObject link = new JSONObject().accumulate("rel", Relations.SELF).accumulate("href",
             this.uriInfo.getBaseUriBuilder().path(PatientResource.class).build(patient.getId()).toString());
         json.accumulate("links", link);
@@ -31,6 +31,8 @@
 import org.xwiki.users.User;
 import org.xwiki.users.UserManager;
 
+import java.util.Collection;
+
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
@@ -91,7 +93,8 @@ public Response getPatient(String id)
             this.logger.debug("View access denied to user [{}] on patient record [{}]", currentUser, id);
             return Response.status(Status.FORBIDDEN).build();
         }
-        JSONObject json = patient.toJSON();
+        Collection<String> fields = RequestedFields.get(this.uriInfo);
+        JSONObject json = fields == null ? patient.toJSON() : patient.toJSON(fields);
         JSONObject link = new JSONObject().accumulate("rel", Relations.SELF).accumulate("href",
             this.uriInfo.getRequestUri().toString());
         json.accumulate("links", link);
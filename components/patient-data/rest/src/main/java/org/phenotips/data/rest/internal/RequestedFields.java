@@ -0,0 +1,70 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses/
+ */
+package org.phenotips.data.rest.internal;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.UriInfo;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Reads the fields of a patient record requested by a REST call, shared by the resources exporting patient records.
+ *
+ * @version $Id$
+ * @since 1.3M1
+ */
+final class RequestedFields
+{
+    /** The query parameter listing the requested fields. */
+    private static final String FIELDS_PARAMETER = "fields";
+
+    /** Avoid instantiation. */
+    private RequestedFields()
+    {
+    }
+
+    /**
+     * Reads the optional {@code fields} query parameter, listing the fields of the patient record that should be
+     * exported. The parameter may be repeated, and each value may hold several comma-separated field names.
+     *
+     * @param uriInfo the URI of the current request
+     * @return the requested field names, or {@code null} if all the fields should be exported
+     */
+    static Collection<String> get(UriInfo uriInfo)
+    {
+        MultivaluedMap<String, String> parameters = uriInfo.getQueryParameters();
+        List<String> values = parameters != null ? parameters.get(FIELDS_PARAMETER) : null;
+        if (values == null || values.isEmpty()) {
+            return null;
+        }
+        Set<String> result = new LinkedHashSet<>();
+        for (String value : values) {
+            for (String field : StringUtils.split(value, ',')) {
+                if (StringUtils.isNotBlank(field)) {
+                    result.add(field.trim());
+                }
+            }
+        }
+        return result;
+    }
+}
@@ -36,12 +36,16 @@
 
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 
 import javax.inject.Provider;
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
 import javax.ws.rs.core.UriInfo;
@@ -50,6 +54,7 @@
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
+import org.mockito.Matchers;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.slf4j.Logger;
@@ -70,6 +75,7 @@
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -186,6 +192,23 @@ public void getPatientNormalBehaviour()
         Assert.assertEquals(Status.OK.getStatusCode(), response.getStatus());
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    public void getPatientOnlySerializesRequestedFields()
+    {
+        doReturn(true).when(this.access).hasAccess(Right.VIEW, this.userProfileDocument, this.patientDocument);
+        MultivaluedMap<String, String> parameters = mock(MultivaluedMap.class);
+        doReturn(Arrays.asList("sex,features", "date_of_birth")).when(parameters).get("fields");
+        doReturn(parameters).when(this.uriInfo).getQueryParameters();
+        doReturn(new JSONObject()).when(this.patient).toJSON(Matchers.<Collection<String>>any());
+
+        Response response = this.patientResource.getPatient(this.id);
+
+        verify(this.patient).toJSON(new HashSet<>(Arrays.asList("sex", "features", "date_of_birth")));
+        verify(this.patient, never()).toJSON();
+        Assert.assertEquals(Status.OK.getStatusCode(), response.getStatus());
+    }
+
     // ----------------------------Update Patient Tests----------------------------
 
     @Test
@@ -330,6 +330,28 @@ public Set<VocabularyTerm> getAncestors()
             return null;
         }
 
+        @Override
+        public Set<String> getParentIds()
+        {
+            Set<String> result = new HashSet<String>();
+            for (VocabularyTerm parent : this.parents) {
+                result.add(parent.getId());
+            }
+            return result;
+        }
+
+        @Override
+        public Set<String> getAncestorIds()
+        {
+            return null;
+        }
+
+        @Override
+        public Set<String> getAncestorAndSelfIds()
+        {
+            return null;
+        }
+
         @Override
         public Object get(String name)
         {
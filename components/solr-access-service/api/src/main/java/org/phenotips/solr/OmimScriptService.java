@@ -17,8 +17,8 @@
  */
 package org.phenotips.solr;
 
-import org.phenotips.obo2solr.maps.CounterMap;
-import org.phenotips.obo2solr.maps.SumMap;
+import org.phenotips.obo2solr.maps.ObjectDoubleMap;
+import org.phenotips.obo2solr.maps.ObjectIntMap;
 
 import org.xwiki.component.annotation.Component;
 import org.xwiki.script.service.ScriptService;
@@ -106,8 +106,8 @@ public List<SuggestedPhenotype> getDifferentialPhenotypes(Collection<String> phe
         }
         SolrDocumentList matchingDisorders = response.getResults();
         Map<?, ?> explanations = response.getExplainMap();
-        SumMap<String> cummulativeScore = new SumMap<String>();
-        CounterMap<String> matchCounter = new CounterMap<String>();
+        ObjectDoubleMap<String> cummulativeScore = new ObjectDoubleMap<String>();
+        ObjectIntMap<String> matchCounter = new ObjectIntMap<String>();
         Set<String> allAncestors = new HashSet<String>();
         for (String phenotype : phenotypes) {
             allAncestors.addAll(hpoService.getAllAncestorsAndSelfIDs(phenotype));
@@ -122,12 +122,12 @@ public List<SuggestedPhenotype> getDifferentialPhenotypes(Collection<String> phe
                     || !hpoService.getAllAncestorsAndSelfIDs((String) hpoId).contains("HP:0000118")) {
                     continue;
                 }
-                cummulativeScore.addTo((String) hpoId, (double) score);
-                matchCounter.addTo((String) hpoId);
+                cummulativeScore.addTo((String) hpoId, score);
+                matchCounter.increment((String) hpoId);
             }
         }
         if (matchCounter.getMinValue() <= matchingDisorders.size() / 2) {
-            for (String hpoId : cummulativeScore.keySet()) {
+            for (String hpoId : cummulativeScore.keys()) {
                 SolrDocument term = hpoService.get(hpoId);
                 if (term == null) {
                     continue;
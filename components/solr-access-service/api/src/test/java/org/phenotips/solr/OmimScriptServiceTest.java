@@ -0,0 +1,132 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses/
+ */
+package org.phenotips.solr;
+
+import org.phenotips.vocabulary.SolrVocabularyResourceManager;
+
+import org.xwiki.cache.CacheManager;
+import org.xwiki.cache.config.CacheConfiguration;
+import org.xwiki.component.util.ReflectionUtils;
+import org.xwiki.script.service.ScriptService;
+import org.xwiki.test.mockito.MockitoComponentMockingRule;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.SolrDocumentList;
+import org.apache.solr.common.params.SolrParams;
+import org.apache.solr.common.util.SimpleOrderedMap;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for the {@link OmimScriptService} component.
+ */
+public class OmimScriptServiceTest
+{
+    @Rule
+    public MockitoComponentMockingRule<ScriptService> mocker =
+        new MockitoComponentMockingRule<ScriptService>(OmimScriptService.class);
+
+    private OmimScriptService service;
+
+    private SolrClient server;
+
+    private HPOScriptService hpo;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        this.server = mock(SolrClient.class);
+        SolrVocabularyResourceManager initializer = this.mocker.getInstance(SolrVocabularyResourceManager.class);
+        doReturn(this.server).when(initializer).getSolrConnection();
+        CacheManager cacheFactory = this.mocker.getInstance(CacheManager.class);
+        doReturn(null).when(cacheFactory).createNewLocalCache(any(CacheConfiguration.class));
+        this.service = (OmimScriptService) this.mocker.getComponentUnderTest();
+
+        this.hpo = mock(HPOScriptService.class);
+        ReflectionUtils.setFieldValue(this.service, "service", this.hpo);
+        when(this.hpo.getAllAncestorsAndSelfIDs(anyString())).thenReturn(
+            new HashSet<>(Arrays.asList("HP:0000001", "HP:0000118")));
+        when(this.hpo.getAllAncestorsAndSelfIDs("HP:0000100")).thenReturn(Collections.singleton("HP:0000100"));
+        for (String id : Arrays.asList("HP:0000200", "HP:0000300")) {
+            SolrDocument term = new SolrDocument();
+            term.setField("id", id);
+            term.setField("name", "Name of " + id);
+            when(this.hpo.get(id)).thenReturn(term);
+        }
+    }
+
+    @Test
+    public void differentialPhenotypeScoresAccumulateOverTheMatchingDisorders() throws Exception
+    {
+        SolrDocumentList disorders = new SolrDocumentList();
+        disorders.add(disorder("MIM:1", "HP:0000200", "HP:0000300"));
+        disorders.add(disorder("MIM:2", "HP:0000200"));
+        Map<String, Object> explanations = new HashMap<>();
+        explanations.put("MIM:1", explanation(2.0f));
+        explanations.put("MIM:2", explanation(1.0f));
+        QueryResponse response = mock(QueryResponse.class);
+        when(response.getResults()).thenReturn(disorders);
+        doReturn(explanations).when(response).getExplainMap();
+        when(this.server.query(any(SolrParams.class))).thenReturn(response);
+
+        List<SuggestedPhenotype> result = this.service.getDifferentialPhenotypes(
+            Collections.singletonList("HP:0000100"), Collections.<String>emptyList(), 2);
+
+        Assert.assertEquals(2, result.size());
+        // Matched by one disorder with the score 2
+        Assert.assertEquals("HP:0000300", result.get(0).getId());
+        Assert.assertEquals(2.0, result.get(0).getScore(), 0.0001);
+        // Matched by two disorders with the total score 3, divided by the square of the number of matches
+        Assert.assertEquals("HP:0000200", result.get(1).getId());
+        Assert.assertEquals(0.75, result.get(1).getScore(), 0.0001);
+    }
+
+    private SolrDocument disorder(String id, String... symptoms)
+    {
+        SolrDocument result = new SolrDocument();
+        result.setField("id", id);
+        for (String symptom : symptoms) {
+            result.addField("actual_symptom", symptom);
+        }
+        return result;
+    }
+
+    private SimpleOrderedMap<Float> explanation(float score)
+    {
+        SimpleOrderedMap<Float> result = new SimpleOrderedMap<>();
+        result.add("value", score);
+        return result;
+    }
+}
@@ -22,7 +22,6 @@
 import org.phenotips.data.PatientScorer;
 import org.phenotips.data.PatientSpecificity;
 import org.phenotips.vocabulary.Vocabulary;
-import org.phenotips.vocabulary.VocabularyTerm;
 
 import org.xwiki.component.annotation.Component;
 import org.xwiki.component.phase.Initializable;
@@ -132,11 +131,11 @@ private double informationContent(Feature f)
         int i = 0;
 
         while (ic == 0 && ++i < 5) {
-            Set<VocabularyTerm> parents = this.hpo.getTerm(toSearch).getParents();
+            Set<String> parents = this.hpo.getTerm(toSearch).getParentIds();
             if (parents.isEmpty()) {
                 break;
             }
-            toSearch = parents.iterator().next().getId();
+            toSearch = parents.iterator().next();
             ic = informationContent(this.omim.count(Collections.singletonMap(SEARCH_FOR, toSearch)));
         }
         return ic * (1 + i / 5);
@@ -24,6 +24,7 @@
 import org.phenotips.data.PatientSpecificity;
 import org.phenotips.data.PatientSpecificityService;
 
+import org.xwiki.bridge.DocumentModelBridge;
 import org.xwiki.component.annotation.Component;
 import org.xwiki.component.phase.Initializable;
 import org.xwiki.component.phase.InitializationException;
@@ -116,6 +117,13 @@ public void save(Patient patient)
         // Nothing to save, the score is always computed
     }
 
+    @Override
+    public boolean save(Patient patient, DocumentModelBridge doc)
+    {
+        // Nothing to save, the score is always computed
+        return false;
+    }
+
     @Override
     public void writeJSON(Patient patient, JSONObject json)
     {
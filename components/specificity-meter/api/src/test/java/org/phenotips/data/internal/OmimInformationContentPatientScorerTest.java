@@ -80,10 +80,8 @@ public void setup() throws CacheException, ComponentLookupException
 
         this.hpo = this.mocker.getInstance(Vocabulary.class, "hpo");
         VocabularyTerm hp3 = mock(VocabularyTerm.class);
-        VocabularyTerm hp4 = mock(VocabularyTerm.class);
         when(this.hpo.getTerm("HP:3")).thenReturn(hp3);
-        when(hp3.getParents()).thenReturn(Collections.singleton(hp4));
-        when(hp4.getId()).thenReturn("HP:4");
+        when(hp3.getParentIds()).thenReturn(Collections.singleton("HP:4"));
 
         this.omim = this.mocker.getInstance(Vocabulary.class, "omim");
         when(this.omim.count(Collections.singletonMap("symptom", "HP:0000001"))).thenReturn(60L);
@@ -148,11 +146,11 @@ public void getScoreWithNonInformativeFeaturesReturns0() throws ComponentLookupE
         when(hp13.getId()).thenReturn("HP:13");
         when(hp14.getId()).thenReturn("HP:14");
         when(hp15.getId()).thenReturn("HP:15");
-        when(hp10.getParents()).thenReturn(Collections.singleton(hp11));
-        when(hp11.getParents()).thenReturn(Collections.singleton(hp12));
-        when(hp12.getParents()).thenReturn(Collections.singleton(hp13));
-        when(hp13.getParents()).thenReturn(Collections.singleton(hp14));
-        when(hp14.getParents()).thenReturn(Collections.singleton(hp15));
+        when(hp10.getParentIds()).thenReturn(Collections.singleton("HP:11"));
+        when(hp11.getParentIds()).thenReturn(Collections.singleton("HP:12"));
+        when(hp12.getParentIds()).thenReturn(Collections.singleton("HP:13"));
+        when(hp13.getParentIds()).thenReturn(Collections.singleton("HP:14"));
+        when(hp14.getParentIds()).thenReturn(Collections.singleton("HP:15"));
 
         when(this.omim.count(Collections.singletonMap("symptom", "HP:10"))).thenReturn(0L);
         when(this.omim.count(Collections.singletonMap("symptom", "HP:11"))).thenReturn(0L);
@@ -175,7 +173,7 @@ public void getScoreWithParentlessTermDoesntThrowException() throws ComponentLoo
         VocabularyTerm hp10 = mock(VocabularyTerm.class);
         when(this.hpo.getTerm("HP:10")).thenReturn(hp10);
         when(hp10.getId()).thenReturn("HP:10");
-        when(hp10.getParents()).thenReturn(Collections.<VocabularyTerm>emptySet());
+        when(hp10.getParentIds()).thenReturn(Collections.<String>emptySet());
         when(this.omim.count(Collections.singletonMap("symptom", "HP:10"))).thenReturn(0L);
 
         Feature feature = mock(Feature.class);
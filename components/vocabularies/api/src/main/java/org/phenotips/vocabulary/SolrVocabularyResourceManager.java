@@ -22,7 +22,10 @@
 import org.xwiki.component.phase.InitializationException;
 import org.xwiki.stability.Unstable;
 
+import java.io.IOException;
+
 import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.common.SolrDocumentList;
 
 /**
  * Provides methods for initializing the resources needed by vocabularies stored in a Solr index.
@@ -50,10 +53,53 @@
      */
     Cache<VocabularyTerm> getTermCache();
 
+    /**
+     * Get the cache for search results created for the target vocabulary. The keys are
+     * {@link org.phenotips.vocabulary.internal.solr.SolrQueryUtils#getCacheKey serialized query parameters}, and the
+     * cache must be cleared whenever the content of the index changes.
+     *
+     * @return a cache instance
+     * @since 1.3M1
+     */
+    Cache<SolrDocumentList> getSearchCache();
+
     /**
      * Get the Solr core used for the target vocabulary.
      *
      * @return a Solr client for communication with the target core
      */
     SolrClient getSolrConnection();
+
+    /**
+     * Create a new, empty Solr core with the same configuration as the target vocabulary core, where a new version of
+     * the vocabulary can be indexed while the current core keeps serving queries. Any replacement core left behind by a
+     * previous, interrupted reindex is discarded first, but a replacement core still being filled by another reindex of
+     * the same vocabulary is left untouched.
+     *
+     * @return a Solr client for communication with the new core, or {@code null} if the vocabulary is already being
+     *         reindexed
+     * @throws IOException if the new core cannot be created
+     * @since 1.3M1
+     * @see #replaceCore()
+     * @see #discardReplacementCore()
+     */
+    SolrClient createReplacementCore() throws IOException;
+
+    /**
+     * Atomically swap the core created by {@link #createReplacementCore()} in place of the target vocabulary core, and
+     * delete the old core. After this, {@link #getSolrConnection()} serves queries from the new data.
+     *
+     * @return {@code true} if the swap succeeded, {@code false} if there is no replacement core or if the swap failed,
+     *         in which case the current core is left untouched
+     * @since 1.3M1
+     */
+    boolean replaceCore();
+
+    /**
+     * Delete the core created by {@link #createReplacementCore()}, if any, leaving the target vocabulary core
+     * untouched. This should be called when indexing a new version of the vocabulary fails.
+     *
+     * @since 1.3M1
+     */
+    void discardReplacementCore();
 }
@@ -25,6 +25,8 @@
 import java.util.Map;
 import java.util.Set;
 
+import org.apache.commons.lang3.tuple.Pair;
+
 /**
  * Provides access to a vocabulary, such as the HUGO Gene Nomenclature, or the Human Phenotype Ontology.
  *
@@ -127,6 +129,31 @@
      */
     long getDistance(VocabularyTerm fromTerm, VocabularyTerm toTerm);
 
+    /**
+     * Find the distances between several pairs of terms at once, if this is a structured ontology that supports
+     * computing such a distance. This is equivalent to calling {@link #getDistance(String, String)} for each pair, but
+     * implementations may answer the whole batch much faster.
+     *
+     * @param termPairs the pairs of term identifiers to compare; the two identifiers in a pair are interchangeable
+     * @return the distances between the terms of each pair, in the same order as the requested pairs, with the same
+     *         meaning as the result of {@link #getDistance(String, String)}
+     * @since 1.3M1
+     */
+    List<Long> getDistances(List<Pair<String, String>> termPairs);
+
+    /**
+     * Find the identifiers of the ancestors of several terms at once, without loading the ancestor terms. This is
+     * equivalent to calling {@link VocabularyTerm#getAncestorIds()} on each requested term, but implementations may
+     * answer the whole batch much faster.
+     *
+     * @param termIds the identifiers of the terms whose ancestors are needed
+     * @return the identifiers of the ancestors of each term, not including the term itself, keyed by the requested
+     *         identifier; terms without ancestors are mapped to an empty set, and identifiers which don't match a term
+     *         in this vocabulary may be left out
+     * @since 1.3M1
+     */
+    Map<String, Set<String>> getAncestorIds(Collection<String> termIds);
+
     /**
      * A vocabulary has an official name, but it can also have other aliases, for example the Human Phenotype Ontology
      * is known both as {@code HP}, which is the official prefix for its terms, {@code HPO}, which is its acronym, or
@@ -148,7 +175,7 @@
      *
      * @param sourceUrl the URL to be indexed
      * @return {@code 0} if the indexing succeeded, {@code 1} if writing to the Solr server failed, {@code 2} if the
-     *         specified URL is invalid
+     *         specified URL is invalid, {@code 3} if the vocabulary is already being reindexed
      */
     int reindex(String sourceUrl);
 
@@ -0,0 +1,56 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses/
+ */
+package org.phenotips.vocabulary;
+
+import org.xwiki.stability.Unstable;
+
+import java.util.Map;
+
+/**
+ * Implemented by vocabularies which keep their terms and search results in caches, to report how well these caches
+ * work, which is useful for tuning their size and expiration time.
+ *
+ * @version $Id$
+ * @since 1.3M1
+ */
+@Unstable("New API introduced in 1.3, it may still change")
+public interface VocabularyCacheStatistics
+{
+    /** The key of the number of lookups answered from the cache, in the statistics maps. */
+    String HITS = "hits";
+
+    /** The key of the number of lookups which had to be sent to the underlying index, in the statistics maps. */
+    String MISSES = "misses";
+
+    /**
+     * Statistics about the term cache of this vocabulary.
+     *
+     * @return a map with the number of term lookups answered from the cache, under the {@link #HITS} key, and the
+     *         number of term lookups sent to the index, under the {@link #MISSES} key, since the vocabulary was
+     *         initialized
+     */
+    Map<String, Long> getTermCacheStatistics();
+
+    /**
+     * Statistics about the search results cache of this vocabulary.
+     *
+     * @return a map with the number of searches answered from the cache, under the {@link #HITS} key, and the number
+     *         of searches sent to the index, under the {@link #MISSES} key, since the vocabulary was initialized
+     */
+    Map<String, Long> getSearchCacheStatistics();
+}
@@ -20,6 +20,9 @@
 import org.xwiki.component.annotation.Role;
 import org.xwiki.stability.Unstable;
 
+import java.util.Collection;
+import java.util.Map;
+
 /**
  * Provides access to the available vocabularies and their terms.
  *
@@ -41,6 +44,19 @@
      */
     VocabularyTerm resolveTerm(String termId);
 
+    /**
+     * Retrieve several terms at once, possibly from different vocabularies. The terms are grouped by their vocabulary
+     * prefix, and each vocabulary is queried only once, which is much faster than {@link #resolveTerm(String)
+     * resolving} each term separately.
+     *
+     * @param termIds the term identifiers, in the format {@code <vocabulary prefix>:<term id>}
+     * @return the found terms, keyed by the requested identifier, which may be an alternative identifier of the
+     *         returned term; terms which don't exist, or don't belong to an available vocabulary, are missing from the
+     *         result
+     * @since 1.3M1
+     */
+    Map<String, VocabularyTerm> resolveTerms(Collection<String> termIds);
+
     /**
      * Retrieve a vocabulary given its identifier.
      *
@@ -50,4 +66,28 @@
      * @return the requested vocabulary, or {@code null} if it doesn't exist or isn't available in the platform
      */
     Vocabulary getVocabulary(String vocabularyId);
+
+    /**
+     * Reindex several vocabularies concurrently, each one from its {@link Vocabulary#getDefaultSourceLocation() default
+     * source}. Each vocabulary keeps serving its current data until its own reindex completes.
+     *
+     * @param vocabularyIds the identifiers or {@link Vocabulary#getAliases() aliases} of the vocabularies to reindex;
+     *            if empty, all the available vocabularies are reindexed
+     * @return the result of each reindex, as returned by {@link Vocabulary#reindex(String)}, keyed by the requested
+     *         vocabulary identifier, or by the component name when reindexing all vocabularies; {@code -1} marks
+     *         vocabularies that are unknown or cannot be reindexed
+     * @since 1.3M1
+     */
+    Map<String, Integer> reindex(Collection<String> vocabularyIds);
+
+    /**
+     * Get the versions of all the available vocabularies. The versions are kept in memory by the vocabularies and only
+     * change when a vocabulary is reindexed, so this is cheap enough to be called often, for example whenever a
+     * patient record is saved.
+     *
+     * @return the {@link Vocabulary#getVersion() version} of each vocabulary which has a known version, keyed by the
+     *         vocabulary component name
+     * @since 1.3M1
+     */
+    Map<String, String> getVersions();
 }
@@ -65,7 +65,8 @@
     Set<VocabularyTerm> getParents();
 
     /**
-     * Returns the ancestors (both direct and indirect ancestors) of this term.
+     * Returns the ancestors (both direct and indirect ancestors) of this term. The term itself is never included, even
+     * if the vocabulary stores it among its own categories; use {@link #getAncestorsAndSelf()} for that.
      *
      * @return a set of vocabulary terms, or an empty set if the term doesn't have any ancestors in the vocabulary
      */
@@ -79,6 +80,34 @@
      */
     Set<VocabularyTerm> getAncestorsAndSelf();
 
+    /**
+     * Returns the identifiers of the parents (direct ancestors) of this term, without loading the parent terms.
+     *
+     * @return a set of term identifiers, or an empty set if the term doesn't have any ancestors in the vocabulary
+     * @since 1.3M1
+     */
+    Set<String> getParentIds();
+
+    /**
+     * Returns the identifiers of the ancestors (both direct and indirect ancestors) of this term, without loading the
+     * ancestor terms. For the ontologies which index the {@code term_category} property, these are the categories of
+     * the term.
+     *
+     * @return a set of term identifiers, or an empty set if the term doesn't have any ancestors in the vocabulary
+     * @since 1.3M1
+     */
+    Set<String> getAncestorIds();
+
+    /**
+     * Returns the identifiers of the ancestors (both direct and indirect ancestors) of this term <em>and</em> the
+     * identifier of the term itself, without loading the ancestor terms.
+     *
+     * @return a set of term identifiers, or a set with one identifier (this term's) if the term doesn't have any
+     *         ancestors in the vocabulary
+     * @since 1.3M1
+     */
+    Set<String> getAncestorAndSelfIds();
+
     /**
      * Find the distance to another term in the same vocabulary, if the owner vocabulary is a structured ontology that
      * supports computing such a distance.
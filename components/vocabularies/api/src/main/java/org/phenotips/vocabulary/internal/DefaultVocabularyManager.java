@@ -25,13 +25,24 @@
 import org.xwiki.component.phase.Initializable;
 import org.xwiki.component.phase.InitializationException;
 
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
 import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
 
 /**
  * Default implementation of the {@link VocabularyManager} component, which uses all the {@link Vocabulary vocabularies}
@@ -48,9 +59,17 @@ public class DefaultVocabularyManager implements VocabularyManager, Initializabl
     @Inject
     private Map<String, Vocabulary> vocabularies;
 
+    /** The available vocabularies, keyed by their component name instead of their aliases. */
+    private Map<String, Vocabulary> vocabulariesByName;
+
+    /** Logging helper object. */
+    @Inject
+    private Logger logger;
+
     @Override
     public void initialize() throws InitializationException
     {
+        this.vocabulariesByName = new LinkedHashMap<String, Vocabulary>(this.vocabularies);
         Map<String, Vocabulary> newVocabulariesMap = new HashMap<String, Vocabulary>();
         for (Vocabulary vocabulary : this.vocabularies.values()) {
             for (String alias : vocabulary.getAliases()) {
@@ -70,12 +89,147 @@ public VocabularyTerm resolveTerm(String termId)
         return null;
     }
 
+    @Override
+    public Map<String, VocabularyTerm> resolveTerms(Collection<String> termIds)
+    {
+        Map<String, VocabularyTerm> result = new HashMap<String, VocabularyTerm>();
+        if (termIds == null || termIds.isEmpty()) {
+            return result;
+        }
+        Map<Vocabulary, Set<String>> idsByVocabulary = new IdentityHashMap<Vocabulary, Set<String>>();
+        for (String termId : termIds) {
+            Vocabulary vocabulary = getVocabularyForTerm(termId);
+            if (vocabulary == null) {
+                continue;
+            }
+            Set<String> ids = idsByVocabulary.get(vocabulary);
+            if (ids == null) {
+                ids = new HashSet<String>();
+                idsByVocabulary.put(vocabulary, ids);
+            }
+            ids.add(termId);
+        }
+        for (Map.Entry<Vocabulary, Set<String>> entry : idsByVocabulary.entrySet()) {
+            resolveTerms(entry.getKey(), entry.getValue(), result);
+        }
+        return result;
+    }
+
+    /**
+     * Retrieve several terms from the same vocabulary, and add them to the result under the requested identifiers.
+     * Requested identifiers which don't match the identifier of a returned term, such as alternative identifiers, are
+     * resolved separately; the Solr vocabularies already cached them during the bulk lookup, found or not, so this
+     * doesn't query the index again.
+     *
+     * @param vocabulary the vocabulary owning the terms
+     * @param termIds the identifiers of the terms
+     * @param result where the found terms are added
+     */
+    private void resolveTerms(Vocabulary vocabulary, Set<String> termIds, Map<String, VocabularyTerm> result)
+    {
+        Set<VocabularyTerm> terms = vocabulary.getTerms(termIds);
+        Map<String, VocabularyTerm> termsById = new HashMap<String, VocabularyTerm>();
+        if (terms != null) {
+            for (VocabularyTerm term : terms) {
+                if (term != null) {
+                    termsById.put(term.getId(), term);
+                }
+            }
+        }
+        for (String termId : termIds) {
+            VocabularyTerm term = termsById.get(termId);
+            if (term == null) {
+                term = vocabulary.getTerm(termId);
+            }
+            if (term != null) {
+                result.put(termId, term);
+            }
+        }
+    }
+
     @Override
     public Vocabulary getVocabulary(String vocabularyId)
     {
         return this.vocabularies.get(vocabularyId);
     }
 
+    @Override
+    public Map<String, String> getVersions()
+    {
+        Map<String, String> result = new LinkedHashMap<String, String>();
+        for (Map.Entry<String, Vocabulary> vocabulary : this.vocabulariesByName.entrySet()) {
+            String version = vocabulary.getValue().getVersion();
+            if (StringUtils.isNotBlank(version)) {
+                result.put(vocabulary.getKey(), version);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Map<String, Integer> reindex(Collection<String> vocabularyIds)
+    {
+        Map<String, Integer> results = new LinkedHashMap<String, Integer>();
+        Map<String, Vocabulary> targets = new LinkedHashMap<String, Vocabulary>();
+        if (vocabularyIds == null || vocabularyIds.isEmpty()) {
+            targets.putAll(this.vocabulariesByName);
+        } else {
+            for (String vocabularyId : vocabularyIds) {
+                Vocabulary vocabulary = getVocabulary(vocabularyId);
+                if (vocabulary == null) {
+                    results.put(vocabularyId, -1);
+                } else {
+                    targets.put(vocabularyId, vocabulary);
+                }
+            }
+        }
+        if (targets.isEmpty()) {
+            return results;
+        }
+
+        // The same vocabulary may be requested under several aliases, but must be reindexed only once
+        Map<Vocabulary, Future<Integer>> tasks = new IdentityHashMap<Vocabulary, Future<Integer>>();
+        ExecutorService executor = Executors.newFixedThreadPool(
+            Math.min(targets.size(), Runtime.getRuntime().availableProcessors()));
+        try {
+            for (final Vocabulary vocabulary : targets.values()) {
+                if (!tasks.containsKey(vocabulary)) {
+                    tasks.put(vocabulary, executor.submit(new Callable<Integer>()
+                    {
+                        @Override
+                        public Integer call()
+                        {
+                            return vocabulary.reindex(vocabulary.getDefaultSourceLocation());
+                        }
+                    }));
+                }
+            }
+            for (Map.Entry<String, Vocabulary> target : targets.entrySet()) {
+                results.put(target.getKey(), getResult(target.getKey(), tasks.get(target.getValue())));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return results;
+    }
+
+    private int getResult(String vocabularyId, Future<Integer> task)
+    {
+        try {
+            return task.get();
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof UnsupportedOperationException) {
+                this.logger.debug("Vocabulary [{}] cannot be reindexed", vocabularyId);
+                return -1;
+            }
+            this.logger.error("Failed to reindex vocabulary [{}]: {}", vocabularyId, ex.getMessage(), ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            this.logger.warn("Interrupted while reindexing vocabulary [{}]", vocabularyId);
+        }
+        return 1;
+    }
+
     /**
      * Finds the owner vocabulary given a term identifier. The vocabulary is identified by the term ID prefix, for
      * example {@code HP} in {@code HP:0002066}.
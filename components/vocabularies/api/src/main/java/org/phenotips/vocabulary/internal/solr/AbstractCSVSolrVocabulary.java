@@ -25,9 +25,8 @@
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.Collection;
-import java.util.HashSet;
-import java.util.Iterator;
 
+import org.apache.solr.client.solrj.SolrClient;
 import org.apache.solr.client.solrj.SolrQuery;
 import org.apache.solr.client.solrj.SolrServerException;
 import org.apache.solr.client.solrj.response.QueryResponse;
@@ -57,20 +56,29 @@ public abstract class AbstractCSVSolrVocabulary extends AbstractSolrVocabulary
     protected abstract Collection<SolrInputDocument> load(URL url);
 
     @Override
-    public int reindex(String sourceUrl)
+    public synchronized int reindex(String sourceUrl)
     {
-        this.clear();
-        return this.index(sourceUrl);
+        // The current index keeps serving queries until the new one is complete, and stays untouched if indexing fails
+        SolrClient replacement = createReplacementCore();
+        if (replacement == null) {
+            return 1;
+        }
+        int result = replaceCore(index(sourceUrl, replacement));
+        if (result == 0) {
+            invalidateCaches();
+        }
+        return result;
     }
 
     /**
-     * Add an ontology to the index.
+     * Add an ontology to an index, committing all the terms at once.
      *
      * @param sourceUrl the URL to be indexed
+     * @param target the Solr core where the terms are added
      * @return {@code 0} if the indexing succeeded, {@code 1} if writing to the Solr server failed, {@code 2} if the
      *         specified URL is invalid
      */
-    protected int index(String sourceUrl)
+    protected int index(String sourceUrl, SolrClient target)
     {
         Collection<SolrInputDocument> data = null;
         try {
@@ -81,22 +89,11 @@ protected int index(String sourceUrl)
         if (data == null) {
             return 2;
         }
-        try {
-            Collection<SolrInputDocument> termBatch = new HashSet<SolrInputDocument>();
-            Iterator<SolrInputDocument> dataIterator = data.iterator();
-            int batchCounter = 0;
-            while (dataIterator.hasNext()) {
-                /* Resetting when the batch fills */
-                if (batchCounter == getSolrDocsPerBatch()) {
-                    commitTerms(termBatch);
-                    termBatch = new HashSet<>();
-                    batchCounter = 0;
-                }
-                SolrInputDocument item = dataIterator.next();
-                termBatch.add(item);
-                batchCounter++;
+        try (SolrIndexingPipeline pipeline = startIndexingPipeline(target, getSolrDocsPerBatch())) {
+            for (SolrInputDocument item : data) {
+                pipeline.add(item);
             }
-            commitTerms(termBatch);
+            pipeline.finish();
             return 0;
         } catch (SolrServerException ex) {
             this.logger.warn("Failed to index ontology: {}", ex.getMessage());
@@ -108,32 +105,6 @@ protected int index(String sourceUrl)
         return 1;
     }
 
-    protected void commitTerms(Collection<SolrInputDocument> batch)
-        throws SolrServerException, IOException, OutOfMemoryError
-    {
-        this.externalServicesAccess.getSolrConnection().add(batch);
-        this.externalServicesAccess.getSolrConnection().commit();
-        this.externalServicesAccess.getTermCache().removeAll();
-    }
-
-    /**
-     * Delete all the data in the Solr index.
-     *
-     * @return {@code 0} if the command was successful, {@code 1} otherwise
-     */
-    protected int clear()
-    {
-        try {
-            this.externalServicesAccess.getSolrConnection().deleteByQuery("*:*");
-            return 0;
-        } catch (SolrServerException ex) {
-            this.logger.error("SolrServerException while clearing the Solr index", ex);
-        } catch (IOException ex) {
-            this.logger.error("IOException while clearing the Solr index", ex);
-        }
-        return 1;
-    }
-
     protected VocabularyTerm requestTerm(String queryString, String phraseFields)
     {
         QueryResponse response;
@@ -163,7 +134,7 @@ protected VocabularyTerm requestTerm(String queryString, String phraseFields)
     }
 
     @Override
-    public String getVersion()
+    protected String loadVersion() throws SolrServerException, IOException
     {
         QueryResponse response;
         SolrQuery query = new SolrQuery();
@@ -172,18 +143,12 @@ public String getVersion()
 
         query.setQuery("version:*");
         query.set(CommonParams.ROWS, "1");
-        try {
-            response = this.externalServicesAccess.getSolrConnection().query(query);
-            termList = response.getResults();
+        response = this.externalServicesAccess.getSolrConnection().query(query);
+        termList = response.getResults();
 
-            if (!termList.isEmpty()) {
-                firstDoc = termList.get(0);
-                return firstDoc.getFieldValue(VERSION_FIELD_NAME).toString();
-            }
-        } catch (SolrServerException | SolrException ex) {
-            this.logger.warn("Failed to query ontology version: {}", ex.getMessage());
-        } catch (IOException ex) {
-            this.logger.error("IOException while getting ontology version", ex);
+        if (!termList.isEmpty()) {
+            firstDoc = termList.get(0);
+            return firstDoc.getFieldValue(VERSION_FIELD_NAME).toString();
         }
         return null;
     }
@@ -17,20 +17,26 @@
  */
 package org.phenotips.vocabulary.internal.solr;
 
+import org.phenotips.obo2solr.OBOTermReader;
 import org.phenotips.obo2solr.ParameterPreparer;
 import org.phenotips.obo2solr.SolrUpdateGenerator;
 import org.phenotips.obo2solr.TermData;
 import org.phenotips.vocabulary.VocabularyTerm;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.solr.client.solrj.SolrClient;
 import org.apache.solr.client.solrj.SolrQuery;
 import org.apache.solr.client.solrj.SolrServerException;
 import org.apache.solr.client.solrj.response.QueryResponse;
@@ -54,71 +60,380 @@ public abstract class AbstractOBOSolrVocabulary extends AbstractSolrVocabulary
 
     protected static final String VERSION_FIELD_NAME = "version";
 
+    /** The name of the field holding the direct parents of a term. */
+    protected static final String PARENT_FIELD_NAME = "is_a";
+
+    /**
+     * The in-memory hierarchy of this vocabulary, built when indexing, or loaded from the index on first use.
+     * {@code null} until then.
+     */
+    private volatile OntologyGraph graph;
+
+    /**
+     * Set when loading the {@link #graph} from the index failed, or found an empty index, so that the load isn't
+     * attempted again for every term until the next reindex.
+     */
+    private volatile boolean graphUnavailable;
+
+    /**
+     * Maps the alternative identifiers of this vocabulary to the identifier of the term which replaced them, loaded
+     * together with the {@link #graph}. {@code null} until then.
+     */
+    private volatile Map<String, String> alternativeIds;
+
+    /** Collects the alternative identifiers of the terms while reindexing, {@code null} otherwise. */
+    private Map<String, String> pendingAlternativeIds;
+
     /** The number of documents to be added and committed to Solr at a time. */
     protected abstract int getSolrDocsPerBatch();
 
     @Override
-    public VocabularyTerm getTerm(String id)
+    protected VocabularyTerm createTerm(SolrDocument doc)
+    {
+        return new SolrVocabularyTerm(doc, this, getGraph());
+    }
+
+    /**
+     * Get the in-memory hierarchy of this vocabulary, loading it from the Solr index if it isn't available yet. If the
+     * load fails, or the index is empty, {@code null} is returned without trying again until the next reindex.
+     *
+     * @return the vocabulary graph, or {@code null} if it cannot be loaded
+     * @since 1.3M1
+     */
+    protected OntologyGraph getGraph()
+    {
+        if (this.graph == null && !this.graphUnavailable) {
+            synchronized (this) {
+                if (this.graph == null && !this.graphUnavailable) {
+                    this.graph = loadGraph();
+                    this.graphUnavailable = this.graph == null;
+                }
+            }
+        }
+        return this.graph;
+    }
+
+    /**
+     * Get the mapping from the alternative identifiers of this vocabulary to the identifiers of the terms which
+     * replaced them, loading it from the Solr index together with the hierarchy if it isn't available yet.
+     *
+     * @return an unmodifiable map, or {@code null} if it cannot be loaded
+     * @since 1.3M1
+     */
+    protected Map<String, String> getAlternativeIds()
+    {
+        if (getGraph() == null) {
+            return null;
+        }
+        return this.alternativeIds;
+    }
+
+    /**
+     * Load the hierarchy of this vocabulary from the Solr index, using a single query which only fetches the
+     * identifier, the parents and the alternative identifiers of all the terms. The alternative identifiers are stored
+     * in {@link #alternativeIds} along the way.
+     *
+     * @return the loaded graph, or {@code null} if the index cannot be queried or is empty
+     */
+    private OntologyGraph loadGraph()
+    {
+        try {
+            long size = size();
+            if (size <= 0) {
+                this.logger.warn("The hierarchy of [{}] is not available, the index is {}", getName(),
+                    size < 0 ? "not accessible" : "empty");
+                return null;
+            }
+            SolrQuery query = new SolrQuery("*:*");
+            query.setFields(ID_FIELD_NAME, PARENT_FIELD_NAME, ALTERNATIVE_ID_FIELD_NAME);
+            query.setRows((int) size);
+            Map<String, Collection<Object>> parents = new LinkedHashMap<>();
+            Map<String, String> alternatives = new HashMap<>();
+            for (SolrDocument doc : this.externalServicesAccess.getSolrConnection().query(query).getResults()) {
+                String id = (String) doc.getFirstValue(ID_FIELD_NAME);
+                Collection<Object> values = doc.getFieldValues(PARENT_FIELD_NAME);
+                parents.put(id, values == null ? Collections.<Object>emptySet() : values);
+                addAlternativeIds(alternatives, id, doc.getFieldValues(ALTERNATIVE_ID_FIELD_NAME));
+            }
+            this.logger.debug("Loaded the hierarchy of [{}] with [{}] terms and [{}] alternative identifiers",
+                getName(), parents.size(), alternatives.size());
+            this.alternativeIds = Collections.unmodifiableMap(alternatives);
+            return new OntologyGraph(parents);
+        } catch (SolrServerException | SolrException | IOException ex) {
+            this.logger.warn("Failed to load the hierarchy of [{}]: {}", getName(), ex.getMessage());
+        }
+        return null;
+    }
+
+    private void addAlternativeIds(Map<String, String> target, String id, Collection<?> alternatives)
+    {
+        if (id == null || alternatives == null) {
+            return;
+        }
+        for (Object alternative : alternatives) {
+            target.put(String.valueOf(alternative), id);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Older, alternative identifiers are also accepted, in which case the term which replaced them is returned. They
+     * are resolved through the {@link #getAlternativeIds() in-memory mapping}, and the result is cached under the
+     * alternative identifier, so that looking them up again is as fast as looking up a current identifier. Unknown
+     * identifiers are cached as missing.
+     * </p>
+     */
+    @Override
+    protected VocabularyTerm loadTerm(String id)
+    {
+        VocabularyTerm result = super.loadTerm(id);
+        if (result == null && id != null) {
+            Map<String, String> currentAlternativeIds = getAlternativeIds();
+            if (currentAlternativeIds != null) {
+                String replacementId = currentAlternativeIds.get(id);
+                result = replacementId == null ? null : getReplacement(replacementId);
+            } else {
+                result = searchAlternativeId(id);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Alternative identifiers are also accepted, and resolved through the {@link #getAlternativeIds() in-memory
+     * mapping}; the terms which replaced them are fetched with one more query, and returned under the requested
+     * alternative identifiers.
+     * </p>
+     */
+    @Override
+    protected Map<String, VocabularyTerm> loadTerms(Collection<String> ids)
+    {
+        Map<String, VocabularyTerm> result = super.loadTerms(ids);
+        if (result == null || result.size() == ids.size()) {
+            return result;
+        }
+        Map<String, String> currentAlternativeIds = getAlternativeIds();
+        Map<String, String> replacementIds = new HashMap<>();
+        for (String id : ids) {
+            if (result.containsKey(id)) {
+                continue;
+            }
+            if (currentAlternativeIds == null) {
+                VocabularyTerm term = searchAlternativeId(id);
+                if (term != null) {
+                    result.put(id, term);
+                }
+            } else if (currentAlternativeIds.containsKey(id)) {
+                replacementIds.put(id, currentAlternativeIds.get(id));
+            }
+        }
+        return replacementIds.isEmpty() ? result : addReplacements(replacementIds, result);
+    }
+
+    /**
+     * Fetch the terms which replaced some alternative identifiers, and add them under the alternative identifiers.
+     *
+     * @param replacementIds the identifiers of the replacement terms, keyed by the alternative identifiers
+     * @param result where the replacement terms are added
+     * @return the updated result, or {@code null} if the index cannot be queried
+     */
+    private Map<String, VocabularyTerm> addReplacements(Map<String, String> replacementIds,
+        Map<String, VocabularyTerm> result)
     {
-        VocabularyTerm result = super.getTerm(id);
+        Map<String, VocabularyTerm> replacements = super.loadTerms(new HashSet<>(replacementIds.values()));
+        if (replacements == null) {
+            return null;
+        }
+        for (Map.Entry<String, String> replacementId : replacementIds.entrySet()) {
+            VocabularyTerm term = replacements.get(replacementId.getValue());
+            if (term != null) {
+                result.put(replacementId.getKey(), term);
+            }
+        }
+        return result;
+    }
+
+    /** Look up an alternative identifier in the index, when the in-memory mapping isn't available. */
+    private VocabularyTerm searchAlternativeId(String id)
+    {
+        Map<String, String> queryParameters = new HashMap<>();
+        queryParameters.put(ALTERNATIVE_ID_FIELD_NAME, id);
+        List<VocabularyTerm> results = search(queryParameters);
+        return results == null || results.isEmpty() ? null : results.get(0);
+    }
+
+    /**
+     * The term which replaced an alternative identifier, taken from the term cache if possible. This lookup isn't
+     * counted in the cache statistics, since it is part of the lookup of the alternative identifier.
+     */
+    private VocabularyTerm getReplacement(String replacementId)
+    {
+        VocabularyTerm result = this.externalServicesAccess.getTermCache().get(replacementId);
         if (result == null) {
-            Map<String, String> queryParameters = new HashMap<>();
-            queryParameters.put(ALTERNATIVE_ID_FIELD_NAME, id);
-            List<VocabularyTerm> results = search(queryParameters);
-            if (results != null && !results.isEmpty()) {
-                result = search(queryParameters).iterator().next();
+            result = super.loadTerm(replacementId);
+            this.externalServicesAccess.getTermCache().set(replacementId, result == null ? EMPTY_MARKER : result);
+        }
+        return result == EMPTY_MARKER ? null : result;
+    }
+
+    @Override
+    public long getDistance(String fromTermId, String toTermId)
+    {
+        OntologyGraph currentGraph = getGraph();
+        if (currentGraph != null && currentGraph.contains(fromTermId) && currentGraph.contains(toTermId)) {
+            return currentGraph.getDistance(fromTermId, toTermId);
+        }
+        // Alternative identifiers aren't part of the graph, resolve them to actual terms
+        return super.getDistance(fromTermId, toTermId);
+    }
+
+    @Override
+    public List<Long> getDistances(List<Pair<String, String>> termPairs)
+    {
+        OntologyGraph currentGraph = getGraph();
+        List<Long> result = new ArrayList<>(termPairs.size());
+        for (Pair<String, String> pair : termPairs) {
+            if (currentGraph != null && currentGraph.contains(pair.getLeft())
+                && currentGraph.contains(pair.getRight())) {
+                result.add((long) currentGraph.getDistance(pair.getLeft(), pair.getRight()));
+            } else {
+                result.add(super.getDistance(pair.getLeft(), pair.getRight()));
             }
         }
         return result;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The ancestors are read from the {@link #getGraph() in-memory hierarchy}, alternative identifiers included, and
+     * only the terms which aren't part of it are looked up in the index.
+     * </p>
+     */
     @Override
-    public int reindex(String sourceUrl)
+    public Map<String, Set<String>> getAncestorIds(Collection<String> termIds)
     {
-        this.clear();
-        return this.index(sourceUrl);
+        OntologyGraph currentGraph = getGraph();
+        if (currentGraph == null) {
+            return super.getAncestorIds(termIds);
+        }
+        Map<String, String> currentAlternativeIds = getAlternativeIds();
+        Map<String, Set<String>> result = new LinkedHashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String termId : termIds) {
+            String id = termId;
+            if (!currentGraph.contains(id) && currentAlternativeIds != null && currentAlternativeIds.containsKey(id)) {
+                id = currentAlternativeIds.get(id);
+            }
+            if (currentGraph.contains(id)) {
+                result.put(termId, currentGraph.getAncestorIds(id));
+            } else if (termId != null) {
+                missing.add(termId);
+            }
+        }
+        if (!missing.isEmpty()) {
+            result.putAll(super.getAncestorIds(missing));
+        }
+        return result;
     }
 
     /**
-     * Add a vocabulary to the index.
+     * Find the lowest common ancestors of two terms, i.e. the terms which are ancestors of (or the same as) both terms,
+     * and which are not ancestors of another common ancestor. The parameters are interchangeable.
      *
-     * @param sourceUrl the address from where to get the vocabulary source file
-     * @return {@code 0} if the indexing succeeded, {@code 1} if writing to the Solr server failed, {@code 2} if the
-     *         specified URL is invalid
+     * @param fromTermId the identifier of one of the terms
+     * @param toTermId the identifier of the other term
+     * @return the lowest common ancestors, or an empty set if at least one of the identifiers is invalid, or if the
+     *         terms don't have a common ancestor
+     * @since 1.3M1
      */
-    protected int index(String sourceUrl)
+    public Set<VocabularyTerm> getLowestCommonAncestors(String fromTermId, String toTermId)
     {
-        String realOntologyUrl = StringUtils.defaultIfBlank(sourceUrl, getDefaultSourceLocation());
+        OntologyGraph currentGraph = getGraph();
+        if (currentGraph == null) {
+            return Collections.emptySet();
+        }
+        Set<String> ids = currentGraph.getLowestCommonAncestors(fromTermId, toTermId);
+        return ids.isEmpty() ? Collections.<VocabularyTerm>emptySet() : getTerms(ids);
+    }
 
-        SolrUpdateGenerator generator = new SolrUpdateGenerator();
-        Map<String, Double> fieldSelection = new HashMap<String, Double>();
-        Map<String, TermData> data = generator.transform(realOntologyUrl, fieldSelection);
-        if (data == null) {
-            return 2;
+    @Override
+    public int reindex(String sourceUrl)
+    {
+        if (!startReindexing()) {
+            this.logger.warn("Vocabulary [{}] is already being reindexed", getName());
+            return REINDEX_IN_PROGRESS;
         }
         try {
-            Collection<SolrInputDocument> termBatch = new HashSet<SolrInputDocument>();
-            Iterator<Map.Entry<String, TermData>> dataIterator = data.entrySet().iterator();
-            int batchCounter = 0;
-            while (dataIterator.hasNext()) {
-                /* Resetting when the batch fills */
-                if (batchCounter == getSolrDocsPerBatch()) {
-                    commitTerms(termBatch);
-                    termBatch = new HashSet<>();
-                    batchCounter = 0;
+            String realOntologyUrl = StringUtils.defaultIfBlank(sourceUrl, getDefaultSourceLocation());
+            SolrUpdateGenerator generator = new SolrUpdateGenerator();
+            Map<String, Double> fieldSelection = new HashMap<String, Double>();
+            try (OBOTermReader terms = generator.stream(realOntologyUrl, fieldSelection)) {
+                if (terms == null) {
+                    return 2;
+                }
+                // The current index keeps serving queries until the new one is complete, and stays untouched if
+                // indexing fails
+                SolrClient replacement = createReplacementCore();
+                if (replacement == null) {
+                    return 1;
+                }
+                Map<String, String> newAlternativeIds = new HashMap<>();
+                synchronized (this) {
+                    this.pendingAlternativeIds = newAlternativeIds;
                 }
-                Map.Entry<String, TermData> item = dataIterator.next();
+                int result = replaceCore(index(terms, replacement));
+                synchronized (this) {
+                    this.pendingAlternativeIds = null;
+                    // Give loading the hierarchy from the index another chance, even if this reindex failed
+                    this.graphUnavailable = false;
+                    if (result == 0) {
+                        this.graph = new OntologyGraph(terms.getHierarchy());
+                        this.alternativeIds = Collections.unmodifiableMap(newAlternativeIds);
+                    }
+                }
+                if (result == 0) {
+                    invalidateCaches();
+                }
+                return result;
+            }
+        } finally {
+            finishReindexing();
+        }
+    }
+
+    /**
+     * Add a vocabulary to an index. Terms are read from the source one at a time, and sent to the index in batches by a
+     * background thread, so that only a few batches of terms are held in memory at once. All the terms are committed
+     * together at the end.
+     *
+     * @param terms the source of the vocabulary terms
+     * @param target the Solr core where the terms are added
+     * @return {@code 0} if the indexing succeeded, {@code 1} if writing to the Solr server or reading the source failed
+     */
+    protected int index(OBOTermReader terms, SolrClient target)
+    {
+        try (SolrIndexingPipeline pipeline = startIndexingPipeline(target, getSolrDocsPerBatch())) {
+            TermData term;
+            while ((term = terms.next()) != null) {
                 SolrInputDocument doc = new SolrInputDocument();
-                for (Map.Entry<String, Collection<String>> property : item.getValue().entrySet()) {
+                for (Map.Entry<String, Collection<String>> property : term.entrySet()) {
                     String name = property.getKey();
                     for (String value : property.getValue()) {
                         doc.addField(name, value, ParameterPreparer.DEFAULT_BOOST.floatValue());
                     }
                 }
-                termBatch.add(doc);
-                batchCounter++;
+                pipeline.add(doc);
+                if (this.pendingAlternativeIds != null && term.get(ID_FIELD_NAME) != null) {
+                    addAlternativeIds(this.pendingAlternativeIds, term.get(ID_FIELD_NAME).iterator().next(),
+                        term.get(ALTERNATIVE_ID_FIELD_NAME));
+                }
+                termRead(term);
             }
-            commitTerms(termBatch);
+            pipeline.finish();
             return 0;
         } catch (SolrServerException ex) {
             this.logger.warn("Failed to index ontology: {}", ex.getMessage());
@@ -130,34 +445,21 @@ protected int index(String sourceUrl)
         return 1;
     }
 
-    protected void commitTerms(Collection<SolrInputDocument> batch)
-        throws SolrServerException, IOException, OutOfMemoryError
-    {
-        this.externalServicesAccess.getSolrConnection().add(batch);
-        this.externalServicesAccess.getSolrConnection().commit();
-        this.externalServicesAccess.getTermCache().removeAll();
-    }
-
     /**
-     * Delete all the data in the Solr index.
+     * Called for each term read from the source while {@link #index(OBOTermReader, SolrClient) indexing}, so that
+     * vocabularies can build their own in-memory structures from the same pass over the source. Does nothing by
+     * default.
      *
-     * @return {@code 0} if the command was successful, {@code 1} otherwise
+     * @param term the term just sent to the index
+     * @since 1.3M1
      */
-    protected int clear()
+    protected void termRead(TermData term)
     {
-        try {
-            this.externalServicesAccess.getSolrConnection().deleteByQuery("*:*");
-            return 0;
-        } catch (SolrServerException ex) {
-            this.logger.error("SolrServerException while clearing the Solr index", ex);
-        } catch (IOException ex) {
-            this.logger.error("IOException while clearing the Solr index", ex);
-        }
-        return 1;
+        // Nothing to collect by default
     }
 
     @Override
-    public String getVersion()
+    protected String loadVersion() throws SolrServerException, IOException
     {
         QueryResponse response;
         SolrQuery query = new SolrQuery();
@@ -166,16 +468,12 @@ public String getVersion()
 
         query.setQuery("version:*");
         query.set("rows", "1");
-        try {
-            response = this.externalServicesAccess.getSolrConnection().query(query);
-            termList = response.getResults();
+        response = this.externalServicesAccess.getSolrConnection().query(query);
+        termList = response.getResults();
 
-            if (!termList.isEmpty()) {
-                firstDoc = termList.get(0);
-                return firstDoc.getFieldValue(VERSION_FIELD_NAME).toString();
-            }
-        } catch (SolrServerException | SolrException | IOException ex) {
-            this.logger.warn("Failed to query ontology version: {}", ex.getMessage());
+        if (!termList.isEmpty()) {
+            firstDoc = termList.get(0);
+            return firstDoc.getFieldValue(VERSION_FIELD_NAME).toString();
         }
         return null;
     }
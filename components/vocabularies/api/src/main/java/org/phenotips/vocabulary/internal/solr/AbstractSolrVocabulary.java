@@ -19,25 +19,37 @@
 
 import org.phenotips.vocabulary.SolrVocabularyResourceManager;
 import org.phenotips.vocabulary.Vocabulary;
+import org.phenotips.vocabulary.VocabularyCacheStatistics;
 import org.phenotips.vocabulary.VocabularyTerm;
 
+import org.xwiki.cache.Cache;
 import org.xwiki.component.phase.Initializable;
 import org.xwiki.component.phase.InitializationException;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
 import javax.inject.Inject;
 
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.solr.client.solrj.SolrClient;
 import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.client.solrj.response.SpellCheckResponse;
 import org.apache.solr.client.solrj.util.ClientUtils;
 import org.apache.solr.common.SolrDocument;
 import org.apache.solr.common.SolrDocumentList;
+import org.apache.solr.common.SolrException;
 import org.apache.solr.common.params.CommonParams;
 import org.apache.solr.common.params.ModifiableSolrParams;
 import org.apache.solr.common.params.SolrParams;
@@ -51,16 +63,39 @@
  * @version $Id$
  * @since 1.2M4 (under different names since 1.0M8)
  */
-public abstract class AbstractSolrVocabulary implements Vocabulary, Initializable
+public abstract class AbstractSolrVocabulary implements Vocabulary, VocabularyCacheStatistics, Initializable
 {
     /** The name of the ID field. */
     protected static final String ID_FIELD_NAME = "id";
 
+    /**
+     * Result returned by {@link #reindex(String)} when the vocabulary is already being reindexed.
+     *
+     * @since 1.3M1
+     */
+    protected static final int REINDEX_IN_PROGRESS = 3;
+
     /**
      * Object used to mark in the cache that a term doesn't exist, since null means that the cache doesn't contain the
      * requested entry.
+     *
+     * @since 1.3M1
+     */
+    protected static final VocabularyTerm EMPTY_MARKER = new SolrVocabularyTerm(null, null);
+
+    /** The maximum number of identifiers to request in one query, below the default Solr boolean clauses limit. */
+    private static final int MAX_IDS_PER_QUERY = 1000;
+
+    private static final String SPELLCHECK = "spellcheck";
+
+    /** Marks a version which was looked up but couldn't be determined, since {@code null} means not loaded yet. */
+    private static final Object UNKNOWN_VERSION = new Object();
+
+    /**
+     * The maximum number of documents sent to Solr in one request while indexing; small enough for sending documents to
+     * overlap with preparing the next ones.
      */
-    private static final VocabularyTerm EMPTY_MARKER = new SolrVocabularyTerm(null, null);
+    private static final int INDEXING_BATCH_SIZE = 1000;
 
     /** Logging helper object. */
     @Inject
@@ -70,6 +105,27 @@ public abstract class AbstractSolrVocabulary implements Vocabulary, Initializabl
     @Inject
     protected SolrVocabularyResourceManager externalServicesAccess;
 
+    /**
+     * The version of the indexed vocabulary, {@code null} until loaded from the index, {@link #UNKNOWN_VERSION} if the
+     * index doesn't specify it.
+     */
+    private volatile Object version;
+
+    /** The number of term lookups answered from the term cache, including known missing terms. */
+    private final AtomicLong termCacheHits = new AtomicLong();
+
+    /** The number of term lookups which had to be sent to the Solr server. */
+    private final AtomicLong termCacheMisses = new AtomicLong();
+
+    /** The number of searches answered from the search cache. */
+    private final AtomicLong searchCacheHits = new AtomicLong();
+
+    /** The number of searches which had to be sent to the Solr server. */
+    private final AtomicLong searchCacheMisses = new AtomicLong();
+
+    /** Allows only one reindex of this vocabulary at a time, without blocking the queries meanwhile. */
+    private final ReentrantLock reindexLock = new ReentrantLock();
+
     @Override
     public void initialize() throws InitializationException
     {
@@ -87,51 +143,159 @@ public void initialize() throws InitializationException
      */
     protected abstract String getName();
 
+    /**
+     * Wrap a Solr document into a term owned by this vocabulary.
+     *
+     * @param doc the Solr document holding the term data
+     * @return a vocabulary term backed by the document
+     * @since 1.3M1
+     */
+    protected VocabularyTerm createTerm(SolrDocument doc)
+    {
+        return new SolrVocabularyTerm(doc, this);
+    }
+
     @Override
     public VocabularyTerm getTerm(String id)
     {
-        VocabularyTerm result = this.externalServicesAccess.getTermCache().get(id);
+        VocabularyTerm result = getCachedTerm(id);
         if (result == null) {
-            ModifiableSolrParams params = new ModifiableSolrParams();
-            params.set(CommonParams.Q, ID_FIELD_NAME + ':' + ClientUtils.escapeQueryChars(id));
-            SolrDocumentList allResults = this.search(params);
-            if (allResults != null && !allResults.isEmpty()) {
-                result = new SolrVocabularyTerm(allResults.get(0), this);
-                this.externalServicesAccess.getTermCache().set(id, result);
-            } else {
-                this.externalServicesAccess.getTermCache().set(id, EMPTY_MARKER);
-            }
+            result = loadTerm(id);
+            this.externalServicesAccess.getTermCache().set(id, result == null ? EMPTY_MARKER : result);
         }
         return (result == EMPTY_MARKER) ? null : result;
     }
 
+    /**
+     * Look up a term in the index, without going through the term cache. {@link #getTerm(String)} calls this for the
+     * identifiers missing from the term cache, and caches the result under the requested identifier.
+     *
+     * @param id the identifier of the term
+     * @return the term, or {@code null} if it doesn't exist
+     * @since 1.3M1
+     */
+    protected VocabularyTerm loadTerm(String id)
+    {
+        ModifiableSolrParams params = new ModifiableSolrParams();
+        params.set(CommonParams.Q, ID_FIELD_NAME + ':' + ClientUtils.escapeQueryChars(id));
+        // Identifiers must be matched exactly, not corrected
+        params.set(SPELLCHECK, false);
+        params.set(CommonParams.ROWS, 1);
+        SolrDocumentList allResults = this.search(params, null, false);
+        if (allResults != null && !allResults.isEmpty()) {
+            return createTerm(allResults.get(0));
+        }
+        return null;
+    }
+
+    /**
+     * Look up a term in the term cache, counting the lookup in the {@link #getTermCacheStatistics() cache statistics}.
+     *
+     * @param key the cache key, usually the identifier of the term
+     * @return the cached term, {@link #EMPTY_MARKER} if the term is known not to exist, or {@code null} if the key isn't
+     *         cached
+     * @since 1.3M1
+     */
+    protected VocabularyTerm getCachedTerm(String key)
+    {
+        VocabularyTerm result = this.externalServicesAccess.getTermCache().get(key);
+        if (result != null) {
+            this.termCacheHits.incrementAndGet();
+        } else {
+            this.termCacheMisses.incrementAndGet();
+        }
+        return result;
+    }
+
     @Override
     public Set<VocabularyTerm> getTerms(Collection<String> ids)
     {
         Set<VocabularyTerm> result = new LinkedHashSet<VocabularyTerm>();
-        StringBuilder query = new StringBuilder("id:(");
+        Set<String> missing = new LinkedHashSet<String>();
         for (String id : ids) {
-            VocabularyTerm cachedTerm = this.externalServicesAccess.getTermCache().get(id);
-            if (cachedTerm != null) {
-                if (cachedTerm != EMPTY_MARKER) {
-                    result.add(cachedTerm);
-                }
-            } else {
-                query.append(ClientUtils.escapeQueryChars(id));
-                query.append(' ');
+            if (id == null || missing.contains(id)) {
+                continue;
+            }
+            VocabularyTerm cachedTerm = getCachedTerm(id);
+            if (cachedTerm == null) {
+                missing.add(id);
+            } else if (cachedTerm != EMPTY_MARKER) {
+                result.add(cachedTerm);
             }
         }
-        query.append(')');
 
-        // There's at least one more term not found in the cache
-        if (query.length() > 5) {
-            for (SolrDocument doc : this.search(SolrQueryUtils.transformQueryToSolrParams(query.toString()))) {
-                result.add(new SolrVocabularyTerm(doc, this));
+        // Fetch the terms not found in the cache, in batches small enough for the Solr boolean clauses limit
+        List<String> missingIds = new ArrayList<String>(missing);
+        for (int start = 0; start < missingIds.size(); start += MAX_IDS_PER_QUERY) {
+            fetchTerms(missingIds.subList(start, Math.min(missingIds.size(), start + MAX_IDS_PER_QUERY)), result);
+        }
+        return result;
+    }
+
+    /**
+     * Fetch a batch of terms, and cache them under the requested identifiers, as well as the identifiers not matching
+     * any term.
+     *
+     * @param ids the identifiers of the terms to fetch
+     * @param result where the found terms are added
+     */
+    private void fetchTerms(Collection<String> ids, Set<VocabularyTerm> result)
+    {
+        Map<String, VocabularyTerm> found = loadTerms(ids);
+        if (found == null) {
+            // The query failed, don't cache anything since missing terms may actually exist
+            return;
+        }
+        Cache<VocabularyTerm> cache = this.externalServicesAccess.getTermCache();
+        for (String id : ids) {
+            VocabularyTerm term = found.get(id);
+            if (term != null) {
+                result.add(term);
             }
+            cache.set(id, term == null ? EMPTY_MARKER : term);
+        }
+    }
+
+    /**
+     * Look up several terms in the index with a single query, without going through the term cache. This is the bulk
+     * counterpart of {@link #loadTerm(String)}, used by {@link #getTerms(Collection)} for the identifiers missing from
+     * the term cache.
+     *
+     * @param ids the identifiers of the terms to look up
+     * @return the found terms, keyed by the requested identifier, without entries for the identifiers not matching any
+     *         term; {@code null} if the index cannot be queried
+     * @since 1.3M1
+     */
+    protected Map<String, VocabularyTerm> loadTerms(Collection<String> ids)
+    {
+        StringBuilder query = new StringBuilder("id:(");
+        for (String id : ids) {
+            query.append(ClientUtils.escapeQueryChars(id));
+            query.append(' ');
+        }
+        query.append(')');
+        SolrDocumentList docs = this.search(SolrQueryUtils.transformQueryToSolrParams(query.toString()),
+            getBulkLookupOptions(ids.size()), false);
+        if (docs == null) {
+            return null;
+        }
+        Map<String, VocabularyTerm> result = new HashMap<>();
+        for (SolrDocument doc : docs) {
+            VocabularyTerm term = createTerm(doc);
+            result.put(term.getId(), term);
         }
         return result;
     }
 
+    private Map<String, String> getBulkLookupOptions(int rows)
+    {
+        Map<String, String> options = new HashMap<>();
+        options.put(CommonParams.ROWS, String.valueOf(rows));
+        // Identifiers must be matched exactly, not corrected
+        options.put(SPELLCHECK, Boolean.toString(false));
+        return options;
+    }
+
     @Override
     public List<VocabularyTerm> search(Map<String, ?> fieldValues)
     {
@@ -142,9 +306,12 @@ public List<VocabularyTerm> search(Map<String, ?> fieldValues)
     public List<VocabularyTerm> search(Map<String, ?> fieldValues, Map<String, String> queryOptions)
     {
         List<VocabularyTerm> result = new LinkedList<VocabularyTerm>();
-        for (SolrDocument doc : this.search(
-            SolrQueryUtils.transformQueryToSolrParams(generateLuceneQuery(fieldValues)), queryOptions)) {
-            result.add(new SolrVocabularyTerm(doc, this));
+        SolrParams params = SolrQueryUtils.transformQueryToSolrParams(generateLuceneQuery(fieldValues));
+        SolrDocumentList docs = this.search(params, queryOptions);
+        if (docs != null) {
+            for (SolrDocument doc : docs) {
+                result.add(createTerm(doc));
+            }
         }
         return result;
     }
@@ -168,8 +335,40 @@ public int reindex(String sourceUrl)
         throw new UnsupportedOperationException();
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The version is read from the index only once, and then kept in memory until the vocabulary is reindexed, so this
+     * is cheap enough to be called for every patient change.
+     * </p>
+     */
     @Override
     public String getVersion()
+    {
+        Object result = this.version;
+        if (result == null) {
+            try {
+                result = loadVersion();
+            } catch (Exception ex) {
+                // Don't remember the failure, the index may answer on the next call
+                this.logger.warn("Failed to query vocabulary version: {}", ex.getMessage());
+                return null;
+            }
+            this.version = result == null ? UNKNOWN_VERSION : result;
+        }
+        return result == UNKNOWN_VERSION ? null : (String) result;
+    }
+
+    /**
+     * Read the version of the vocabulary from the index. Does nothing by default, since not all the vocabularies store
+     * their version.
+     *
+     * @return a version identifier, or {@code null} if the index doesn't store a version
+     * @throws Exception if the index cannot be queried; unlike a missing version, a failure is not remembered, and the
+     *             version is queried again on the next call
+     * @since 1.3M1
+     */
+    protected String loadVersion() throws Exception
     {
         return null;
     }
@@ -189,6 +388,26 @@ public long getDistance(VocabularyTerm fromTerm, VocabularyTerm toTerm)
         return fromTerm.getDistanceTo(toTerm);
     }
 
+    @Override
+    public List<Long> getDistances(List<Pair<String, String>> termPairs)
+    {
+        List<Long> result = new ArrayList<>(termPairs.size());
+        for (Pair<String, String> pair : termPairs) {
+            result.add(getDistance(pair.getLeft(), pair.getRight()));
+        }
+        return result;
+    }
+
+    @Override
+    public Map<String, Set<String>> getAncestorIds(Collection<String> termIds)
+    {
+        Map<String, Set<String>> result = new LinkedHashMap<>();
+        for (VocabularyTerm term : getTerms(termIds)) {
+            result.put(term.getId(), term.getAncestorIds());
+        }
+        return result;
+    }
+
     @Override
     public List<VocabularyTerm> search(String input, int maxResults, String sort, String customFilter)
     {
@@ -208,8 +427,9 @@ protected SolrDocumentList search(SolrParams params)
     }
 
     /**
-     * Perform a search, falling back on the suggested spellchecked query if the original query fails to return any
-     * results.
+     * Perform a search, falling back on the suggested spellchecked query if the input is considered misspelled and the
+     * original query didn't return as many results as requested. To always try the spellchecked query when the input is
+     * misspelled, set the {@link SolrQueryUtils#SPELLCHECK_ALWAYS_RETRY} option to {@code true}.
      *
      * @param params the Solr parameters to use, should contain at least a value for the "q" parameter
      * @param queryOptions extra options to include in the query; these override the default values, but don't override
@@ -217,24 +437,55 @@ protected SolrDocumentList search(SolrParams params)
      * @return the list of matching documents, empty if there are no matching terms
      */
     protected SolrDocumentList search(SolrParams params, Map<String, String> queryOptions)
+    {
+        return search(params, queryOptions, true);
+    }
+
+    /**
+     * Perform a search, optionally going through the search results cache. Lookups by identifier skip the search cache,
+     * since the terms they return are already kept in the term cache. The returned list is never the cached instance,
+     * so callers are free to modify it.
+     *
+     * @param params the Solr parameters to use, should contain at least a value for the "q" parameter
+     * @param queryOptions extra options to include in the query
+     * @param useCache whether the results should be looked up in and stored in the search cache
+     * @return the list of matching documents, empty if there are no matching terms, {@code null} if the search failed
+     * @since 1.3M1
+     */
+    protected SolrDocumentList search(SolrParams params, Map<String, String> queryOptions, boolean useCache)
     {
         try {
             SolrParams enhancedParams = SolrQueryUtils.enhanceParams(params, queryOptions);
+            String cacheKey = null;
+            Cache<SolrDocumentList> searchCache = null;
+            if (useCache) {
+                cacheKey = SolrQueryUtils.getCacheKey(enhancedParams);
+                searchCache = this.externalServicesAccess.getSearchCache();
+                SolrDocumentList cachedResults = searchCache.get(cacheKey);
+                if (cachedResults != null) {
+                    this.searchCacheHits.incrementAndGet();
+                    return copy(cachedResults);
+                }
+                this.searchCacheMisses.incrementAndGet();
+            }
             this.logger.debug("Searching [{}] with query [{}]", getName(), enhancedParams);
             QueryResponse response = this.externalServicesAccess.getSolrConnection().query(enhancedParams);
             SolrDocumentList results = response.getResults();
-            if (response.getSpellCheckResponse() != null && !response.getSpellCheckResponse().isCorrectlySpelled()
-                && StringUtils.isNotEmpty(response.getSpellCheckResponse().getCollatedResult())) {
+            if (isSpellcheckRetryNeeded(enhancedParams, response)) {
                 enhancedParams =
                     SolrQueryUtils.applySpellcheckSuggestion(enhancedParams, response.getSpellCheckResponse()
                         .getCollatedResult());
                 this.logger.debug("Searching [{}] with spellchecked query [{}]", getName(), enhancedParams);
                 SolrDocumentList spellcheckResults =
                     this.externalServicesAccess.getSolrConnection().query(enhancedParams).getResults();
-                if (results.getMaxScore() < spellcheckResults.getMaxScore()) {
+                if (isBetter(spellcheckResults, results)) {
                     results = spellcheckResults;
                 }
             }
+            if (searchCache != null) {
+                searchCache.set(cacheKey, results);
+                return copy(results);
+            }
             return results;
         } catch (Exception ex) {
             this.logger.error("Failed to search: {}", ex.getMessage(), ex);
@@ -242,6 +493,186 @@ protected SolrDocumentList search(SolrParams params, Map<String, String> queryOp
         return null;
     }
 
+    /**
+     * Copy a list of results, so that the instance held in the search cache cannot be altered by callers.
+     *
+     * @param results the results to copy
+     * @return a new list with the same documents and metadata
+     */
+    private static SolrDocumentList copy(SolrDocumentList results)
+    {
+        SolrDocumentList result = new SolrDocumentList();
+        result.addAll(results);
+        result.setNumFound(results.getNumFound());
+        result.setStart(results.getStart());
+        result.setMaxScore(results.getMaxScore());
+        return result;
+    }
+
+    /**
+     * Checks if a search should be repeated with the query suggested by the spellchecker. This is only needed when the
+     * input is misspelled and the original query didn't already fill the requested number of rows, unless the caller
+     * explicitly asked for the spellchecked query to always be tried.
+     *
+     * @param params the parameters used for the original query
+     * @param response the response to the original query
+     * @return {@code true} if the spellchecked query should be tried
+     */
+    private boolean isSpellcheckRetryNeeded(SolrParams params, QueryResponse response)
+    {
+        SpellCheckResponse spellcheck = response.getSpellCheckResponse();
+        if (spellcheck == null || spellcheck.isCorrectlySpelled()
+            || StringUtils.isEmpty(spellcheck.getCollatedResult())) {
+            return false;
+        }
+        if (params.getBool(SolrQueryUtils.SPELLCHECK_ALWAYS_RETRY, false)) {
+            return true;
+        }
+        Integer rows = params.getInt(CommonParams.ROWS);
+        return rows == null || response.getResults().size() < rows;
+    }
+
+    private boolean isBetter(SolrDocumentList candidate, SolrDocumentList original)
+    {
+        // The maximum score is missing when the score isn't in the list of requested fields
+        Float candidateScore = candidate.getMaxScore();
+        Float originalScore = original.getMaxScore();
+        if (candidateScore == null || originalScore == null) {
+            return original.isEmpty() && !candidate.isEmpty();
+        }
+        return originalScore < candidateScore;
+    }
+
+    /**
+     * Create an empty Solr core where a new version of this vocabulary can be indexed, while the current index keeps
+     * serving queries. Once indexing is done, {@link #replaceCore(int)} must be called.
+     *
+     * @return a client for the new core, or {@code null} if the core cannot be created
+     * @since 1.3M1
+     */
+    protected SolrClient createReplacementCore()
+    {
+        try {
+            SolrClient replacement = this.externalServicesAccess.createReplacementCore();
+            if (replacement == null) {
+                this.logger.warn("The Solr core of [{}] is already being reindexed", getName());
+            }
+            return replacement;
+        } catch (IOException | SolrException ex) {
+            this.logger.error("Failed to create a new Solr core for reindexing [{}]: {}", getName(), ex.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Mark the start of a reindex of this vocabulary. Each successful call must be followed by a call to
+     * {@link #finishReindexing()}, usually in a {@code finally} block. Calls made by the thread already reindexing
+     * succeed, so that subclasses can wrap the reindex of their parent class.
+     *
+     * @return {@code true} if the reindex can proceed, {@code false} if another thread is already reindexing this
+     *         vocabulary, in which case {@link #REINDEX_IN_PROGRESS} should be returned
+     * @since 1.3M1
+     */
+    protected boolean startReindexing()
+    {
+        return this.reindexLock.tryLock();
+    }
+
+    /**
+     * Mark the end of a reindex started with {@link #startReindexing()}.
+     *
+     * @since 1.3M1
+     */
+    protected void finishReindexing()
+    {
+        this.reindexLock.unlock();
+    }
+
+    /**
+     * Start a pipeline for adding documents to a Solr core. Documents are sent to Solr by a background thread while the
+     * caller prepares the next ones, and are all committed at once when the pipeline is finished.
+     *
+     * @param target the core receiving the documents
+     * @param maxBatchSize the maximum number of documents to send to Solr in one request
+     * @return a started pipeline, which must be either finished or closed
+     * @since 1.3M1
+     */
+    protected SolrIndexingPipeline startIndexingPipeline(SolrClient target, int maxBatchSize)
+    {
+        return new SolrIndexingPipeline(target, Math.min(maxBatchSize, INDEXING_BATCH_SIZE),
+            SolrIndexingPipeline.DEFAULT_PENDING_BATCHES, getName());
+    }
+
+    /**
+     * Finish a reindex started with {@link #createReplacementCore()}. If indexing succeeded, the new core atomically
+     * replaces the current one, otherwise the new core is discarded and the current index is left untouched. The caches
+     * are not cleared by this method, callers should {@link #invalidateCaches() invalidate them} after a successful
+     * replacement.
+     *
+     * @param indexingResult the result of indexing the new data, {@code 0} for success
+     * @return {@code 0} if the new data is now live, {@code indexingResult} if indexing failed, or {@code 1} if the
+     *         cores couldn't be swapped
+     * @since 1.3M1
+     */
+    protected int replaceCore(int indexingResult)
+    {
+        if (indexingResult == 0 && this.externalServicesAccess.replaceCore()) {
+            return 0;
+        }
+        this.externalServicesAccess.discardReplacementCore();
+        return indexingResult == 0 ? 1 : indexingResult;
+    }
+
+    /**
+     * Clear the cached terms, search results and version. Must be called whenever the content of the index changes.
+     *
+     * @since 1.3M1
+     */
+    protected void invalidateCaches()
+    {
+        this.version = null;
+        this.externalServicesAccess.getTermCache().removeAll();
+        this.externalServicesAccess.getSearchCache().removeAll();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The size and expiration time of the term cache are configured in {@code xwiki.properties} under
+     * {@code phenotips.vocabularies.<vocabulary>.termCache}.
+     * </p>
+     *
+     * @since 1.3M1
+     */
+    @Override
+    public Map<String, Long> getTermCacheStatistics()
+    {
+        return getStatistics(this.termCacheHits, this.termCacheMisses);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The size and expiration time of the search cache are configured in {@code xwiki.properties} under
+     * {@code phenotips.vocabularies.<vocabulary>.searchCache}.
+     * </p>
+     *
+     * @since 1.3M1
+     */
+    @Override
+    public Map<String, Long> getSearchCacheStatistics()
+    {
+        return getStatistics(this.searchCacheHits, this.searchCacheMisses);
+    }
+
+    private static Map<String, Long> getStatistics(AtomicLong hits, AtomicLong misses)
+    {
+        Map<String, Long> result = new LinkedHashMap<>();
+        result.put(HITS, hits.get());
+        result.put(MISSES, misses.get());
+        return result;
+    }
+
     /**
      * Get the number of entries that match a specific Lucene query.
      *
@@ -0,0 +1,182 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses/
+ */
+package org.phenotips.vocabulary.internal.solr;
+
+import org.phenotips.vocabulary.SolrCoreContainerHandler;
+import org.phenotips.vocabulary.VocabularyTerm;
+
+import org.xwiki.cache.Cache;
+import org.xwiki.cache.CacheException;
+import org.xwiki.cache.CacheManager;
+import org.xwiki.cache.config.CacheConfiguration;
+import org.xwiki.cache.eviction.EntryEvictionConfiguration;
+import org.xwiki.cache.eviction.LRUEvictionConfiguration;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.component.phase.Disposable;
+import org.xwiki.component.phase.InitializationException;
+import org.xwiki.configuration.ConfigurationSource;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.apache.solr.client.solrj.embedded.EmbeddedSolrServer;
+import org.apache.solr.common.SolrDocumentList;
+import org.slf4j.Logger;
+
+/**
+ * Default implementation for the {@link SolrCoreRegistry} component, creating one embedded server and one pair of
+ * caches for each core.
+ *
+ * @version $Id$
+ * @since 1.3M1
+ */
+@Component
+@Singleton
+public class DefaultSolrCoreRegistry implements SolrCoreRegistry, Disposable
+{
+    /** The prefix of the configuration properties of the vocabularies. */
+    private static final String CONFIGURATION_PREFIX = "phenotips.vocabularies.";
+
+    /** The default maximum number of terms kept in the cache, per vocabulary. */
+    private static final int DEFAULT_TERM_CACHE_SIZE = 20000;
+
+    /** By default, cached terms don't expire, since they only change when the vocabulary is reindexed. */
+    private static final int DEFAULT_TERM_CACHE_TTL = 0;
+
+    /** The default maximum number of search results kept in the cache, per vocabulary. */
+    private static final int DEFAULT_SEARCH_CACHE_SIZE = 1000;
+
+    /** The default number of seconds after which a cached search result expires. */
+    private static final int DEFAULT_SEARCH_CACHE_TTL = 3600;
+
+    /** The eviction policy which discards the least recently used entries once the cache is full. */
+    private static final String LRU_EVICTION = "lru";
+
+    /** The eviction policy which never discards entries, except when they expire. */
+    private static final String NO_EVICTION = "none";
+
+    /** The resources created so far, keyed by core name. */
+    private final ConcurrentMap<String, SolrCoreResources> resources = new ConcurrentHashMap<>();
+
+    /** Provides access to the Solr cores. */
+    @Inject
+    private SolrCoreContainerHandler cores;
+
+    /** Logging helper object. */
+    @Inject
+    private Logger logger;
+
+    /** Cache factory needed for creating the term and search caches. */
+    @Inject
+    private CacheManager cacheFactory;
+
+    /** Provides the configured sizes for the caches. */
+    @Inject
+    @Named("xwikiproperties")
+    private ConfigurationSource configuration;
+
+    @Override
+    public SolrCoreResources getResources(String coreName) throws InitializationException
+    {
+        SolrCoreResources result = this.resources.get(coreName);
+        if (result == null) {
+            synchronized (this.resources) {
+                result = this.resources.get(coreName);
+                if (result == null) {
+                    result = createResources(coreName);
+                    this.resources.put(coreName, result);
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void dispose()
+    {
+        // The servers aren't closed, since closing an embedded server shuts down the whole core container, which is
+        // managed by the SolrCoreContainerHandler
+        for (SolrCoreResources coreResources : this.resources.values()) {
+            coreResources.dispose();
+        }
+        this.resources.clear();
+    }
+
+    private SolrCoreResources createResources(String coreName) throws InitializationException
+    {
+        try {
+            EmbeddedSolrServer server = new EmbeddedSolrServer(this.cores.getContainer(), coreName);
+            Cache<VocabularyTerm> termCache = this.cacheFactory.createNewLocalCache(
+                getCacheConfiguration(coreName, "termCache", DEFAULT_TERM_CACHE_SIZE, DEFAULT_TERM_CACHE_TTL));
+            Cache<SolrDocumentList> searchCache = this.cacheFactory.createNewLocalCache(
+                getCacheConfiguration(coreName, "searchCache", DEFAULT_SEARCH_CACHE_SIZE, DEFAULT_SEARCH_CACHE_TTL));
+            this.logger.debug("Initialized the resources of the Solr core [{}]", coreName);
+            return new SolrCoreResources(coreName, server, termCache, searchCache);
+        } catch (RuntimeException ex) {
+            throw new InitializationException("Invalid Solr core: " + ex.getMessage());
+        } catch (final CacheException ex) {
+            throw new InitializationException("Cannot create cache: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Build the configuration of one of the caches of a vocabulary from the {@code xwiki.properties} settings:
+     * <ul>
+     * <li>{@code phenotips.vocabularies.<vocabulary>.<cache>.eviction}: {@code lru} to discard the least recently used
+     * entries once the cache is full, or {@code none} to keep all the entries until they expire</li>
+     * <li>{@code phenotips.vocabularies.<vocabulary>.<cache>.maxEntries}: the maximum number of entries, for the
+     * {@code lru} policy</li>
+     * <li>{@code phenotips.vocabularies.<vocabulary>.<cache>.timeToLive}: the number of seconds after which an entry
+     * expires, {@code 0} for never</li>
+     * </ul>
+     *
+     * @param vocabularyName the name of the vocabulary
+     * @param cacheName the name of the cache, {@code termCache} or {@code searchCache}
+     * @param defaultSize the maximum number of entries used when not configured
+     * @param defaultTimeToLive the expiration time used when not configured
+     * @return the cache configuration
+     */
+    private CacheConfiguration getCacheConfiguration(String vocabularyName, String cacheName, int defaultSize,
+        int defaultTimeToLive)
+    {
+        String prefix = CONFIGURATION_PREFIX + vocabularyName + '.' + cacheName + '.';
+        String eviction = this.configuration.getProperty(prefix + "eviction", LRU_EVICTION);
+        EntryEvictionConfiguration evictionConfig;
+        if (NO_EVICTION.equalsIgnoreCase(eviction)) {
+            evictionConfig = new EntryEvictionConfiguration();
+            evictionConfig.setAlgorithm(EntryEvictionConfiguration.Algorithm.NONE);
+        } else {
+            if (!LRU_EVICTION.equalsIgnoreCase(eviction)) {
+                this.logger.warn("Unknown eviction policy [{}] for [{}], using [{}]", eviction, prefix, LRU_EVICTION);
+            }
+            evictionConfig = new LRUEvictionConfiguration(this.configuration.getProperty(prefix + "maxEntries",
+                defaultSize));
+        }
+        int timeToLive = this.configuration.getProperty(prefix + "timeToLive", defaultTimeToLive);
+        if (timeToLive > 0) {
+            evictionConfig.setTimeToLive(timeToLive);
+        }
+        CacheConfiguration result = new CacheConfiguration(evictionConfig);
+        result.setConfigurationId(CONFIGURATION_PREFIX + vocabularyName + '.' + cacheName);
+        return result;
+    }
+}
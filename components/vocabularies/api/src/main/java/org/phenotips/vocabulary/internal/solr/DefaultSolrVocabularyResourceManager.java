@@ -22,21 +22,33 @@
 import org.phenotips.vocabulary.VocabularyTerm;
 
 import org.xwiki.cache.Cache;
-import org.xwiki.cache.CacheException;
-import org.xwiki.cache.CacheManager;
-import org.xwiki.cache.config.CacheConfiguration;
 import org.xwiki.component.annotation.Component;
 import org.xwiki.component.annotation.InstantiationStrategy;
 import org.xwiki.component.descriptor.ComponentInstantiationStrategy;
 import org.xwiki.component.phase.InitializationException;
 
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+
 import javax.inject.Inject;
 
 import org.apache.solr.client.solrj.SolrClient;
 import org.apache.solr.client.solrj.embedded.EmbeddedSolrServer;
+import org.apache.solr.common.SolrDocumentList;
+import org.apache.solr.common.SolrException;
+import org.apache.solr.core.CoreContainer;
+import org.apache.solr.core.CoreDescriptor;
+import org.apache.solr.core.SolrCore;
+import org.slf4j.Logger;
 
 /**
- * Default implementation for the {@link SolrVocabularyResourceManager} component.
+ * Default implementation for the {@link SolrVocabularyResourceManager} component. Each instance is a lightweight handle
+ * on the connection and caches of a core, which are created only once and shared through the {@link SolrCoreRegistry}.
  *
  * @version $Id$
  * @since 1.2M4 (under different names since 1.0M10)
@@ -45,42 +57,166 @@
 @InstantiationStrategy(ComponentInstantiationStrategy.PER_LOOKUP)
 public class DefaultSolrVocabularyResourceManager implements SolrVocabularyResourceManager
 {
-    /** @see #getSolrConnection() */
-    private SolrClient core;
+    /** Suffix added to the vocabulary name for the name of the core used while reindexing. */
+    private static final String REPLACEMENT_CORE_SUFFIX = "_replacement";
+
+    /** The connection and caches of the managed core, shared with the other managers of the same core. */
+    private SolrCoreResources resources;
 
-    /** @see #getTermCache() */
-    private Cache<VocabularyTerm> cache;
+    /** The name of the managed core, same as the name of the vocabulary. */
+    private String coreName;
 
     /** Provides access to the Solr cores. */
     @Inject
     private SolrCoreContainerHandler cores;
 
-    /** Cache factory needed for creating the term cache. */
+    /** Provides the shared resources of each core. */
+    @Inject
+    private SolrCoreRegistry registry;
+
+    /** Logging helper object. */
     @Inject
-    private CacheManager cacheFactory;
+    private Logger logger;
 
     @Override
     public void initialize(String vocabularyName) throws InitializationException
     {
-        try {
-            this.core = new EmbeddedSolrServer(this.cores.getContainer(), vocabularyName);
-            this.cache = this.cacheFactory.createNewLocalCache(new CacheConfiguration());
-        } catch (RuntimeException ex) {
-            throw new InitializationException("Invalid Solr core: " + ex.getMessage());
-        } catch (final CacheException ex) {
-            throw new InitializationException("Cannot create cache: " + ex.getMessage());
-        }
+        this.coreName = vocabularyName;
+        this.resources = this.registry.getResources(vocabularyName);
     }
 
     @Override
     public Cache<VocabularyTerm> getTermCache()
     {
-        return this.cache;
+        return this.resources.getTermCache();
+    }
+
+    @Override
+    public Cache<SolrDocumentList> getSearchCache()
+    {
+        return this.resources.getSearchCache();
     }
 
     @Override
     public SolrClient getSolrConnection()
     {
-        return this.core;
+        return this.resources.getServer();
+    }
+
+    @Override
+    public SolrClient createReplacementCore() throws IOException
+    {
+        // Reindexing is coordinated through the shared resources, since several managers may handle the same core
+        synchronized (this.resources) {
+            if (this.resources.getReplacementServer() != null) {
+                // Another reindex of this core is still running, its replacement core must be left alone
+                return null;
+            }
+            // Clean up after a reindex interrupted by a restart
+            discardReplacementCore();
+            CoreContainer container = this.cores.getContainer();
+            String replacementName = getReplacementCoreName();
+            // The new core needs its own instance directory, since the core descriptor is stored there
+            Path instanceDir = Paths.get(container.getSolrHome(), getReplacementDirectoryPrefix()
+                + System.currentTimeMillis());
+            try (SolrCore current = container.getCore(this.coreName)) {
+                if (current == null) {
+                    throw new IOException("Unknown Solr core: " + this.coreName);
+                }
+                copyDirectory(Paths.get(current.getResourceLoader().getConfigDir()), instanceDir.resolve("conf"));
+            }
+            try {
+                container.create(new CoreDescriptor(container, replacementName, instanceDir.toString()));
+            } catch (SolrException ex) {
+                throw new IOException("Failed to create Solr core " + replacementName + ": " + ex.getMessage(), ex);
+            }
+            SolrClient replacementCore = new EmbeddedSolrServer(container, replacementName);
+            this.resources.setReplacementServer(replacementCore);
+            return replacementCore;
+        }
+    }
+
+    @Override
+    public boolean replaceCore()
+    {
+        synchronized (this.resources) {
+            if (this.resources.getReplacementServer() == null) {
+                return false;
+            }
+            CoreContainer container = this.cores.getContainer();
+            String replacementName = getReplacementCoreName();
+            try {
+                // After the swap, the shared connection transparently uses the new core, since the embedded server
+                // looks up the core by name for each request
+                container.swap(this.coreName, replacementName);
+            } catch (SolrException ex) {
+                this.logger.error("Failed to replace the Solr core [{}]: {}", this.coreName, ex.getMessage(), ex);
+                return false;
+            }
+            this.resources.setReplacementServer(null);
+            // The old core is now registered under the replacement name; its instance directory is either the
+            // original one, which is kept since it also holds the configuration, or one created by a previous reindex
+            CoreDescriptor oldCore = container.getCoreDescriptor(replacementName);
+            unloadCore(replacementName, oldCore != null && isReplacementDirectory(oldCore.getInstanceDir()));
+            return true;
+        }
+    }
+
+    @Override
+    public void discardReplacementCore()
+    {
+        synchronized (this.resources) {
+            this.resources.setReplacementServer(null);
+            String replacementName = getReplacementCoreName();
+            if (this.cores.getContainer().getCoreNames().contains(replacementName)) {
+                unloadCore(replacementName, true);
+            }
+        }
+    }
+
+    private String getReplacementCoreName()
+    {
+        return this.coreName + REPLACEMENT_CORE_SUFFIX;
+    }
+
+    private String getReplacementDirectoryPrefix()
+    {
+        return getReplacementCoreName() + '_';
+    }
+
+    private boolean isReplacementDirectory(String instanceDir)
+    {
+        Path name = Paths.get(instanceDir).getFileName();
+        return name != null && name.toString().startsWith(getReplacementDirectoryPrefix());
+    }
+
+    private void unloadCore(String name, boolean deleteInstanceDir)
+    {
+        try {
+            // Unloading also removes the core.properties file, so the core isn't loaded again after a restart
+            this.cores.getContainer().unload(name, true, true, deleteInstanceDir);
+        } catch (SolrException ex) {
+            this.logger.warn("Failed to delete the Solr core [{}]: {}", name, ex.getMessage());
+        }
+    }
+
+    private void copyDirectory(final Path source, final Path target) throws IOException
+    {
+        Files.walkFileTree(source, new SimpleFileVisitor<Path>()
+        {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException
+            {
+                Files.createDirectories(target.resolve(source.relativize(dir)));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException
+            {
+                Files.copy(file, target.resolve(source.relativize(file)));
+                return FileVisitResult.CONTINUE;
+            }
+        });
     }
 }
@@ -0,0 +1,316 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses/
+ */
+package org.phenotips.vocabulary.internal.solr;
+
+import org.phenotips.obo2solr.TermHierarchy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Compact, immutable in-memory model of the {@code is_a} hierarchy of an OBO vocabulary. The ancestor closure of all
+ * the terms is computed once by a {@link TermHierarchy}, the same one used for expanding the term categories when
+ * indexing, which stores the ancestors of each term as sorted arrays of integer identifiers, along with the length of
+ * the shortest upward path to each of them and the depth of each term. Navigating the hierarchy thus never requires
+ * querying the Solr index, and distance and lowest common ancestor queries are answered with a simple merge of two
+ * sorted arrays.
+ *
+ * @version $Id$
+ * @since 1.3M1
+ */
+public final class OntologyGraph
+{
+    /** The precomputed closure of the hierarchy. */
+    private final TermHierarchy hierarchy;
+
+    /**
+     * Builds the graph from the direct parents of each term.
+     *
+     * @param parentsById a map from term identifiers to the identifiers of their direct parents; parent identifiers may
+     *            be followed by a space and a comment, as in {@code HP:0000001 ! All}, which is ignored; parents that
+     *            aren't themselves keys in the map are ignored
+     */
+    public OntologyGraph(Map<String, ? extends Collection<?>> parentsById)
+    {
+        Map<String, Collection<String>> knownParents = new LinkedHashMap<>((int) (parentsById.size() / 0.75f) + 1);
+        for (Map.Entry<String, ? extends Collection<?>> term : parentsById.entrySet()) {
+            knownParents.put(term.getKey(), getKnownIdentifiers(term.getValue(), parentsById));
+        }
+        this.hierarchy = new TermHierarchy(knownParents);
+    }
+
+    /**
+     * Extract the identifier from an {@code is_a} value, dropping the optional comment part.
+     *
+     * @param value a raw value, such as {@code HP:0000001 ! All}
+     * @return the identifier part of the value, for example {@code HP:0000001}
+     */
+    public static String getIdentifier(Object value)
+    {
+        return StringUtils.substringBefore(String.valueOf(value).trim(), " ");
+    }
+
+    /**
+     * The number of terms in the graph.
+     *
+     * @return the number of terms, {@code 0} if the graph is empty
+     */
+    public int size()
+    {
+        return this.hierarchy.size();
+    }
+
+    /**
+     * Checks if a term is part of this graph.
+     *
+     * @param id the identifier of the term to check
+     * @return {@code true} if the term is known
+     */
+    public boolean contains(String id)
+    {
+        return getPosition(id) >= 0;
+    }
+
+    /**
+     * Get the identifiers of the direct parents of a term.
+     *
+     * @param id the identifier of the target term
+     * @return a set of identifiers, empty if the term is unknown or doesn't have parents
+     */
+    public Set<String> getParentIds(String id)
+    {
+        int position = getPosition(id);
+        return position < 0 ? Collections.<String>emptySet() : toIds(this.hierarchy.getParents(position), null);
+    }
+
+    /**
+     * Get the identifiers of all the ancestors, direct and indirect, of a term.
+     *
+     * @param id the identifier of the target term
+     * @return a set of identifiers, empty if the term is unknown or doesn't have ancestors
+     */
+    public Set<String> getAncestorIds(String id)
+    {
+        int position = getPosition(id);
+        return position < 0 ? Collections.<String>emptySet() : toIds(this.hierarchy.getAncestors(position), null);
+    }
+
+    /**
+     * Get the identifiers of all the ancestors, direct and indirect, of a term, together with the term itself.
+     *
+     * @param id the identifier of the target term
+     * @return a set of identifiers, empty if the term is unknown
+     */
+    public Set<String> getAncestorAndSelfIds(String id)
+    {
+        int position = getPosition(id);
+        return position < 0 ? Collections.<String>emptySet() : toIds(this.hierarchy.getAncestors(position), id);
+    }
+
+    /**
+     * Checks if a term is an ancestor, direct or indirect, of another term.
+     *
+     * @param ancestorId the identifier of the potential ancestor
+     * @param id the identifier of the potential descendant
+     * @return {@code true} if both terms are known and {@code ancestorId} is an ancestor of {@code id}
+     */
+    public boolean isAncestor(String ancestorId, String id)
+    {
+        int ancestorPosition = getPosition(ancestorId);
+        int position = getPosition(id);
+        return ancestorPosition >= 0 && position >= 0
+            && Arrays.binarySearch(this.hierarchy.getAncestors(position), ancestorPosition) >= 0;
+    }
+
+    /**
+     * Get the depth of a term, i.e. the length of the shortest path from the term up to a root of the hierarchy.
+     *
+     * @param id the identifier of the target term
+     * @return the depth of the term, {@code 0} for root terms, or {@code -1} if the term is unknown
+     */
+    public int getDepth(String id)
+    {
+        int position = getPosition(id);
+        return position < 0 ? -1 : this.hierarchy.getDepth(position);
+    }
+
+    /**
+     * Find the distance between two terms, as the minimum number of edges that connect them through a common ancestor.
+     * The parameters are interchangeable.
+     *
+     * @param fromId the identifier of the term considered the start point
+     * @param toId the identifier of the term considered the end point
+     * @return the distance between the two terms, {@code 0} if they are the same term, or {@code -1} if at least one of
+     *         the terms is unknown, or if they don't have a common ancestor
+     */
+    public int getDistance(String fromId, String toId)
+    {
+        int from = getPosition(fromId);
+        int to = getPosition(toId);
+        if (from < 0 || to < 0) {
+            return -1;
+        }
+        if (from == to) {
+            return 0;
+        }
+        int[] fromAncestors = this.hierarchy.getAncestors(from);
+        int[] fromDistances = this.hierarchy.getAncestorDistances(from);
+        int[] toAncestors = this.hierarchy.getAncestors(to);
+        int[] toDistances = this.hierarchy.getAncestorDistances(to);
+
+        // One of the terms may be an ancestor of the other
+        int best = Math.min(getAncestorDistance(fromAncestors, fromDistances, to),
+            getAncestorDistance(toAncestors, toDistances, from));
+        // Or they may meet in a common ancestor
+        int i = 0;
+        int j = 0;
+        while (i < fromAncestors.length && j < toAncestors.length) {
+            if (fromAncestors[i] < toAncestors[j]) {
+                ++i;
+            } else if (fromAncestors[i] > toAncestors[j]) {
+                ++j;
+            } else {
+                best = Math.min(best, fromDistances[i++] + toDistances[j++]);
+            }
+        }
+        return best == Integer.MAX_VALUE ? -1 : best;
+    }
+
+    /**
+     * Find the lowest common ancestors of two terms, i.e. the terms which are ancestors of (or the same as) both terms,
+     * and which are not ancestors of another common ancestor. In a tree there is only one such term, but in a DAG there
+     * may be several. The parameters are interchangeable.
+     *
+     * @param fromId the identifier of one of the terms
+     * @param toId the identifier of the other term
+     * @return the identifiers of the lowest common ancestors, deepest first, or an empty set if at least one of the
+     *         terms is unknown, or if they don't have a common ancestor
+     */
+    public Set<String> getLowestCommonAncestors(String fromId, String toId)
+    {
+        int from = getPosition(fromId);
+        int to = getPosition(toId);
+        if (from < 0 || to < 0) {
+            return Collections.emptySet();
+        }
+        int[] fromAncestors = withSelf(from);
+        int[] toAncestors = withSelf(to);
+        int[] common = new int[Math.min(fromAncestors.length, toAncestors.length)];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < fromAncestors.length && j < toAncestors.length) {
+            if (fromAncestors[i] < toAncestors[j]) {
+                ++i;
+            } else if (fromAncestors[i] > toAncestors[j]) {
+                ++j;
+            } else {
+                common[count++] = fromAncestors[i++];
+                ++j;
+            }
+        }
+
+        List<Integer> lowest = new ArrayList<>(count);
+        for (int candidate = 0; candidate < count; ++candidate) {
+            if (!isAncestorOfAny(common[candidate], common, count)) {
+                lowest.add(common[candidate]);
+            }
+        }
+        Collections.sort(lowest, new Comparator<Integer>()
+        {
+            @Override
+            public int compare(Integer a, Integer b)
+            {
+                TermHierarchy terms = OntologyGraph.this.hierarchy;
+                return Integer.compare(terms.getDepth(b), terms.getDepth(a));
+            }
+        });
+        Set<String> result = new LinkedHashSet<>();
+        for (Integer position : lowest) {
+            result.add(this.hierarchy.getId(position));
+        }
+        return result;
+    }
+
+    private static int getAncestorDistance(int[] termAncestors, int[] termDistances, int ancestor)
+    {
+        int found = Arrays.binarySearch(termAncestors, ancestor);
+        return found >= 0 ? termDistances[found] : Integer.MAX_VALUE;
+    }
+
+    private boolean isAncestorOfAny(int candidate, int[] terms, int count)
+    {
+        for (int k = 0; k < count; ++k) {
+            if (terms[k] != candidate && Arrays.binarySearch(this.hierarchy.getAncestors(terms[k]), candidate) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int[] withSelf(int position)
+    {
+        int[] termAncestors = this.hierarchy.getAncestors(position);
+        int[] result = Arrays.copyOf(termAncestors, termAncestors.length + 1);
+        result[termAncestors.length] = position;
+        Arrays.sort(result);
+        return result;
+    }
+
+    private int getPosition(String id)
+    {
+        return id == null ? -1 : this.hierarchy.getIndex(id);
+    }
+
+    private static Collection<String> getKnownIdentifiers(Collection<?> values, Map<String, ?> terms)
+    {
+        if (values == null || values.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> result = new ArrayList<>(values.size());
+        for (Object value : values) {
+            String parent = getIdentifier(value);
+            if (terms.containsKey(parent)) {
+                result.add(parent);
+            }
+        }
+        return result;
+    }
+
+    private Set<String> toIds(int[] positions, String self)
+    {
+        Set<String> result = new LinkedHashSet<>((int) ((positions.length + 1) / 0.75f) + 1);
+        if (self != null) {
+            result.add(self);
+        }
+        for (int position : positions) {
+            result.add(this.hierarchy.getId(position));
+        }
+        return result;
+    }
+}
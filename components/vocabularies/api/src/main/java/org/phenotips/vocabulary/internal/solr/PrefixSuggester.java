@@ -0,0 +1,572 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses/
+ */
+package org.phenotips.vocabulary.internal.solr;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory index answering autocomplete queries over the labels of vocabulary terms, such as names, synonyms and
+ * identifiers. Each query word must be a prefix of a different word of a label, in any order, and when there aren't
+ * enough exact matches, words within a small edit distance of a prefix are accepted as well, counting swapped adjacent
+ * letters as a single typo. The distinct words of all the labels are kept in a sorted array, which is searched like a
+ * trie: a binary search finds the words starting with a prefix, and the typo tolerant search walks the words in order,
+ * reusing the edit distance computed for the prefix they share with the previous word, and skipping all the words under
+ * a prefix that is already too far from the query.
+ * Instances are immutable and can be used by several threads at once.
+ *
+ * @version $Id$
+ * @since 1.3M1
+ */
+public final class PrefixSuggester
+{
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    private static final int[] NONE = new int[0];
+
+    /** Words of at least this length accept one typo, unless they contain digits, like identifiers. */
+    private static final int ONE_EDIT_LENGTH = 4;
+
+    /** Words of at least this length accept two typos. */
+    private static final int TWO_EDITS_LENGTH = 8;
+
+    private static final float WEIGHT_FACTOR = 10f;
+
+    private static final float EDIT_PENALTY = 25f;
+
+    private static final float START_BONUS = 3f;
+
+    private static final float EXACT_BONUS = 5f;
+
+    private static final float LENGTH_PENALTY = 0.02f;
+
+    /** Term index -&gt; term identifier. */
+    private final String[] termIds;
+
+    /** Label index -&gt; index of the labeled term. */
+    private final int[] labelTerms;
+
+    /** Label index -&gt; weight of the label. */
+    private final float[] labelWeights;
+
+    /** Label index -&gt; length of the normalized label. */
+    private final int[] labelLengths;
+
+    /** Label index -&gt; indexes of the label words, in the order they appear in the label. */
+    private final int[][] labelWords;
+
+    /** The distinct words of all the labels, sorted. */
+    private final String[] words;
+
+    /** Word index -&gt; sorted indexes of the labels containing the word. */
+    private final int[][] postings;
+
+    private PrefixSuggester(Builder builder)
+    {
+        this.termIds = builder.termIds.toArray(new String[builder.termIds.size()]);
+        int labelCount = builder.labelTerms.size();
+        this.labelTerms = new int[labelCount];
+        this.labelWeights = new float[labelCount];
+        this.labelLengths = new int[labelCount];
+        this.labelWords = new int[labelCount][];
+
+        this.words = collectWords(builder.labelTokens);
+        Map<String, Integer> wordIndexes = new HashMap<>(this.words.length * 2);
+        for (int i = 0; i < this.words.length; ++i) {
+            wordIndexes.put(this.words[i], i);
+        }
+
+        for (int label = 0; label < labelCount; ++label) {
+            this.labelTerms[label] = builder.labelTerms.get(label);
+            this.labelWeights[label] = builder.labelWeights.get(label);
+            String[] tokens = builder.labelTokens.get(label);
+            int length = tokens.length - 1;
+            int[] labelWordIndexes = new int[tokens.length];
+            for (int i = 0; i < tokens.length; ++i) {
+                length += tokens[i].length();
+                labelWordIndexes[i] = wordIndexes.get(tokens[i]);
+            }
+            this.labelLengths[label] = length;
+            this.labelWords[label] = labelWordIndexes;
+        }
+        this.postings = invert(this.labelWords, this.words.length);
+    }
+
+    /**
+     * The number of distinct words in the indexed labels.
+     *
+     * @return a positive number, or {@code 0} if nothing was indexed
+     */
+    public int getWordCount()
+    {
+        return this.words.length;
+    }
+
+    /**
+     * Finds the terms best matching a partially typed input. Exact prefix matches are always preferred, typo tolerant
+     * matches are only looked for if there aren't enough exact matches. Terms are ranked by the weight of their best
+     * matching label, then by how well the label matches: fewer typos, the label starting with the first query word,
+     * the label being exactly the query, and shorter labels are better.
+     *
+     * @param input the text typed by the user
+     * @param maxResults the maximum number of terms to return
+     * @return the identifiers of the best matching terms, best first; may be empty
+     */
+    public List<String> suggest(String input, int maxResults)
+    {
+        String[] tokens = input == null ? new String[0] : tokenize(input);
+        if (tokens.length == 0 || maxResults <= 0) {
+            return Collections.emptyList();
+        }
+        Map<Integer, Float> scores = new HashMap<>();
+        match(tokens, false, scores);
+        if (scores.size() < maxResults) {
+            match(tokens, true, scores);
+        }
+        List<Map.Entry<Integer, Float>> ranked = new ArrayList<>(scores.entrySet());
+        Collections.sort(ranked, new Comparator<Map.Entry<Integer, Float>>()
+        {
+            @Override
+            public int compare(Map.Entry<Integer, Float> a, Map.Entry<Integer, Float> b)
+            {
+                int result = Float.compare(b.getValue(), a.getValue());
+                return result != 0 ? result : Integer.compare(a.getKey(), b.getKey());
+            }
+        });
+        List<String> result = new ArrayList<>(Math.min(maxResults, ranked.size()));
+        for (int i = 0; i < ranked.size() && i < maxResults; ++i) {
+            result.add(this.termIds[ranked.get(i).getKey()]);
+        }
+        return result;
+    }
+
+    /**
+     * Normalizes a text and splits it into words: diacritics are removed, letters are lowercased, and anything other
+     * than letters, digits and colons separates words.
+     *
+     * @param text the text to split
+     * @return the words of the text, may be empty
+     */
+    static String[] tokenize(String text)
+    {
+        String normalized =
+            COMBINING_MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("").toLowerCase(
+                Locale.ROOT);
+        List<String> result = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); ++i) {
+            boolean wordChar = i < normalized.length()
+                && (Character.isLetterOrDigit(normalized.charAt(i)) || normalized.charAt(i) == ':');
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                result.add(normalized.substring(start, i));
+                start = -1;
+            }
+        }
+        return result.toArray(new String[result.size()]);
+    }
+
+    private void match(String[] tokens, boolean fuzzy, Map<Integer, Float> scores)
+    {
+        // Start from the longest word, which usually has the fewest matches, and check the others on each label
+        int pivot = 0;
+        for (int i = 1; i < tokens.length; ++i) {
+            if (tokens[i].length() > tokens[pivot].length()) {
+                pivot = i;
+            }
+        }
+        List<int[]> pivotWords = fuzzy ? findSimilarWords(tokens[pivot]) : findWords(tokens[pivot]);
+        for (int[] pivotWord : pivotWords) {
+            for (int label : this.postings[pivotWord[0]]) {
+                int edits = matchLabel(label, tokens, pivot, pivotWord[1], fuzzy);
+                if (edits >= 0) {
+                    float score = score(label, tokens, edits);
+                    Float previous = scores.get(this.labelTerms[label]);
+                    if (previous == null || previous < score) {
+                        scores.put(this.labelTerms[label], score);
+                    }
+                }
+            }
+        }
+    }
+
+    /** The number of edits needed for all the query words to match a label, given the edits of the pivot, or -1. */
+    private int matchLabel(int label, String[] tokens, int pivot, int pivotEdits, boolean fuzzy)
+    {
+        int edits = pivotEdits;
+        for (int i = 0; i < tokens.length && edits >= 0; ++i) {
+            if (i != pivot) {
+                int tokenEdits = matchLabelWord(tokens[i], this.labelWords[label], fuzzy);
+                edits = tokenEdits < 0 ? -1 : edits + tokenEdits;
+            }
+        }
+        return edits;
+    }
+
+    private float score(int label, String[] tokens, int edits)
+    {
+        int[] labelWordIndexes = this.labelWords[label];
+        float score = this.labelWeights[label] * WEIGHT_FACTOR - edits * EDIT_PENALTY
+            - this.labelLengths[label] * LENGTH_PENALTY;
+        if (this.words[labelWordIndexes[0]].startsWith(tokens[0])) {
+            score += START_BONUS;
+        }
+        if (edits == 0 && labelWordIndexes.length == tokens.length) {
+            boolean exact = true;
+            for (int i = 0; i < tokens.length && exact; ++i) {
+                exact = this.words[labelWordIndexes[i]].equals(tokens[i]);
+            }
+            if (exact) {
+                score += EXACT_BONUS;
+            }
+        }
+        return score;
+    }
+
+    /** The number of edits needed for a query word to match a prefix of one of the label words, or -1. */
+    private int matchLabelWord(String token, int[] labelWordIndexes, boolean fuzzy)
+    {
+        int maxEdits = fuzzy ? getMaxEdits(token) : 0;
+        int best = -1;
+        for (int word : labelWordIndexes) {
+            String labelWord = this.words[word];
+            if (labelWord.startsWith(token)) {
+                return 0;
+            }
+            if (maxEdits > 0 && labelWord.charAt(0) == token.charAt(0)) {
+                int edits = prefixDistance(token, labelWord, maxEdits);
+                if (edits >= 0 && (best < 0 || edits < best)) {
+                    best = edits;
+                }
+            }
+        }
+        return best;
+    }
+
+    /** The words starting with a prefix, as {word index, 0} pairs. */
+    private List<int[]> findWords(String prefix)
+    {
+        int start = lowerBound(prefix, 0, this.words.length);
+        int end = prefixEnd(prefix, start);
+        List<int[]> result = new ArrayList<>(end - start);
+        for (int i = start; i < end; ++i) {
+            result.add(new int[] { i, 0 });
+        }
+        return result;
+    }
+
+    /**
+     * The words which have a prefix within the allowed edit distance of the query word, as {word index, edits} pairs.
+     * The first letter must match, which keeps the search within a small range of words.
+     */
+    private List<int[]> findSimilarWords(String token)
+    {
+        int maxEdits = getMaxEdits(token);
+        if (maxEdits == 0) {
+            return findWords(token);
+        }
+        String firstLetter = token.substring(0, 1);
+        int start = lowerBound(firstLetter, 0, this.words.length);
+        int end = prefixEnd(firstLetter, start);
+        List<int[]> result = new ArrayList<>();
+        // rows[i] holds the edit distances between the first i letters of the current word and each prefix of the token
+        int[][] rows = new int[1][];
+        rows[0] = new int[token.length() + 1];
+        for (int j = 0; j < rows[0].length; ++j) {
+            rows[0][j] = j;
+        }
+        String previous = "";
+        int i = start;
+        while (i < end) {
+            String word = this.words[i];
+            if (word.length() + 1 > rows.length) {
+                rows = Arrays.copyOf(rows, word.length() + 1);
+            }
+            int tooFar = fillRows(rows, token, word, commonPrefixLength(previous, word), maxEdits);
+            int best = minDistance(rows, tooFar > 0 ? tooFar : word.length(), token.length());
+            int next = i + 1;
+            previous = word;
+            if (tooFar > 0) {
+                // The words sharing this prefix can't get any closer to the token, they all match just as well
+                previous = word.substring(0, tooFar);
+                next = prefixEnd(previous, i);
+            }
+            for (; best <= maxEdits && i < next; ++i) {
+                result.add(new int[] { i, best });
+            }
+            i = next;
+        }
+        return result;
+    }
+
+    /**
+     * Computes the rows of the edit distance matrix for the letters of a word which follow the prefix it shares with
+     * the previous word, since the rows of the shared prefix are already known.
+     *
+     * @return the first row where all the distances are above the limit, after which no row is computed, or -1
+     */
+    private static int fillRows(int[][] rows, String token, String word, int shared, int maxEdits)
+    {
+        int columns = token.length() + 1;
+        for (int k = shared + 1; k <= word.length(); ++k) {
+            if (rows[k] == null) {
+                rows[k] = new int[columns];
+            }
+            int[] row = rows[k];
+            row[0] = k;
+            int rowMin = k;
+            for (int j = 1; j < columns; ++j) {
+                row[j] = nextDistance(token, word, k, j, row, rows[k - 1], k > 1 ? rows[k - 2] : null);
+                rowMin = Math.min(rowMin, row[j]);
+            }
+            if (rowMin > maxEdits) {
+                return k;
+            }
+        }
+        return -1;
+    }
+
+    /** The smallest distance between the whole token and the first {@code lastRow} letters of the word, or fewer. */
+    private static int minDistance(int[][] rows, int lastRow, int column)
+    {
+        int best = Integer.MAX_VALUE;
+        for (int k = 0; k <= lastRow; ++k) {
+            best = Math.min(best, rows[k][column]);
+        }
+        return best;
+    }
+
+    private static int getMaxEdits(String token)
+    {
+        for (int i = 0; i < token.length(); ++i) {
+            if (Character.isDigit(token.charAt(i))) {
+                return 0;
+            }
+        }
+        if (token.length() >= TWO_EDITS_LENGTH) {
+            return 2;
+        }
+        return token.length() >= ONE_EDIT_LENGTH ? 1 : 0;
+    }
+
+    /** The smallest edit distance between a token and a prefix of a word, or -1 if it is above the limit. */
+    private static int prefixDistance(String token, String word, int maxEdits)
+    {
+        int columns = token.length() + 1;
+        int[] twoAbove = null;
+        int[] above = new int[columns];
+        int[] row = new int[columns];
+        for (int j = 0; j < columns; ++j) {
+            above[j] = j;
+        }
+        int best = above[token.length()];
+        for (int k = 1; k <= word.length(); ++k) {
+            row[0] = k;
+            int rowMin = k;
+            for (int j = 1; j < columns; ++j) {
+                row[j] = nextDistance(token, word, k, j, row, above, twoAbove);
+                rowMin = Math.min(rowMin, row[j]);
+            }
+            best = Math.min(best, row[token.length()]);
+            if (rowMin > maxEdits) {
+                break;
+            }
+            int[] recycled = twoAbove == null ? new int[columns] : twoAbove;
+            twoAbove = above;
+            above = row;
+            row = recycled;
+        }
+        return best <= maxEdits ? best : -1;
+    }
+
+    /**
+     * One cell of the edit distance matrix between the first {@code k} letters of a word and the first {@code j}
+     * letters of a token, where a swap of two adjacent letters counts as a single edit.
+     */
+    private static int nextDistance(String token, String word, int k, int j, int[] row, int[] above, int[] twoAbove)
+    {
+        int cost = word.charAt(k - 1) == token.charAt(j - 1) ? 0 : 1;
+        int result = Math.min(Math.min(above[j] + 1, row[j - 1] + 1), above[j - 1] + cost);
+        if (twoAbove != null && j > 1 && word.charAt(k - 1) == token.charAt(j - 2)
+            && word.charAt(k - 2) == token.charAt(j - 1)) {
+            result = Math.min(result, twoAbove[j - 2] + 1);
+        }
+        return result;
+    }
+
+    private int lowerBound(String key, int from, int to)
+    {
+        int low = from;
+        int high = to;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (this.words[middle].compareTo(key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /** The index of the first word after {@code from} which doesn't start with the prefix. */
+    private int prefixEnd(String prefix, int from)
+    {
+        int low = from;
+        int high = this.words.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (this.words[middle].startsWith(prefix) || this.words[middle].compareTo(prefix) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static int commonPrefixLength(String a, String b)
+    {
+        int length = Math.min(a.length(), b.length());
+        int i = 0;
+        while (i < length && a.charAt(i) == b.charAt(i)) {
+            ++i;
+        }
+        return i;
+    }
+
+    /** The distinct words of all the labels, sorted. */
+    private static String[] collectWords(List<String[]> labelTokens)
+    {
+        Set<String> distinctWords = new LinkedHashSet<>();
+        for (String[] tokens : labelTokens) {
+            Collections.addAll(distinctWords, tokens);
+        }
+        String[] result = distinctWords.toArray(new String[distinctWords.size()]);
+        Arrays.sort(result);
+        return result;
+    }
+
+    /** Word index -&gt; sorted indexes of the labels containing the word. */
+    private static int[][] invert(int[][] labelWords, int wordCount)
+    {
+        int[] postingSizes = new int[wordCount];
+        for (int[] labelWordIndexes : labelWords) {
+            for (int word : distinct(labelWordIndexes)) {
+                ++postingSizes[word];
+            }
+        }
+        int[][] result = new int[wordCount][];
+        for (int i = 0; i < wordCount; ++i) {
+            result[i] = new int[postingSizes[i]];
+            postingSizes[i] = 0;
+        }
+        for (int label = 0; label < labelWords.length; ++label) {
+            for (int word : distinct(labelWords[label])) {
+                result[word][postingSizes[word]++] = label;
+            }
+        }
+        return result;
+    }
+
+    private static int[] distinct(int[] values)
+    {
+        if (values.length < 2) {
+            return values;
+        }
+        int[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int count = 1;
+        for (int i = 1; i < sorted.length; ++i) {
+            if (sorted[i] != sorted[count - 1]) {
+                sorted[count++] = sorted[i];
+            }
+        }
+        return count == sorted.length ? sorted : Arrays.copyOf(sorted, count);
+    }
+
+    /**
+     * Collects the labels of the terms, then builds an immutable {@link PrefixSuggester}.
+     *
+     * @version $Id$
+     * @since 1.3M1
+     */
+    public static final class Builder
+    {
+        private final List<String> termIds = new ArrayList<>();
+
+        private final Map<String, Integer> termIndexes = new HashMap<>();
+
+        private final List<Integer> labelTerms = new ArrayList<>();
+
+        private final List<Float> labelWeights = new ArrayList<>();
+
+        private final List<String[]> labelTokens = new ArrayList<>();
+
+        /**
+         * Adds a label of a term.
+         *
+         * @param termId the identifier of the term
+         * @param label the label, for example the name, a synonym, or the identifier of the term; blank labels are
+         *            ignored
+         * @param weight how important the label is, compared to other kinds of labels
+         * @return this builder
+         */
+        public Builder add(String termId, String label, float weight)
+        {
+            if (termId == null || label == null) {
+                return this;
+            }
+            String[] tokens = tokenize(label);
+            if (tokens.length == 0) {
+                return this;
+            }
+            Integer term = this.termIndexes.get(termId);
+            if (term == null) {
+                term = this.termIds.size();
+                this.termIds.add(termId);
+                this.termIndexes.put(termId, term);
+            }
+            this.labelTerms.add(term);
+            this.labelWeights.add(weight);
+            this.labelTokens.add(tokens);
+            return this;
+        }
+
+        /**
+         * Builds the suggester from the labels added so far.
+         *
+         * @return a new suggester
+         */
+        public PrefixSuggester build()
+        {
+            return new PrefixSuggester(this);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses/
+ */
+package org.phenotips.vocabulary.internal.solr;
+
+import org.xwiki.component.annotation.Role;
+import org.xwiki.component.phase.InitializationException;
+
+/**
+ * Hands out the resources of the Solr cores used by vocabularies, creating them only once per core and releasing them
+ * when the application stops.
+ *
+ * @version $Id$
+ * @since 1.3M1
+ */
+@Role
+public interface SolrCoreRegistry
+{
+    /**
+     * Get the resources of a Solr core, creating them the first time the core is requested. All the subsequent
+     * requests for the same core return the same instance.
+     *
+     * @param coreName the name of the core, same as the name of the vocabulary stored in it
+     * @return the resources of the core, safe to use from multiple threads
+     * @throws InitializationException if the core or its caches cannot be set up
+     */
+    SolrCoreResources getResources(String coreName) throws InitializationException;
+}
@@ -0,0 +1,120 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses/
+ */
+package org.phenotips.vocabulary.internal.solr;
+
+import org.phenotips.vocabulary.VocabularyTerm;
+
+import org.xwiki.cache.Cache;
+
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.common.SolrDocumentList;
+
+/**
+ * The long-lived resources attached to a Solr core: the connection to the core and the caches of the vocabulary stored
+ * in it. All the resource managers of a core share the same instance, obtained from the {@link SolrCoreRegistry}.
+ *
+ * @version $Id$
+ * @since 1.3M1
+ */
+public final class SolrCoreResources
+{
+    private final String coreName;
+
+    private final SolrClient server;
+
+    private final Cache<VocabularyTerm> termCache;
+
+    private final Cache<SolrDocumentList> searchCache;
+
+    /** The core where a new version of the vocabulary is being indexed, if any; guarded by this object. */
+    private SolrClient replacementServer;
+
+    /**
+     * Simple constructor passing all the resources.
+     *
+     * @param coreName the name of the core, same as the name of the vocabulary
+     * @param server the connection to the core, safe to use from multiple threads
+     * @param termCache the cache of the vocabulary terms
+     * @param searchCache the cache of the search results
+     */
+    public SolrCoreResources(String coreName, SolrClient server, Cache<VocabularyTerm> termCache,
+        Cache<SolrDocumentList> searchCache)
+    {
+        this.coreName = coreName;
+        this.server = server;
+        this.termCache = termCache;
+        this.searchCache = searchCache;
+    }
+
+    /**
+     * The name of the core.
+     *
+     * @return the core name, same as the name of the vocabulary
+     */
+    public String getCoreName()
+    {
+        return this.coreName;
+    }
+
+    /**
+     * The connection to the core.
+     *
+     * @return a Solr client
+     */
+    public SolrClient getServer()
+    {
+        return this.server;
+    }
+
+    /**
+     * The cache of the vocabulary terms.
+     *
+     * @return a cache instance
+     */
+    public Cache<VocabularyTerm> getTermCache()
+    {
+        return this.termCache;
+    }
+
+    /**
+     * The cache of the search results.
+     *
+     * @return a cache instance
+     */
+    public Cache<SolrDocumentList> getSearchCache()
+    {
+        return this.searchCache;
+    }
+
+    SolrClient getReplacementServer()
+    {
+        return this.replacementServer;
+    }
+
+    void setReplacementServer(SolrClient replacementServer)
+    {
+        this.replacementServer = replacementServer;
+    }
+
+    /** Release the caches, once the core isn't used anymore. */
+    void dispose()
+    {
+        this.termCache.dispose();
+        this.searchCache.dispose();
+    }
+}
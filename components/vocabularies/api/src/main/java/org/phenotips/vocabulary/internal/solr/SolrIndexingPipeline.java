@@ -0,0 +1,193 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses/
+ */
+package org.phenotips.vocabulary.internal.solr;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.common.SolrInputDocument;
+
+/**
+ * Bounded producer/consumer pipeline for adding documents to a Solr core. The calling thread parses the source and
+ * converts terms into documents, while a background thread sends the completed batches to Solr, so that the two
+ * overlap. At most a fixed number of batches wait to be sent, which blocks the producer when Solr can't keep up and
+ * bounds the memory used. All the documents are committed at once, when the pipeline is {@link #finish() finished}.
+ *
+ * @version $Id$
+ * @since 1.3M1
+ */
+public class SolrIndexingPipeline implements AutoCloseable
+{
+    /** The default maximum number of batches waiting to be sent to Solr. */
+    public static final int DEFAULT_PENDING_BATCHES = 4;
+
+    /** Marks the end of the data, an identity check is used to recognize it. */
+    private static final Collection<SolrInputDocument> END = new ArrayList<>(0);
+
+    /** How often the producer checks if the consumer failed, while waiting for space in the queue. */
+    private static final long POLL_SECONDS = 1;
+
+    /** The core receiving the documents. */
+    private final SolrClient target;
+
+    /** The number of documents sent to Solr in one request. */
+    private final int batchSize;
+
+    /** The batches waiting to be sent. */
+    private final BlockingQueue<Collection<SolrInputDocument>> queue;
+
+    /** The background thread sending batches to Solr. */
+    private final Thread consumer;
+
+    /** The batch being filled. */
+    private List<SolrInputDocument> batch;
+
+    /** The error which stopped the consumer, if any. */
+    private volatile Exception failure;
+
+    /**
+     * Creates and starts a new pipeline.
+     *
+     * @param target the core receiving the documents
+     * @param batchSize the number of documents to send to Solr in one request
+     * @param pendingBatches the maximum number of full batches waiting to be sent
+     * @param name a name for the pipeline, used for naming the background thread
+     */
+    public SolrIndexingPipeline(SolrClient target, int batchSize, int pendingBatches, String name)
+    {
+        this.target = target;
+        this.batchSize = Math.max(1, batchSize);
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, pendingBatches));
+        this.batch = new ArrayList<>(this.batchSize);
+        this.consumer = new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                consume();
+            }
+        }, "Solr indexing: " + name);
+        this.consumer.setDaemon(true);
+        this.consumer.start();
+    }
+
+    /**
+     * Adds a document to the pipeline, sending the current batch to the background thread if it is full. This blocks
+     * if too many batches are already waiting to be sent.
+     *
+     * @param document the document to add
+     * @throws SolrServerException if sending a previous batch to Solr failed
+     * @throws IOException if communicating with Solr failed, or if the current thread was interrupted
+     */
+    public void add(SolrInputDocument document) throws SolrServerException, IOException
+    {
+        this.batch.add(document);
+        if (this.batch.size() >= this.batchSize) {
+            submit(this.batch);
+            this.batch = new ArrayList<>(this.batchSize);
+        }
+    }
+
+    /**
+     * Sends the remaining documents, waits for all the batches to be sent, then commits them all at once.
+     *
+     * @throws SolrServerException if sending the documents to Solr failed
+     * @throws IOException if communicating with Solr failed, or if the current thread was interrupted
+     */
+    public void finish() throws SolrServerException, IOException
+    {
+        if (!this.batch.isEmpty()) {
+            submit(this.batch);
+            this.batch = new ArrayList<>(0);
+        }
+        submit(END);
+        try {
+            this.consumer.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for indexing to finish", ex);
+        }
+        checkFailure();
+        this.target.commit();
+    }
+
+    /**
+     * Stops the background thread, discarding any documents not sent yet. Does nothing if the pipeline already
+     * finished.
+     */
+    @Override
+    public void close()
+    {
+        if (this.consumer.isAlive()) {
+            this.queue.clear();
+            this.consumer.interrupt();
+        }
+    }
+
+    private void submit(Collection<SolrInputDocument> documents) throws SolrServerException, IOException
+    {
+        try {
+            checkFailure();
+            while (!this.queue.offer(documents, POLL_SECONDS, TimeUnit.SECONDS)) {
+                checkFailure();
+                if (!this.consumer.isAlive()) {
+                    throw new IOException("The indexing thread stopped unexpectedly");
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while indexing", ex);
+        }
+    }
+
+    private void checkFailure() throws SolrServerException, IOException
+    {
+        Exception ex = this.failure;
+        if (ex instanceof SolrServerException) {
+            throw (SolrServerException) ex;
+        } else if (ex instanceof IOException) {
+            throw (IOException) ex;
+        } else if (ex != null) {
+            throw new SolrServerException(ex);
+        }
+    }
+
+    private void consume()
+    {
+        try {
+            Collection<SolrInputDocument> documents = this.queue.take();
+            while (documents != END) {
+                this.target.add(documents);
+                documents = this.queue.take();
+            }
+        } catch (InterruptedException ex) {
+            this.failure = new IOException("Indexing was interrupted", ex);
+        } catch (SolrServerException | IOException | RuntimeException ex) {
+            this.failure = ex;
+        }
+        // Release the pending documents, since they will never be sent
+        this.queue.clear();
+    }
+}
@@ -37,11 +37,28 @@
  */
 public final class SolrQueryUtils
 {
+    /**
+     * Query option which, when set to {@code true}, requests the spellchecked query to always be tried when the input
+     * is considered misspelled, even if the original query already returned as many results as requested.
+     *
+     * @since 1.3M1
+     */
+    public static final String SPELLCHECK_ALWAYS_RETRY = "spellcheck.alwaysRetry";
+
+    /**
+     * The number of results returned when the query doesn't specify the {@code rows} parameter.
+     *
+     * @since 1.3M1
+     */
+    public static final int DEFAULT_ROWS = 1000;
+
     /** Regular expression that checks if the last term in a query is a word stub. */
     private static final Pattern WORD_STUB = Pattern.compile("(\\w++):(\\w++)\\*$", Pattern.CASE_INSENSITIVE);
 
     private static final String SPELLCHECK = "spellcheck";
 
+    private static final String SCORE = "score";
+
     /** Private default constructor, so that this utility class can't be instantiated. */
     private SolrQueryUtils()
     {
@@ -64,8 +81,8 @@ public static SolrParams transformQueryToSolrParams(String query)
 
     /**
      * Adds extra parameters to a Solr query for better term searches. More specifically, adds parameters for requesting
-     * the score to be included in the results, for requesting a spellcheck result, and sets the {@code start} and
-     * {@code rows} parameters when missing.
+     * the score to be included in the results when they are sorted by relevance, for requesting a spellcheck result,
+     * and sets the {@code start} and {@code rows} parameters when missing.
      *
      * @param originalParams the original Solr parameters to enhance
      * @return the enhanced parameters
@@ -77,8 +94,9 @@ public static SolrParams enhanceParams(SolrParams originalParams)
 
     /**
      * Adds extra parameters to a Solr query for better term searches, including custom options. More specifically, adds
-     * parameters for requesting the score to be included in the results, for requesting a spellcheck result, and sets
-     * the {@code start} and {@code rows} parameters when missing.
+     * parameters for requesting the score to be included in the results when they are sorted by relevance, for
+     * requesting a spellcheck result, and sets the {@code start} and {@code rows} parameters when missing. When not
+     * specified, {@code rows} defaults to {@value #DEFAULT_ROWS}.
      *
      * @param originalParams the original Solr parameters to enhance
      * @param queryOptions extra options to include in the query; these override the default values, but don't override
@@ -92,8 +110,7 @@ public static SolrParams enhanceParams(SolrParams originalParams, Map<String, St
         }
         ModifiableSolrParams newParams = new ModifiableSolrParams();
         newParams.set(CommonParams.START, "0");
-        newParams.set(CommonParams.ROWS, "1000");
-        newParams.set(CommonParams.FL, "* score");
+        newParams.set(CommonParams.ROWS, DEFAULT_ROWS);
         if (queryOptions != null) {
             for (Map.Entry<String, String> item : queryOptions.entrySet()) {
                 newParams.set(item.getKey(), item.getValue());
@@ -106,6 +123,9 @@ public static SolrParams enhanceParams(SolrParams originalParams, Map<String, St
                 newParams.set(item.getKey(), String.valueOf(item.getValue()));
             }
         }
+        if (newParams.get(CommonParams.FL) == null) {
+            newParams.set(CommonParams.FL, getDefaultFieldList(newParams.get(CommonParams.SORT)));
+        }
         if (newParams.get(SPELLCHECK) == null) {
             newParams.set(SPELLCHECK, Boolean.toString(true));
             newParams.set(SpellingParams.SPELLCHECK_COLLATE, Boolean.toString(true));
@@ -113,6 +133,21 @@ public static SolrParams enhanceParams(SolrParams originalParams, Map<String, St
         return newParams;
     }
 
+    /**
+     * Computing the score is wasted work when the results are sorted by something else, so it is only requested when
+     * sorting by relevance.
+     *
+     * @param sort the requested sort order, may be {@code null}
+     * @return the list of fields to return
+     */
+    private static String getDefaultFieldList(String sort)
+    {
+        if (sort == null || sort.contains(SCORE)) {
+            return "* " + SCORE;
+        }
+        return "*";
+    }
+
     /**
      * Replaces the original query in the Solr parameters with the suggested spellchecked query. It also fixes the boost
      * query, if any.
@@ -64,6 +64,34 @@ public class SolrVocabularyTerm implements VocabularyTerm
      */
     private Vocabulary ontology;
 
+    /**
+     * The in-memory hierarchy of the owner ontology, used for computing distances, may be {@code null}.
+     *
+     * @see #getDistanceTo(VocabularyTerm)
+     */
+    private OntologyGraph graph;
+
+    /**
+     * The identifiers of the parents of this term.
+     *
+     * @see #getParentIds()
+     */
+    private Set<String> parentIds;
+
+    /**
+     * The identifiers of the ancestors of this term.
+     *
+     * @see #getAncestorIds()
+     */
+    private Set<String> ancestorIds;
+
+    /**
+     * The identifiers of the ancestors of this term, together with the term itself.
+     *
+     * @see #getAncestorAndSelfIds()
+     */
+    private Set<String> ancestorAndSelfIds;
+
     /**
      * The parents of this term, transformed from a set of IDs into a real set of terms.
      *
@@ -92,22 +120,59 @@ public class SolrVocabularyTerm implements VocabularyTerm
      * @param ontology the {@link #ontology owner ontology}
      */
     public SolrVocabularyTerm(SolrDocument doc, Vocabulary ontology)
+    {
+        this(doc, ontology, null);
+    }
+
+    /**
+     * Constructor that also provides the in-memory {@link OntologyGraph hierarchy} of the owner ontology, from which the
+     * parents and ancestors of the term are computed, instead of the values stored in the Solr document.
+     *
+     * @param doc the {@link #doc Solr document} representing this term
+     * @param ontology the {@link #ontology owner ontology}
+     * @param graph the hierarchy of the owner ontology, may be {@code null} if not available, or if the term isn't part
+     *            of the graph, in which case the values stored in the Solr document are used
+     * @since 1.3M1
+     */
+    public SolrVocabularyTerm(SolrDocument doc, Vocabulary ontology, OntologyGraph graph)
     {
         this.doc = doc;
         this.ontology = ontology;
         if (doc != null) {
             this.removeSelfDuplicate();
-            this.parents = new LazySolrTermSet(doc.getFieldValues(IS_A), ontology);
-            this.ancestors = new LazySolrTermSet(doc.getFieldValues(TERM_CATEGORY), ontology);
-            Collection<Object> termSet = new HashSet<Object>();
-            termSet.add(this.getId());
-            if (doc.getFieldValues(TERM_CATEGORY) != null) {
-                termSet.addAll(doc.getFieldValues(TERM_CATEGORY));
+            String id = this.getId();
+            if (graph != null && graph.contains(id)) {
+                this.graph = graph;
+                this.parentIds = graph.getParentIds(id);
+                this.ancestorIds = graph.getAncestorIds(id);
+                this.ancestorAndSelfIds = graph.getAncestorAndSelfIds(id);
+            } else {
+                this.parentIds = toIds(doc.getFieldValues(IS_A), null);
+                // The stored categories may include the term itself, whatever the type of the stored value
+                this.ancestorIds = toIds(doc.getFieldValues(TERM_CATEGORY), id);
+                Set<String> termSet = new HashSet<String>(this.ancestorIds);
+                termSet.add(id);
+                this.ancestorAndSelfIds = Collections.unmodifiableSet(termSet);
             }
-            this.ancestorsAndSelf = new LazySolrTermSet(termSet, this.ontology);
+            this.parents = new LazySolrTermSet(this.parentIds, ontology);
+            this.ancestors = new LazySolrTermSet(this.ancestorIds, ontology);
+            this.ancestorsAndSelf = new LazySolrTermSet(this.ancestorAndSelfIds, ontology);
         }
     }
 
+    private static Set<String> toIds(Collection<Object> values, String excluded)
+    {
+        if (values == null || values.isEmpty()) {
+            return Collections.emptySet();
+        }
+        Set<String> result = new HashSet<String>(values.size());
+        for (Object value : values) {
+            result.add(OntologyGraph.getIdentifier(value));
+        }
+        result.remove(excluded);
+        return Collections.unmodifiableSet(result);
+    }
+
     /**
      * The field "term_category" in {@code this.doc} can contain the term itself. It appears that this only happens with
      * HPO. To avoid this problem, and to avoid writing a separate implementation for HPO specifically, this method
@@ -160,6 +225,24 @@ public Set<VocabularyTerm> getAncestorsAndSelf()
         return this.ancestorsAndSelf != null ? this.ancestorsAndSelf : Collections.<VocabularyTerm>emptySet();
     }
 
+    @Override
+    public Set<String> getParentIds()
+    {
+        return this.parentIds != null ? this.parentIds : Collections.<String>emptySet();
+    }
+
+    @Override
+    public Set<String> getAncestorIds()
+    {
+        return this.ancestorIds != null ? this.ancestorIds : Collections.<String>emptySet();
+    }
+
+    @Override
+    public Set<String> getAncestorAndSelfIds()
+    {
+        return this.ancestorAndSelfIds != null ? this.ancestorAndSelfIds : Collections.<String>emptySet();
+    }
+
     @Override
     public Object get(String name)
     {
@@ -187,6 +270,9 @@ public long getDistanceTo(final VocabularyTerm other)
         if (this.equals(other)) {
             return 0;
         }
+        if (this.graph != null && this.graph.contains(other.getId())) {
+            return this.graph.getDistance(getId(), other.getId());
+        }
 
         long distance = Integer.MAX_VALUE;
 
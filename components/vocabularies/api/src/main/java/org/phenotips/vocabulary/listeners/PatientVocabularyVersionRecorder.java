@@ -20,7 +20,7 @@
 import org.phenotips.Constants;
 import org.phenotips.data.Patient;
 import org.phenotips.data.events.PatientChangingEvent;
-import org.phenotips.vocabulary.Vocabulary;
+import org.phenotips.vocabulary.VocabularyManager;
 
 import org.xwiki.component.annotation.Component;
 import org.xwiki.context.Execution;
@@ -29,10 +29,8 @@
 import org.xwiki.observation.AbstractEventListener;
 import org.xwiki.observation.event.Event;
 
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -64,9 +62,9 @@ public class PatientVocabularyVersionRecorder extends AbstractEventListener
 
     private static final String VERSION_FIELD = "version";
 
-    /** Access to services that are needed to get the ontology version. */
+    /** Provides the versions of the vocabularies, kept in memory between reindexes. */
     @Inject
-    private Map<String, Vocabulary> ontologies;
+    private VocabularyManager vocabularies;
 
     @Inject
     private Execution execution;
@@ -121,14 +119,6 @@ public void onEvent(Event event, Object source, Object data)
      */
     public Map<String, String> getOntologiesVersions()
     {
-        Map<String, String> result = new HashMap<>();
-
-        for (Entry<String, Vocabulary> ontology : this.ontologies.entrySet()) {
-            String version = ontology.getValue().getVersion();
-            if (StringUtils.isNotBlank(version)) {
-                result.put(ontology.getKey(), version);
-            }
-        }
-        return result;
+        return this.vocabularies.getVersions();
     }
 }
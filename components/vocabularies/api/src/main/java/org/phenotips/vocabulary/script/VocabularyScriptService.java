@@ -18,6 +18,7 @@
 package org.phenotips.vocabulary.script;
 
 import org.phenotips.vocabulary.Vocabulary;
+import org.phenotips.vocabulary.VocabularyCacheStatistics;
 import org.phenotips.vocabulary.VocabularyManager;
 import org.phenotips.vocabulary.VocabularyTerm;
 
@@ -25,6 +26,11 @@
 import org.xwiki.script.service.ScriptService;
 import org.xwiki.stability.Unstable;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
@@ -85,4 +91,54 @@ public Vocabulary get(String vocabularyId)
     {
         return this.manager.getVocabulary(vocabularyId);
     }
+
+    /**
+     * Get the versions of all the available vocabularies.
+     *
+     * @return the version of each vocabulary which has a known version, keyed by the vocabulary name
+     * @see VocabularyManager#getVersions()
+     * @since 1.3M1
+     */
+    public Map<String, String> getVersions()
+    {
+        return this.manager.getVersions();
+    }
+
+    /**
+     * Reindex several vocabularies concurrently, each one from its default source.
+     *
+     * @param vocabularyIds the identifiers or aliases of the vocabularies to reindex, for example {@code hpo} and
+     *            {@code omim}; if empty, all the available vocabularies are reindexed
+     * @return the result of each reindex, {@code 0} meaning success, keyed by vocabulary identifier
+     * @see VocabularyManager#reindex(Collection)
+     * @since 1.3M1
+     */
+    public Map<String, Integer> reindex(Collection<String> vocabularyIds)
+    {
+        return this.manager.reindex(vocabularyIds);
+    }
+
+    /**
+     * Get statistics about the caches of a vocabulary, useful for tuning their size and expiration time.
+     *
+     * @param vocabularyId the identifier or an alias of the vocabulary, for example {@code hpo}
+     * @return the statistics of the term cache under the {@code termCache} key, and the statistics of the search
+     *         cache under the {@code searchCache} key, as returned by
+     *         {@link VocabularyCacheStatistics#getTermCacheStatistics()} and
+     *         {@link VocabularyCacheStatistics#getSearchCacheStatistics()}; an empty map if the vocabulary doesn't
+     *         exist or doesn't report cache statistics
+     * @since 1.3M1
+     */
+    public Map<String, Map<String, Long>> getCacheStatistics(String vocabularyId)
+    {
+        Vocabulary vocabulary = this.manager.getVocabulary(vocabularyId);
+        if (!(vocabulary instanceof VocabularyCacheStatistics)) {
+            return Collections.emptyMap();
+        }
+        VocabularyCacheStatistics statistics = (VocabularyCacheStatistics) vocabulary;
+        Map<String, Map<String, Long>> result = new LinkedHashMap<>();
+        result.put("termCache", statistics.getTermCacheStatistics());
+        result.put("searchCache", statistics.getSearchCacheStatistics());
+        return result;
+    }
 }
@@ -0,0 +1,117 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses/
+ */
+package org.phenotips.vocabulary.internal;
+
+import org.phenotips.vocabulary.Vocabulary;
+import org.phenotips.vocabulary.VocabularyTerm;
+
+import org.xwiki.component.util.ReflectionUtils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for the bulk term lookups of {@link DefaultVocabularyManager}.
+ *
+ * @version $Id$
+ */
+public class DefaultVocabularyManagerTest
+{
+    private DefaultVocabularyManager manager;
+
+    private Vocabulary hpo;
+
+    private VocabularyTerm abnormality;
+
+    private VocabularyTerm seizure;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        this.hpo = mock(Vocabulary.class);
+        when(this.hpo.getAliases()).thenReturn(new HashSet<>(Arrays.asList("hpo", "HP")));
+        this.abnormality = mockTerm("HP:0000118");
+        this.seizure = mockTerm("HP:0001250");
+
+        Map<String, Vocabulary> vocabularies = new HashMap<>();
+        vocabularies.put("hpo", this.hpo);
+        this.manager = new DefaultVocabularyManager();
+        ReflectionUtils.setFieldValue(this.manager, "vocabularies", vocabularies);
+        this.manager.initialize();
+    }
+
+    @Test
+    public void resolveTermsGroupsTermsByVocabulary()
+    {
+        Set<String> ids = new HashSet<>(Arrays.asList("HP:0000118", "HP:0001250"));
+        when(this.hpo.getTerms(ids)).thenReturn(new LinkedHashSet<>(Arrays.asList(this.abnormality, this.seizure)));
+
+        Map<String, VocabularyTerm> result = this.manager.resolveTerms(Arrays.asList("HP:0000118", "HP:0001250",
+            "UNKNOWN:1"));
+
+        Assert.assertEquals(2, result.size());
+        Assert.assertSame(this.abnormality, result.get("HP:0000118"));
+        Assert.assertSame(this.seizure, result.get("HP:0001250"));
+        verify(this.hpo, never()).getTerm("HP:0000118");
+    }
+
+    @Test
+    public void resolveTermsKeysTermsByTheRequestedAlternativeId()
+    {
+        // HP:0001251 is an alternative identifier of HP:0001250
+        Set<String> ids = new HashSet<>(Arrays.asList("HP:0000118", "HP:0001251", "HP:9999999"));
+        when(this.hpo.getTerms(ids)).thenReturn(new LinkedHashSet<>(Arrays.asList(this.abnormality, this.seizure)));
+        when(this.hpo.getTerm("HP:0001251")).thenReturn(this.seizure);
+
+        Map<String, VocabularyTerm> result = this.manager.resolveTerms(ids);
+
+        Assert.assertEquals(2, result.size());
+        Assert.assertSame(this.abnormality, result.get("HP:0000118"));
+        Assert.assertSame(this.seizure, result.get("HP:0001251"));
+        Assert.assertFalse(result.containsKey("HP:0001250"));
+        Assert.assertFalse(result.containsKey("HP:9999999"));
+    }
+
+    @Test
+    public void resolveTermsWithNoIdsReturnsEmptyMap()
+    {
+        Assert.assertTrue(this.manager.resolveTerms(Collections.<String>emptySet()).isEmpty());
+        Assert.assertTrue(this.manager.resolveTerms(null).isEmpty());
+    }
+
+    private VocabularyTerm mockTerm(String id)
+    {
+        VocabularyTerm term = mock(VocabularyTerm.class);
+        when(term.getId()).thenReturn(id);
+        return term;
+    }
+}
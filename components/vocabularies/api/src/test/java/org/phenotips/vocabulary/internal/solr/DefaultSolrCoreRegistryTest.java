@@ -0,0 +1,170 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses/
+ */
+package org.phenotips.vocabulary.internal.solr;
+
+import org.phenotips.vocabulary.SolrCoreContainerHandler;
+
+import org.xwiki.cache.Cache;
+import org.xwiki.cache.CacheManager;
+import org.xwiki.cache.config.CacheConfiguration;
+import org.xwiki.cache.eviction.EntryEvictionConfiguration;
+import org.xwiki.cache.eviction.LRUEvictionConfiguration;
+import org.xwiki.component.phase.Disposable;
+import org.xwiki.configuration.ConfigurationSource;
+import org.xwiki.test.mockito.MockitoComponentMockingRule;
+
+import java.util.List;
+
+import org.apache.solr.core.CoreContainer;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link DefaultSolrCoreRegistry}, which creates the connection and the caches of each Solr core.
+ *
+ * @version $Id$
+ */
+public class DefaultSolrCoreRegistryTest
+{
+    @Rule
+    public final MockitoComponentMockingRule<SolrCoreRegistry> mocker =
+        new MockitoComponentMockingRule<SolrCoreRegistry>(DefaultSolrCoreRegistry.class);
+
+    private ConfigurationSource configuration;
+
+    private CacheManager cacheManager;
+
+    private Cache<Object> cache;
+
+    @SuppressWarnings("unchecked")
+    @Before
+    public void setUp() throws Exception
+    {
+        SolrCoreContainerHandler cores = this.mocker.getInstance(SolrCoreContainerHandler.class);
+        when(cores.getContainer()).thenReturn(mock(CoreContainer.class));
+        this.cacheManager = this.mocker.getInstance(CacheManager.class);
+        this.cache = mock(Cache.class);
+        when(this.cacheManager.createNewLocalCache(Mockito.any(CacheConfiguration.class))).thenReturn(this.cache);
+        this.configuration = this.mocker.getInstance(ConfigurationSource.class, "xwikiproperties");
+        Answer<Object> defaultValue = new Answer<Object>()
+        {
+            @Override
+            public Object answer(InvocationOnMock invocation)
+            {
+                return invocation.getArguments()[1];
+            }
+        };
+        when(this.configuration.getProperty(Mockito.anyString(), Mockito.anyInt())).thenAnswer(defaultValue);
+        when(this.configuration.getProperty(Mockito.anyString(), Mockito.anyString())).thenAnswer(defaultValue);
+    }
+
+    @Test
+    public void termCacheIsBoundedByDefault() throws Exception
+    {
+        this.mocker.getComponentUnderTest().getResources("hpo");
+
+        List<CacheConfiguration> configurations = getCacheConfigurations();
+        CacheConfiguration termCache = configurations.get(0);
+        Assert.assertEquals("phenotips.vocabularies.hpo.termCache", termCache.getConfigurationId());
+        LRUEvictionConfiguration eviction =
+            (LRUEvictionConfiguration) termCache.get(EntryEvictionConfiguration.CONFIGURATIONID);
+        Assert.assertEquals(20000, eviction.getMaxEntries());
+        Assert.assertEquals(0, eviction.getTimeToLive());
+
+        CacheConfiguration searchCache = configurations.get(1);
+        Assert.assertEquals("phenotips.vocabularies.hpo.searchCache", searchCache.getConfigurationId());
+        eviction = (LRUEvictionConfiguration) searchCache.get(EntryEvictionConfiguration.CONFIGURATIONID);
+        Assert.assertEquals(1000, eviction.getMaxEntries());
+        Assert.assertEquals(3600, eviction.getTimeToLive());
+    }
+
+    @Test
+    public void termCacheSizeAndExpirationAreConfigurablePerVocabulary() throws Exception
+    {
+        when(this.configuration.getProperty("phenotips.vocabularies.omim.termCache.maxEntries", 20000))
+            .thenReturn(500);
+        when(this.configuration.getProperty("phenotips.vocabularies.omim.termCache.timeToLive", 0)).thenReturn(60);
+
+        this.mocker.getComponentUnderTest().getResources("omim");
+
+        EntryEvictionConfiguration eviction = getTermCacheEviction();
+        Assert.assertEquals(500, ((LRUEvictionConfiguration) eviction).getMaxEntries());
+        Assert.assertEquals(60, eviction.getTimeToLive());
+    }
+
+    @Test
+    public void termCacheEvictionCanBeDisabled() throws Exception
+    {
+        when(this.configuration.getProperty("phenotips.vocabularies.chebi.termCache.eviction", "lru"))
+            .thenReturn("none");
+
+        this.mocker.getComponentUnderTest().getResources("chebi");
+
+        EntryEvictionConfiguration eviction = getTermCacheEviction();
+        Assert.assertFalse(eviction instanceof LRUEvictionConfiguration);
+        Assert.assertEquals(EntryEvictionConfiguration.Algorithm.NONE, eviction.getAlgorithm());
+    }
+
+    @Test
+    public void resourcesAreCreatedOncePerCore() throws Exception
+    {
+        SolrCoreRegistry registry = this.mocker.getComponentUnderTest();
+        SolrCoreResources hpo = registry.getResources("hpo");
+
+        Assert.assertSame(hpo, registry.getResources("hpo"));
+        Assert.assertNotSame(hpo, registry.getResources("omim"));
+        Assert.assertEquals("hpo", hpo.getCoreName());
+        verify(this.cacheManager, times(4)).createNewLocalCache(Mockito.any(CacheConfiguration.class));
+    }
+
+    @Test
+    public void disposeReleasesTheCaches() throws Exception
+    {
+        SolrCoreRegistry registry = this.mocker.getComponentUnderTest();
+        SolrCoreResources hpo = registry.getResources("hpo");
+
+        ((Disposable) registry).dispose();
+
+        verify(this.cache, times(2)).dispose();
+        Assert.assertNotSame(hpo, registry.getResources("hpo"));
+    }
+
+    private EntryEvictionConfiguration getTermCacheEviction() throws Exception
+    {
+        return (EntryEvictionConfiguration) getCacheConfigurations().get(0)
+            .get(EntryEvictionConfiguration.CONFIGURATIONID);
+    }
+
+    private List<CacheConfiguration> getCacheConfigurations() throws Exception
+    {
+        ArgumentCaptor<CacheConfiguration> configurations = ArgumentCaptor.forClass(CacheConfiguration.class);
+        verify(this.cacheManager, times(2)).createNewLocalCache(configurations.capture());
+        return configurations.getAllValues();
+    }
+}
@@ -17,11 +17,34 @@
  */
 package org.phenotips.vocabulary.internal.solr;
 
+import org.phenotips.vocabulary.SolrCoreContainerHandler;
 import org.phenotips.vocabulary.SolrVocabularyResourceManager;
+import org.phenotips.vocabulary.VocabularyTerm;
 
+import org.xwiki.cache.Cache;
 import org.xwiki.test.mockito.MockitoComponentMockingRule;
 
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.client.solrj.embedded.EmbeddedSolrServer;
+import org.apache.solr.common.SolrDocumentList;
+import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.core.CoreContainer;
+import org.junit.Assert;
 import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 /**
  * Test for the implementation of DefaultSolrVocabularyResourceManager. It is the class that creates a connection to the
@@ -29,7 +52,136 @@
  */
 public class DefaultSolrVocabularyInitializerTest
 {
+    private static final String CORE = "vocabulary";
+
     @Rule
     public final MockitoComponentMockingRule<SolrVocabularyResourceManager> mocker =
         new MockitoComponentMockingRule<SolrVocabularyResourceManager>(DefaultSolrVocabularyResourceManager.class);
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void initializeUsesTheSharedResourcesOfTheCore() throws Exception
+    {
+        Cache<VocabularyTerm> termCache = mock(Cache.class);
+        Cache<SolrDocumentList> searchCache = mock(Cache.class);
+        SolrClient server = mock(SolrClient.class);
+        SolrCoreRegistry registry = this.mocker.getInstance(SolrCoreRegistry.class);
+        when(registry.getResources("hpo")).thenReturn(new SolrCoreResources("hpo", server, termCache, searchCache));
+
+        SolrVocabularyResourceManager manager = this.mocker.getComponentUnderTest();
+        manager.initialize("hpo");
+
+        Assert.assertSame(server, manager.getSolrConnection());
+        Assert.assertSame(termCache, manager.getTermCache());
+        Assert.assertSame(searchCache, manager.getSearchCache());
+    }
+
+    @Test
+    public void reindexedCoreIsKeptAcrossRestarts() throws Exception
+    {
+        Path home = createSolrHome();
+        CoreContainer container = new CoreContainer(home.toString());
+        container.load();
+        try {
+            SolrVocabularyResourceManager manager = initialize(container);
+            reindex(manager, "first");
+            reindex(manager, "second");
+            Assert.assertEquals(Collections.singleton(CORE), new HashSet<>(container.getCoreNames()));
+        } finally {
+            container.shutdown();
+        }
+
+        // The original instance directory holds the configuration and must survive, while only the directory of the
+        // core currently in use may be left from the reindexes
+        Assert.assertTrue(Files.isRegularFile(home.resolve(CORE).resolve("conf").resolve("solrconfig.xml")));
+        int replacementDirectories = 0;
+        try (DirectoryStream<Path> children = Files.newDirectoryStream(home, CORE + "_replacement_*")) {
+            for (Path child : children) {
+                ++replacementDirectories;
+            }
+        }
+        Assert.assertTrue(replacementDirectories <= 1);
+
+        container = new CoreContainer(home.toString());
+        container.load();
+        try {
+            Assert.assertEquals(Collections.singleton(CORE), new HashSet<>(container.getCoreNames()));
+            SolrDocumentList docs =
+                new EmbeddedSolrServer(container, CORE).query(new SolrQuery("*:*")).getResults();
+            Assert.assertEquals(1, docs.size());
+            Assert.assertEquals("second", docs.get(0).getFieldValue("id"));
+        } finally {
+            container.shutdown();
+        }
+    }
+
+    @Test
+    public void createReplacementCoreLeavesARunningReindexAlone() throws Exception
+    {
+        CoreContainer container = new CoreContainer(createSolrHome().toString());
+        container.load();
+        try {
+            SolrVocabularyResourceManager manager = initialize(container);
+            SolrClient replacement = manager.createReplacementCore();
+            Assert.assertNotNull(replacement);
+
+            Assert.assertNull(manager.createReplacementCore());
+
+            SolrInputDocument doc = new SolrInputDocument();
+            doc.setField("id", "term");
+            replacement.add(doc);
+            replacement.commit();
+            Assert.assertTrue(manager.replaceCore());
+            Assert.assertEquals(1, manager.getSolrConnection().query(new SolrQuery("*:*")).getResults().size());
+        } finally {
+            container.shutdown();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private SolrVocabularyResourceManager initialize(CoreContainer container) throws Exception
+    {
+        SolrCoreContainerHandler handler = this.mocker.getInstance(SolrCoreContainerHandler.class);
+        when(handler.getContainer()).thenReturn(container);
+        SolrCoreRegistry registry = this.mocker.getInstance(SolrCoreRegistry.class);
+        when(registry.getResources(CORE)).thenReturn(new SolrCoreResources(CORE, new EmbeddedSolrServer(container,
+            CORE), mock(Cache.class), mock(Cache.class)));
+        SolrVocabularyResourceManager manager = this.mocker.getComponentUnderTest();
+        manager.initialize(CORE);
+        return manager;
+    }
+
+    private void reindex(SolrVocabularyResourceManager manager, String id) throws Exception
+    {
+        SolrClient replacement = manager.createReplacementCore();
+        SolrInputDocument doc = new SolrInputDocument();
+        doc.setField("id", id);
+        replacement.add(doc);
+        replacement.commit();
+        Assert.assertTrue(manager.replaceCore());
+        SolrDocumentList docs = manager.getSolrConnection().query(new SolrQuery("*:*")).getResults();
+        Assert.assertEquals(1, docs.size());
+        Assert.assertEquals(id, docs.get(0).getFieldValue("id"));
+    }
+
+    private Path createSolrHome() throws Exception
+    {
+        Path home = this.folder.newFolder("solr").toPath();
+        Path conf = Files.createDirectories(home.resolve(CORE).resolve("conf"));
+        copyResource("solr.xml", home);
+        copyResource(CORE + "/conf/solrconfig.xml", conf);
+        copyResource(CORE + "/conf/schema.xml", conf);
+        Files.createFile(home.resolve(CORE).resolve("core.properties"));
+        return home;
+    }
+
+    private void copyResource(String name, Path targetDirectory) throws Exception
+    {
+        try (InputStream source = getClass().getResourceAsStream("/solr/" + name)) {
+            Files.copy(source, targetDirectory.resolve(Paths.get(name).getFileName()));
+        }
+    }
 }
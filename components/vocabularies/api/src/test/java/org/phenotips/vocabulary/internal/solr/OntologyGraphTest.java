@@ -0,0 +1,153 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses/
+ */
+package org.phenotips.vocabulary.internal.solr;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for the {@link OntologyGraph} in-memory vocabulary hierarchy.
+ *
+ * @version $Id$
+ */
+public class OntologyGraphTest
+{
+    private OntologyGraph graph;
+
+    /**
+     * Builds a small diamond-shaped hierarchy.
+     *
+     * <pre>
+     *       HP:1
+     *      /    \
+     *    HP:2   HP:3
+     *      \    /  \
+     *       HP:4   HP:5
+     * </pre>
+     */
+    @Before
+    public void setUp()
+    {
+        Map<String, Collection<String>> parents = new LinkedHashMap<>();
+        parents.put("HP:4", Arrays.asList("HP:2 ! Two", "HP:3 ! Three"));
+        parents.put("HP:1", Collections.<String>emptySet());
+        parents.put("HP:2", Arrays.asList("HP:1 ! One"));
+        parents.put("HP:3", Arrays.asList("HP:1"));
+        parents.put("HP:5", Arrays.asList("HP:3", "HP:9 ! Unknown"));
+        this.graph = new OntologyGraph(parents);
+    }
+
+    @Test
+    public void sizeAndContains()
+    {
+        Assert.assertEquals(5, this.graph.size());
+        Assert.assertTrue(this.graph.contains("HP:4"));
+        Assert.assertFalse(this.graph.contains("HP:9"));
+        Assert.assertFalse(this.graph.contains(null));
+    }
+
+    @Test
+    public void getParentIdsStripsCommentsAndIgnoresUnknownTerms()
+    {
+        Assert.assertEquals(new HashSet<>(Arrays.asList("HP:2", "HP:3")), this.graph.getParentIds("HP:4"));
+        Assert.assertEquals(Collections.singleton("HP:3"), this.graph.getParentIds("HP:5"));
+        Assert.assertTrue(this.graph.getParentIds("HP:1").isEmpty());
+        Assert.assertTrue(this.graph.getParentIds("HP:9").isEmpty());
+    }
+
+    @Test
+    public void getAncestorIds()
+    {
+        Assert.assertEquals(new HashSet<>(Arrays.asList("HP:1", "HP:2", "HP:3")), this.graph.getAncestorIds("HP:4"));
+        Assert.assertEquals(new HashSet<>(Arrays.asList("HP:1", "HP:3", "HP:5")),
+            this.graph.getAncestorAndSelfIds("HP:5"));
+        Assert.assertTrue(this.graph.getAncestorIds("HP:1").isEmpty());
+        Assert.assertEquals(Collections.singleton("HP:1"), this.graph.getAncestorAndSelfIds("HP:1"));
+        Assert.assertTrue(this.graph.getAncestorAndSelfIds("HP:9").isEmpty());
+    }
+
+    @Test
+    public void isAncestor()
+    {
+        Assert.assertTrue(this.graph.isAncestor("HP:1", "HP:4"));
+        Assert.assertTrue(this.graph.isAncestor("HP:3", "HP:5"));
+        Assert.assertFalse(this.graph.isAncestor("HP:2", "HP:5"));
+        Assert.assertFalse(this.graph.isAncestor("HP:4", "HP:4"));
+        Assert.assertFalse(this.graph.isAncestor("HP:9", "HP:4"));
+    }
+
+    @Test
+    public void getDepth()
+    {
+        Assert.assertEquals(0, this.graph.getDepth("HP:1"));
+        Assert.assertEquals(1, this.graph.getDepth("HP:3"));
+        Assert.assertEquals(2, this.graph.getDepth("HP:4"));
+        Assert.assertEquals(-1, this.graph.getDepth("HP:9"));
+    }
+
+    @Test
+    public void getDistance()
+    {
+        Assert.assertEquals(0, this.graph.getDistance("HP:4", "HP:4"));
+        Assert.assertEquals(1, this.graph.getDistance("HP:4", "HP:2"));
+        Assert.assertEquals(2, this.graph.getDistance("HP:1", "HP:4"));
+        Assert.assertEquals(2, this.graph.getDistance("HP:4", "HP:5"));
+        Assert.assertEquals(3, this.graph.getDistance("HP:2", "HP:5"));
+        Assert.assertEquals(3, this.graph.getDistance("HP:5", "HP:2"));
+        Assert.assertEquals(-1, this.graph.getDistance("HP:9", "HP:1"));
+    }
+
+    @Test
+    public void getDistanceWithoutCommonAncestor()
+    {
+        Map<String, Collection<String>> parents = new LinkedHashMap<>();
+        parents.put("A", Collections.<String>emptySet());
+        parents.put("B", Collections.<String>emptySet());
+        Assert.assertEquals(-1, new OntologyGraph(parents).getDistance("A", "B"));
+    }
+
+    @Test
+    public void getLowestCommonAncestors()
+    {
+        Assert.assertEquals(Collections.singleton("HP:3"), this.graph.getLowestCommonAncestors("HP:4", "HP:5"));
+        Assert.assertEquals(Collections.singleton("HP:1"), this.graph.getLowestCommonAncestors("HP:2", "HP:3"));
+        Assert.assertEquals(Collections.singleton("HP:2"), this.graph.getLowestCommonAncestors("HP:4", "HP:2"));
+        Assert.assertTrue(this.graph.getLowestCommonAncestors("HP:4", "HP:9").isEmpty());
+    }
+
+    @Test
+    public void cyclesAreTolerated()
+    {
+        Map<String, Collection<String>> parents = new LinkedHashMap<>();
+        parents.put("A", Arrays.asList("B"));
+        parents.put("B", Arrays.asList("A"));
+        parents.put("C", Arrays.asList("C", "A"));
+        OntologyGraph cyclic = new OntologyGraph(parents);
+        Assert.assertEquals(Collections.singleton("B"), cyclic.getAncestorIds("A"));
+        Assert.assertEquals(Collections.singleton("A"), cyclic.getAncestorIds("B"));
+        Assert.assertEquals(new HashSet<>(Arrays.asList("A", "B")), cyclic.getAncestorIds("C"));
+    }
+}
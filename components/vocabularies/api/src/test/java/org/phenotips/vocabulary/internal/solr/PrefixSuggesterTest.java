@@ -0,0 +1,152 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses/
+ */
+package org.phenotips.vocabulary.internal.solr;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for the {@link PrefixSuggester} in-memory autocomplete index.
+ *
+ * @version $Id$
+ */
+public class PrefixSuggesterTest
+{
+    private PrefixSuggester suggester;
+
+    @Before
+    public void setUp()
+    {
+        PrefixSuggester.Builder builder = new PrefixSuggester.Builder();
+        addTerm(builder, "HP:0001250", "Seizures", "Epileptic seizures", "Seizure");
+        addTerm(builder, "HP:0002069", "Generalized tonic-clonic seizures", "Grand mal seizures");
+        addTerm(builder, "HP:0001263", "Global developmental delay", "Psychomotor retardation");
+        addTerm(builder, "HP:0000252", "Microcephaly", "Small head circumference");
+        addTerm(builder, "HP:0000256", "Macrocephaly", "Large head");
+        addTerm(builder, "HP:0004322", "Short stature", "Small stature");
+        addTerm(builder, "HP:0001510", "Growth delay", "Delayed growth", "Growth retardation");
+        addTerm(builder, "HP:0000478", "Abnormality of the eye", "Abnormal eye");
+        addTerm(builder, "HP:0000504", "Visual impairment", "Eye problem");
+        addTerm(builder, "HP:0011675", "Arrhythmia", "Cardiac rhythm disease");
+        addTerm(builder, "HP:0000708", "Behavioral abnormality", "Behaviour disorder");
+        this.suggester = builder.build();
+    }
+
+    @Test
+    public void blankOrEmptyQueriesReturnNothing()
+    {
+        Assert.assertTrue(this.suggester.suggest(null, 10).isEmpty());
+        Assert.assertTrue(this.suggester.suggest("", 10).isEmpty());
+        Assert.assertTrue(this.suggester.suggest("  - ", 10).isEmpty());
+        Assert.assertTrue(this.suggester.suggest("seiz", 0).isEmpty());
+    }
+
+    @Test
+    public void prefixesMatchAnyWord()
+    {
+        Assert.assertEquals(Arrays.asList("HP:0001250", "HP:0002069"), this.suggester.suggest("seiz", 10));
+        Assert.assertEquals(Arrays.asList("HP:0002069"), this.suggester.suggest("clon", 10));
+        Assert.assertEquals(Arrays.asList("HP:0001510", "HP:0001263"), this.suggester.suggest("DELA", 10));
+    }
+
+    @Test
+    public void allWordsMustMatchInAnyOrder()
+    {
+        Assert.assertEquals(Arrays.asList("HP:0001263"), this.suggester.suggest("glob del", 10));
+        Assert.assertEquals(Arrays.asList("HP:0001263"), this.suggester.suggest("delay global", 10));
+        Assert.assertEquals(Arrays.asList("HP:0000252"), this.suggester.suggest("small head", 10));
+    }
+
+    @Test
+    public void identifiersAreMatched()
+    {
+        // Identifiers don't get typo tolerance, the neighbouring identifiers aren't suggested
+        Assert.assertEquals(Arrays.asList("HP:0000252"), this.suggester.suggest("HP:0000252", 10));
+        Assert.assertEquals(Arrays.asList("HP:0000252", "HP:0000256"), this.suggester.suggest("hp:000025", 10));
+    }
+
+    @Test
+    public void namesRankBeforeSynonyms()
+    {
+        // The synonym "Eye problem" is shorter and starts with the query, but it is still only a synonym
+        Assert.assertEquals(Arrays.asList("HP:0000478", "HP:0000504"), this.suggester.suggest("eye", 10));
+    }
+
+    @Test
+    public void exactLabelsRankFirst()
+    {
+        Assert.assertEquals("HP:0001250", this.suggester.suggest("seizures", 10).get(0));
+        Assert.assertEquals("HP:0001510", this.suggester.suggest("growth delay", 10).get(0));
+    }
+
+    @Test
+    public void typosAreToleratedWhenThereAreNotEnoughExactMatches()
+    {
+        Assert.assertEquals(Arrays.asList("HP:0001250", "HP:0002069"), this.suggester.suggest("siez", 10));
+        Assert.assertEquals(Arrays.asList("HP:0001250", "HP:0002069"), this.suggester.suggest("seuz", 10));
+        Assert.assertEquals(Arrays.asList("HP:0011675"), this.suggester.suggest("arythmia", 10));
+        Assert.assertEquals(Arrays.asList("HP:0000252"), this.suggester.suggest("microcefaly", 10));
+        Assert.assertEquals(Arrays.asList("HP:0000708"), this.suggester.suggest("behavoiur dis", 10));
+        // The first letter must match, and short words must be exact
+        Assert.assertTrue(this.suggester.suggest("eizure", 10).isEmpty());
+        Assert.assertTrue(this.suggester.suggest("sx", 10).isEmpty());
+    }
+
+    @Test
+    public void exactMatchesRankBeforeTypos()
+    {
+        // "macro" is exact for Macrocephaly and one typo away from Microcephaly
+        Assert.assertEquals(Collections.singletonList("HP:0000256"), this.suggester.suggest("macro", 1));
+        Assert.assertEquals(Arrays.asList("HP:0000256", "HP:0000252"), this.suggester.suggest("macro", 10));
+    }
+
+    @Test
+    public void diacriticsAndPunctuationAreIgnored()
+    {
+        Assert.assertEquals(Arrays.asList("HP:0002069"), this.suggester.suggest("tonic clonic", 10));
+        Assert.assertEquals(Arrays.asList("HP:0000252"), this.suggester.suggest("Microcéphaly", 1));
+    }
+
+    @Test
+    public void resultsAreLimited()
+    {
+        Assert.assertEquals(1, this.suggester.suggest("seiz", 1).size());
+        Assert.assertEquals(3, this.suggester.suggest("a", 3).size());
+    }
+
+    @Test
+    public void emptySuggesterReturnsNothing()
+    {
+        PrefixSuggester empty = new PrefixSuggester.Builder().add("HP:1", null, 1f).add("HP:2", " ", 1f).build();
+        Assert.assertEquals(0, empty.getWordCount());
+        Assert.assertTrue(empty.suggest("seiz", 10).isEmpty());
+    }
+
+    private static void addTerm(PrefixSuggester.Builder builder, String id, String name, String... synonyms)
+    {
+        builder.add(id, id, 1f);
+        builder.add(id, name, 3f);
+        for (String synonym : synonyms) {
+            builder.add(id, synonym, 2f);
+        }
+    }
+}
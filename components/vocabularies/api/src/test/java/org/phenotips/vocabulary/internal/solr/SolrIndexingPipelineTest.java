@@ -0,0 +1,109 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses/
+ */
+package org.phenotips.vocabulary.internal.solr;
+
+import java.io.IOException;
+import java.util.Collection;
+
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.common.SolrInputDocument;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.ArgumentMatcher;
+import org.mockito.InOrder;
+import org.mockito.Matchers;
+import org.mockito.Mockito;
+
+import static org.mockito.Matchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for the {@link SolrIndexingPipeline} class.
+ *
+ * @version $Id$
+ */
+public class SolrIndexingPipelineTest
+{
+    @Test
+    public void documentsAreSentInBatchesAndCommittedOnce() throws SolrServerException, IOException
+    {
+        SolrClient server = mock(SolrClient.class);
+        try (SolrIndexingPipeline pipeline = new SolrIndexingPipeline(server, 2, 1, "test")) {
+            for (int i = 0; i < 5; ++i) {
+                pipeline.add(new SolrInputDocument());
+            }
+            pipeline.finish();
+        }
+
+        InOrder order = Mockito.inOrder(server);
+        order.verify(server, times(2)).add(argThat(new HasSize(2)));
+        order.verify(server).add(argThat(new HasSize(1)));
+        order.verify(server).commit();
+        Mockito.verifyNoMoreInteractions(server);
+    }
+
+    @Test
+    public void emptyPipelineOnlyCommits() throws SolrServerException, IOException
+    {
+        SolrClient server = mock(SolrClient.class);
+        try (SolrIndexingPipeline pipeline = new SolrIndexingPipeline(server, 2, 1, "test")) {
+            pipeline.finish();
+        }
+
+        verify(server).commit();
+        Mockito.verifyNoMoreInteractions(server);
+    }
+
+    @Test
+    public void failuresAreReportedAndNothingIsCommitted() throws SolrServerException, IOException
+    {
+        SolrClient server = mock(SolrClient.class);
+        when(server.add(Matchers.anyCollectionOf(SolrInputDocument.class))).thenThrow(new SolrServerException("x"));
+        try (SolrIndexingPipeline pipeline = new SolrIndexingPipeline(server, 1, 1, "test")) {
+            for (int i = 0; i < 10; ++i) {
+                pipeline.add(new SolrInputDocument());
+            }
+            pipeline.finish();
+            Assert.fail("The failure should have been reported");
+        } catch (SolrServerException ex) {
+            Assert.assertEquals("x", ex.getMessage());
+        }
+
+        verify(server, Mockito.never()).commit();
+    }
+
+    private static final class HasSize extends ArgumentMatcher<Collection<SolrInputDocument>>
+    {
+        private final int size;
+
+        HasSize(int size)
+        {
+            this.size = size;
+        }
+
+        @Override
+        public boolean matches(Object argument)
+        {
+            return ((Collection<?>) argument).size() == this.size;
+        }
+    }
+}
@@ -55,7 +55,18 @@ public void testEnhanceParamsDefaultValues()
         Assert.assertEquals("* score", output.get(CommonParams.FL));
         Assert.assertEquals(true, output.getBool(SpellingParams.SPELLCHECK_COLLATE));
         Assert.assertEquals(0, (int) output.getInt(CommonParams.START));
-        Assert.assertTrue(output.getInt(CommonParams.ROWS) > 100);
+        Assert.assertEquals(SolrQueryUtils.DEFAULT_ROWS, (int) output.getInt(CommonParams.ROWS));
+    }
+
+    @Test
+    public void testEnhanceParamsSkipsScoreWhenSortedByOtherFields()
+    {
+        ModifiableSolrParams input = new ModifiableSolrParams();
+        input.set(CommonParams.SORT, "nameSort asc");
+        Assert.assertEquals("*", SolrQueryUtils.enhanceParams(input).get(CommonParams.FL));
+
+        input.set(CommonParams.SORT, "score desc, nameSort asc");
+        Assert.assertEquals("* score", SolrQueryUtils.enhanceParams(input).get(CommonParams.FL));
     }
 
     @Test
@@ -0,0 +1,109 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses/
+ */
+package org.phenotips.vocabulary.internal.solr;
+
+import org.phenotips.vocabulary.Vocabulary;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.solr.common.SolrDocument;
+import org.junit.Assert;
+import org.junit.Test;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests for the hierarchy identifiers exposed by {@link SolrVocabularyTerm}.
+ *
+ * @version $Id$
+ */
+public class SolrVocabularyTermTest
+{
+    private final Vocabulary vocabulary = mock(Vocabulary.class);
+
+    @Test
+    public void ancestorIdsFromTheGraphDontIncludeSelf()
+    {
+        Map<String, Collection<String>> parents = new LinkedHashMap<>();
+        parents.put("HP:1", Collections.<String>emptySet());
+        parents.put("HP:2", Arrays.asList("HP:1"));
+        parents.put("HP:3", Arrays.asList("HP:2 ! Two"));
+        SolrDocument doc = new SolrDocument();
+        doc.setField("id", "HP:3");
+        // The stored values are ignored when the term is part of the graph
+        doc.setField("term_category", new ArrayList<>(Arrays.asList("HP:3", "HP:9")));
+
+        SolrVocabularyTerm term = new SolrVocabularyTerm(doc, this.vocabulary, new OntologyGraph(parents));
+
+        Assert.assertEquals(Collections.singleton("HP:2"), term.getParentIds());
+        Assert.assertEquals(new HashSet<>(Arrays.asList("HP:1", "HP:2")), term.getAncestorIds());
+        Assert.assertEquals(new HashSet<>(Arrays.asList("HP:1", "HP:2", "HP:3")), term.getAncestorAndSelfIds());
+    }
+
+    @Test
+    public void storedAncestorIdsDontIncludeSelf()
+    {
+        SolrDocument doc = new SolrDocument();
+        doc.setField("id", "HP:3");
+        doc.setField("is_a", "HP:2 ! Two");
+        doc.setField("term_category", new HashSet<>(Arrays.asList("HP:1", "HP:2", "HP:3")));
+
+        SolrVocabularyTerm term = new SolrVocabularyTerm(doc, this.vocabulary);
+
+        Assert.assertEquals(Collections.singleton("HP:2"), term.getParentIds());
+        Assert.assertEquals(new HashSet<>(Arrays.asList("HP:1", "HP:2")), term.getAncestorIds());
+        Assert.assertEquals(new HashSet<>(Arrays.asList("HP:1", "HP:2", "HP:3")), term.getAncestorAndSelfIds());
+    }
+
+    @Test
+    public void singleStoredCategoryEqualToSelfIsIgnored()
+    {
+        SolrDocument doc = new SolrDocument();
+        doc.setField("id", "HP:1");
+        doc.setField("term_category", "HP:1");
+
+        SolrVocabularyTerm term = new SolrVocabularyTerm(doc, this.vocabulary, null);
+
+        Assert.assertTrue(term.getParentIds().isEmpty());
+        Assert.assertTrue(term.getAncestorIds().isEmpty());
+        Assert.assertEquals(Collections.singleton("HP:1"), term.getAncestorAndSelfIds());
+    }
+
+    @Test
+    public void termsOutsideTheGraphUseTheStoredValues()
+    {
+        Map<String, Collection<String>> parents = new LinkedHashMap<>();
+        parents.put("HP:1", Collections.<String>emptySet());
+        SolrDocument doc = new SolrDocument();
+        doc.setField("id", "HP:7");
+        doc.setField("is_a", Arrays.asList("HP:1"));
+        doc.setField("term_category", new ArrayList<>(Arrays.asList("HP:1", "HP:7")));
+
+        SolrVocabularyTerm term = new SolrVocabularyTerm(doc, this.vocabulary, new OntologyGraph(parents));
+
+        Assert.assertEquals(Collections.singleton("HP:1"), term.getParentIds());
+        Assert.assertEquals(Collections.singleton("HP:1"), term.getAncestorIds());
+        Assert.assertEquals(new HashSet<>(Arrays.asList("HP:1", "HP:7")), term.getAncestorAndSelfIds());
+    }
+}
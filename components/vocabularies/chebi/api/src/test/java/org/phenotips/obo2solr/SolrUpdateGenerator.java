@@ -18,6 +18,7 @@
 package org.phenotips.obo2solr;
 
 import java.io.File;
+import java.io.IOException;
 import java.net.URL;
 import java.util.HashMap;
 import java.util.Map;
@@ -38,4 +39,20 @@ public Map<String, TermData> transform(URL input, Map<String, Double> fieldSelec
     {
         throw new UnsupportedOperationException();
     }
+
+    public OBOTermReader stream(String ontologyUrl, Map<String, Double> fieldSelection)
+    {
+        try {
+            File empty = File.createTempFile("chebi", ".obo");
+            empty.deleteOnExit();
+            return new OBOTermReader(empty, fieldSelection);
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+
+    public OBOTermReader stream(URL input, Map<String, Double> fieldSelection)
+    {
+        throw new UnsupportedOperationException();
+    }
 }
@@ -34,12 +34,10 @@
 import org.apache.solr.client.solrj.response.QueryResponse;
 import org.apache.solr.common.SolrDocument;
 import org.apache.solr.common.SolrDocumentList;
-import org.apache.solr.common.SolrInputDocument;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
-import org.mockito.Matchers;
 import org.mockito.Mockito;
 
 import static org.mockito.Matchers.any;
@@ -56,8 +54,14 @@
 
     public Cache<VocabularyTerm> cache;
 
+    public Cache<SolrDocumentList> searchCache;
+
     public SolrClient server;
 
+    public SolrClient replacementServer;
+
+    public SolrVocabularyResourceManager externalServicesAccess;
+
     public Vocabulary ontologyService;
 
     @Rule
@@ -72,9 +76,15 @@ public void setUpOntology()
         this.cache = mock(Cache.class);
         SolrVocabularyResourceManager externalServicesAccess =
             this.mocker.getInstance(SolrVocabularyResourceManager.class);
+        this.externalServicesAccess = externalServicesAccess;
         when(externalServicesAccess.getTermCache()).thenReturn(this.cache);
+        this.searchCache = mock(Cache.class);
+        when(externalServicesAccess.getSearchCache()).thenReturn(this.searchCache);
         this.server = mock(SolrClient.class);
         when(externalServicesAccess.getSolrConnection()).thenReturn(this.server);
+        this.replacementServer = mock(SolrClient.class);
+        when(externalServicesAccess.createReplacementCore()).thenReturn(this.replacementServer);
+        when(externalServicesAccess.replaceCore()).thenReturn(true);
         this.ontologyService = this.mocker.getComponentUnderTest();
     }
 
@@ -83,11 +93,11 @@ public void testChEBIOntologyReindex()
         throws ComponentLookupException, IOException, SolrServerException, CacheException
     {
         this.ontologyServiceResult = this.ontologyService.reindex(null);
-        Mockito.verify(this.server).deleteByQuery("*:*");
-        Mockito.verify(this.server, Mockito.atLeast(1)).commit();
-        Mockito.verify(this.server, Mockito.atLeast(1)).add(Matchers.anyCollectionOf(SolrInputDocument.class));
+        // The test source is empty, so there's nothing to add, but the new core is still committed once
+        Mockito.verify(this.replacementServer).commit();
+        Mockito.verify(this.externalServicesAccess).replaceCore();
         Mockito.verify(this.cache, Mockito.atLeast(1)).removeAll();
-        Mockito.verifyNoMoreInteractions(this.cache, this.server);
+        Mockito.verifyNoMoreInteractions(this.cache, this.server, this.replacementServer);
         Assert.assertTrue(this.ontologyServiceResult == 0);
     }
 
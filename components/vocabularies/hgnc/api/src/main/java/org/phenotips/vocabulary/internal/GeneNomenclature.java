@@ -22,17 +22,20 @@
 import org.phenotips.vocabulary.internal.solr.SolrVocabularyTerm;
 
 import org.xwiki.component.annotation.Component;
+import org.xwiki.component.phase.Disposable;
+import org.xwiki.component.phase.InitializationException;
 import org.xwiki.configuration.ConfigurationSource;
 
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.io.Reader;
 import java.net.URL;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
@@ -48,6 +51,7 @@
 import org.apache.commons.lang3.StringUtils;
 import org.apache.solr.client.solrj.util.ClientUtils;
 import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.SolrDocumentList;
 import org.apache.solr.common.SolrInputDocument;
 import org.apache.solr.common.params.CommonParams;
 import org.apache.solr.common.params.DisMaxParams;
@@ -59,6 +63,13 @@
 
 /**
  * Provides access to the HUGO Gene Nomenclature Committee's GeneNames ontology. The ontology prefix is {@code HGNC}.
+ * <p>
+ * The complete HGNC dataset is mirrored in a local Solr core, so all lookups and searches are served without network
+ * access. The source of the data can be configured with the {@code phenotips.vocabularies.hgnc.sourceLocation}
+ * property, and a periodic refresh can be enabled by setting {@code phenotips.vocabularies.hgnc.refreshInterval} to a
+ * number of hours. Refreshing from a local file only reindexes when the file was modified since the last indexing; the
+ * index is replaced atomically, so queries keep being served from the old data until the new data is ready.
+ * </p>
  *
  * @version $Id$
  * @since 1.2RC1
@@ -66,17 +77,20 @@
 @Component
 @Named("hgnc")
 @Singleton
-public class GeneNomenclature extends AbstractCSVSolrVocabulary
+public class GeneNomenclature extends AbstractCSVSolrVocabulary implements Disposable
 {
-    private static final String ID_FIELD_NAME = "id";
+    static final String SYMBOL_FIELD_NAME = "symbol";
 
-    private static final String SYMBOL_FIELD_NAME = "symbol";
+    static final String PREV_SYMBOL_FIELD_NAME = "prev_symbol";
 
-    private static final String PREV_SYMBOL_FIELD_NAME = "prev_symbol";
+    static final String ALIAS_SYMBOL_FIELD_NAME = "alias_symbol";
 
-    private static final String ALIAS_SYMBOL_FIELD_NAME = "alias_symbol";
+    static final String ALTERNATIVE_ID_FIELD_NAME = "alt_id";
 
-    private static final String ALTERNATIVE_ID_FIELD_NAME = "alt_id";
+    private static final String CONFIGURATION_PREFIX = "phenotips.vocabularies.hgnc.";
+
+    /** The maximum number of symbols to look up in one query, to stay below the Solr boolean clauses limit. */
+    private static final int MAX_SYMBOLS_PER_QUERY = 200;
 
     private static final Map<String, String> COMMON_SEARCH_OPTIONS;
 
@@ -88,6 +102,8 @@ public class GeneNomenclature extends AbstractCSVSolrVocabulary
 
     private static final Map<String, String> SPELLCHECKED_TEXT_SEARCH_OPTIONS;
 
+    private static final Map<String, String> LOOKUP_OPTIONS;
+
     static {
         Map<String, String> options = new HashMap<>();
         options.put("lowercaseOperators", Boolean.toString(false));
@@ -127,16 +143,74 @@ public class GeneNomenclature extends AbstractCSVSolrVocabulary
         options.put(SpellingParams.SPELLCHECK_MAX_COLLATION_TRIES, "3");
         options.putAll(DISMAX_SEARCH_OPTIONS);
         SPELLCHECKED_TEXT_SEARCH_OPTIONS = Collections.unmodifiableMap(options);
+
+        options = new HashMap<>();
+        options.put(spellcheck, Boolean.toString(false));
+        LOOKUP_OPTIONS = Collections.unmodifiableMap(options);
     }
 
     @Inject
     @Named("xwikiproperties")
     private ConfigurationSource configuration;
 
+    /** Runs the periodic refresh of the index, if enabled. */
+    private RefreshScheduler refresher;
+
+    @Override
+    public void initialize() throws InitializationException
+    {
+        super.initialize();
+        Long interval = this.configuration.getProperty(CONFIGURATION_PREFIX + "refreshInterval", 0L);
+        if (interval != null && interval > 0) {
+            this.refresher = new RefreshScheduler("HGNC index refresh", interval, new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    refresh();
+                }
+            });
+        }
+    }
+
+    @Override
+    public void dispose()
+    {
+        if (this.refresher != null) {
+            this.refresher.stop();
+        }
+    }
+
     @Override
     public String getDefaultSourceLocation()
     {
-        return "ftp://ftp.ebi.ac.uk/pub/databases/genenames/new/tsv/hgnc_complete_set.txt";
+        return this.configuration.getProperty(CONFIGURATION_PREFIX + "sourceLocation",
+            "ftp://ftp.ebi.ac.uk/pub/databases/genenames/new/tsv/hgnc_complete_set.txt");
+    }
+
+    /**
+     * Reindex the vocabulary from its configured source, unless the source is a local file that wasn't modified since
+     * the current index was built.
+     *
+     * @return {@code 0} if the index is up to date, otherwise the result of {@link #reindex(String)}
+     */
+    int refresh()
+    {
+        String location = getDefaultSourceLocation();
+        try {
+            if (RefreshScheduler.isUpToDate(location, getVersion())) {
+                return 0;
+            }
+            int result = reindex(location);
+            if (result != 0) {
+                this.logger.warn("Failed to refresh the HGNC index from [{}]: error code {}", location, result);
+            }
+            return result;
+        } catch (RuntimeException ex) {
+            // Don't let an unexpected failure cancel the following scheduled refreshes
+            this.logger.warn("Failed to refresh the HGNC index from [{}]: {}", location, ex.getMessage());
+            return 1;
+        }
     }
 
     @Override
@@ -162,6 +236,16 @@ public Set<String> getAliases()
 
     @Override
     public VocabularyTerm getTerm(String symbol)
+    {
+        VocabularyTerm result = getCachedTerm(symbol);
+        if (result == null) {
+            result = findTerm(symbol);
+            this.externalServicesAccess.getTermCache().set(symbol, result == null ? EMPTY_MARKER : result);
+        }
+        return result == EMPTY_MARKER ? null : result;
+    }
+
+    private VocabularyTerm findTerm(String symbol)
     {
         String escapedSymbol = ClientUtils.escapeQueryChars(symbol);
 
@@ -263,16 +347,65 @@ private List<VocabularyTerm> searchTextSpellchecked(String input, int maxResults
     @Override
     public Set<VocabularyTerm> getTerms(Collection<String> symbols)
     {
-        Set<VocabularyTerm> result = new LinkedHashSet<>();
+        // The requested symbols, in order, with the cached or found terms
+        Map<String, VocabularyTerm> terms = new LinkedHashMap<>();
+        List<String> batch = new ArrayList<>(MAX_SYMBOLS_PER_QUERY);
         for (String symbol : symbols) {
-            VocabularyTerm term = getTerm(symbol);
-            if (term != null) {
+            if (StringUtils.isBlank(symbol) || terms.containsKey(symbol)) {
+                continue;
+            }
+            VocabularyTerm cachedTerm = getCachedTerm(symbol);
+            terms.put(symbol, cachedTerm);
+            if (cachedTerm == null) {
+                batch.add(symbol);
+            }
+            if (batch.size() == MAX_SYMBOLS_PER_QUERY) {
+                getTermsBatch(batch, terms);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            getTermsBatch(batch, terms);
+        }
+        Set<VocabularyTerm> result = new LinkedHashSet<>();
+        for (VocabularyTerm term : terms.values()) {
+            if (term != null && term != EMPTY_MARKER) {
                 result.add(term);
             }
         }
         return result;
     }
 
+    /**
+     * Resolve a batch of symbols with a single query, and cache the results, including the symbols that don't match
+     * any gene, so that they aren't looked up again. The query skips the search cache, since the found terms are
+     * already kept in the term cache. If the results were cut off, the symbols left without a match may still exist,
+     * so they are looked up one by one instead.
+     *
+     * @param symbols the symbols to look up
+     * @param terms where the found terms are stored, {@link #EMPTY_MARKER} marking the unknown symbols
+     */
+    private void getTermsBatch(List<String> symbols, Map<String, VocabularyTerm> terms)
+    {
+        SolrDocumentList documents = this.search(GeneSymbolLookup.getParams(symbols), LOOKUP_OPTIONS, false);
+        if (documents == null) {
+            // The query failed, don't cache anything since the missing genes may actually exist
+            return;
+        }
+        boolean complete = documents.getNumFound() <= documents.size();
+        GeneSymbolLookup lookup = new GeneSymbolLookup(documents);
+        for (String symbol : symbols) {
+            SolrDocument match = lookup.find(symbol);
+            if (match == null && !complete) {
+                terms.put(symbol, getTerm(symbol));
+                continue;
+            }
+            VocabularyTerm term = match == null ? EMPTY_MARKER : new SolrVocabularyTerm(match, this);
+            this.externalServicesAccess.getTermCache().set(symbol, term);
+            terms.put(symbol, term);
+        }
+    }
+
     @Override
     public long getDistance(String fromTermId, String toTermId)
     {
@@ -293,7 +426,8 @@ protected Collection<SolrInputDocument> load(URL url)
         try {
             Collection<SolrInputDocument> solrDocuments = new HashSet<SolrInputDocument>();
 
-            Reader in = new InputStreamReader(url.openConnection().getInputStream(), Charset.forName("UTF-8"));
+            InputStreamReader in =
+                new InputStreamReader(url.openConnection().getInputStream(), Charset.forName("UTF-8"));
             for (CSVRecord row : CSVFormat.TDF.withHeader().parse(in)) {
                 SolrInputDocument crtTerm = new SolrInputDocument();
                 for (Map.Entry<String, String> item : row.toMap().entrySet()) {
@@ -0,0 +1,253 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses/
+ */
+package org.phenotips.vocabulary.internal;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.http.Consts;
+import org.slf4j.Logger;
+
+import net.sf.json.JSONException;
+import net.sf.json.JSONObject;
+import net.sf.json.JSONSerializer;
+
+/**
+ * Persistent store for gene records fetched from the remote HGNC service, so that they don't have to be fetched again
+ * after a restart. Records are kept in memory and appended to a file with one JSON object per line, which is read back
+ * when the store is created. Unreadable lines, such as a last line truncated by a crash, are skipped.
+ * <p>
+ * Each record is stored along with the time when it was fetched, and records older than {@code maxAge} are treated as
+ * missing, so that changes in the remote service are eventually picked up.
+ * </p>
+ * <p>
+ * At most {@code maxRecords} records are kept, the least recently used ones being evicted first. Since evicted records
+ * still have their lines in the file, the file is rewritten with just the kept records once it holds more than twice
+ * as many lines as the allowed number of records.
+ * </p>
+ *
+ * @version $Id$
+ * @since 1.3M1
+ */
+class GeneRecordStore
+{
+    private static final String KEY = "key";
+
+    private static final String RECORD = "record";
+
+    private static final String FETCHED = "fetched";
+
+    /** The stored entries, each one holding the key, the record, and the time when the record was fetched. */
+    private final Map<String, JSONObject> records;
+
+    private final File file;
+
+    private final int maxRecords;
+
+    private final long maxAge;
+
+    private final Logger logger;
+
+    private Writer writer;
+
+    /** The number of lines in the file, including the ones of evicted or overwritten records. */
+    private int storedLines;
+
+    /**
+     * Constructor, loading the records already stored in the file, if any.
+     *
+     * @param file the file where records are stored; its parent directory is created if needed
+     * @param maxRecords the maximum number of records to keep
+     * @param maxAge how long a record is kept after being fetched, in milliseconds
+     * @param logger where to report storage failures
+     */
+    GeneRecordStore(File file, final int maxRecords, long maxAge, Logger logger)
+    {
+        this.file = file;
+        this.maxRecords = maxRecords;
+        this.maxAge = maxAge;
+        this.logger = logger;
+        this.records = new LinkedHashMap<String, JSONObject>(16, 0.75f, true)
+        {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, JSONObject> eldest)
+            {
+                return size() > maxRecords;
+            }
+        };
+        load();
+        if (this.storedLines > 2 * maxRecords) {
+            compact();
+        }
+    }
+
+    /**
+     * Get a stored record.
+     *
+     * @param key the identifier used for fetching the record
+     * @return the stored record, or {@code null} if the key isn't known or its record is too old
+     */
+    synchronized JSONObject get(String key)
+    {
+        JSONObject entry = this.records.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (isExpired(entry)) {
+            this.records.remove(key);
+            return null;
+        }
+        return entry.getJSONObject(RECORD);
+    }
+
+    /**
+     * Store a record, both in memory and on disk.
+     *
+     * @param key the identifier used for fetching the record
+     * @param record the fetched gene record
+     */
+    synchronized void put(String key, JSONObject record)
+    {
+        JSONObject entry = new JSONObject();
+        entry.put(KEY, key);
+        entry.put(RECORD, record);
+        entry.put(FETCHED, System.currentTimeMillis());
+        this.records.put(key, entry);
+        if (this.storedLines >= 2 * this.maxRecords && compact()) {
+            return;
+        }
+        try {
+            if (this.writer == null) {
+                this.file.getParentFile().mkdirs();
+                this.writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(this.file, true),
+                    Consts.UTF_8));
+            }
+            write(this.writer, entry);
+            this.writer.flush();
+            ++this.storedLines;
+        } catch (IOException ex) {
+            this.logger.warn("Failed to store gene record in [{}]: {}", this.file, ex.getMessage());
+        }
+    }
+
+    /** Remove all the stored records, both from memory and from disk. */
+    synchronized void clear()
+    {
+        this.records.clear();
+        this.storedLines = 0;
+        close();
+        if (this.file.exists() && !this.file.delete()) {
+            this.logger.warn("Failed to delete the gene records store [{}]", this.file);
+        }
+    }
+
+    /** Release the file handle; the store can still be used afterwards. */
+    synchronized void close()
+    {
+        IOUtils.closeQuietly(this.writer);
+        this.writer = null;
+    }
+
+    private void load()
+    {
+        if (!this.file.isFile()) {
+            return;
+        }
+        try (BufferedReader reader =
+            new BufferedReader(new InputStreamReader(new FileInputStream(this.file), Consts.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                ++this.storedLines;
+                try {
+                    JSONObject entry = (JSONObject) JSONSerializer.toJSON(line);
+                    if (!isExpired(entry)) {
+                        this.records.put(entry.getString(KEY), entry);
+                    }
+                } catch (JSONException | ClassCastException ex) {
+                    // Skip damaged entries
+                }
+            }
+        } catch (IOException ex) {
+            this.logger.warn("Failed to read stored gene records from [{}]: {}", this.file, ex.getMessage());
+        }
+    }
+
+    /**
+     * Rewrite the file with just the records currently kept in memory, dropping the expired ones.
+     *
+     * @return {@code true} if the file was replaced, {@code false} if it was left untouched
+     */
+    private boolean compact()
+    {
+        close();
+        File compacted = new File(this.file.getParentFile(), this.file.getName() + ".tmp");
+        this.file.getParentFile().mkdirs();
+        int lines = 0;
+        try (Writer out =
+            new BufferedWriter(new OutputStreamWriter(new FileOutputStream(compacted), Consts.UTF_8))) {
+            Iterator<JSONObject> entries = this.records.values().iterator();
+            while (entries.hasNext()) {
+                JSONObject entry = entries.next();
+                if (isExpired(entry)) {
+                    entries.remove();
+                } else {
+                    write(out, entry);
+                    ++lines;
+                }
+            }
+        } catch (IOException ex) {
+            this.logger.warn("Failed to compact the gene records store [{}]: {}", this.file, ex.getMessage());
+            return false;
+        }
+        try {
+            Files.move(compacted.toPath(), this.file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            this.logger.warn("Failed to replace the gene records store [{}]: {}", this.file, ex.getMessage());
+            return false;
+        }
+        this.storedLines = lines;
+        return true;
+    }
+
+    private boolean isExpired(JSONObject entry)
+    {
+        return System.currentTimeMillis() - entry.optLong(FETCHED) > this.maxAge;
+    }
+
+    private void write(Writer out, JSONObject entry) throws IOException
+    {
+        out.write(entry.toString());
+        out.write('\n');
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses/
+ */
+package org.phenotips.vocabulary.internal;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.http.Consts;
+import org.apache.http.HttpHeaders;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+
+import net.sf.json.JSONArray;
+import net.sf.json.JSONException;
+import net.sf.json.JSONObject;
+import net.sf.json.JSONSerializer;
+
+/**
+ * Performs requests to the remote HGNC REST service.
+ *
+ * @version $Id$
+ * @since 1.3M1
+ */
+final class GeneServiceClient
+{
+    private static final String INVALID_RESPONSE = "Invalid response: ";
+
+    private GeneServiceClient()
+    {
+        // Utility class
+    }
+
+    /**
+     * Creates an HTTP client using a pool of connections, so that several requests can be sent in parallel.
+     *
+     * @param maxConnections the maximum number of open connections
+     * @param maxConnectionsPerHost the maximum number of open connections to the same host
+     * @return a new HTTP client, which must be closed once no longer needed
+     */
+    static CloseableHttpClient create(int maxConnections, int maxConnectionsPerHost)
+    {
+        PoolingHttpClientConnectionManager connections = new PoolingHttpClientConnectionManager();
+        connections.setMaxTotal(maxConnections);
+        connections.setDefaultMaxPerRoute(maxConnectionsPerHost);
+        return HttpClients.custom().useSystemProperties().setConnectionManager(connections).build();
+    }
+
+    /**
+     * Requests a JSON object from the remote service.
+     *
+     * @param client the HTTP client to use
+     * @param url the URL to request
+     * @return the parsed response
+     * @throws IOException if the request fails, or if the response isn't a valid JSON object
+     */
+    static JSONObject get(CloseableHttpClient client, String url) throws IOException
+    {
+        HttpGet method = new HttpGet(url);
+        method.setHeader(HttpHeaders.ACCEPT, ContentType.APPLICATION_JSON.getMimeType());
+        try (CloseableHttpResponse httpResponse = client.execute(method)) {
+            String response = IOUtils.toString(httpResponse.getEntity().getContent(), Consts.UTF_8);
+            return (JSONObject) JSONSerializer.toJSON(response);
+        } catch (JSONException | ClassCastException ex) {
+            throw new IOException(INVALID_RESPONSE + ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Requests a list of gene records from the remote service.
+     *
+     * @param client the HTTP client to use
+     * @param url the URL to request
+     * @return the returned gene records, the {@code docs} of the {@code response}
+     * @throws IOException if the request fails, or if the response doesn't hold a list of gene records
+     */
+    static JSONArray getDocs(CloseableHttpClient client, String url) throws IOException
+    {
+        try {
+            return get(client, url).getJSONObject("response").getJSONArray("docs");
+        } catch (JSONException ex) {
+            throw new IOException(INVALID_RESPONSE + ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Encodes a value to be used in a request URL.
+     *
+     * @param value the value to encode
+     * @return the encoded value
+     */
+    static String encode(String value)
+    {
+        try {
+            return URLEncoder.encode(value, Consts.UTF_8.name());
+        } catch (UnsupportedEncodingException ex) {
+            // This will not happen, UTF-8 is always available
+            return value.replaceAll("\\s", "");
+        }
+    }
+}
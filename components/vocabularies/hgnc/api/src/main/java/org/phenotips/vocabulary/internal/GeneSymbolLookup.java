@@ -0,0 +1,132 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses/
+ */
+package org.phenotips.vocabulary.internal;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.apache.solr.client.solrj.util.ClientUtils;
+import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.params.CommonParams;
+import org.apache.solr.common.params.ModifiableSolrParams;
+import org.apache.solr.common.params.SolrParams;
+
+/**
+ * Resolves a batch of gene symbols with a single query, giving the same answers as {@link GeneNomenclature#getTerm}
+ * would: a match on the identifier wins over a match on the approved symbol, which wins over previous symbols and
+ * aliases, which win over the other alternative identifiers. All the fields copied into the {@code alt_id} field are
+ * stored, so the returned documents can be matched back to the requested symbols locally, and a symbol left without a
+ * match really doesn't exist.
+ *
+ * @version $Id$
+ * @since 1.3M1
+ */
+class GeneSymbolLookup
+{
+    private static final String ID_FIELD_NAME = "id";
+
+    /** The maximum number of matching documents expected for each looked up symbol. */
+    private static final int ROWS_PER_SYMBOL = 10;
+
+    /** The stored fields matched against the requested symbols, grouped by precedence. */
+    private static final String[][] FIELDS = {
+        { ID_FIELD_NAME },
+        { GeneNomenclature.SYMBOL_FIELD_NAME },
+        { GeneNomenclature.PREV_SYMBOL_FIELD_NAME, GeneNomenclature.ALIAS_SYMBOL_FIELD_NAME },
+        { "entrez_id", "ensembl_gene_id", "refseq_accession", "ena" }
+    };
+
+    /** For each precedence level, lowercased field value -&gt; the first document holding it. */
+    private final List<Map<String, SolrDocument>> index = new ArrayList<>(FIELDS.length);
+
+    /**
+     * Indexes the documents returned by the query built with {@link #getParams(Collection)}.
+     *
+     * @param documents the matched documents
+     */
+    GeneSymbolLookup(Collection<SolrDocument> documents)
+    {
+        for (String[] fields : FIELDS) {
+            Map<String, SolrDocument> level = new HashMap<>();
+            for (SolrDocument document : documents) {
+                for (String field : fields) {
+                    indexDocument(document, level, field);
+                }
+            }
+            this.index.add(level);
+        }
+    }
+
+    /**
+     * Builds the query looking up all the symbols at once.
+     *
+     * @param symbols the symbols to look up, not blank
+     * @return the query parameters
+     */
+    static SolrParams getParams(Collection<String> symbols)
+    {
+        StringBuilder values = new StringBuilder("(");
+        for (String symbol : symbols) {
+            values.append(ClientUtils.escapeQueryChars(symbol.trim())).append(' ');
+        }
+        values.setCharAt(values.length() - 1, ')');
+        ModifiableSolrParams params = new ModifiableSolrParams();
+        params.set(CommonParams.Q, String.format("%2$s:%1$s %3$s:%1$s %4$s:%1$s %5$s:%1$s %6$s:%1$s", values,
+            ID_FIELD_NAME, GeneNomenclature.SYMBOL_FIELD_NAME,
+            GeneNomenclature.PREV_SYMBOL_FIELD_NAME, GeneNomenclature.ALIAS_SYMBOL_FIELD_NAME,
+            GeneNomenclature.ALTERNATIVE_ID_FIELD_NAME));
+        params.set(CommonParams.ROWS, symbols.size() * ROWS_PER_SYMBOL);
+        return params;
+    }
+
+    /**
+     * Finds the document matching a requested symbol.
+     *
+     * @param symbol one of the looked up symbols
+     * @return the matching document, or {@code null} if the symbol doesn't match any gene
+     */
+    SolrDocument find(String symbol)
+    {
+        String key = symbol.trim().toLowerCase(Locale.ROOT);
+        for (Map<String, SolrDocument> level : this.index) {
+            SolrDocument match = level.get(key);
+            if (match != null) {
+                return match;
+            }
+        }
+        return null;
+    }
+
+    private static void indexDocument(SolrDocument document, Map<String, SolrDocument> level, String field)
+    {
+        Collection<Object> values = document.getFieldValues(field);
+        if (values == null) {
+            return;
+        }
+        for (Object value : values) {
+            String key = String.valueOf(value).toLowerCase(Locale.ROOT);
+            if (!level.containsKey(key)) {
+                level.put(key, document);
+            }
+        }
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses/
+ */
+package org.phenotips.vocabulary.internal;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+
+/**
+ * Runs remote lookups in parallel, using a fixed number of threads, and makes sure that concurrent lookups of the same
+ * key share a single request.
+ *
+ * @param <T> the type of the fetched values
+ * @version $Id$
+ * @since 1.3M1
+ */
+class ParallelFetcher<T>
+{
+    private static final String FAILURE_MESSAGE = "Failed to fetch [{}]: {}";
+
+    /** The lookups currently in progress, so that they aren't repeated. */
+    private final ConcurrentMap<String, FutureTask<T>> pendingLookups = new ConcurrentHashMap<>();
+
+    private final ExecutorService executor;
+
+    private final Logger logger;
+
+    /**
+     * Performs the actual lookup of a key.
+     *
+     * @param <T> the type of the fetched values
+     */
+    interface Lookup<T>
+    {
+        /**
+         * Fetch the value for a key.
+         *
+         * @param key the key to look up
+         * @return the fetched value, may be {@code null}
+         */
+        T get(String key);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param name the base name of the threads running the lookups
+     * @param concurrency the maximum number of lookups to run in parallel
+     * @param logger where to report failed lookups
+     */
+    ParallelFetcher(final String name, int concurrency, Logger logger)
+    {
+        this.logger = logger;
+        this.executor = Executors.newFixedThreadPool(concurrency, new ThreadFactory()
+        {
+            private final AtomicInteger counter = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable task)
+            {
+                Thread thread = new Thread(task, name + ' ' + this.counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Look up a key in the current thread, unless it is already being looked up by another thread, in which case that
+     * lookup's result is reused.
+     *
+     * @param key the key to look up
+     * @param lookup performs the lookup
+     * @return the fetched value, or {@code null} if the lookup failed
+     */
+    T getOnce(final String key, final Lookup<T> lookup)
+    {
+        FutureTask<T> task = new FutureTask<>(new Callable<T>()
+        {
+            @Override
+            public T call()
+            {
+                return lookup.get(key);
+            }
+        });
+        FutureTask<T> pending = this.pendingLookups.putIfAbsent(key, task);
+        if (pending == null) {
+            pending = task;
+            try {
+                task.run();
+            } finally {
+                this.pendingLookups.remove(key, task);
+            }
+        }
+        try {
+            return pending.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ex) {
+            this.logger.warn(FAILURE_MESSAGE, key, ex.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Look up several keys in parallel, waiting for all of them to finish.
+     *
+     * @param keys the keys to look up; duplicates are only looked up once
+     * @param lookup performs the lookup of each key
+     * @return the fetched values, in the order of the requested keys; failed lookups have a {@code null} value
+     */
+    Map<String, T> getAll(Collection<String> keys, final Lookup<T> lookup)
+    {
+        Map<String, Future<T>> lookups = new LinkedHashMap<>();
+        for (final String key : keys) {
+            if (!lookups.containsKey(key)) {
+                lookups.put(key, this.executor.submit(new Callable<T>()
+                {
+                    @Override
+                    public T call()
+                    {
+                        return lookup.get(key);
+                    }
+                }));
+            }
+        }
+        Map<String, T> result = new LinkedHashMap<>();
+        for (Map.Entry<String, Future<T>> pending : lookups.entrySet()) {
+            T value = null;
+            try {
+                value = pending.getValue().get();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException ex) {
+                this.logger.warn(FAILURE_MESSAGE, pending.getKey(), ex.getMessage());
+            }
+            result.put(pending.getKey(), value);
+        }
+        return result;
+    }
+
+    /** Stop the lookup threads; pending lookups are cancelled. */
+    void shutdown()
+    {
+        this.executor.shutdownNow();
+    }
+}
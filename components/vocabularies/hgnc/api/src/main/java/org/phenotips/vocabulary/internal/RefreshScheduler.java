@@ -0,0 +1,103 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses/
+ */
+package org.phenotips.vocabulary.internal;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.joda.time.format.ISODateTimeFormat;
+
+/**
+ * Runs a task periodically in a background daemon thread, used for refreshing a vocabulary index from its source, and
+ * checks if an index is up to date with a local source.
+ *
+ * @version $Id$
+ * @since 1.3M1
+ */
+class RefreshScheduler
+{
+    private final ScheduledExecutorService executor;
+
+    /**
+     * Constructor, scheduling the task. The first run happens after one interval.
+     *
+     * @param name the name of the background thread
+     * @param interval the number of hours between the end of a run and the start of the next one
+     * @param task the task to run
+     */
+    RefreshScheduler(final String name, long interval, Runnable task)
+    {
+        this.executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory()
+        {
+            @Override
+            public Thread newThread(Runnable target)
+            {
+                Thread thread = new Thread(target, name);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        this.executor.scheduleWithFixedDelay(task, interval, interval, TimeUnit.HOURS);
+    }
+
+    /** Stops the scheduled runs, interrupting the current one, if any. */
+    void stop()
+    {
+        this.executor.shutdownNow();
+    }
+
+    /**
+     * Checks if an index is up to date with its source, which can only be known for local files: the index is up to
+     * date if it was built after the file was last modified.
+     *
+     * @param location the URL of the index source
+     * @param version the version of the index, the ISO 8601 timestamp of its creation
+     * @return {@code true} if the source is a local file which wasn't modified since the index was built
+     */
+    static boolean isUpToDate(String location, String version)
+    {
+        File source = getLocalFile(location);
+        if (source == null || !source.isFile() || version == null) {
+            return false;
+        }
+        try {
+            return ISODateTimeFormat.dateTimeParser().parseMillis(version) >= source.lastModified();
+        } catch (IllegalArgumentException ex) {
+            return false;
+        }
+    }
+
+    private static File getLocalFile(String location)
+    {
+        try {
+            URL url = new URL(location);
+            if ("file".equals(url.getProtocol())) {
+                return new File(url.toURI());
+            }
+        } catch (IOException | URISyntaxException | IllegalArgumentException ex) {
+            // Not a valid local file
+        }
+        return null;
+    }
+}
@@ -24,16 +24,17 @@
 import org.xwiki.cache.CacheException;
 import org.xwiki.cache.CacheManager;
 import org.xwiki.cache.config.CacheConfiguration;
-import org.xwiki.cache.eviction.EntryEvictionConfiguration;
 import org.xwiki.cache.eviction.LRUEvictionConfiguration;
 import org.xwiki.component.annotation.Component;
+import org.xwiki.component.phase.Disposable;
 import org.xwiki.component.phase.Initializable;
 import org.xwiki.component.phase.InitializationException;
 import org.xwiki.configuration.ConfigurationSource;
+import org.xwiki.environment.Environment;
 
+import java.io.File;
 import java.io.IOException;
-import java.io.UnsupportedEncodingException;
-import java.net.URLEncoder;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -43,6 +44,7 @@
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -50,25 +52,28 @@
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
-import org.apache.http.Consts;
-import org.apache.http.HttpHeaders;
-import org.apache.http.client.methods.CloseableHttpResponse;
-import org.apache.http.client.methods.HttpGet;
-import org.apache.http.entity.ContentType;
+import org.apache.commons.lang3.tuple.Pair;
 import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClients;
 import org.apache.solr.client.solrj.util.ClientUtils;
 import org.apache.solr.common.params.CommonParams;
 import org.slf4j.Logger;
 
 import net.sf.json.JSON;
 import net.sf.json.JSONArray;
-import net.sf.json.JSONException;
 import net.sf.json.JSONObject;
-import net.sf.json.JSONSerializer;
 
 /**
  * Provides access to the HUGO Gene Nomenclature Committee's GeneNames ontology. The ontology prefix is {@code HGNC}.
+ * <p>
+ * Terms are fetched from the remote REST service through a pool of connections, and {@link #getTerms(Collection)}
+ * fetches several terms in parallel. The number of parallel lookups and of connections can be configured with the
+ * {@code phenotips.ontologies.hgnc.fetchConcurrency}, {@code phenotips.ontologies.hgnc.maxConnections} and
+ * {@code phenotips.ontologies.hgnc.maxConnectionsPerHost} properties. Concurrent lookups of the same term share a
+ * single request, and fetched gene records are stored on disk, so they survive restarts until the vocabulary is
+ * reindexed. At most {@code phenotips.ontologies.hgnc.maxStoredRecords} records are stored, the least recently used
+ * ones being dropped first, and stored records are fetched again once they are older than
+ * {@code phenotips.ontologies.hgnc.maxStoredRecordAge} days.
+ * </p>
  *
  * @version $Id$
  * @since 1.0RC1
@@ -76,7 +81,7 @@
 @Component
 @Named("hgncRemote")
 @Singleton
-public class RemoteGeneNomenclature implements Vocabulary, Initializable
+public class RemoteGeneNomenclature implements Vocabulary, Initializable, Disposable
 {
     /**
      * Object used to mark in the cache that a term doesn't exist, since null means that the cache doesn't contain the
@@ -84,10 +89,6 @@ public class RemoteGeneNomenclature implements Vocabulary, Initializable
      */
     private static final VocabularyTerm EMPTY_MARKER = new JSONOntologyTerm(null, null);
 
-    private static final String RESPONSE_KEY = "response";
-
-    private static final String DATA_KEY = "docs";
-
     private static final String LABEL_KEY = "symbol";
 
     private static final String WILDCARD = "*";
@@ -96,6 +97,16 @@ public class RemoteGeneNomenclature implements Vocabulary, Initializable
 
     private static final Map<String, String> QUERY_OPERATORS = new HashMap<>();
 
+    private static final String CONFIGURATION_PREFIX = "phenotips.ontologies.hgnc.";
+
+    private static final int DEFAULT_FETCH_CONCURRENCY = 8;
+
+    private static final int DEFAULT_MAX_CONNECTIONS = 20;
+
+    private static final int DEFAULT_MAX_STORED_RECORDS = 50000;
+
+    private static final int DEFAULT_MAX_STORED_RECORD_AGE = 30;
+
     @Inject
     @Named("xwikiproperties")
     private ConfigurationSource configuration;
@@ -108,12 +119,41 @@ public class RemoteGeneNomenclature implements Vocabulary, Initializable
 
     private String fetchServiceURL;
 
-    /** Performs HTTP requests to the remote REST service. */
-    private final CloseableHttpClient client = HttpClients.createSystem();
+    /** Performs HTTP requests to the remote REST service, using a pool of connections. */
+    private CloseableHttpClient client;
+
+    /** Runs the lookups requested by {@link #getTerms(Collection)} in parallel, and shares concurrent lookups. */
+    private ParallelFetcher<VocabularyTerm> fetcher;
+
+    /** Fetches a term from the remote service. */
+    private final ParallelFetcher.Lookup<VocabularyTerm> remoteLookup = new ParallelFetcher.Lookup<VocabularyTerm>()
+    {
+        @Override
+        public VocabularyTerm get(String id)
+        {
+            return fetchTerm(id);
+        }
+    };
+
+    /** Looks up a term in the local caches first, then in the remote service. */
+    private final ParallelFetcher.Lookup<VocabularyTerm> cachedLookup = new ParallelFetcher.Lookup<VocabularyTerm>()
+    {
+        @Override
+        public VocabularyTerm get(String id)
+        {
+            return getTerm(id);
+        }
+    };
+
+    /** Fetched gene records, stored on disk; {@code null} if there's no permanent directory available. */
+    private GeneRecordStore store;
 
     @Inject
     private Logger logger;
 
+    @Inject
+    private Environment environment;
+
     /**
      * Cache for the recently accessed terms; useful since the ontology rarely changes, so a search should always return
      * the same thing.
@@ -137,7 +177,7 @@ public void initialize() throws InitializationException
             this.infoServiceURL = this.baseServiceURL + "info";
             this.fetchServiceURL = this.baseServiceURL + "fetch/";
             this.cache = this.cacheFactory.createNewLocalCache(new CacheConfiguration());
-            EntryEvictionConfiguration infoConfig = new LRUEvictionConfiguration(1);
+            LRUEvictionConfiguration infoConfig = new LRUEvictionConfiguration(1);
             infoConfig.setTimeToLive(300);
             this.infoCache = this.cacheFactory.createNewLocalCache(new CacheConfiguration(infoConfig));
         } catch (final CacheException ex) {
@@ -146,46 +186,89 @@ public void initialize() throws InitializationException
         QUERY_OPERATORS.put("OR", "");
         QUERY_OPERATORS.put(DEFAULT_OPERATOR, DEFAULT_OPERATOR + ' ');
         QUERY_OPERATORS.put("NOT", "-");
+
+        int concurrency = getPositiveIntProperty("fetchConcurrency", DEFAULT_FETCH_CONCURRENCY);
+        if (this.client == null) {
+            this.client = GeneServiceClient.create(getPositiveIntProperty("maxConnections", DEFAULT_MAX_CONNECTIONS),
+                getPositiveIntProperty("maxConnectionsPerHost", concurrency));
+        }
+        if (this.fetcher == null) {
+            this.fetcher = new ParallelFetcher<>("HGNC fetcher", concurrency, this.logger);
+        }
+        if (this.store != null) {
+            this.store.close();
+            this.store = null;
+        }
+        File permanentDirectory = this.environment.getPermanentDirectory();
+        if (permanentDirectory != null) {
+            this.store = new GeneRecordStore(new File(permanentDirectory, "cache/vocabularies/hgnc-remote/genes.json"),
+                getPositiveIntProperty("maxStoredRecords", DEFAULT_MAX_STORED_RECORDS),
+                TimeUnit.DAYS.toMillis(getPositiveIntProperty("maxStoredRecordAge", DEFAULT_MAX_STORED_RECORD_AGE)),
+                this.logger);
+        }
+    }
+
+    @Override
+    public void dispose()
+    {
+        if (this.fetcher != null) {
+            this.fetcher.shutdown();
+        }
+        if (this.store != null) {
+            this.store.close();
+        }
+        IOUtils.closeQuietly(this.client);
+    }
+
+    private int getPositiveIntProperty(String name, int defaultValue)
+    {
+        Integer value = this.configuration.getProperty(CONFIGURATION_PREFIX + name, defaultValue);
+        return (value == null || value <= 0) ? defaultValue : value;
     }
 
     @Override
     public VocabularyTerm getTerm(String id)
     {
         VocabularyTerm result = this.cache.get(id);
-        String safeID;
         if (result == null) {
-            try {
-                safeID = URLEncoder.encode(id, Consts.UTF_8.name());
-            } catch (UnsupportedEncodingException e) {
-                safeID = id.replaceAll("\\s", "");
-                this.logger.warn("Could not find the encoding: {}", Consts.UTF_8.name());
+            JSONObject storedRecord = (this.store == null) ? null : this.store.get(id);
+            if (storedRecord != null) {
+                result = new JSONOntologyTerm(storedRecord, this);
+                this.cache.set(id, result);
+            } else {
+                result = this.fetcher.getOnce(id, this.remoteLookup);
             }
-            HttpGet method = new HttpGet(this.fetchServiceURL + "symbol/" + safeID);
-            method.setHeader(HttpHeaders.ACCEPT, ContentType.APPLICATION_JSON.getMimeType());
-            try (CloseableHttpResponse httpResponse = this.client.execute(method)) {
-                String response = IOUtils.toString(httpResponse.getEntity().getContent(), Consts.UTF_8);
-                JSONObject responseJSON = (JSONObject) JSONSerializer.toJSON(response);
-                JSONArray docs = responseJSON.getJSONObject(RESPONSE_KEY).getJSONArray(DATA_KEY);
-                if (docs.size() == 1) {
-                    result = new JSONOntologyTerm(docs.getJSONObject(0), this);
-                    this.cache.set(id, result);
-                } else {
-                    this.cache.set(id, EMPTY_MARKER);
+        }
+        return (result == EMPTY_MARKER) ? null : result;
+    }
+
+    private VocabularyTerm fetchTerm(String id)
+    {
+        VocabularyTerm result = null;
+        try {
+            JSONArray docs = GeneServiceClient.getDocs(this.client,
+                this.fetchServiceURL + "symbol/" + GeneServiceClient.encode(id));
+            if (docs.size() == 1) {
+                result = new JSONOntologyTerm(docs.getJSONObject(0), this);
+                this.cache.set(id, result);
+                if (this.store != null) {
+                    this.store.put(id, docs.getJSONObject(0));
                 }
-            } catch (IOException | JSONException ex) {
-                this.logger.warn("Failed to fetch gene definition: {}", ex.getMessage());
+            } else {
+                result = EMPTY_MARKER;
+                this.cache.set(id, EMPTY_MARKER);
             }
+        } catch (IOException ex) {
+            this.logger.warn("Failed to fetch gene definition: {}", ex.getMessage());
         }
-        return (result == EMPTY_MARKER) ? null : result;
+        return result;
     }
 
     @Override
     public Set<VocabularyTerm> getTerms(Collection<String> ids)
     {
-        // FIXME Reimplement with a bunch of async connections fired in parallel
         Set<VocabularyTerm> result = new LinkedHashSet<>();
-        for (String id : ids) {
-            VocabularyTerm term = getTerm(id);
+        for (VocabularyTerm term : this.fetcher.getAll(ids, this.cachedLookup).values()) {
             if (term != null) {
                 result.add(term);
             }
@@ -203,41 +286,33 @@ public List<VocabularyTerm> search(Map<String, ?> fieldValues)
     public List<VocabularyTerm> search(Map<String, ?> fieldValues, Map<String, String> queryOptions)
     {
         try {
-            HttpGet method =
-                new HttpGet(this.searchServiceURL + URLEncoder.encode(generateQuery(fieldValues), Consts.UTF_8.name()));
-            method.setHeader(HttpHeaders.ACCEPT, ContentType.APPLICATION_JSON.getMimeType());
-            try (CloseableHttpResponse httpResponse = this.client.execute(method)) {
-                String response = IOUtils.toString(httpResponse.getEntity().getContent(), Consts.UTF_8);
-                JSONObject responseJSON = (JSONObject) JSONSerializer.toJSON(response);
-                JSONArray docs = responseJSON.getJSONObject(RESPONSE_KEY).getJSONArray(DATA_KEY);
-                if (docs.size() >= 1) {
-                    List<VocabularyTerm> result = new LinkedList<>();
-                    // The remote service doesn't offer any query control, manually select the right range
-                    int start = 0;
-                    if (queryOptions.containsKey(CommonParams.START)
-                        && StringUtils.isNumeric(queryOptions.get(CommonParams.START)))
-                    {
-                        start = Math.max(0, Integer.parseInt(queryOptions.get(CommonParams.START)));
-                    }
-                    int end = docs.size();
-                    if (queryOptions.containsKey(CommonParams.ROWS)
-                        && StringUtils.isNumeric(queryOptions.get(CommonParams.ROWS)))
-                    {
-                        end = Math.min(end, start + Integer.parseInt(queryOptions.get(CommonParams.ROWS)));
-                    }
-
-                    for (int i = start; i < end; ++i) {
-                        result.add(new JSONOntologyTerm(docs.getJSONObject(i), this));
-                    }
-                    return result;
-                    // This is too slow, for the moment only return summaries
-                    // return getTerms(ids);
+            JSONArray docs = GeneServiceClient.getDocs(this.client,
+                this.searchServiceURL + GeneServiceClient.encode(generateQuery(fieldValues)));
+            if (docs.size() >= 1) {
+                List<VocabularyTerm> result = new LinkedList<>();
+                // The remote service doesn't offer any query control, manually select the right range
+                int start = 0;
+                if (queryOptions.containsKey(CommonParams.START)
+                    && StringUtils.isNumeric(queryOptions.get(CommonParams.START)))
+                {
+                    start = Math.max(0, Integer.parseInt(queryOptions.get(CommonParams.START)));
+                }
+                int end = docs.size();
+                if (queryOptions.containsKey(CommonParams.ROWS)
+                    && StringUtils.isNumeric(queryOptions.get(CommonParams.ROWS)))
+                {
+                    end = Math.min(end, start + Integer.parseInt(queryOptions.get(CommonParams.ROWS)));
+                }
+
+                for (int i = start; i < end; ++i) {
+                    result.add(new JSONOntologyTerm(docs.getJSONObject(i), this));
                 }
-            } catch (IOException | JSONException ex) {
-                this.logger.warn("Failed to search gene names: {}", ex.getMessage());
+                return result;
+                // This is too slow, for the moment only return summaries
+                // return getTerms(ids);
             }
-        } catch (UnsupportedEncodingException ex) {
-            // This will not happen, UTF-8 is always available
+        } catch (IOException ex) {
+            this.logger.warn("Failed to search gene names: {}", ex.getMessage());
         }
         return Collections.emptyList();
     }
@@ -264,19 +339,11 @@ public List<VocabularyTerm> search(String input, int maxResults, String sort, St
     public long count(Map<String, ?> fieldValues)
     {
         try {
-            HttpGet method =
-                new HttpGet(this.searchServiceURL + URLEncoder.encode(generateQuery(fieldValues), Consts.UTF_8.name()));
-            method.setHeader(HttpHeaders.ACCEPT, ContentType.APPLICATION_JSON.getMimeType());
-            try (CloseableHttpResponse httpResponse = this.client.execute(method)) {
-                String response = IOUtils.toString(httpResponse.getEntity().getContent(), Consts.UTF_8);
-                JSONObject responseJSON = (JSONObject) JSONSerializer.toJSON(response);
-                JSONArray docs = responseJSON.getJSONObject(RESPONSE_KEY).getJSONArray(DATA_KEY);
-                return docs.size();
-            } catch (IOException | JSONException ex) {
-                this.logger.warn("Failed to count matching gene names: {}", ex.getMessage());
-            }
-        } catch (UnsupportedEncodingException ex) {
-            // This will not happen, UTF-8 is always available
+            JSONArray docs = GeneServiceClient.getDocs(this.client,
+                this.searchServiceURL + GeneServiceClient.encode(generateQuery(fieldValues)));
+            return docs.size();
+        } catch (IOException ex) {
+            this.logger.warn("Failed to count matching gene names: {}", ex.getMessage());
         }
         return -1;
     }
@@ -295,6 +362,24 @@ public long getDistance(VocabularyTerm fromTerm, VocabularyTerm toTerm)
         return -1;
     }
 
+    @Override
+    public List<Long> getDistances(List<Pair<String, String>> termPairs)
+    {
+        // Flat nomenclature
+        return new ArrayList<>(Collections.nCopies(termPairs.size(), -1L));
+    }
+
+    @Override
+    public Map<String, Set<String>> getAncestorIds(Collection<String> termIds)
+    {
+        // Flat nomenclature, there's no need to look up the genes
+        Map<String, Set<String>> result = new HashMap<>();
+        for (String termId : termIds) {
+            result.put(termId, Collections.<String>emptySet());
+        }
+        return result;
+    }
+
     @Override
     public Set<String> getAliases()
     {
@@ -314,8 +399,11 @@ public long size()
     @Override
     public int reindex(String ontologyUrl)
     {
-        // Remote ontology, we cannot reindex, but we can clear the local cache
+        // Remote ontology, we cannot reindex, but we can clear the local caches
         this.cache.removeAll();
+        if (this.store != null) {
+            this.store.clear();
+        }
         return 0;
     }
 
@@ -338,14 +426,11 @@ private JSONObject getInfo()
         if (info != null) {
             return info;
         }
-        HttpGet method = new HttpGet(this.infoServiceURL);
-        method.setHeader(HttpHeaders.ACCEPT, ContentType.APPLICATION_JSON.getMimeType());
-        try (CloseableHttpResponse httpResponse = this.client.execute(method)) {
-            String response = IOUtils.toString(httpResponse.getEntity().getContent(), Consts.UTF_8);
-            JSONObject responseJSON = (JSONObject) JSONSerializer.toJSON(response);
+        try {
+            JSONObject responseJSON = GeneServiceClient.get(this.client, this.infoServiceURL);
             this.infoCache.set("", responseJSON);
             return responseJSON;
-        } catch (IOException | JSONException ex) {
+        } catch (IOException ex) {
             this.logger.warn("Failed to get HGNC information: {}", ex.getMessage());
         }
         return new JSONObject(true);
@@ -473,6 +558,24 @@ public Set<VocabularyTerm> getAncestorsAndSelf()
             return Collections.<VocabularyTerm>singleton(this);
         }
 
+        @Override
+        public Set<String> getParentIds()
+        {
+            return Collections.emptySet();
+        }
+
+        @Override
+        public Set<String> getAncestorIds()
+        {
+            return Collections.emptySet();
+        }
+
+        @Override
+        public Set<String> getAncestorAndSelfIds()
+        {
+            return Collections.singleton(getId());
+        }
+
         @Override
         public long getDistanceTo(VocabularyTerm other)
         {
@@ -0,0 +1,299 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses/
+ */
+package org.phenotips.vocabulary.internal;
+
+import org.phenotips.vocabulary.SolrVocabularyResourceManager;
+import org.phenotips.vocabulary.Vocabulary;
+import org.phenotips.vocabulary.VocabularyTerm;
+
+import org.xwiki.cache.Cache;
+import org.xwiki.component.manager.ComponentLookupException;
+import org.xwiki.configuration.ConfigurationSource;
+import org.xwiki.test.mockito.MockitoComponentMockingRule;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.SolrDocumentList;
+import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.params.SolrParams;
+import org.joda.time.DateTime;
+import org.joda.time.format.ISODateTimeFormat;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for the {@link GeneNomenclature} component, the locally indexed HGNC vocabulary.
+ *
+ * @version $Id$
+ */
+public class GeneNomenclatureTest
+{
+    private static final String SOURCE_LOCATION = "phenotips.vocabularies.hgnc.sourceLocation";
+
+    @Rule
+    public final MockitoComponentMockingRule<Vocabulary> mocker =
+        new MockitoComponentMockingRule<Vocabulary>(GeneNomenclature.class);
+
+    private SolrVocabularyResourceManager externalServicesAccess;
+
+    private Cache<VocabularyTerm> cache;
+
+    private SolrClient server;
+
+    private SolrClient replacementServer;
+
+    private String sampleLocation;
+
+    @SuppressWarnings("unchecked")
+    @Before
+    public void setUp() throws ComponentLookupException, IOException
+    {
+        this.externalServicesAccess = this.mocker.getInstance(SolrVocabularyResourceManager.class);
+        this.cache = mock(Cache.class);
+        when(this.externalServicesAccess.getTermCache()).thenReturn(this.cache);
+        when(this.externalServicesAccess.getSearchCache()).thenReturn(mock(Cache.class));
+        this.server = mock(SolrClient.class);
+        when(this.externalServicesAccess.getSolrConnection()).thenReturn(this.server);
+        this.replacementServer = mock(SolrClient.class);
+        when(this.externalServicesAccess.createReplacementCore()).thenReturn(this.replacementServer);
+        when(this.externalServicesAccess.replaceCore()).thenReturn(true);
+
+        this.sampleLocation = this.getClass().getResource("/hgnc-test.txt").toString();
+        ConfigurationSource configuration = this.mocker.getInstance(ConfigurationSource.class, "xwikiproperties");
+        when(configuration.getProperty(Mockito.eq(SOURCE_LOCATION), Mockito.anyString()))
+            .thenReturn(this.sampleLocation);
+    }
+
+    @Test
+    public void defaultSourceLocationIsConfigurable() throws ComponentLookupException
+    {
+        Assert.assertEquals(this.sampleLocation, this.mocker.getComponentUnderTest().getDefaultSourceLocation());
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    @Test
+    public void reindexLoadsSampleFileIntoReplacementCore()
+        throws ComponentLookupException, IOException, SolrServerException
+    {
+        Vocabulary hgnc = this.mocker.getComponentUnderTest();
+        Assert.assertEquals(0, hgnc.reindex(hgnc.getDefaultSourceLocation()));
+
+        ArgumentCaptor<Collection> added = ArgumentCaptor.forClass(Collection.class);
+        verify(this.replacementServer).add(added.capture());
+        verify(this.replacementServer).commit();
+        verify(this.externalServicesAccess).replaceCore();
+        verify(this.cache).removeAll();
+        Mockito.verifyZeroInteractions(this.server);
+
+        // Four genes and the version metadata
+        Collection<SolrInputDocument> documents = added.getValue();
+        Assert.assertEquals(5, documents.size());
+        SolrInputDocument brca2 = null;
+        for (SolrInputDocument document : documents) {
+            if ("HGNC:1101".equals(document.getFieldValue("id"))) {
+                brca2 = document;
+            }
+        }
+        Assert.assertNotNull(brca2);
+        Assert.assertEquals("BRCA2", brca2.getFieldValue("symbol"));
+        Assert.assertEquals(Arrays.asList("FAD", "FAD1", "BRCC2"),
+            new ArrayList<>(brca2.getFieldValues("alias_symbol")));
+        Assert.assertEquals("FANCD1", brca2.getFieldValue("prev_symbol"));
+    }
+
+    @Test
+    public void getTermsResolvesAllSymbolsWithOneQuery()
+        throws ComponentLookupException, IOException, SolrServerException
+    {
+        SolrDocumentList results = new SolrDocumentList();
+        results.add(gene("HGNC:3603", "FBN1", Arrays.asList("SGS", "WMS"), Arrays.asList("FBN")));
+        results.add(gene("HGNC:1100", "BRCA1", Arrays.asList("RNF53", "BRCC1"), null));
+        results.add(gene("HGNC:1101", "BRCA2", Arrays.asList("FAD", "FAD1", "BRCC2"), Arrays.asList("FANCD1")));
+        QueryResponse response = mock(QueryResponse.class);
+        when(response.getResults()).thenReturn(results);
+        when(this.server.query(any(SolrParams.class))).thenReturn(response);
+
+        Set<VocabularyTerm> terms =
+            this.mocker.getComponentUnderTest().getTerms(Arrays.asList("brca1", "FANCD1", "FBN", "HGNC:1100"));
+
+        verify(this.server, times(1)).query(any(SolrParams.class));
+        Iterator<VocabularyTerm> it = terms.iterator();
+        Assert.assertEquals("HGNC:1100", it.next().getId());
+        Assert.assertEquals("HGNC:1101", it.next().getId());
+        Assert.assertEquals("HGNC:3603", it.next().getId());
+        Assert.assertFalse(it.hasNext());
+    }
+
+    @Test
+    public void getTermsMatchesAlternativeIdsAndCachesUnknownSymbols()
+        throws ComponentLookupException, IOException, SolrServerException
+    {
+        final Map<String, VocabularyTerm> cached = new HashMap<>();
+        when(this.cache.get(Mockito.anyString())).thenAnswer(new Answer<VocabularyTerm>()
+        {
+            @Override
+            public VocabularyTerm answer(InvocationOnMock invocation)
+            {
+                return cached.get(invocation.getArguments()[0]);
+            }
+        });
+        Mockito.doAnswer(new Answer<Void>()
+        {
+            @Override
+            public Void answer(InvocationOnMock invocation)
+            {
+                cached.put((String) invocation.getArguments()[0], (VocabularyTerm) invocation.getArguments()[1]);
+                return null;
+            }
+        }).when(this.cache).set(Mockito.anyString(), any(VocabularyTerm.class));
+        SolrDocumentList results = new SolrDocumentList();
+        SolrDocument brca1 = gene("HGNC:1100", "BRCA1", Arrays.asList("RNF53", "BRCC1"), null);
+        brca1.setField("entrez_id", Arrays.asList("672"));
+        brca1.setField("ensembl_gene_id", Arrays.asList("ENSG00000012048"));
+        results.add(brca1);
+        QueryResponse response = mock(QueryResponse.class);
+        when(response.getResults()).thenReturn(results);
+        when(this.server.query(any(SolrParams.class))).thenReturn(response);
+
+        Vocabulary hgnc = this.mocker.getComponentUnderTest();
+        Set<VocabularyTerm> terms = hgnc.getTerms(Arrays.asList("672", "NOTAGENE", "ensg00000012048"));
+
+        // Unknown symbols aren't looked up again one by one
+        verify(this.server, times(1)).query(any(SolrParams.class));
+        Assert.assertEquals(1, terms.size());
+        Assert.assertEquals("HGNC:1100", terms.iterator().next().getId());
+        Assert.assertEquals("HGNC:1100", cached.get("672").getId());
+        Assert.assertEquals("HGNC:1100", cached.get("ensg00000012048").getId());
+        Assert.assertTrue(cached.containsKey("NOTAGENE"));
+
+        // Both the known and the unknown symbols are now answered from the cache
+        Assert.assertNull(hgnc.getTerm("NOTAGENE"));
+        Assert.assertEquals("HGNC:1100", hgnc.getTerm("672").getId());
+        Assert.assertTrue(hgnc.getTerms(Arrays.asList("NOTAGENE")).isEmpty());
+        verify(this.server, times(1)).query(any(SolrParams.class));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void getTermsLooksUpUnmatchedSymbolsOneByOneWhenResultsAreCutOff()
+        throws ComponentLookupException, IOException, SolrServerException
+    {
+        Cache<SolrDocumentList> searchCache = mock(Cache.class);
+        when(this.externalServicesAccess.getSearchCache()).thenReturn(searchCache);
+        SolrDocumentList batchResults = new SolrDocumentList();
+        batchResults.add(gene("HGNC:1100", "BRCA1", Arrays.asList("RNF53", "BRCC1"), null));
+        // More genes match than the returned page holds
+        batchResults.setNumFound(25);
+        QueryResponse batchResponse = mock(QueryResponse.class);
+        when(batchResponse.getResults()).thenReturn(batchResults);
+        SolrDocumentList singleResult = new SolrDocumentList();
+        singleResult.add(gene("HGNC:1101", "BRCA2", Arrays.asList("FAD", "FAD1", "BRCC2"), Arrays.asList("FANCD1")));
+        QueryResponse singleResponse = mock(QueryResponse.class);
+        when(singleResponse.getResults()).thenReturn(singleResult);
+        when(this.server.query(any(SolrParams.class))).thenReturn(batchResponse, singleResponse);
+
+        Set<VocabularyTerm> terms = this.mocker.getComponentUnderTest().getTerms(Arrays.asList("BRCA1", "BRCA2"));
+
+        Assert.assertEquals(2, terms.size());
+        Iterator<VocabularyTerm> it = terms.iterator();
+        Assert.assertEquals("HGNC:1100", it.next().getId());
+        Assert.assertEquals("HGNC:1101", it.next().getId());
+        verify(this.server, times(2)).query(any(SolrParams.class));
+        ArgumentCaptor<VocabularyTerm> cachedBrca2 = ArgumentCaptor.forClass(VocabularyTerm.class);
+        verify(this.cache).set(Mockito.eq("BRCA2"), cachedBrca2.capture());
+        Assert.assertEquals("HGNC:1101", cachedBrca2.getValue().getId());
+        // Batch lookups don't fill the search cache
+        verify(searchCache, never()).set(Mockito.anyString(), any(SolrDocumentList.class));
+    }
+
+    @Test
+    public void refreshSkipsUnmodifiedLocalFile() throws ComponentLookupException, IOException, SolrServerException
+    {
+        SolrDocumentList results = new SolrDocumentList();
+        SolrDocument version = new SolrDocument();
+        version.setField("version", ISODateTimeFormat.dateTime().withZoneUTC().print(new DateTime()));
+        results.add(version);
+        QueryResponse response = mock(QueryResponse.class);
+        when(response.getResults()).thenReturn(results);
+        when(this.server.query(any(SolrParams.class))).thenReturn(response);
+
+        GeneNomenclature hgnc = (GeneNomenclature) this.mocker.getComponentUnderTest();
+        Assert.assertEquals(0, hgnc.refresh());
+
+        verify(this.externalServicesAccess, never()).createReplacementCore();
+        verify(this.externalServicesAccess, never()).replaceCore();
+    }
+
+    @Test
+    public void refreshReindexesWhenIndexIsOlderThanLocalFile()
+        throws ComponentLookupException, IOException, SolrServerException
+    {
+        SolrDocumentList results = new SolrDocumentList();
+        SolrDocument version = new SolrDocument();
+        version.setField("version", "2000-01-01T00:00:00.000Z");
+        results.add(version);
+        QueryResponse response = mock(QueryResponse.class);
+        when(response.getResults()).thenReturn(results);
+        when(this.server.query(any(SolrParams.class))).thenReturn(response);
+
+        GeneNomenclature hgnc = (GeneNomenclature) this.mocker.getComponentUnderTest();
+        Assert.assertEquals(0, hgnc.refresh());
+
+        verify(this.replacementServer).commit();
+        verify(this.externalServicesAccess).replaceCore();
+    }
+
+    private SolrDocument gene(String id, String symbol, List<String> aliases, List<String> previousSymbols)
+    {
+        SolrDocument result = new SolrDocument();
+        result.setField("id", id);
+        result.setField("symbol", symbol);
+        if (aliases != null) {
+            result.setField("alias_symbol", aliases);
+        }
+        if (previousSymbols != null) {
+            result.setField("prev_symbol", previousSymbols);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses/
+ */
+package org.phenotips.vocabulary.internal;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.slf4j.Logger;
+
+import net.sf.json.JSONObject;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests for the {@link GeneRecordStore} class.
+ *
+ * @version $Id$
+ */
+public class GeneRecordStoreTest
+{
+    private static final long MAX_AGE = TimeUnit.DAYS.toMillis(1);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File file;
+
+    private Logger logger = mock(Logger.class);
+
+    @Before
+    public void setUp()
+    {
+        this.file = new File(this.folder.getRoot(), "store/genes.json");
+    }
+
+    @Test
+    public void storedRecordsAreReloaded()
+    {
+        GeneRecordStore store = new GeneRecordStore(this.file, 10, MAX_AGE, this.logger);
+        store.put("BRCA1", record("BRCA1"));
+        store.put("BRCC1", record("BRCA1"));
+        store.close();
+
+        store = new GeneRecordStore(this.file, 10, MAX_AGE, this.logger);
+        Assert.assertEquals("BRCA1", store.get("BRCA1").getString("symbol"));
+        Assert.assertEquals("BRCA1", store.get("BRCC1").getString("symbol"));
+        Assert.assertNull(store.get("BRCA2"));
+    }
+
+    @Test
+    public void leastRecentlyUsedRecordsAreEvicted()
+    {
+        GeneRecordStore store = new GeneRecordStore(this.file, 2, MAX_AGE, this.logger);
+        store.put("GENE1", record("GENE1"));
+        store.put("GENE2", record("GENE2"));
+        Assert.assertNotNull(store.get("GENE1"));
+        store.put("GENE3", record("GENE3"));
+
+        Assert.assertNotNull(store.get("GENE1"));
+        Assert.assertNull(store.get("GENE2"));
+        Assert.assertNotNull(store.get("GENE3"));
+    }
+
+    @Test
+    public void fileIsCompactedWhenItHoldsTooManyEvictedRecords() throws Exception
+    {
+        GeneRecordStore store = new GeneRecordStore(this.file, 3, MAX_AGE, this.logger);
+        for (int i = 1; i <= 20; ++i) {
+            store.put("GENE" + i, record("GENE" + i));
+        }
+        store.close();
+
+        Assert.assertTrue(Files.readAllLines(this.file.toPath(), StandardCharsets.UTF_8).size() <= 6);
+        store = new GeneRecordStore(this.file, 3, MAX_AGE, this.logger);
+        Assert.assertNull(store.get("GENE17"));
+        Assert.assertNotNull(store.get("GENE18"));
+        Assert.assertNotNull(store.get("GENE19"));
+        Assert.assertNotNull(store.get("GENE20"));
+    }
+
+    @Test
+    public void oversizedFileIsCompactedOnLoad() throws Exception
+    {
+        GeneRecordStore store = new GeneRecordStore(this.file, 10, MAX_AGE, this.logger);
+        for (int i = 1; i <= 10; ++i) {
+            store.put("GENE" + i, record("GENE" + i));
+        }
+        store.close();
+
+        store = new GeneRecordStore(this.file, 2, MAX_AGE, this.logger);
+        Assert.assertEquals(2, Files.readAllLines(this.file.toPath(), StandardCharsets.UTF_8).size());
+        Assert.assertNull(store.get("GENE8"));
+        Assert.assertNotNull(store.get("GENE9"));
+        Assert.assertNotNull(store.get("GENE10"));
+    }
+
+    @Test
+    public void expiredRecordsAreTreatedAsMissing() throws Exception
+    {
+        this.file.getParentFile().mkdirs();
+        long now = System.currentTimeMillis();
+        Files.write(this.file.toPath(), Arrays.asList(
+            entry("BRCA1", now - 2 * MAX_AGE).toString(),
+            entry("BRCA2", now - MAX_AGE / 2).toString(),
+            "{\"key\":\"BRCC1\",\"record\":{\"symbol\":\"BRCA1\"}}"), StandardCharsets.UTF_8);
+
+        GeneRecordStore store = new GeneRecordStore(this.file, 10, MAX_AGE, this.logger);
+        Assert.assertNull(store.get("BRCA1"));
+        Assert.assertEquals("BRCA2", store.get("BRCA2").getString("symbol"));
+        Assert.assertNull(store.get("BRCC1"));
+    }
+
+    @Test
+    public void recordsExpireWhileInMemory() throws Exception
+    {
+        GeneRecordStore store = new GeneRecordStore(this.file, 10, 1, this.logger);
+        store.put("BRCA1", record("BRCA1"));
+        Thread.sleep(5);
+        Assert.assertNull(store.get("BRCA1"));
+    }
+
+    @Test
+    public void recordsAreStillAppendedWhenCompactionFails() throws Exception
+    {
+        // A directory in the way of the temporary file makes compaction fail
+        File blocker = new File(this.file.getParentFile(), this.file.getName() + ".tmp");
+        blocker.mkdirs();
+        GeneRecordStore store = new GeneRecordStore(this.file, 1, MAX_AGE, this.logger);
+        for (int i = 1; i <= 4; ++i) {
+            store.put("GENE" + i, record("GENE" + i));
+        }
+        Assert.assertEquals(4, Files.readAllLines(this.file.toPath(), StandardCharsets.UTF_8).size());
+
+        // Once compaction works again, the line count is still right, so the file gets compacted right away
+        blocker.delete();
+        store.put("GENE5", record("GENE5"));
+        store.close();
+        Assert.assertEquals(1, Files.readAllLines(this.file.toPath(), StandardCharsets.UTF_8).size());
+        store = new GeneRecordStore(this.file, 1, MAX_AGE, this.logger);
+        Assert.assertNotNull(store.get("GENE5"));
+    }
+
+    @Test
+    public void clearRemovesTheFile()
+    {
+        GeneRecordStore store = new GeneRecordStore(this.file, 10, MAX_AGE, this.logger);
+        store.put("BRCA1", record("BRCA1"));
+        Assert.assertTrue(this.file.isFile());
+
+        store.clear();
+        Assert.assertFalse(this.file.exists());
+        Assert.assertNull(store.get("BRCA1"));
+    }
+
+    private JSONObject entry(String symbol, long fetched)
+    {
+        JSONObject result = new JSONObject();
+        result.put("key", symbol);
+        result.put("record", record(symbol));
+        result.put("fetched", fetched);
+        return result;
+    }
+
+    private JSONObject record(String symbol)
+    {
+        JSONObject result = new JSONObject();
+        result.put("symbol", symbol);
+        result.put("name", symbol + " gene");
+        return result;
+    }
+}
@@ -0,0 +1,259 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses/
+ */
+package org.phenotips.vocabulary.internal;
+
+import org.phenotips.vocabulary.Vocabulary;
+import org.phenotips.vocabulary.VocabularyTerm;
+
+import org.xwiki.cache.Cache;
+import org.xwiki.cache.CacheManager;
+import org.xwiki.cache.config.CacheConfiguration;
+import org.xwiki.component.phase.Disposable;
+import org.xwiki.component.phase.Initializable;
+import org.xwiki.configuration.ConfigurationSource;
+import org.xwiki.environment.Environment;
+import org.xwiki.test.mockito.MockitoComponentMockingRule;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.http.Consts;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for the {@link RemoteGeneNomenclature} component against a local HTTP server that simulates the latency of the
+ * remote HGNC service.
+ *
+ * @version $Id$
+ */
+public class RemoteGeneNomenclatureStubServerTest
+{
+    /** Simulated latency of each request, in milliseconds. */
+    private static final int LATENCY = 200;
+
+    /** The default number of parallel lookups. */
+    private static final int CONCURRENCY = 8;
+
+    @Rule
+    public MockitoComponentMockingRule<Vocabulary> mocker =
+        new MockitoComponentMockingRule<Vocabulary>(RemoteGeneNomenclature.class);
+
+    @Rule
+    public TemporaryFolder permanentDirectory = new TemporaryFolder();
+
+    private HttpServer server;
+
+    private final ConcurrentMap<String, AtomicInteger> requests = new ConcurrentHashMap<>();
+
+    private final AtomicInteger activeRequests = new AtomicInteger();
+
+    private final AtomicInteger maxActiveRequests = new AtomicInteger();
+
+    private final CountDownLatch requestReceived = new CountDownLatch(1);
+
+    /** When set, requests are held until this many requests are in progress at the same time. */
+    private volatile CountDownLatch concurrentRequests;
+
+    @SuppressWarnings("unchecked")
+    @Before
+    public void setUp() throws Exception
+    {
+        this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        this.server.createContext("/fetch/symbol/", new SlowFetchHandler());
+        this.server.setExecutor(Executors.newCachedThreadPool());
+        this.server.start();
+
+        when(this.mocker.<CacheManager>getInstance(CacheManager.class).<VocabularyTerm>createNewLocalCache(
+            any(CacheConfiguration.class))).thenReturn(mock(Cache.class));
+        when(this.mocker.<Environment>getInstance(Environment.class).getPermanentDirectory())
+            .thenReturn(this.permanentDirectory.getRoot());
+        ConfigurationSource configuration = this.mocker.getInstance(ConfigurationSource.class, "xwikiproperties");
+        when(configuration.getProperty(eq("phenotips.ontologies.hgnc.serviceURL"), anyString()))
+            .thenReturn("http://localhost:" + this.server.getAddress().getPort() + "/");
+        // Re-initialize with the stub server and the permanent directory configured
+        ((Initializable) this.mocker.getComponentUnderTest()).initialize();
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        this.server.stop(0);
+        ((Disposable) this.mocker.getComponentUnderTest()).dispose();
+    }
+
+    @Test
+    public void getTermsFetchesInParallel() throws Exception
+    {
+        List<String> symbols = new ArrayList<>();
+        for (int i = 1; i <= 16; ++i) {
+            symbols.add("GENE" + i);
+        }
+        symbols.add("NOTHING");
+        symbols.add("GENE1");
+        this.concurrentRequests = new CountDownLatch(4);
+
+        Set<VocabularyTerm> result = this.mocker.getComponentUnderTest().getTerms(symbols);
+
+        Assert.assertEquals(16, result.size());
+        Assert.assertEquals("GENE1", result.iterator().next().getId());
+        Assert.assertEquals(17, this.requests.size());
+        for (AtomicInteger count : this.requests.values()) {
+            Assert.assertEquals(1, count.get());
+        }
+        Assert.assertEquals(0, this.concurrentRequests.getCount());
+        Assert.assertTrue(this.maxActiveRequests.get() >= 4);
+        Assert.assertTrue(this.maxActiveRequests.get() <= CONCURRENCY);
+    }
+
+    @Test
+    public void concurrentLookupsOfTheSameTermShareOneRequest() throws Exception
+    {
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try {
+            Future<VocabularyTerm> first = callers.submit(new Lookup("BRCA1"));
+            Assert.assertTrue(this.requestReceived.await(10, TimeUnit.SECONDS));
+            Future<VocabularyTerm> second = callers.submit(new Lookup("BRCA1"));
+
+            Assert.assertEquals("BRCA1", first.get().getId());
+            Assert.assertSame(first.get(), second.get());
+            Assert.assertEquals(1, this.requests.get("BRCA1").get());
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    public void fetchedRecordsSurviveRestart() throws Exception
+    {
+        Vocabulary hgnc = this.mocker.getComponentUnderTest();
+        Assert.assertEquals("BRCA1 gene", hgnc.getTerm("BRCA1").getName());
+        Assert.assertNull(hgnc.getTerm("NOTHING"));
+
+        // Restart, without access to the remote service
+        this.server.stop(0);
+        ((Initializable) hgnc).initialize();
+
+        VocabularyTerm term = hgnc.getTerm("BRCA1");
+        Assert.assertNotNull(term);
+        Assert.assertEquals("BRCA1 gene", term.getName());
+        Assert.assertEquals(1, this.requests.get("BRCA1").get());
+    }
+
+    @Test
+    public void reindexClearsStoredRecords() throws Exception
+    {
+        Vocabulary hgnc = this.mocker.getComponentUnderTest();
+        hgnc.getTerm("BRCA1");
+        File store = new File(this.permanentDirectory.getRoot(), "cache/vocabularies/hgnc-remote/genes.json");
+        Assert.assertTrue(store.isFile());
+
+        Assert.assertEquals(0, hgnc.reindex(null));
+        Assert.assertFalse(store.exists());
+
+        hgnc.getTerm("BRCA1");
+        Assert.assertEquals(2, this.requests.get("BRCA1").get());
+    }
+
+    private final class Lookup implements Callable<VocabularyTerm>
+    {
+        private final String symbol;
+
+        Lookup(String symbol)
+        {
+            this.symbol = symbol;
+        }
+
+        @Override
+        public VocabularyTerm call() throws Exception
+        {
+            return RemoteGeneNomenclatureStubServerTest.this.mocker.getComponentUnderTest().getTerm(this.symbol);
+        }
+    }
+
+    private final class SlowFetchHandler implements HttpHandler
+    {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException
+        {
+            String symbol = StringUtils.substringAfterLast(exchange.getRequestURI().getPath(), "/");
+            AtomicInteger count = new AtomicInteger();
+            AtomicInteger existing = RemoteGeneNomenclatureStubServerTest.this.requests.putIfAbsent(symbol, count);
+            (existing == null ? count : existing).incrementAndGet();
+            int active = RemoteGeneNomenclatureStubServerTest.this.activeRequests.incrementAndGet();
+            AtomicInteger max = RemoteGeneNomenclatureStubServerTest.this.maxActiveRequests;
+            int currentMax = max.get();
+            while (active > currentMax && !max.compareAndSet(currentMax, active)) {
+                currentMax = max.get();
+            }
+            RemoteGeneNomenclatureStubServerTest.this.requestReceived.countDown();
+            CountDownLatch concurrent = RemoteGeneNomenclatureStubServerTest.this.concurrentRequests;
+            try {
+                if (concurrent != null) {
+                    concurrent.countDown();
+                    concurrent.await(10, TimeUnit.SECONDS);
+                } else {
+                    Thread.sleep(LATENCY);
+                }
+                String docs = "NOTHING".equals(symbol) ? ""
+                    : "{\"symbol\":\"" + symbol + "\",\"name\":\"" + symbol + " gene\"}";
+                byte[] body = ("{\"response\":{\"numFound\":" + (docs.isEmpty() ? 0 : 1) + ",\"docs\":[" + docs
+                    + "]}}").getBytes(Consts.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } finally {
+                RemoteGeneNomenclatureStubServerTest.this.activeRequests.decrementAndGet();
+                exchange.close();
+            }
+        }
+    }
+}
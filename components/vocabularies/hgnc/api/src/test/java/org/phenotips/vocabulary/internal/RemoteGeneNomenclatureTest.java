@@ -38,12 +38,14 @@
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import org.apache.commons.lang3.StringUtils;
 import org.apache.http.HttpEntity;
 import org.apache.http.client.ClientProtocolException;
 import org.apache.http.client.methods.CloseableHttpResponse;
@@ -58,6 +60,8 @@
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
 import org.mockito.internal.matchers.CapturingMatcher;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
 import net.sf.json.JSONArray;
 
@@ -209,16 +213,33 @@ public void getTermsFetchesFromRemoteServer() throws ComponentLookupException, U
     {
         URI expectedURI1 = new URI("http://rest.genenames.org/fetch/symbol/BRCA1");
         URI expectedURI2 = new URI("http://rest.genenames.org/fetch/symbol/NOTHING");
-        CapturingMatcher<HttpUriRequest> reqCapture = new CapturingMatcher<>();
-        when(this.client.execute(Matchers.argThat(reqCapture))).thenReturn(this.response);
-        when(this.response.getEntity()).thenReturn(this.responseEntity);
-        when(this.responseEntity.getContent()).thenReturn(ClassLoader.getSystemResourceAsStream("BRCA1.json"),
-            ClassLoader.getSystemResourceAsStream("NOTHING.json"));
+        // The terms are fetched in parallel, so answer depending on the requested URI rather than the call order
+        final Map<String, CloseableHttpResponse> responses = new HashMap<>();
+        for (String symbol : Arrays.asList("BRCA1", "NOTHING")) {
+            CloseableHttpResponse symbolResponse = mock(CloseableHttpResponse.class);
+            HttpEntity entity = mock(HttpEntity.class);
+            when(symbolResponse.getEntity()).thenReturn(entity);
+            when(entity.getContent()).thenReturn(ClassLoader.getSystemResourceAsStream(symbol + ".json"));
+            responses.put(symbol, symbolResponse);
+        }
+        final Set<HttpUriRequest> requests = Collections.synchronizedSet(new HashSet<HttpUriRequest>());
+        when(this.client.execute(any(HttpUriRequest.class))).thenAnswer(new Answer<CloseableHttpResponse>()
+        {
+            @Override
+            public CloseableHttpResponse answer(InvocationOnMock invocation)
+            {
+                HttpUriRequest request = (HttpUriRequest) invocation.getArguments()[0];
+                requests.add(request);
+                return responses.get(StringUtils.substringAfterLast(request.getURI().getPath(), "/"));
+            }
+        });
         Set<VocabularyTerm> result = this.mocker.getComponentUnderTest().getTerms(Arrays.asList("BRCA1", "NOTHING"));
-        List<HttpUriRequest> calledURIs = reqCapture.getAllValues();
-        Assert.assertEquals(expectedURI1, calledURIs.get(0).getURI());
-        Assert.assertEquals(expectedURI2, calledURIs.get(1).getURI());
-        Assert.assertEquals("application/json", reqCapture.getLastValue().getLastHeader("Accept").getValue());
+        Set<URI> calledURIs = new HashSet<>();
+        for (HttpUriRequest request : requests) {
+            calledURIs.add(request.getURI());
+            Assert.assertEquals("application/json", request.getLastHeader("Accept").getValue());
+        }
+        Assert.assertEquals(new HashSet<>(Arrays.asList(expectedURI1, expectedURI2)), calledURIs);
         Assert.assertEquals(1, result.size());
         Assert.assertEquals("BRCA1", result.iterator().next().getId());
     }
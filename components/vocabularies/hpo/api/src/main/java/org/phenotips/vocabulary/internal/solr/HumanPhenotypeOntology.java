@@ -17,11 +17,15 @@
  */
 package org.phenotips.vocabulary.internal.solr;
 
+import org.phenotips.obo2solr.TermData;
 import org.phenotips.vocabulary.VocabularyTerm;
 
 import org.xwiki.component.annotation.Component;
 
+import java.io.IOException;
 import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -35,8 +39,11 @@
 import javax.inject.Singleton;
 
 import org.apache.commons.lang3.StringUtils;
+import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.client.solrj.SolrServerException;
 import org.apache.solr.client.solrj.util.ClientUtils;
 import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.SolrException;
 import org.apache.solr.common.params.CommonParams;
 import org.apache.solr.common.params.DisMaxParams;
 import org.apache.solr.common.params.ModifiableSolrParams;
@@ -57,6 +64,30 @@ public class HumanPhenotypeOntology extends AbstractOBOSolrVocabulary
     /** For determining if a query is a an id. */
     private static final Pattern ID_PATTERN = Pattern.compile("^HP:[0-9]+$", Pattern.CASE_INSENSITIVE);
 
+    /** The root of the phenotypic abnormalities, the only terms offered as suggestions. */
+    private static final String PHENOTYPE_ROOT = "HP:0000118";
+
+    private static final String NAME_FIELD_NAME = "name";
+
+    private static final String SYNONYM_FIELD_NAME = "synonym";
+
+    private static final String SPELLCHECK = "spellcheck";
+
+    private static final float NAME_WEIGHT = 3f;
+
+    private static final float SYNONYM_WEIGHT = 2f;
+
+    private static final float ID_WEIGHT = 1f;
+
+    /**
+     * The in-memory autocomplete index of the phenotypic abnormalities, built when indexing, or loaded from the index
+     * on first use. {@code null} until then.
+     */
+    private volatile PrefixSuggester suggester;
+
+    /** Collects the labels of the terms while reindexing, {@code null} otherwise. */
+    private PrefixSuggester.Builder pendingSuggester;
+
     @Override
     protected String getName()
     {
@@ -94,21 +125,151 @@ public List<VocabularyTerm> search(String input, int maxResults, String sort, St
         }
         boolean isId = this.isId(input);
         Map<String, String> options = this.getStaticSolrParams();
-        if (!isId) {
+        if (isId) {
+            // Identifiers are matched exactly, there's nothing to correct
+            options.put(SPELLCHECK, Boolean.toString(false));
+        } else {
             options.putAll(this.getStaticFieldSolrParams());
         }
         List<VocabularyTerm> result = new LinkedList<>();
         for (SolrDocument doc : this.search(produceDynamicSolrParams(input, maxResults, sort, customFilter, isId),
             options)) {
-            result.add(new SolrVocabularyTerm(doc, this));
+            result.add(createTerm(doc));
         }
         return result;
     }
 
+    /**
+     * Suggests phenotypic abnormalities for a partially typed input, without querying Solr. The input is matched
+     * against the start of the words in the names, synonyms and identifiers of the terms, and a few typos are tolerated
+     * if there aren't enough exact matches.
+     *
+     * @param input the text typed so far
+     * @param maxResults the maximum number of terms to return
+     * @return the best matching terms, best first; an empty list if the input is blank or nothing matches
+     * @since 1.3M1
+     */
+    public List<VocabularyTerm> suggest(String input, int maxResults)
+    {
+        if (StringUtils.isBlank(input) || maxResults <= 0) {
+            return Collections.emptyList();
+        }
+        PrefixSuggester currentSuggester = getSuggester();
+        if (currentSuggester == null) {
+            return search(input, maxResults, null, null);
+        }
+        List<String> ids = currentSuggester.suggest(input, maxResults);
+        Map<String, VocabularyTerm> terms = new HashMap<>();
+        for (VocabularyTerm term : getTerms(ids)) {
+            terms.put(term.getId(), term);
+        }
+        List<VocabularyTerm> result = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            VocabularyTerm term = terms.get(id);
+            if (term != null) {
+                result.add(term);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public int reindex(String sourceUrl)
+    {
+        // The pending suggester belongs to the running reindex, don't replace it
+        if (!startReindexing()) {
+            return REINDEX_IN_PROGRESS;
+        }
+        try {
+            synchronized (this) {
+                this.pendingSuggester = new PrefixSuggester.Builder();
+            }
+            int result = super.reindex(sourceUrl);
+            synchronized (this) {
+                if (result == 0) {
+                    this.suggester = this.pendingSuggester.build();
+                }
+                this.pendingSuggester = null;
+            }
+            return result;
+        } finally {
+            finishReindexing();
+        }
+    }
+
+    @Override
+    protected void termRead(TermData term)
+    {
+        Collection<String> categories = term.get(TermData.TERM_CATEGORY_FIELD_NAME);
+        if (this.pendingSuggester != null && categories != null && categories.contains(PHENOTYPE_ROOT)) {
+            String id = term.get(ID_FIELD_NAME).iterator().next();
+            addLabels(this.pendingSuggester, id, term.get(NAME_FIELD_NAME), term.get(SYNONYM_FIELD_NAME));
+        }
+    }
+
+    private PrefixSuggester getSuggester()
+    {
+        if (this.suggester == null) {
+            synchronized (this) {
+                if (this.suggester == null) {
+                    this.suggester = loadSuggester();
+                }
+            }
+        }
+        return this.suggester;
+    }
+
+    /**
+     * Load the autocomplete index from the Solr index, using a single query which only fetches the labels of the
+     * phenotypic abnormalities.
+     *
+     * @return the loaded suggester, or {@code null} if the index cannot be queried
+     */
+    private PrefixSuggester loadSuggester()
+    {
+        try {
+            long size = size();
+            if (size < 0) {
+                return null;
+            }
+            SolrQuery query = new SolrQuery("*:*");
+            query.addFilterQuery(
+                TermData.TERM_CATEGORY_FIELD_NAME + ':' + ClientUtils.escapeQueryChars(PHENOTYPE_ROOT));
+            query.setFields(ID_FIELD_NAME, NAME_FIELD_NAME, SYNONYM_FIELD_NAME);
+            query.setRows((int) size);
+            PrefixSuggester.Builder builder = new PrefixSuggester.Builder();
+            for (SolrDocument doc : this.externalServicesAccess.getSolrConnection().query(query).getResults()) {
+                addLabels(builder, (String) doc.getFirstValue(ID_FIELD_NAME), doc.getFieldValues(NAME_FIELD_NAME),
+                    doc.getFieldValues(SYNONYM_FIELD_NAME));
+            }
+            PrefixSuggester result = builder.build();
+            this.logger.debug("Loaded the suggestions of [{}] with [{}] words", getName(), result.getWordCount());
+            return result;
+        } catch (SolrServerException | SolrException | IOException ex) {
+            this.logger.warn("Failed to load the suggestions of [{}]: {}", getName(), ex.getMessage());
+        }
+        return null;
+    }
+
+    private void addLabels(PrefixSuggester.Builder builder, String id, Collection<?> names, Collection<?> synonyms)
+    {
+        builder.add(id, id, ID_WEIGHT);
+        if (names != null) {
+            for (Object name : names) {
+                builder.add(id, String.valueOf(name), NAME_WEIGHT);
+            }
+        }
+        if (synonyms != null) {
+            for (Object synonym : synonyms) {
+                builder.add(id, String.valueOf(synonym), SYNONYM_WEIGHT);
+            }
+        }
+    }
+
     private Map<String, String> getStaticSolrParams()
     {
         Map<String, String> params = new HashMap<>();
-        params.put("spellcheck", Boolean.toString(true));
+        params.put(SPELLCHECK, Boolean.toString(true));
         params.put(SpellingParams.SPELLCHECK_COLLATE, Boolean.toString(true));
         params.put(SpellingParams.SPELLCHECK_COUNT, "100");
         params.put(SpellingParams.SPELLCHECK_MAX_COLLATION_TRIES, "3");
@@ -18,20 +18,30 @@
 package org.phenotips.vocabulary.internal.solr;
 
 import org.phenotips.vocabulary.Vocabulary;
+import org.phenotips.vocabulary.VocabularyCacheStatistics;
 import org.phenotips.vocabulary.VocabularyTerm;
 import org.phenotips.vocabulary.SolrVocabularyResourceManager;
 
 import org.xwiki.cache.Cache;
 import org.xwiki.cache.CacheException;
 import org.xwiki.component.manager.ComponentLookupException;
+import org.xwiki.component.util.ReflectionUtils;
 import org.xwiki.test.mockito.MockitoComponentMockingRule;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
 
 import org.apache.solr.client.solrj.SolrClient;
 import org.apache.solr.client.solrj.SolrQuery;
 import org.apache.solr.client.solrj.SolrServerException;
 import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.client.solrj.response.SpellCheckResponse;
 import org.apache.solr.common.SolrDocument;
 import org.apache.solr.common.SolrDocumentList;
 import org.apache.solr.common.SolrInputDocument;
@@ -45,9 +55,11 @@
 import org.mockito.ArgumentMatcher;
 import org.mockito.Matchers;
 import org.mockito.Mockito;
+import org.slf4j.Logger;
 
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.argThat;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -62,8 +74,14 @@
 
     public Cache<VocabularyTerm> cache;
 
+    public Cache<SolrDocumentList> searchCache;
+
     public SolrClient server;
 
+    public SolrClient replacementServer;
+
+    public SolrVocabularyResourceManager externalServicesAccess;
+
     public Vocabulary ontologyService;
 
     @Rule
@@ -78,9 +96,15 @@ public void setUpOntology()
         this.cache = mock(Cache.class);
         SolrVocabularyResourceManager externalServicesAccess =
             this.mocker.getInstance(SolrVocabularyResourceManager.class);
+        this.externalServicesAccess = externalServicesAccess;
         when(externalServicesAccess.getTermCache()).thenReturn(this.cache);
+        this.searchCache = mock(Cache.class);
+        when(externalServicesAccess.getSearchCache()).thenReturn(this.searchCache);
         this.server = mock(SolrClient.class);
         when(externalServicesAccess.getSolrConnection()).thenReturn(this.server);
+        this.replacementServer = mock(SolrClient.class);
+        when(externalServicesAccess.createReplacementCore()).thenReturn(this.replacementServer);
+        when(externalServicesAccess.replaceCore()).thenReturn(true);
         this.ontologyService = this.mocker.getComponentUnderTest();
         this.ontologyServiceResult =
             this.ontologyService.reindex(this.getClass().getResource("/hpo-test.obo").toString());
@@ -90,14 +114,66 @@ public void setUpOntology()
     public void testHumanPhenotypeOntologyReindex()
         throws ComponentLookupException, IOException, SolrServerException, CacheException
     {
-        Mockito.verify(this.server).deleteByQuery("*:*");
-        Mockito.verify(this.server).commit();
-        Mockito.verify(this.server).add(Matchers.anyCollectionOf(SolrInputDocument.class));
+        Mockito.verify(this.replacementServer).commit();
+        Mockito.verify(this.replacementServer).add(Matchers.anyCollectionOf(SolrInputDocument.class));
+        Mockito.verify(this.externalServicesAccess).replaceCore();
         Mockito.verify(this.cache).removeAll();
-        Mockito.verifyNoMoreInteractions(this.cache, this.server);
+        Mockito.verifyNoMoreInteractions(this.cache, this.server, this.replacementServer);
         Assert.assertTrue(this.ontologyServiceResult == 0);
     }
 
+    @Test
+    public void testHumanPhenotypeOntologyFailedReindexKeepsCurrentIndex()
+        throws ComponentLookupException, IOException, SolrServerException
+    {
+        Mockito.reset(this.cache, this.replacementServer);
+        when(this.replacementServer.add(Matchers.anyCollectionOf(SolrInputDocument.class)))
+            .thenThrow(new SolrServerException("failed"));
+
+        Assert.assertEquals(1,
+            this.ontologyService.reindex(this.getClass().getResource("/hpo-test.obo").toString()));
+
+        Mockito.verify(this.externalServicesAccess).discardReplacementCore();
+        // Only the successful reindex done during the setup replaced the core
+        Mockito.verify(this.externalServicesAccess, Mockito.times(1)).replaceCore();
+        Mockito.verifyZeroInteractions(this.cache, this.server);
+    }
+
+    @Test
+    public void testHumanPhenotypeOntologyReindexIsRejectedWhileAnotherReindexIsRunning() throws Exception
+    {
+        final AbstractSolrVocabulary vocabulary = (AbstractSolrVocabulary) this.ontologyService;
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch checked = new CountDownLatch(1);
+        Thread otherReindex = new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                vocabulary.startReindexing();
+                started.countDown();
+                try {
+                    checked.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    vocabulary.finishReindexing();
+                }
+            }
+        });
+        otherReindex.start();
+        started.await();
+
+        try {
+            Assert.assertEquals(3, this.ontologyService.reindex(getClass().getResource("/hpo-test.obo").toString()));
+        } finally {
+            checked.countDown();
+            otherReindex.join();
+        }
+        verify(this.externalServicesAccess, Mockito.times(1)).createReplacementCore();
+        Assert.assertEquals(0, this.ontologyService.reindex(getClass().getResource("/hpo-test.obo").toString()));
+    }
+
     @Test
     public void testHumanPhenotypeOntologyVersion() throws SolrServerException, IOException
     {
@@ -112,6 +188,65 @@ public void testHumanPhenotypeOntologyVersion() throws SolrServerException, IOEx
         Assert.assertEquals("2014:01:01", this.ontologyService.getVersion());
     }
 
+    @Test
+    public void testHumanPhenotypeOntologyVersionIsKeptUntilReindex() throws SolrServerException, IOException
+    {
+        QueryResponse response = mock(QueryResponse.class);
+        when(this.server.query(any(SolrQuery.class))).thenReturn(response);
+        SolrDocument versionDoc = new SolrDocument();
+        versionDoc.setField("version", "2014:01:01");
+        SolrDocumentList results = new SolrDocumentList();
+        results.add(versionDoc);
+        when(response.getResults()).thenReturn(results);
+
+        Assert.assertEquals("2014:01:01", this.ontologyService.getVersion());
+        Assert.assertEquals("2014:01:01", this.ontologyService.getVersion());
+        verify(this.server, Mockito.times(1)).query(any(SolrQuery.class));
+
+        versionDoc.setField("version", "2015:01:01");
+        this.ontologyService.reindex(this.getClass().getResource("/hpo-test.obo").toString());
+        Assert.assertEquals("2015:01:01", this.ontologyService.getVersion());
+        verify(this.server, Mockito.times(2)).query(any(SolrQuery.class));
+    }
+
+    @Test
+    public void testHumanPhenotypeOntologyVersionIsQueriedAgainAfterAFailure() throws SolrServerException, IOException
+    {
+        QueryResponse response = mock(QueryResponse.class);
+        when(this.server.query(any(SolrQuery.class))).thenThrow(new SolrServerException("Unavailable"))
+            .thenReturn(response);
+        SolrDocument versionDoc = new SolrDocument();
+        versionDoc.setField("version", "2014:01:01");
+        SolrDocumentList results = new SolrDocumentList();
+        results.add(versionDoc);
+        when(response.getResults()).thenReturn(results);
+
+        Assert.assertNull(this.ontologyService.getVersion());
+        Assert.assertEquals("2014:01:01", this.ontologyService.getVersion());
+        Assert.assertEquals("2014:01:01", this.ontologyService.getVersion());
+        verify(this.server, Mockito.times(2)).query(any(SolrQuery.class));
+    }
+
+    @Test
+    public void testHumanPhenotypeOntologyMissingVersionIsKeptUntilReindex() throws SolrServerException, IOException
+    {
+        QueryResponse response = mock(QueryResponse.class);
+        when(this.server.query(any(SolrQuery.class))).thenReturn(response);
+        SolrDocumentList results = new SolrDocumentList();
+        when(response.getResults()).thenReturn(results);
+
+        Assert.assertNull(this.ontologyService.getVersion());
+        Assert.assertNull(this.ontologyService.getVersion());
+        verify(this.server, Mockito.times(1)).query(any(SolrQuery.class));
+
+        SolrDocument versionDoc = new SolrDocument();
+        versionDoc.setField("version", "2015:01:01");
+        results.add(versionDoc);
+        this.ontologyService.reindex(this.getClass().getResource("/hpo-test.obo").toString());
+        Assert.assertEquals("2015:01:01", this.ontologyService.getVersion());
+        verify(this.server, Mockito.times(2)).query(any(SolrQuery.class));
+    }
+
     @Test
     public void testHumanPhenotypeOntologyDefaultLocation()
     {
@@ -169,6 +304,332 @@ public void testHumanPhenotypeOntologySuggestTermsMultipleWords() throws Compone
         verify(this.server).query(argThat(new IsDisMaxQuery()));
     }
 
+    @Test
+    public void testHumanPhenotypeOntologyGetTermsOnlyQueriesMissingTermsAndCachesResults()
+        throws SolrServerException, IOException
+    {
+        VocabularyTerm cachedTerm = mock(VocabularyTerm.class);
+        when(this.cache.get("HP:0000001")).thenReturn(cachedTerm);
+        SolrDocument doc = new SolrDocument();
+        doc.setField("id", "HP:0000002");
+        SolrDocumentList docs = new SolrDocumentList();
+        docs.add(doc);
+        QueryResponse response = mock(QueryResponse.class);
+        when(this.server.query(any(SolrParams.class))).thenReturn(response);
+        when(response.getResults()).thenReturn(docs);
+
+        Set<VocabularyTerm> result =
+            this.ontologyService.getTerms(Arrays.asList("HP:0000001", "HP:0000002", "HP:0000003"));
+
+        Assert.assertEquals(2, result.size());
+        Assert.assertTrue(result.contains(cachedTerm));
+        verify(this.server).query(argThat(new ArgumentMatcher<SolrParams>()
+        {
+            @Override
+            public boolean matches(Object argument)
+            {
+                SolrParams params = (SolrParams) argument;
+                return "id:(HP\\:0000002 HP\\:0000003 )".equals(params.get(CommonParams.Q))
+                    && "2".equals(params.get(CommonParams.ROWS));
+            }
+        }));
+        verify(this.cache).set(eq("HP:0000002"), any(VocabularyTerm.class));
+        verify(this.cache).set(eq("HP:0000003"), any(VocabularyTerm.class));
+        Map<String, Long> statistics = ((VocabularyCacheStatistics) this.ontologyService).getTermCacheStatistics();
+        Assert.assertEquals(Long.valueOf(1), statistics.get(VocabularyCacheStatistics.HITS));
+        Assert.assertEquals(Long.valueOf(2), statistics.get(VocabularyCacheStatistics.MISSES));
+    }
+
+    @Test
+    public void testHumanPhenotypeOntologyGetTermsResolvesAlternativeIds() throws SolrServerException, IOException
+    {
+        SolrDocument doc = new SolrDocument();
+        doc.setField("id", "HP:0001510");
+        SolrDocumentList docs = new SolrDocumentList();
+        docs.add(doc);
+        QueryResponse empty = mock(QueryResponse.class);
+        when(empty.getResults()).thenReturn(new SolrDocumentList());
+        when(this.server.query(any(SolrParams.class))).thenReturn(empty);
+        QueryResponse found = mock(QueryResponse.class);
+        when(found.getResults()).thenReturn(docs);
+        when(this.server.query(argThat(new ArgumentMatcher<SolrParams>()
+        {
+            @Override
+            public boolean matches(Object argument)
+            {
+                return argument != null && "id:(HP\\:0001510 )".equals(((SolrParams) argument).get(CommonParams.Q));
+            }
+        }))).thenReturn(found);
+
+        Set<VocabularyTerm> result = this.ontologyService.getTerms(Arrays.asList("HP:0001434", "HP:9999999"));
+
+        Assert.assertEquals(1, result.size());
+        VocabularyTerm term = result.iterator().next();
+        Assert.assertEquals("HP:0001510", term.getId());
+        // Cached under the requested alternative identifier, so that looking it up again doesn't query the index
+        verify(this.cache).set("HP:0001434", term);
+        verify(this.cache).set("HP:9999999", AbstractSolrVocabulary.EMPTY_MARKER);
+        // One query for the requested identifiers, one for the term which replaced the alternative identifier
+        verify(this.server, Mockito.times(2)).query(any(SolrParams.class));
+    }
+
+    @Test
+    public void testHumanPhenotypeOntologySearchUsesCachedResults() throws ComponentLookupException,
+        SolrServerException, IOException
+    {
+        SolrDocument doc = new SolrDocument();
+        doc.setField("id", "HP:0000002");
+        SolrDocumentList docs = new SolrDocumentList();
+        docs.add(doc);
+        when(this.searchCache.get(Matchers.anyString())).thenReturn(docs);
+
+        List<VocabularyTerm> result = this.mocker.getComponentUnderTest().search("abnormality", 10, null, null);
+
+        Assert.assertEquals(1, result.size());
+        Assert.assertEquals("HP:0000002", result.get(0).getId());
+        verify(this.server, Mockito.never()).query(any(SolrParams.class));
+    }
+
+    @Test
+    public void testHumanPhenotypeOntologySearchCachesResults() throws ComponentLookupException,
+        SolrServerException, IOException
+    {
+        QueryResponse response = mock(QueryResponse.class);
+        when(this.server.query(any(SolrParams.class))).thenReturn(response);
+        SolrDocumentList docs = new SolrDocumentList();
+        when(response.getResults()).thenReturn(docs);
+
+        this.mocker.getComponentUnderTest().search("abnormality", 10, null, null);
+
+        verify(this.searchCache).set(Matchers.anyString(), Matchers.same(docs));
+    }
+
+    @Test
+    public void testHumanPhenotypeOntologyFieldSearchSendsASingleQuery()
+        throws SolrServerException, IOException
+    {
+        SolrDocument doc = new SolrDocument();
+        doc.setField("id", "HP:0000002");
+        SolrDocumentList firstPage = new SolrDocumentList();
+        firstPage.add(doc);
+        firstPage.setNumFound(2);
+        QueryResponse response = mock(QueryResponse.class);
+        when(response.getResults()).thenReturn(firstPage);
+        when(this.server.query(any(SolrParams.class))).thenReturn(response);
+
+        List<VocabularyTerm> result = this.ontologyService.search(Collections.singletonMap("is_a", "HP:0000001"));
+
+        Assert.assertEquals(1, result.size());
+        verify(this.server, Mockito.times(1)).query(argThat(new ArgumentMatcher<SolrParams>()
+        {
+            @Override
+            public boolean matches(Object argument)
+            {
+                return String.valueOf(SolrQueryUtils.DEFAULT_ROWS).equals(
+                    ((SolrParams) argument).get(CommonParams.ROWS));
+            }
+        }));
+        verify(this.server, Mockito.times(1)).query(any(SolrParams.class));
+    }
+
+    @Test
+    public void testHumanPhenotypeOntologySearchDoesNotExposeCachedResults() throws SolrServerException, IOException
+    {
+        SolrDocument doc = new SolrDocument();
+        doc.setField("id", "HP:0000002");
+        SolrDocumentList docs = new SolrDocumentList();
+        docs.add(doc);
+        when(this.searchCache.get(Matchers.anyString())).thenReturn(docs);
+
+        SolrDocumentList result =
+            ((AbstractSolrVocabulary) this.ontologyService).search(SolrQueryUtils.transformQueryToSolrParams("*:*"));
+        result.clear();
+
+        Assert.assertEquals(1, docs.size());
+    }
+
+    @Test
+    public void testHumanPhenotypeOntologyTermLookupsSkipTheSearchCache() throws SolrServerException, IOException
+    {
+        Mockito.reset(this.searchCache);
+        QueryResponse response = mock(QueryResponse.class);
+        when(this.server.query(any(SolrParams.class))).thenReturn(response);
+        when(response.getResults()).thenReturn(new SolrDocumentList());
+
+        this.ontologyService.getTerm("HP:0000002");
+        this.ontologyService.getTerms(Arrays.asList("HP:0000003", "HP:0000004"));
+
+        Mockito.verifyZeroInteractions(this.searchCache);
+    }
+
+    @Test
+    public void testHumanPhenotypeOntologySearchSkipsSpellcheckRetryWhenResultsAreComplete()
+        throws ComponentLookupException, SolrServerException, IOException
+    {
+        QueryResponse response = mockMisspelledResponse(2);
+        when(this.server.query(any(SolrParams.class))).thenReturn(response);
+
+        this.mocker.getComponentUnderTest().search("abnormalty", 2, null, null);
+
+        verify(this.server, Mockito.times(1)).query(any(SolrParams.class));
+    }
+
+    @Test
+    public void testHumanPhenotypeOntologySearchRetriesSpellcheckWhenResultsAreIncomplete()
+        throws ComponentLookupException, SolrServerException, IOException
+    {
+        QueryResponse response = mockMisspelledResponse(1);
+        when(this.server.query(any(SolrParams.class))).thenReturn(response);
+
+        this.mocker.getComponentUnderTest().search("abnormalty", 2, null, null);
+
+        verify(this.server, Mockito.times(2)).query(any(SolrParams.class));
+    }
+
+    @Test
+    public void testHumanPhenotypeOntologyGetTermResolvesAlternativeIdsWithoutSearching()
+        throws SolrServerException, IOException
+    {
+        QueryResponse empty = mock(QueryResponse.class);
+        when(empty.getResults()).thenReturn(new SolrDocumentList());
+        when(this.server.query(any(SolrParams.class))).thenReturn(empty);
+        SolrDocument doc = new SolrDocument();
+        doc.setField("id", "HP:0001510");
+        SolrDocumentList docs = new SolrDocumentList();
+        docs.add(doc);
+        QueryResponse found = mock(QueryResponse.class);
+        when(found.getResults()).thenReturn(docs);
+        when(this.server.query(argThat(new ArgumentMatcher<SolrParams>()
+        {
+            @Override
+            public boolean matches(Object argument)
+            {
+                return argument != null && "id:HP\\:0001510".equals(((SolrParams) argument).get(CommonParams.Q));
+            }
+        }))).thenReturn(found);
+
+        VocabularyTerm result = this.ontologyService.getTerm("HP:0001434");
+
+        Assert.assertEquals("HP:0001510", result.getId());
+        verify(this.cache).set("HP:0001434", result);
+        // One query for the alternative identifier itself, one for the term which replaced it, no alt_id search
+        verify(this.server, Mockito.times(2)).query(any(SolrParams.class));
+
+        Assert.assertNull(this.ontologyService.getTerm("HP:9999999"));
+        verify(this.server, Mockito.times(3)).query(any(SolrParams.class));
+        // Each requested identifier is a single term cache lookup, even when it has to be resolved to its replacement
+        Map<String, Long> statistics = ((VocabularyCacheStatistics) this.ontologyService).getTermCacheStatistics();
+        Assert.assertEquals(Long.valueOf(0), statistics.get(VocabularyCacheStatistics.HITS));
+        Assert.assertEquals(Long.valueOf(2), statistics.get(VocabularyCacheStatistics.MISSES));
+    }
+
+    @Test
+    public void testHumanPhenotypeOntologyGetAncestorIdsUsesTheHierarchy() throws SolrServerException, IOException
+    {
+        QueryResponse empty = mock(QueryResponse.class);
+        when(empty.getResults()).thenReturn(new SolrDocumentList());
+        when(this.server.query(any(SolrParams.class))).thenReturn(empty);
+
+        Map<String, Set<String>> result = this.ontologyService.getAncestorIds(
+            Arrays.asList("HP:0000002", "HP:0001434", "HP:0000001", "HP:9999999"));
+
+        Set<String> expected = new HashSet<>(Arrays.asList("HP:0001507", "HP:0000118", "HP:0000001"));
+        Assert.assertEquals(expected, result.get("HP:0000002"));
+        Assert.assertEquals(expected, result.get("HP:0001434"));
+        Assert.assertTrue(result.get("HP:0000001").isEmpty());
+        Assert.assertFalse(result.containsKey("HP:9999999"));
+        // Only the unknown identifier is looked up in the index
+        verify(this.server, Mockito.times(1)).query(any(SolrParams.class));
+    }
+
+    @Test
+    public void testHumanPhenotypeOntologyFailedHierarchyLoadIsOnlyRetriedAfterReindex() throws SolrServerException,
+        IOException
+    {
+        HumanPhenotypeOntology hpo = new HumanPhenotypeOntology();
+        ReflectionUtils.setFieldValue(hpo, "externalServicesAccess", this.externalServicesAccess);
+        ReflectionUtils.setFieldValue(hpo, "logger", mock(Logger.class));
+        when(this.server.query(any(SolrParams.class))).thenThrow(new SolrServerException("unavailable"));
+
+        Assert.assertTrue(hpo.getAncestorIds(Arrays.asList("HP:0000002")).isEmpty());
+        Assert.assertTrue(hpo.getAncestorIds(Arrays.asList("HP:0000002")).isEmpty());
+        // Counting the terms for loading the hierarchy is only done once, the term itself is looked up each time
+        verify(this.server, Mockito.times(3)).query(any(SolrParams.class));
+
+        Assert.assertEquals(0, hpo.reindex(this.getClass().getResource("/hpo-test.obo").toString()));
+        Assert.assertEquals(new HashSet<>(Arrays.asList("HP:0001507", "HP:0000118", "HP:0000001")),
+            hpo.getAncestorIds(Arrays.asList("HP:0000002")).get("HP:0000002"));
+        verify(this.server, Mockito.times(3)).query(any(SolrParams.class));
+    }
+
+    @Test
+    public void testHumanPhenotypeOntologyTermIdAccessors() throws SolrServerException, IOException
+    {
+        SolrDocument doc = new SolrDocument();
+        doc.setField("id", "HP:0000002");
+        SolrDocumentList docs = new SolrDocumentList();
+        docs.add(doc);
+        QueryResponse found = mock(QueryResponse.class);
+        when(found.getResults()).thenReturn(docs);
+        when(this.server.query(any(SolrParams.class))).thenReturn(found);
+
+        VocabularyTerm term = this.ontologyService.getTerm("HP:0000002");
+
+        Assert.assertEquals(new HashSet<>(Arrays.asList("HP:0001507")), term.getParentIds());
+        Assert.assertEquals(new HashSet<>(Arrays.asList("HP:0001507", "HP:0000118", "HP:0000001")),
+            term.getAncestorIds());
+        Assert.assertEquals(new HashSet<>(Arrays.asList("HP:0000002", "HP:0001507", "HP:0000118", "HP:0000001")),
+            term.getAncestorAndSelfIds());
+        // The identifiers are available without loading the ancestor terms
+        verify(this.server, Mockito.times(1)).query(any(SolrParams.class));
+    }
+
+    @Test
+    public void testHumanPhenotypeOntologySuggestUsesIndexBuiltWhileReindexing() throws SolrServerException,
+        IOException
+    {
+        SolrDocumentList docs = new SolrDocumentList();
+        for (String id : Arrays.asList("HP:0001507", "HP:0001510")) {
+            SolrDocument doc = new SolrDocument();
+            doc.setField("id", id);
+            docs.add(doc);
+        }
+        QueryResponse response = mock(QueryResponse.class);
+        when(this.server.query(any(SolrParams.class))).thenReturn(response);
+        when(response.getResults()).thenReturn(docs);
+        HumanPhenotypeOntology hpo = (HumanPhenotypeOntology) this.ontologyService;
+
+        List<VocabularyTerm> result = hpo.suggest("growt", 10);
+
+        // "Growth delay" is a shorter name than "Growth abnormality", the order of the fetched terms doesn't matter
+        Assert.assertEquals(2, result.size());
+        Assert.assertEquals("HP:0001510", result.get(0).getId());
+        Assert.assertEquals("HP:0001507", result.get(1).getId());
+        // Only the terms themselves are fetched, the matching doesn't query Solr
+        verify(this.server, Mockito.times(1)).query(any(SolrParams.class));
+        // Terms outside the phenotypic abnormalities aren't suggested
+        Assert.assertTrue(hpo.suggest("all", 10).isEmpty());
+        Assert.assertTrue(hpo.suggest(" ", 10).isEmpty());
+    }
+
+    private QueryResponse mockMisspelledResponse(int resultCount)
+    {
+        QueryResponse response = mock(QueryResponse.class);
+        SpellCheckResponse spellcheck = mock(SpellCheckResponse.class);
+        when(spellcheck.isCorrectlySpelled()).thenReturn(false);
+        when(spellcheck.getCollatedResult()).thenReturn("abnormality");
+        when(response.getSpellCheckResponse()).thenReturn(spellcheck);
+        SolrDocumentList docs = new SolrDocumentList();
+        for (int i = 1; i <= resultCount; ++i) {
+            SolrDocument doc = new SolrDocument();
+            doc.setField("id", "HP:000000" + i);
+            docs.add(doc);
+        }
+        docs.setMaxScore(1.0f);
+        when(response.getResults()).thenReturn(docs);
+        return response;
+    }
+
     class IsDisMaxQuery extends ArgumentMatcher<SolrParams>
     {
         @Override
@@ -37,13 +37,13 @@
 import javax.inject.Singleton;
 
 import org.apache.commons.lang3.StringUtils;
+import org.apache.solr.client.solrj.SolrClient;
 import org.apache.solr.client.solrj.SolrQuery;
 import org.apache.solr.client.solrj.SolrServerException;
 import org.apache.solr.client.solrj.response.QueryResponse;
 import org.apache.solr.client.solrj.util.ClientUtils;
 import org.apache.solr.common.SolrDocument;
 import org.apache.solr.common.SolrDocumentList;
-import org.apache.solr.common.SolrException;
 import org.apache.solr.common.SolrInputDocument;
 import org.apache.solr.common.params.CommonParams;
 import org.apache.solr.common.params.DisMaxParams;
@@ -164,21 +164,15 @@ private SolrParams produceDynamicSolrParams(String originalQuery, Integer rows,
     }
 
     @Override
-    public String getVersion()
+    protected String loadVersion() throws SolrServerException, IOException
     {
         SolrQuery query = new SolrQuery();
         query.setQuery("version:*");
         query.set(CommonParams.ROWS, "1");
-        try {
-            QueryResponse response = this.externalServicesAccess.getSolrConnection().query(query);
-            SolrDocumentList termList = response.getResults();
-            if (!termList.isEmpty()) {
-                return termList.get(0).getFieldValue("version").toString();
-            }
-        } catch (SolrServerException | SolrException ex) {
-            this.logger.warn("Failed to query vocabulary version: {}", ex.getMessage());
-        } catch (IOException ex) {
-            this.logger.error("IOException while getting vocabulary version", ex);
+        QueryResponse response = this.externalServicesAccess.getSolrConnection().query(query);
+        SolrDocumentList termList = response.getResults();
+        if (!termList.isEmpty()) {
+            return termList.get(0).getFieldValue("version").toString();
         }
         return null;
     }
@@ -186,38 +180,37 @@ public String getVersion()
     @Override
     public synchronized int reindex(String sourceURL)
     {
-        try {
-            Collection<SolrInputDocument> data = new OmimSourceParser(this.hpo, sourceURL).getData();
-            if (data.isEmpty()) {
-                return 2;
-            }
-            if (clear() == 1) {
-                return 1;
-            }
-            this.externalServicesAccess.getSolrConnection().add(data);
-            this.externalServicesAccess.getSolrConnection().commit();
-            this.externalServicesAccess.getTermCache().removeAll();
-        } catch (SolrServerException | IOException ex) {
-            this.logger.error("Failed to reindex OMIM: {}", ex.getMessage(), ex);
+        Collection<SolrInputDocument> data = new OmimSourceParser(this.hpo, sourceURL).getData();
+        if (data.isEmpty()) {
+            return 2;
+        }
+        // The current index keeps serving queries until the new one is complete, and stays untouched on failure
+        SolrClient replacement = createReplacementCore();
+        if (replacement == null) {
             return 1;
         }
-        return 0;
+        int result = replaceCore(index(data, replacement));
+        if (result == 0) {
+            invalidateCaches();
+        }
+        return result;
     }
 
     /**
-     * Delete all the data in the Solr index.
+     * Add the parsed data to an index.
      *
-     * @return {@code 0} if the command was successful, {@code 1} otherwise
+     * @param data the parsed OMIM records
+     * @param target the Solr core where the records are added
+     * @return {@code 0} if the indexing succeeded, {@code 1} if writing to the Solr server failed
      */
-    private int clear()
+    private int index(Collection<SolrInputDocument> data, SolrClient target)
     {
         try {
-            this.externalServicesAccess.getSolrConnection().deleteByQuery("*:*");
+            target.add(data);
+            target.commit();
             return 0;
-        } catch (SolrServerException ex) {
-            this.logger.error("SolrServerException while clearing the Solr index", ex);
-        } catch (IOException ex) {
-            this.logger.error("IOException while clearing the Solr index", ex);
+        } catch (SolrServerException | IOException ex) {
+            this.logger.error("Failed to reindex OMIM: {}", ex.getMessage(), ex);
         }
         return 1;
     }
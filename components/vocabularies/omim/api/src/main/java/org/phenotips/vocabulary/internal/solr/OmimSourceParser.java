@@ -18,7 +18,6 @@
 package org.phenotips.vocabulary.internal.solr;
 
 import org.phenotips.vocabulary.Vocabulary;
-import org.phenotips.vocabulary.VocabularyTerm;
 
 import java.io.BufferedReader;
 import java.io.IOException;
@@ -27,6 +26,7 @@
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 
@@ -122,8 +122,7 @@ public OmimSourceParser(Vocabulary hpo, String sourceURL)
                 new URL(sourceURL).openConnection().getInputStream()), ENCODING))) {
             transform(in);
             loadGenes();
-            loadSymptoms(true);
-            loadSymptoms(false);
+            loadSymptoms();
             loadGeneReviews();
             loadVersion();
         } catch (NullPointerException | CompressorException | IOException ex) {
@@ -198,51 +197,84 @@ private void loadField(String name, String value)
         }
     }
 
-    private void loadSymptoms(boolean positive)
+    private void loadSymptoms()
     {
-        String omimId = "";
-        String previousOmimId = null;
-        Set<String> ancestors = new HashSet<>();
+        Map<String, Set<String>> positive = loadAnnotations(true);
+        Map<String, Set<String>> negative = loadAnnotations(false);
+        // The ancestors of all the annotated phenotypes are fetched at once, instead of one HPO lookup per annotation
+        Set<String> hpoIds = new HashSet<>();
+        for (Set<String> annotations : positive.values()) {
+            hpoIds.addAll(annotations);
+        }
+        for (Set<String> annotations : negative.values()) {
+            hpoIds.addAll(annotations);
+        }
+        Map<String, Set<String>> hpoAncestors = this.hpo.getAncestorIds(hpoIds);
+        // Positive symptoms must be added first, since they're excluded from the negative ones
+        addAncestors(positive, hpoAncestors, true);
+        addAncestors(negative, hpoAncestors, false);
+    }
+
+    /**
+     * Read the OMIM-HPO links, storing the annotated phenotypes in the OMIM records.
+     *
+     * @param positive whether to load the symptoms or the phenotypes explicitly not present
+     * @return the identifiers of the annotated phenotypes, keyed by the OMIM identifier
+     */
+    private Map<String, Set<String>> loadAnnotations(boolean positive)
+    {
+        Map<String, Set<String>> result = new LinkedHashMap<>();
         try (BufferedReader in = new BufferedReader(
             new InputStreamReader(new URL(positive ? POSITIVE_ANNOTATIONS_URL : NEGATIVE_ANNOTATIONS_URL)
                 .openConnection().getInputStream(), ENCODING))) {
             for (CSVRecord row : CSVFormat.TDF.parse(in)) {
                 if ("OMIM".equals(row.get(0))) {
-                    omimId = row.get(1);
-                    addAncestors(previousOmimId, omimId, ancestors, positive);
-                    previousOmimId = omimId;
+                    String omimId = row.get(1);
                     SolrInputDocument term = this.data.get(omimId);
                     if (term != null) {
                         term.addField(positive ? "actual_symptom" : "actual_not_symptom", row.get(4));
                     }
-                    VocabularyTerm vterm = this.hpo.getTerm(row.get(4));
-                    if (vterm != null) {
-                        for (VocabularyTerm ancestor : vterm.getAncestorsAndSelf()) {
-                            ancestors.add(ancestor.getId());
-                        }
+                    Set<String> annotations = result.get(omimId);
+                    if (annotations == null) {
+                        annotations = new HashSet<>();
+                        result.put(omimId, annotations);
                     }
+                    annotations.add(row.get(4));
                 }
             }
-            addAncestors(omimId, null, ancestors, positive);
         } catch (IOException ex) {
             this.logger.error("Failed to load OMIM-HPO links: {}", ex.getMessage(), ex);
         }
+        return result;
     }
 
-    private void addAncestors(String previousOmimId, String newOmimId, Set<String> ancestors, boolean positive)
+    private void addAncestors(Map<String, Set<String>> annotations, Map<String, Set<String>> hpoAncestors,
+        boolean positive)
     {
-        if (previousOmimId == null || previousOmimId.equals(newOmimId)) {
-            return;
-        }
         final String symptomField = "symptom";
-        SolrInputDocument term = this.data.get(previousOmimId);
-        if (!positive) {
-            ancestors.removeAll(term.getFieldValues(symptomField));
-            term.addField("not_symptom", new HashSet<String>(ancestors));
-        } else {
-            term.addField(symptomField, new HashSet<String>(ancestors));
+        for (Map.Entry<String, Set<String>> entry : annotations.entrySet()) {
+            SolrInputDocument term = this.data.get(entry.getKey());
+            if (term == null) {
+                continue;
+            }
+            Set<String> ancestors = new HashSet<>();
+            for (String hpoId : entry.getValue()) {
+                Set<String> termAncestors = hpoAncestors.get(hpoId);
+                if (termAncestors != null) {
+                    ancestors.add(hpoId);
+                    ancestors.addAll(termAncestors);
+                }
+            }
+            if (!positive) {
+                Collection<Object> symptoms = term.getFieldValues(symptomField);
+                if (symptoms != null) {
+                    ancestors.removeAll(symptoms);
+                }
+                term.addField("not_symptom", ancestors);
+            } else {
+                term.addField(symptomField, ancestors);
+            }
         }
-        ancestors.clear();
     }
 
     private void loadGenes()